@@ -66,6 +66,9 @@ import org.jfree.data.time.TimeSeriesCollection;
  */
 public class BankHistoryPanel extends PluginPanel
 {
+	// Longer ranges are drawn from hourly or daily values
+	private static final int MAX_GRAPH_ENTRIES = 1000;
+
 	@Inject
 	@Setter
 	private BankHistoryConfig config;
@@ -425,11 +428,39 @@ public class BankHistoryPanel extends PluginPanel
 
 	private TimeSeriesCollection getDataset(String username)
 	{
-		BankValueHistoryContainer container = tracker.getBankValueHistory(username);
 		TimeSeriesCollection collection = new TimeSeriesCollection();
+		LocalDateTime start;
+		LocalDateTime end;
+
+		if (timeSelection != null)
+		{
+			start = SimpleTimeSelection.getPastTime(timeSelection);
+			end = LocalDateTime.now();
+		}
+		else
+		{
+			start = startDatePickerPanel.getLocalDateTime();
+			end = toDatePickerPanel.getLocalDateTime();
+		}
+
+		if (timeSelection == SimpleTimeSelection.ALL)
+		{
+			start = null;
+			end = null;
+		}
+		else if (start == null || end == null)
+		{
+			this.currentDataRange = new HashMap<>();
+			return collection;
+		}
+
+		BankValueHistoryContainer container = currentBankTab == -1
+			? null
+			: tracker.getBankValueHistory(username, currentBankTab, start, end, MAX_GRAPH_ENTRIES);
 
 		if (container == null)
 		{
+			this.currentDataRange = new HashMap<>();
 			return collection;
 		}
 
@@ -438,29 +469,10 @@ public class BankHistoryPanel extends PluginPanel
 		for (Map.Entry<LocalDateTime, BankValue> entry : container.getPricesMap().entrySet())
 		{
 			long price = entry.getValue().getBankValue();
-
 			LocalDateTime entryDateTime = entry.getKey();
-			LocalDateTime start;
-			LocalDateTime end;
 
-			if (timeSelection != null)
-			{
-				start = SimpleTimeSelection.getPastTime(timeSelection);
-				end = LocalDateTime.now();
-			}
-			else
-			{
-				start = startDatePickerPanel.getLocalDateTime();
-				end = toDatePickerPanel.getLocalDateTime();
-			}
-
-			if ((currentBankTab != -1 && currentBankTab == entry.getValue().getTab()) &&
-				(timeSelection == SimpleTimeSelection.ALL ||
-				end != null && start != null && onOrAfter(entryDateTime, start) && onOrBefore(entryDateTime, end)))
-			{
-				currentDataRange.put(entryDateTime.atZone(ZoneId.systemDefault()).toLocalDateTime(), price);
-				timeSeries.add(new Millisecond(Date.from(entryDateTime.atZone(ZoneId.systemDefault()).toInstant())), price);
-			}
+			currentDataRange.put(entryDateTime, price);
+			timeSeries.addOrUpdate(new Millisecond(Date.from(entryDateTime.atZone(ZoneId.systemDefault()).toInstant())), price);
 		}
 
 		this.currentDataRange = currentDataRange;
@@ -478,16 +490,6 @@ public class BankHistoryPanel extends PluginPanel
 		}
 	}
 
-	private boolean onOrBefore(LocalDateTime first, LocalDateTime second)
-	{
-		return first.compareTo(second) == 0 || first.isBefore(second);
-	}
-
-	private boolean onOrAfter(LocalDateTime first, LocalDateTime second)
-	{
-		return first.compareTo(second) == 0 || first.isAfter(second);
-	}
-
 	protected void setDatasetButton(boolean enabled)
 	{
 		if (addDatasetButton != null && addDatasetButton.isEnabled() != enabled)
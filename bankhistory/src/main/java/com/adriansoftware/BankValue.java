@@ -33,4 +33,7 @@ public class BankValue
 {
 	private final int tab;
 	private final long bankValue;
+	// High alchemy value, or -1 for entries recorded before it was tracked
+	@Builder.Default
+	private final long haValue = -1;
 }
@@ -0,0 +1,376 @@
+/*
+ * Copyright (c) 2020, Adrian Lee Elder <https://github.com/AdrianLeeElder>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.adriansoftware;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Bank value history for a single account, stored as one file per bank tab.
+ * Entries are fixed width (time, GE value, high alchemy value) and always appended in time order, so a range is
+ * found with a binary search rather than by reading the whole history. Each tab also has coarser copies holding
+ * only the last entry of every hour and day, which are used when a range has too many entries to draw.
+ */
+@RequiredArgsConstructor
+class BankValueHistoryStore
+{
+	private static final int RECORD_SIZE = 24;
+	// Appends and reads can come from the client and swing threads at the same time
+	private static final Object LOCK = new Object();
+
+	private final File directory;
+
+	@Getter
+	@RequiredArgsConstructor
+	private enum Resolution
+	{
+		ALL("", 0),
+		HOURLY("-hourly", 3_600_000L),
+		DAILY("-daily", 86_400_000L);
+
+		private final String suffix;
+		private final long bucketMillis;
+	}
+
+	/**
+	 * Appends entries to a tab. Entries older than the last one stored are moved up to its time, so the file stays
+	 * sorted if the system clock goes backwards.
+	 */
+	void append(int tab, SortedMap<LocalDateTime, BankValue> values) throws IOException
+	{
+		if (values.isEmpty())
+		{
+			return;
+		}
+
+		synchronized (LOCK)
+		{
+			directory.mkdirs();
+			updateResolutions(tab);
+
+			for (Resolution resolution : Resolution.values())
+			{
+				try (FileChannel channel = open(tab, resolution, true))
+				{
+					long count = count(channel);
+					long last = count == 0 ? Long.MIN_VALUE : readTime(channel, count - 1);
+
+					for (Map.Entry<LocalDateTime, BankValue> entry : values.entrySet())
+					{
+						long time = Math.max(toMillis(entry.getKey()), last);
+
+						// Coarser resolutions only keep the latest entry of each bucket
+						if (resolution != Resolution.ALL && count > 0 && bucket(resolution, time) == bucket(resolution, last))
+						{
+							count--;
+						}
+
+						write(channel, count++, time, entry.getValue());
+						last = time;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the time of the most recent entry for a tab, or null if there are none.
+	 */
+	LocalDateTime getLastEntryTime(int tab) throws IOException
+	{
+		synchronized (LOCK)
+		{
+			if (!file(tab, Resolution.ALL).exists())
+			{
+				return null;
+			}
+
+			try (FileChannel channel = open(tab, Resolution.ALL, false))
+			{
+				long count = count(channel);
+				return count == 0 ? null : toDateTime(readTime(channel, count - 1));
+			}
+		}
+	}
+
+	/**
+	 * Gets the entries for a tab between two times, inclusive. If there are more than `maxEntries` the result is
+	 * taken from the finest resolution that fits, along with the first and last entries so changes over the range
+	 * stay exact.
+	 *
+	 * @param start start of the range, or null for the start of the history
+	 * @param end   end of the range, or null for the end of the history
+	 */
+	NavigableMap<LocalDateTime, BankValue> getRange(int tab, LocalDateTime start, LocalDateTime end, int maxEntries) throws IOException
+	{
+		NavigableMap<LocalDateTime, BankValue> result = new TreeMap<>();
+		long from = start == null ? Long.MIN_VALUE : toMillis(start);
+		long to = end == null ? Long.MAX_VALUE : toMillis(end);
+
+		synchronized (LOCK)
+		{
+			if (!file(tab, Resolution.ALL).exists())
+			{
+				return result;
+			}
+
+			updateResolutions(tab);
+
+			try (FileChannel all = open(tab, Resolution.ALL, false))
+			{
+				long first = search(all, from, false);
+				long last = search(all, to, true);
+
+				if (last - first <= maxEntries)
+				{
+					read(all, tab, first, last, result);
+					return result;
+				}
+
+				for (Resolution resolution : Resolution.values())
+				{
+					if (resolution == Resolution.ALL)
+					{
+						continue;
+					}
+
+					try (FileChannel channel = open(tab, resolution, false))
+					{
+						long resolutionFirst = search(channel, from, false);
+						long resolutionLast = search(channel, to, true);
+
+						if (resolutionLast - resolutionFirst <= maxEntries || resolution == Resolution.DAILY)
+						{
+							read(channel, tab, resolutionFirst, resolutionLast, result);
+							break;
+						}
+					}
+				}
+
+				read(all, tab, first, first + 1, result);
+				read(all, tab, last - 1, last, result);
+			}
+		}
+
+		return result;
+	}
+
+	private FileChannel open(int tab, Resolution resolution, boolean write) throws IOException
+	{
+		File file = file(tab, resolution);
+		return write
+			? FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+			: FileChannel.open(file.toPath(), StandardOpenOption.READ);
+	}
+
+	/**
+	 * Coarser resolutions are only derived from the full history, so they're rebuilt if they're missing or weren't
+	 * written to before the client closed.
+	 */
+	private void updateResolutions(int tab) throws IOException
+	{
+		for (Resolution resolution : Resolution.values())
+		{
+			if (resolution != Resolution.ALL && isOutdated(tab, resolution))
+			{
+				rebuild(tab, resolution);
+			}
+		}
+	}
+
+	private boolean isOutdated(int tab, Resolution resolution) throws IOException
+	{
+		File file = file(tab, resolution);
+		File allFile = file(tab, Resolution.ALL);
+
+		if (!allFile.exists())
+		{
+			return false;
+		}
+
+		if (!file.exists())
+		{
+			return true;
+		}
+
+		try (FileChannel all = FileChannel.open(allFile.toPath(), StandardOpenOption.READ);
+			FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			long allCount = count(all);
+			long count = count(channel);
+
+			if (allCount == 0 || count == 0)
+			{
+				return allCount != count;
+			}
+
+			return readTime(all, allCount - 1) != readTime(channel, count - 1);
+		}
+	}
+
+	private void rebuild(int tab, Resolution resolution) throws IOException
+	{
+		try (FileChannel all = FileChannel.open(file(tab, Resolution.ALL).toPath(), StandardOpenOption.READ);
+			FileChannel channel = FileChannel.open(file(tab, resolution).toPath(),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			long allCount = count(all);
+			long count = 0;
+			long last = Long.MIN_VALUE;
+			ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+
+			for (long i = 0; i < allCount; i++)
+			{
+				record.clear();
+				all.read(record, i * RECORD_SIZE);
+				long time = record.getLong(0);
+
+				if (count > 0 && bucket(resolution, time) == bucket(resolution, last))
+				{
+					count--;
+				}
+
+				record.flip();
+				channel.write(record, count++ * RECORD_SIZE);
+				last = time;
+			}
+
+			channel.truncate(count * RECORD_SIZE);
+		}
+	}
+
+	/**
+	 * Finds the index of the first entry after the given time, or at it if `inclusive` is false.
+	 */
+	private static long search(FileChannel channel, long time, boolean inclusive) throws IOException
+	{
+		long low = 0;
+		long high = count(channel);
+
+		while (low < high)
+		{
+			long mid = (low + high) >>> 1;
+			long midTime = readTime(channel, mid);
+
+			if (midTime < time || inclusive && midTime == time)
+			{
+				low = mid + 1;
+			}
+			else
+			{
+				high = mid;
+			}
+		}
+
+		return low;
+	}
+
+	private static void read(FileChannel channel, int tab, long first, long last, Map<LocalDateTime, BankValue> result) throws IOException
+	{
+		if (first >= last)
+		{
+			return;
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate((int) ((last - first) * RECORD_SIZE));
+		long position = first * RECORD_SIZE;
+
+		while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) > 0)
+		{
+			// keep reading until the range is filled
+		}
+
+		buffer.flip();
+
+		while (buffer.remaining() >= RECORD_SIZE)
+		{
+			long time = buffer.getLong();
+			result.put(toDateTime(time),
+				BankValue
+					.builder()
+					.tab(tab)
+					.bankValue(buffer.getLong())
+					.haValue(buffer.getLong())
+					.build());
+		}
+	}
+
+	private static void write(FileChannel channel, long index, long time, BankValue value) throws IOException
+	{
+		ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+		record.putLong(time);
+		record.putLong(value.getBankValue());
+		record.putLong(value.getHaValue());
+		record.flip();
+		channel.write(record, index * RECORD_SIZE);
+	}
+
+	private static long readTime(FileChannel channel, long index) throws IOException
+	{
+		ByteBuffer time = ByteBuffer.allocate(Long.BYTES);
+		channel.read(time, index * RECORD_SIZE);
+		return time.getLong(0);
+	}
+
+	/**
+	 * Number of complete entries. A partly written entry at the end is ignored, and overwritten by the next append.
+	 */
+	private static long count(FileChannel channel) throws IOException
+	{
+		return channel.size() / RECORD_SIZE;
+	}
+
+	private static long bucket(Resolution resolution, long time)
+	{
+		return Math.floorDiv(time, resolution.getBucketMillis());
+	}
+
+	private File file(int tab, Resolution resolution)
+	{
+		return new File(directory, "tab" + tab + resolution.getSuffix() + ".dat");
+	}
+
+	private static long toMillis(LocalDateTime dateTime)
+	{
+		return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+	}
+
+	private static LocalDateTime toDateTime(long millis)
+	{
+		return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+	}
+}
@@ -26,20 +26,24 @@ package com.adriansoftware;
 
 import com.google.common.collect.ImmutableList;
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 import com.google.inject.Provides;
 import java.io.File;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 import javax.inject.Inject;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
@@ -76,6 +80,7 @@ public class BankValueHistoryTracker
 		RuneLiteAPI.GSON.newBuilder().registerTypeAdapter(BankValueHistoryContainer.class,
 			new BankValueHistoryDeserializer()).create();
 	private static final String EXTENTION = ".json";
+	private static final String MIGRATED_EXTENTION = ".migrated";
 
 	@Inject
 	private Client client;
@@ -107,46 +112,32 @@ public class BankValueHistoryTracker
 	 */
 	public void add(String username, BankValue bankValue)
 	{
-		BankValueHistoryContainer valueHistory = getBankValueHistory(username);
-		if (valueHistory != null)
+		try
 		{
-			valueHistory.addPrice(bankValue);
-			try (FileWriter writer = new FileWriter(getFileForUser(username)))
-			{
-				GSON.toJson(valueHistory, writer);
-			}
-			catch (IOException e)
-			{
-				log.error("Unable to write to price value cache", e);
-			}
-
-			log.debug("Adding bank value history entry {}", valueHistory);
+			getStore(username).append(bankValue.getTab(), new TreeMap<>(Map.of(LocalDateTime.now(), bankValue)));
+			log.debug("Adding bank value history entry {}", bankValue);
+		}
+		catch (IOException e)
+		{
+			log.error("Unable to write to price value cache", e);
 		}
 	}
 
 	/**
-	 * Gets the current bank value history from disk.
+	 * Gets the bank value history of a tab between two times from disk.
 	 *
-	 * @param username username associated with the bank value.
-	 * @return the retrieved bank value
+	 * @param username   username associated with the bank value.
+	 * @param tab        bank tab the values were recorded for
+	 * @param start      start of the range, or null for all history before end
+	 * @param end        end of the range, or null for all history after start
+	 * @param maxEntries number of entries above which the history is thinned out to hourly or daily values
+	 * @return the retrieved bank values
 	 */
-	public BankValueHistoryContainer getBankValueHistory(String username)
+	public BankValueHistoryContainer getBankValueHistory(String username, int tab, LocalDateTime start, LocalDateTime end, int maxEntries)
 	{
 		try
 		{
-			File playerHistoryFile = getFileForUser(username);
-
-			try (FileReader reader = new FileReader(getFileForUser(username)))
-			{
-				log.debug("Creating bank history cache file at {}", playerHistoryFile.getAbsolutePath());
-				BankValueHistoryContainer container = GSON.fromJson(reader, BankValueHistoryContainer.class);
-				if (container == null)
-				{
-					return new BankValueHistoryContainer();
-				}
-
-				return container;
-			}
+			return new BankValueHistoryContainer(getStore(username).getRange(tab, start, end, maxEntries));
 		}
 		catch (IOException e)
 		{
@@ -157,23 +148,62 @@ public class BankValueHistoryTracker
 	}
 
 	/**
-	 * Get the data file for a specific user
+	 * Get the history store for a specific user, moving over their old json history if there is one
 	 *
 	 * @param username user to get the data for
-	 * @return data file for user
+	 * @return history store for user
 	 */
-	public File getFileForUser(@NonNull String username) throws IOException
+	private static BankValueHistoryStore getStore(@NonNull String username) throws IOException
 	{
-		File file = new File(HISTORY_CACHE, username + EXTENTION);
+		BankValueHistoryStore store = new BankValueHistoryStore(new File(HISTORY_CACHE, username));
+		File legacyFile = new File(HISTORY_CACHE, username + EXTENTION);
 
-		if (!file.exists())
+		synchronized (BankValueHistoryTracker.class)
 		{
-			file.createNewFile();
+			if (legacyFile.exists())
+			{
+				migrate(legacyFile, store);
+			}
 		}
 
-		return file;
+		return store;
 	}
 
+	/**
+	 * Copies a json history into a store. The json file is kept with a {@link #MIGRATED_EXTENTION} suffix
+	 * rather than deleted.
+	 */
+	private static void migrate(File legacyFile, BankValueHistoryStore store) throws IOException
+	{
+		BankValueHistoryContainer container;
+		try (FileReader reader = new FileReader(legacyFile))
+		{
+			container = GSON.fromJson(reader, BankValueHistoryContainer.class);
+		}
+		catch (JsonParseException e)
+		{
+			throw new IOException("Unable to parse " + legacyFile.getName(), e);
+		}
+
+		if (container != null)
+		{
+			Map<Integer, SortedMap<LocalDateTime, BankValue>> tabs = new HashMap<>();
+			for (Map.Entry<LocalDateTime, BankValue> entry : container.getPricesMap().entrySet())
+			{
+				tabs.computeIfAbsent(entry.getValue().getTab(), t -> new TreeMap<>()).put(entry.getKey(), entry.getValue());
+			}
+
+			for (Map.Entry<Integer, SortedMap<LocalDateTime, BankValue>> tab : tabs.entrySet())
+			{
+				store.append(tab.getKey(), tab.getValue());
+			}
+
+			log.debug("Moved {} bank value history entries from {}", container.getPricesMap().size(), legacyFile.getName());
+		}
+
+		Files.move(legacyFile.toPath(), new File(HISTORY_CACHE, legacyFile.getName() + MIGRATED_EXTENTION).toPath(),
+			StandardCopyOption.REPLACE_EXISTING);
+	}
 
 	/**
 	 * Get all accounts that have tracking data from the local file cache.
@@ -182,19 +212,26 @@ public class BankValueHistoryTracker
 	 */
 	public List<String> getAvailableUsers()
 	{
-		List<String> result = new ArrayList<>();
+		Set<String> result = new LinkedHashSet<>();
 		File[] accountFiles = HISTORY_CACHE.listFiles();
 		if (accountFiles == null)
 		{
-			return result;
+			return new ArrayList<>(result);
 		}
 
 		for (File file : accountFiles)
 		{
-			result.add(file.getName().replace(EXTENTION, ""));
+			if (file.isDirectory())
+			{
+				result.add(file.getName());
+			}
+			else if (file.getName().endsWith(EXTENTION))
+			{
+				result.add(file.getName().replace(EXTENTION, ""));
+			}
 		}
 
-		return result;
+		return new ArrayList<>(result);
 	}
 
 	/**
@@ -205,22 +242,16 @@ public class BankValueHistoryTracker
 	 */
 	public LocalDateTime getLastDataEntry(String username, int tab)
 	{
-		BankValueHistoryContainer container = getBankValueHistory(username);
-		Set<LocalDateTime> times =
-			container
-			.getPricesMap()
-				.entrySet()
-				.parallelStream()
-				.filter(bv -> bv.getValue().getTab() == tab)
-				.map(Map.Entry::getKey)
-				.collect(Collectors.toSet());
-
-		if (times == null || times.isEmpty())
+		try
 		{
-			return null;
+			return getStore(username).getLastEntryTime(tab);
+		}
+		catch (IOException e)
+		{
+			log.error("Error reading/writing to the cache files", e);
 		}
 
-		return Collections.max(times);
+		return null;
 	}
 
 	/**
@@ -249,11 +280,13 @@ public class BankValueHistoryTracker
 
 			if (force || lastEntry == null || LocalDateTime.now().isAfter(nextUpdateTime))
 			{
+				ContainerPrices prices = bankCalculation.calculate(getBankTabItems());
 				BankValueHistoryTracker.this.add(client.getUsername(),
 					BankValue
 						.builder()
 						.tab(client.getVar(Varbits.CURRENT_BANK_TAB))
-						.bankValue(bankCalculation.calculate(getBankTabItems()))
+						.bankValue(prices.getGePrice())
+						.haValue(prices.getHighAlchPrice())
 						.build());
 
 				if (callback != null)
@@ -29,6 +29,7 @@ import java.util.HashMap;
 import java.util.Map;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
+import net.runelite.api.Constants;
 import net.runelite.api.Item;
 import net.runelite.api.ItemID;
 import net.runelite.client.game.ItemManager;
@@ -37,7 +38,7 @@ class ContainerCalculation
 {
 	private final ItemManager itemManager;
 	private int hash;
-	private Long gePrice;
+	private ContainerPrices prices;
 
 	@Inject
 	private ContainerCalculation(ItemManager itemManager)
@@ -46,18 +47,19 @@ class ContainerCalculation
 	}
 
 	@Nullable
-	long calculate(Item[] items)
+	ContainerPrices calculate(Item[] items)
 	{
 		// Returns last calculation if inventory hasn't changed
 		final int newHash =  hashItems(items);
-		if (gePrice != null && hash == newHash)
+		if (prices != null && hash == newHash)
 		{
-			return gePrice;
+			return prices;
 		}
 
 		hash = newHash;
 
 		long ge = 0;
+		long alch = 0;
 
 		for (final Item item : items)
 		{
@@ -73,17 +75,23 @@ class ContainerCalculation
 			{
 				case ItemID.COINS_995:
 					ge += qty;
+					alch += qty;
 					break;
 				case ItemID.PLATINUM_TOKEN:
 					ge += qty * 1000L;
+					alch += qty * 1000L;
 					break;
 				default:
+					final long storePrice = itemManager.getItemDefinition(id).getPrice();
+					final long alchPrice = (long) (storePrice * Constants.HIGH_ALCHEMY_MULTIPLIER);
 					ge += (long) itemManager.getItemPrice(id) * qty;
+					alch += alchPrice * qty;
 					break;
 			}
 		}
 
-		return ge;
+		prices = new ContainerPrices(ge, alch);
+		return prices;
 	}
 
 	private int hashItems(final Item[] items)
@@ -1,33 +1,86 @@
 package renderer.cache;
 
-import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
-import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import net.runelite.client.RuneLite;
 import renderer.loader.*;
 import renderer.model.AnimationDefinition;
 import renderer.model.ModelDefinition;
 import renderer.model.TextureDefinition;
 import renderer.model.TransformDefinition;
-import renderer.util.FastIntMap;
 import renderer.world.ObjectDefinition;
 import renderer.world.OverlayDefinition;
 import renderer.world.Region;
 import renderer.world.UnderlayDefinition;
 
-import java.lang.ref.SoftReference;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.zip.CRC32;
 
+/**
+ * Decoded definitions, in two tiers. The in-memory tier is a set of bounded LRU caches. Models and regions, which
+ * are the expensive ones to decode, are also kept in a {@link DiskStore} so they're only decoded once per cache
+ * version rather than once per launch.
+ */
 public class CacheSystem {
     public static final GameCache CACHE = new GameCache();
-    private static final Int2ObjectMap<SoftReference<ObjectDefinition>> objectDefinitions = new FastIntMap<>();
-    private static final Int2ObjectMap<SoftReference<UnderlayDefinition>> underlayDefinitions = new FastIntMap<>();
-    private static final Int2ObjectMap<SoftReference<OverlayDefinition>> overlayDefinitions = new FastIntMap<>();
-    private static final Int2ObjectMap<SoftReference<TextureDefinition>> textureDefinitions = new FastIntMap<>();
-    private static final Int2ObjectMap<SoftReference<ModelDefinition>> modelDefinitions = new FastIntMap<>();
-    private static final Int2ObjectMap<SoftReference<AnimationDefinition>> animationDefinitions = new FastIntMap<>();
-    private static final Int2ObjectMap<SoftReference<TransformDefinition>> transformDefinitions = new Int2ObjectOpenHashMap<>();
-    private static final Int2ObjectMap<SoftReference<TransformLoader.SkeletonDefinition>> skeletonDefinitions = new FastIntMap<>();
-    private static final SoftReference<Optional<Region>>[] regions = new SoftReference[256 * 256];
+    private static final Path STORE_PATH = RuneLite.RUNELITE_DIR.toPath().resolve("better-renderer/store.dat");
+    private static final int STORED_MODEL = 1;
+    private static final int STORED_REGION = 2;
+
+    private static final Cache<Integer, Optional<ObjectDefinition>> objectDefinitions = cache(16384);
+    private static final Cache<Integer, Optional<UnderlayDefinition>> underlayDefinitions = cache(4096);
+    private static final Cache<Integer, Optional<OverlayDefinition>> overlayDefinitions = cache(4096);
+    private static final Cache<Integer, Optional<TextureDefinition>> textureDefinitions = cache(4096);
+    private static final Cache<Integer, Optional<ModelDefinition>> modelDefinitions = cache(8192);
+    private static final Cache<Integer, Optional<AnimationDefinition>> animationDefinitions = cache(4096);
+    private static final Cache<Integer, Optional<TransformDefinition>> transformDefinitions = cache(4096);
+    private static final Cache<Integer, Optional<TransformLoader.SkeletonDefinition>> skeletonDefinitions = cache(1024);
+    private static final Cache<Integer, Optional<Region>> regions = cache(128);
+
+    private static final AtomicLong storeHits = new AtomicLong();
+    private static final AtomicLong storeMisses = new AtomicLong();
+    private static volatile DiskStore store;
+
+    /**
+     * Opens the disk tier. Its contents are discarded whenever the revision or the contents of the archives
+     * they're decoded from change.
+     */
+    public static void openStore(int revision) {
+        CRC32 crc = new CRC32();
+        ByteBuffer crcs = ByteBuffer.allocate(12);
+        crcs.putInt(CACHE.archive(2).crc).putInt(CACHE.archive(5).crc).putInt(CACHE.archive(7).crc);
+        crc.update(crcs.array());
+
+        try {
+            store = DiskStore.open(STORE_PATH, (long) revision << 32 | crc.getValue());
+        } catch (IOException e) {
+            System.err.println("Couldn't open the definition store, definitions will be decoded every launch");
+            e.printStackTrace();
+        }
+    }
+
+    public static void closeStore() {
+        DiskStore store = CacheSystem.store;
+        CacheSystem.store = null;
+
+        if (store != null) {
+            try {
+                store.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
 
     public static ObjectDefinition getObjectDefinition(int id) {
         return get(objectDefinitions, id, () -> ObjectLoader.load(id, CACHE.get(2, 6, id)));
@@ -38,7 +91,8 @@ public class CacheSystem {
     }
 
     public static ModelDefinition getModelDefinition(int id) {
-        return get(modelDefinitions, id, () -> ModelLoader.load(id, CACHE.get(7, id, 0)));
+        return get(modelDefinitions, id, () -> stored(STORED_MODEL, id, DefinitionCodec::decodeModel, DefinitionCodec::encodeModel,
+                () -> ModelLoader.load(id, CACHE.get(7, id, 0))));
     }
 
     public static OverlayDefinition getOverlayDefinition(int id) {
@@ -62,6 +116,18 @@ public class CacheSystem {
     }
 
     public static Region loadRegion(int x, int y) {
+        DiskStore store = CacheSystem.store;
+        byte[] stored = read(store, STORED_REGION, x << 8 | y);
+
+        if (stored != null) {
+            return DefinitionCodec.decodeRegion(x, y, stored);
+        }
+
+        if (CACHE.archive(5).group("m" + x + "_" + y) == null) {
+            write(store, STORED_REGION, x << 8 | y, DefinitionCodec.encodeRegion(null));
+            return null;
+        }
+
         Region region = new Region(x, y);
 
         byte[] terrain = null;
@@ -69,7 +135,7 @@ public class CacheSystem {
 
         try {
             terrain = CACHE.archive(5).group("m" + x + "_" + y).file(0);
-            locations = CACHE.archive(5).group("l" + x + "_" + y).file(0);
+            locations = CACHE.regionLocations(x, y);
         } catch (Exception e) {
             System.err.println("Couldn't load region (" + x + ", " + y + ")");
         }
@@ -84,46 +150,106 @@ public class CacheSystem {
             region.loadLocations(RegionLoader.loadLocations(locations));
         }
 
+        // A region whose locations couldn't be decrypted is only kept in memory, so it's loaded properly once
+        // the key is known
+        if (locations != null || CACHE.archive(5).group("l" + x + "_" + y) == null) {
+            write(store, STORED_REGION, x << 8 | y, DefinitionCodec.encodeRegion(region));
+        }
+
         return region;
     }
 
     public static Region region(int regionX, int regionY) {
-        SoftReference<Optional<Region>> ref = regions[regionX * 256 + regionY];
-        Optional<Region> region = ref == null ? null : ref.get();
-
-        if (region == null) {
-            synchronized (CacheSystem.class) {
-                ref = regions[regionX * 256 + regionY];
-                region = ref == null ? null : ref.get();
-
-                if (region == null) {
-                    region = Optional.ofNullable(loadRegion(regionX, regionY));
-                    regions[regionX * 256 + regionY] = new SoftReference<>(region);
-                }
-            }
+        return get(regions, regionX * 256 + regionY, () -> loadRegion(regionX, regionY));
+    }
+
+    public static String stats() {
+        DiskStore store = CacheSystem.store;
+        StringBuilder stats = new StringBuilder();
+        stats(stats, "objects", objectDefinitions);
+        stats(stats, "underlays", underlayDefinitions);
+        stats(stats, "overlays", overlayDefinitions);
+        stats(stats, "textures", textureDefinitions);
+        stats(stats, "models", modelDefinitions);
+        stats(stats, "animations", animationDefinitions);
+        stats(stats, "transforms", transformDefinitions);
+        stats(stats, "skeletons", skeletonDefinitions);
+        stats(stats, "regions", regions);
+        stats.append("store: ").append(storeHits.get()).append(" hits, ").append(storeMisses.get()).append(" misses");
+
+        if (store != null) {
+            stats.append(", ").append(store.size()).append(" records, ").append(store.sizeInBytes() / 1024).append(" KiB");
         }
 
-        return region.orElse(null);
+        return stats.toString();
+    }
+
+    private static void stats(StringBuilder out, String name, Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        out.append(name).append(": ").append(cache.size()).append(" cached, ")
+                .append(stats.hitCount()).append(" hits, ")
+                .append(stats.missCount()).append(" misses, ")
+                .append(stats.evictionCount()).append(" evictions\n");
     }
 
-    private static <T> T get(Int2ObjectMap<SoftReference<T>> cache, int id, Supplier<T> supplier) {
-        SoftReference<T> ref = cache.get(id);
+    private static <T> Cache<Integer, Optional<T>> cache(int size) {
+        return CacheBuilder.newBuilder()
+                .maximumSize(size)
+                .concurrencyLevel(Runtime.getRuntime().availableProcessors() + 2)
+                .recordStats()
+                .build();
+    }
 
-        if (ref == null) {
-            T t = supplier.get();
-            cache.put(id, new SoftReference<>(t));
-            return t;
+    private static <T> T get(Cache<Integer, Optional<T>> cache, int id, Supplier<T> supplier) {
+        try {
+            return cache.get(id, () -> Optional.ofNullable(supplier.get())).orElse(null);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new RuntimeException(e.getCause());
         }
+    }
 
-        T t = ref.get();
+    private static <T> T stored(int type, int id, Function<byte[], T> decoder, Function<T, byte[]> encoder, Supplier<T> loader) {
+        DiskStore store = CacheSystem.store;
+        byte[] data = read(store, type, id);
 
-        if (t == null) {
-            t = supplier.get();
-            ref = new SoftReference<>(t);
-            cache.put(id, ref);
-            return t;
+        if (data != null) {
+            return decoder.apply(data);
+        }
+
+        T t = loader.get();
+
+        if (t != null) {
+            write(store, type, id, encoder.apply(t));
         }
 
         return t;
     }
+
+    private static byte[] read(DiskStore store, int type, int id) {
+        if (store == null) {
+            return null;
+        }
+
+        try {
+            byte[] data = store.read(type << 24 | id);
+            (data == null ? storeMisses : storeHits).incrementAndGet();
+            return data;
+        } catch (IOException e) {
+            storeMisses.incrementAndGet();
+            return null;
+        }
+    }
+
+    private static void write(DiskStore store, int type, int id, byte[] data) {
+        if (store == null) {
+            return;
+        }
+
+        try {
+            store.write(type << 24 | id, data);
+        } catch (IOException e) {
+            System.err.println("Couldn't store definition " + type + "/" + id);
+        }
+    }
 }
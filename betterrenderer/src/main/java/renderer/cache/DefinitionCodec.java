@@ -0,0 +1,281 @@
+package renderer.cache;
+
+import renderer.model.ModelDefinition;
+import renderer.world.Location;
+import renderer.world.LocationType;
+import renderer.world.OverlayShape;
+import renderer.world.Position;
+import renderer.world.Region;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Binary form of decoded definitions for the {@link DiskStore}. Unlike the cache's own formats these hold the
+ * results of decoding: model colors are already converted, normals are already calculated and region heights already
+ * include the generated terrain noise, so reading them back is a straight copy.
+ */
+public final class DefinitionCodec {
+    private DefinitionCodec() {
+    }
+
+    public static byte[] encodeModel(ModelDefinition model) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + model.vertices.size() * 28 + model.faces.size() * 28);
+            DataOutputStream out = new DataOutputStream(bytes);
+
+            out.writeInt(model.id);
+            out.writeByte(model.priority);
+            out.writeBoolean(model.translucent);
+
+            Map<ModelDefinition.Vertex, Integer> vertexIndices = new IdentityHashMap<>();
+            out.writeInt(model.vertices.size());
+
+            for (ModelDefinition.Vertex vertex : model.vertices) {
+                vertexIndices.put(vertex, vertexIndices.size());
+                out.writeInt(vertex.x);
+                out.writeInt(vertex.y);
+                out.writeInt(vertex.z);
+                out.writeInt(vertex.label);
+                out.writeInt(vertex.index);
+                out.writeFloat((float) vertex.normal.x);
+                out.writeFloat((float) vertex.normal.y);
+                out.writeFloat((float) vertex.normal.z);
+            }
+
+            out.writeInt(model.faces.size());
+
+            for (ModelDefinition.Face face : model.faces) {
+                out.writeInt(vertexIndices.get(face.a));
+                out.writeInt(vertexIndices.get(face.b));
+                out.writeInt(vertexIndices.get(face.c));
+                out.writeInt(face.color);
+                out.writeInt(face.transparency);
+                out.writeByte(face.priority);
+                out.writeByte(face.renderType);
+                out.writeInt(face.texture);
+                out.writeInt(face.label);
+                out.writeByte(face.textureCoordinates);
+            }
+
+            out.writeInt(model.textureTriangleCount);
+            writeShorts(out, model.textureTriangleVertexIndices1);
+            writeShorts(out, model.textureTriangleVertexIndices2);
+            writeShorts(out, model.textureTriangleVertexIndices3);
+            writeShorts(out, model.texturePrimaryColors);
+            writeBytes(out, model.textureRenderTypes);
+            writeShorts(out, model.unknown1);
+            writeShorts(out, model.unknown2);
+            writeShorts(out, model.unknown3);
+            writeShorts(out, model.unknown4);
+            writeBytes(out, model.unknown5);
+            writeShorts(out, model.unknown6);
+
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static ModelDefinition decodeModel(byte[] data) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            ModelDefinition model = new ModelDefinition();
+
+            model.id = in.readInt();
+            model.priority = in.readByte();
+            model.translucent = in.readBoolean();
+
+            int vertexCount = in.readInt();
+            ModelDefinition.Vertex[] vertices = new ModelDefinition.Vertex[vertexCount];
+
+            for (int i = 0; i < vertexCount; i++) {
+                ModelDefinition.Vertex vertex = new ModelDefinition.Vertex();
+                vertex.x = in.readInt();
+                vertex.y = in.readInt();
+                vertex.z = in.readInt();
+                vertex.label = in.readInt();
+                vertex.index = in.readInt();
+                vertex.normal.set(in.readFloat(), in.readFloat(), in.readFloat());
+                vertices[i] = vertex;
+                model.vertices.add(vertex);
+            }
+
+            int faceCount = in.readInt();
+
+            for (int i = 0; i < faceCount; i++) {
+                ModelDefinition.Face face = new ModelDefinition.Face();
+                face.a = vertices[in.readInt()];
+                face.b = vertices[in.readInt()];
+                face.c = vertices[in.readInt()];
+                face.color = in.readInt();
+                face.transparency = in.readInt();
+                face.priority = in.readByte();
+                face.renderType = in.readByte();
+                face.texture = in.readInt();
+                face.label = in.readInt();
+                face.textureCoordinates = in.readByte();
+                model.faces.add(face);
+            }
+
+            model.textureTriangleCount = in.readInt();
+            model.textureTriangleVertexIndices1 = readShorts(in);
+            model.textureTriangleVertexIndices2 = readShorts(in);
+            model.textureTriangleVertexIndices3 = readShorts(in);
+            model.texturePrimaryColors = readShorts(in);
+            model.textureRenderTypes = readBytes(in);
+            model.unknown1 = readShorts(in);
+            model.unknown2 = readShorts(in);
+            model.unknown3 = readShorts(in);
+            model.unknown4 = readShorts(in);
+            model.unknown5 = readBytes(in);
+            model.unknown6 = readShorts(in);
+
+            return model;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Encodes a region's terrain and locations. Definitions are written as their ids and looked up again through
+     * the {@link CacheSystem} when the region is decoded. An empty array stands for a region that doesn't exist.
+     */
+    public static byte[] encodeRegion(Region region) {
+        if (region == null) {
+            return new byte[0];
+        }
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(4 * 64 * 64 * 8 + region.locations.size() * 9);
+            DataOutputStream out = new DataOutputStream(bytes);
+
+            for (int z = 0; z < 4; z++) {
+                for (int x = 0; x < 64; x++) {
+                    for (int y = 0; y < 64; y++) {
+                        OverlayShape shape = region.overlayShapes[z][x][y];
+                        out.writeInt(region.heights[z][x][y]);
+                        out.writeByte(region.settings[z][x][y]);
+                        out.writeByte(region.overlays[z][x][y] == null ? 0 : region.overlays[z][x][y].id + 1);
+                        out.writeByte((shape == null ? 0 : shape.ordinal() + 1) << 2 | region.overlayRotations[z][x][y] & 0b11);
+                        out.writeByte(region.underlays[z][x][y] == null ? 0 : region.underlays[z][x][y].id + 1);
+                    }
+                }
+            }
+
+            out.writeInt(region.locations.size());
+
+            for (Location location : region.locations) {
+                out.writeInt(location.object.id);
+                out.writeByte(location.type.ordinal());
+                out.writeByte(location.rotation);
+                out.writeByte(location.position.x & 0x3f);
+                out.writeByte(location.position.y & 0x3f);
+                out.writeByte(location.position.z);
+            }
+
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static Region decodeRegion(int regionX, int regionY, byte[] data) {
+        if (data.length == 0) {
+            return null;
+        }
+
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            Region region = new Region(regionX, regionY);
+            OverlayShape[] shapes = OverlayShape.values();
+
+            for (int z = 0; z < 4; z++) {
+                for (int x = 0; x < 64; x++) {
+                    for (int y = 0; y < 64; y++) {
+                        region.heights[z][x][y] = in.readInt();
+                        region.settings[z][x][y] = in.readByte();
+
+                        int overlay = in.readUnsignedByte();
+                        int shape = in.readUnsignedByte();
+                        int underlay = in.readUnsignedByte();
+
+                        region.overlays[z][x][y] = overlay == 0 ? null : CacheSystem.getOverlayDefinition(overlay - 1);
+                        region.overlayShapes[z][x][y] = (shape >> 2) == 0 ? null : shapes[(shape >> 2) - 1];
+                        region.overlayRotations[z][x][y] = (byte) (shape & 0b11);
+                        region.underlays[z][x][y] = underlay == 0 ? null : CacheSystem.getUnderlayDefinition(underlay - 1);
+                    }
+                }
+            }
+
+            int locationCount = in.readInt();
+            LocationType[] types = LocationType.values();
+            int baseX = regionX << 6;
+            int baseY = regionY << 6;
+
+            for (int i = 0; i < locationCount; i++) {
+                int object = in.readInt();
+                LocationType type = types[in.readUnsignedByte()];
+                int rotation = in.readUnsignedByte();
+                Position position = new Position(baseX + in.readUnsignedByte(), baseY + in.readUnsignedByte(), in.readUnsignedByte());
+                region.locations.add(new Location(CacheSystem.getObjectDefinition(object), type, rotation, position));
+            }
+
+            return region;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeShorts(DataOutputStream out, short[] values) throws IOException {
+        out.writeInt(values == null ? -1 : values.length);
+
+        if (values != null) {
+            for (short value : values) {
+                out.writeShort(value);
+            }
+        }
+    }
+
+    private static short[] readShorts(DataInputStream in) throws IOException {
+        int length = in.readInt();
+
+        if (length == -1) {
+            return null;
+        }
+
+        short[] values = new short[length];
+
+        for (int i = 0; i < length; i++) {
+            values[i] = in.readShort();
+        }
+
+        return values;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] values) throws IOException {
+        out.writeInt(values == null ? -1 : values.length);
+
+        if (values != null) {
+            out.write(values);
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+
+        if (length == -1) {
+            return null;
+        }
+
+        byte[] values = new byte[length];
+        in.readFully(values);
+        return values;
+    }
+}
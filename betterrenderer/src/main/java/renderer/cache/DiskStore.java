@@ -0,0 +1,170 @@
+package renderer.cache;
+
+import it.unimi.dsi.fastutil.ints.Int2LongMap;
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A single file of records keyed by int, read through a memory mapping. Records are only ever appended, each as
+ * its key, its length and its data, and the index is rebuilt by walking the record headers when the file is opened.
+ * <p>
+ * The header holds a stamp identifying the cache the records were decoded from. When it doesn't match the stamp
+ * the store is opened with, every record is dropped.
+ * <p>
+ * The file is locked while it's open, since each store appends at the end it saw on opening. Opening fails when
+ * another client already has it open.
+ */
+public class DiskStore implements Closeable {
+    private static final int MAGIC = 0x42525354;
+    private static final int FORMAT = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private final FileChannel channel;
+    private final Int2LongMap index = new Int2LongOpenHashMap();
+    private MappedByteBuffer mapped;
+    private long end;
+
+    private DiskStore(FileChannel channel) {
+        this.channel = channel;
+        index.defaultReturnValue(-1);
+    }
+
+    public static DiskStore open(Path path, long stamp) throws IOException {
+        Files.createDirectories(path.getParent());
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        DiskStore store = new DiskStore(channel);
+
+        try {
+            FileLock lock;
+
+            try {
+                lock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+
+            if (lock == null) {
+                throw new IOException(path + " is in use by another client");
+            }
+
+            store.load(stamp);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+
+        return store;
+    }
+
+    private void load(long stamp) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+        if (channel.size() < HEADER_SIZE || channel.read(header, 0) != HEADER_SIZE ||
+                header.getInt(0) != MAGIC || header.getInt(4) != FORMAT || header.getLong(8) != stamp) {
+            channel.truncate(0);
+            header.clear();
+            header.putInt(MAGIC).putInt(FORMAT).putLong(stamp).flip();
+            channel.write(header, 0);
+            end = HEADER_SIZE;
+            return;
+        }
+
+        long size = channel.size();
+        long position = HEADER_SIZE;
+        ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+
+        while (position + RECORD_HEADER_SIZE <= size) {
+            recordHeader.clear();
+            channel.read(recordHeader, position);
+            int key = recordHeader.getInt(0);
+            int length = recordHeader.getInt(4);
+
+            if (length < 0 || position + RECORD_HEADER_SIZE + length > size) {
+                break;
+            }
+
+            index.put(key, position);
+            position += RECORD_HEADER_SIZE + length;
+        }
+
+        // Drop a record that was cut short by a crash, so the next one is appended after a complete record
+        if (position < size) {
+            channel.truncate(position);
+        }
+
+        end = position;
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, end);
+    }
+
+    public synchronized boolean contains(int key) {
+        return index.containsKey(key);
+    }
+
+    /**
+     * Returns the data stored for the key, or null if there is none.
+     */
+    public synchronized byte[] read(int key) throws IOException {
+        long position = index.get(key);
+
+        if (position == -1) {
+            return null;
+        }
+
+        // Records appended since the file was last mapped aren't covered by the mapping yet
+        if (mapped == null || position >= mapped.capacity()) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, end);
+        }
+
+        ByteBuffer record = mapped.duplicate();
+        record.position((int) position + 4);
+        byte[] data = new byte[record.getInt()];
+        record.get(data);
+        return data;
+    }
+
+    /**
+     * Appends a record, unless the key already has one.
+     */
+    public synchronized void write(int key, byte[] data) throws IOException {
+        if (index.containsKey(key) || end + RECORD_HEADER_SIZE + data.length > Integer.MAX_VALUE) {
+            return;
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + data.length);
+        record.putInt(key).putInt(data.length).put(data).flip();
+
+        long position = end;
+
+        while (record.hasRemaining()) {
+            position += channel.write(record, position);
+        }
+
+        index.put(key, end);
+        end = position;
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    public synchronized long sizeInBytes() {
+        return end;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        mapped = null;
+        channel.close();
+    }
+}
@@ -14,11 +14,13 @@ import java.lang.reflect.Type;
 import java.net.Socket;
 import java.nio.file.Files;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Map;
 
 public class GameCache {
     public static final int ARCHIVE_COUNT = 21;
     private final Int2ObjectMap<Archive> archives = new FastIntMap<>();
+    private Map<Integer, int[]> keys = Collections.emptyMap();
 
     public void init(int world, int revision) throws IOException {
         Socket socket = new Socket("oldschool" + (world - 300) + ".runescape.com", 43594);
@@ -50,31 +52,41 @@ public class GameCache {
         });
 
         while (!Js5.tick(out, in)) ;
-        decrypt();
+        loadKeys();
     }
 
-    private void decrypt() {
+    private void loadKeys() {
         try {
             Type type = new TypeToken<Map<Integer, int[]>>() {
             }.getType();
-            Map<Integer, int[]> keys = new Gson().fromJson(Files.newBufferedReader(RuneLite.RUNELITE_DIR.toPath().resolve("better-renderer/xtea.json")), type);
+            keys = new Gson().fromJson(Files.newBufferedReader(RuneLite.RUNELITE_DIR.toPath().resolve("better-renderer/xtea.json")), type);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
 
-            for (Map.Entry<Integer, int[]> entry : keys.entrySet()) {
-                int region = entry.getKey();
-                int[] key = entry.getValue();
+    /**
+     * Returns the locations file of a region, decrypting its group the first time it's needed rather than
+     * decrypting every region up front.
+     */
+    public synchronized byte[] regionLocations(int regionX, int regionY) {
+        Group group = archive(5).group("l" + regionX + "_" + regionY);
 
-                int regionX = (region >> 8) & 0xff;
-                int regionY = region & 0xff;
+        if (group == null) {
+            return null;
+        }
 
-                try {
-                    archive(5).group("l" + regionX + "_" + regionY).buildFiles(key);
-                } catch (Exception e) {
-                    System.err.println("Region (" + regionX + ", " + regionY + ") could not be decrypted with key " + Arrays.toString(key));
-                }
+        if (group.files == null) {
+            int[] key = keys.get(regionX << 8 | regionY);
+
+            try {
+                group.buildFiles(key);
+            } catch (Exception e) {
+                throw new IllegalStateException("Region (" + regionX + ", " + regionY + ") could not be decrypted with key " + Arrays.toString(key), e);
             }
-        } catch (IOException e) {
-            throw new AssertionError(e);
         }
+
+        return group.file(0);
     }
 
     public Archive archive(int id) {
@@ -19,6 +19,7 @@ public class GlProgram implements AutoCloseable {
     private final int fogColorUniformLocation;
     private final int cameraPositionUniformLocation;
     private final int gammaUniformLocation;
+    private final int originUniformLocation;
 
     public GlProgram(String vertexShader, String fragmentShader) {
         program = glCreateProgram();
@@ -36,6 +37,7 @@ public class GlProgram implements AutoCloseable {
         fogColorUniformLocation = getUniformLocation("fog_color");
         cameraPositionUniformLocation = getUniformLocation("camera_position");
         gammaUniformLocation = getUniformLocation("gamma");
+        originUniformLocation = getUniformLocation("origin");
         positionAttributeLocation = getAttributeLocation("position");
         colorAttributeLocation = getAttributeLocation("color");
         priorityAttributeLocation = getAttributeLocation("priority");
@@ -78,15 +80,17 @@ public class GlProgram implements AutoCloseable {
         glBindBuffer(GL_ARRAY_BUFFER, vertexBuffer.buffer);
         vertexBuffer.bind();
 
-        glVertexAttribPointer(positionAttributeLocation, 3, GL_FLOAT, false, BufferBuilder.VERTEX_SIZE, 0);
-        glEnableVertexAttribArray(positionAttributeLocation);
+        glUniform3f(originUniformLocation, vertexBuffer.originX, vertexBuffer.originY, 0);
 
-        glVertexAttribIPointer(colorAttributeLocation, 1, GL_INT, BufferBuilder.VERTEX_SIZE, 24);
-        glEnableVertexAttribArray(colorAttributeLocation);
+        glVertexAttribPointer(positionAttributeLocation, 3, GL_SHORT, false, BufferBuilder.VERTEX_SIZE, 0);
+        glEnableVertexAttribArray(positionAttributeLocation);
 
-        glVertexAttribPointer(priorityAttributeLocation, 1, GL_FLOAT, false, BufferBuilder.VERTEX_SIZE, 28);
+        glVertexAttribPointer(priorityAttributeLocation, 1, GL_SHORT, false, BufferBuilder.VERTEX_SIZE, 6);
         glEnableVertexAttribArray(priorityAttributeLocation);
 
+        glVertexAttribIPointer(colorAttributeLocation, 1, GL_INT, BufferBuilder.VERTEX_SIZE, 8);
+        glEnableVertexAttribArray(colorAttributeLocation);
+
         vertexBuffer.draw();
     }
 
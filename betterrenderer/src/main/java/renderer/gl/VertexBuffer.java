@@ -7,10 +7,14 @@ import static org.lwjgl.opengl.GL32C.*;
 public class VertexBuffer implements AutoCloseable {
     public final int buffer;
     public final int vertexArray;
+    public final int originX;
+    public final int originY;
     private int vertexCount;
     private boolean closed = false;
 
-    public VertexBuffer() {
+    public VertexBuffer(int originX, int originY) {
+        this.originX = originX;
+        this.originY = originY;
         buffer = glGenBuffers();
         vertexArray = glGenVertexArrays();
     }
@@ -54,7 +54,7 @@ public interface BetterRendererConfig extends Config {
         return -20;
     }
 
-    @ConfigItem(keyName = "loadingCacheOverlay", name = "Loading cache overlay", description = "If enabled, an overlay will indicate when game caches are being downloaded")
+    @ConfigItem(keyName = "loadingCacheOverlay", name = "Loading cache overlay", description = "If enabled, an overlay will indicate when game caches are being downloaded and chunks are being built")
     default boolean loadingCacheOverlay() {
         return true;
     }
@@ -23,6 +23,8 @@ import org.lwjgl.system.Platform;
 import org.lwjgl.system.windows.RECT;
 import org.lwjgl.system.windows.User32;
 import org.pf4j.Extension;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import renderer.cache.CacheSystem;
 import renderer.model.TextureDefinition;
 import renderer.renderer.BufferBuilder;
@@ -60,6 +62,7 @@ import static org.lwjgl.opengl.GL32C.*;
 	enabledByDefault = false
 )
 public class BetterRendererPlugin extends Plugin implements DrawCallbacks {
+    private static final Logger log = LoggerFactory.getLogger(BetterRendererPlugin.class);
     private static final String XTEA_LOCATION = "https://gist.githubusercontent.com/Runemoro/d68a388aeb35ad432adf8af027eae832/raw/xtea.json";
     @Inject public Client client;
     @Inject public BetterRendererConfig config;
@@ -73,7 +76,7 @@ public class BetterRendererPlugin extends Plugin implements DrawCallbacks {
     public Renderer renderer;
     private WorldRenderer dynamicBuffer;
     private boolean hasFrame = false;
-    private final FramerateTracker framerateTracker = new FramerateTracker(10);
+    final FramerateTracker framerateTracker = new FramerateTracker(120);
 
     private int interfaceTexture = -1;
     private int lastCanvasWidth = -1;
@@ -140,12 +143,11 @@ public class BetterRendererPlugin extends Plugin implements DrawCallbacks {
                 Files.createDirectories(xteaPath.getParent());
                 Files.write(xteaPath, Util.readAllBytes(new URL(XTEA_LOCATION).openStream()));
                 CacheSystem.CACHE.init(client.getWorld(), client.getRevision());
+                CacheSystem.openStore(client.getRevision());
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
 
-            overlayManager.remove(loadingCacheOverlay);
-
             clientThread.invoke(this::init);
         });
 
@@ -195,7 +197,7 @@ public class BetterRendererPlugin extends Plugin implements DrawCallbacks {
 
         createInterfaceTexture();
         renderer = new Renderer();
-        dynamicBuffer = new WorldRenderer(renderer.world);
+        dynamicBuffer = createDynamicBuffer();
         renderer.init();
 
         try {
@@ -210,6 +212,11 @@ public class BetterRendererPlugin extends Plugin implements DrawCallbacks {
         detachCanvas();
     }
 
+    private WorldRenderer createDynamicBuffer() {
+        // Everything the client draws is within its 104x104 scene, so positions relative to the center stay in range
+        return new WorldRenderer(renderer.world, client.getBaseX() + 52, client.getBaseY() + 52);
+    }
+
     @Override
     protected void shutDown() {
         clientThread.invoke(() -> {
@@ -221,6 +228,9 @@ public class BetterRendererPlugin extends Plugin implements DrawCallbacks {
 
             }
 
+            log.debug("Cache stats:\n{}", CacheSystem.stats());
+            CacheSystem.closeStore();
+
             client.setDrawCallbacks(null);
             client.setGpu(false);
 
@@ -447,7 +457,7 @@ public class BetterRendererPlugin extends Plugin implements DrawCallbacks {
         // Submit frame render task to the executor
         WorldRenderer localDynamic = dynamicBuffer;
 
-        dynamicBuffer = new WorldRenderer(renderer.world);
+        dynamicBuffer = createDynamicBuffer();
 
         if (config.offThreadRendering() && Platform.get() == Platform.WINDOWS) {
             frameFuture = executor.submit(() -> {
@@ -13,7 +13,7 @@ public class FramerateTracker {
         this.averageOver = averageOver;
     }
 
-    public void nextFrame() {
+    public synchronized void nextFrame() {
         long time = System.nanoTime();
 
         if (lastTime != -1) {
@@ -32,4 +32,18 @@ public class FramerateTracker {
     public double fps() {
         return fps;
     }
+
+    /**
+     * Returns the given percentile of the recent frame times, in milliseconds.
+     */
+    public synchronized double frameTimePercentile(double percentile) {
+        int[] sorted = frameTimes.stream().mapToInt(x -> x).sorted().toArray();
+
+        if (sorted.length == 0) {
+            return 0;
+        }
+
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1000000.;
+    }
 }
@@ -4,6 +4,7 @@ import net.runelite.api.Client;
 import net.runelite.client.ui.FontManager;
 import net.runelite.client.ui.overlay.Overlay;
 import net.runelite.client.ui.overlay.OverlayPosition;
+import renderer.renderer.ChunkRenderScheduler;
 
 import javax.inject.Inject;
 import java.awt.*;
@@ -22,21 +23,45 @@ public class LoadingCacheOverlay extends Overlay {
 
     @Override
     public Dimension render(Graphics2D graphics) {
+        String s;
+        int centerY = client.getCanvasHeight() / 2;
+
+        if (plugin.renderer == null) {
+            s = "Downloading game cache, this may take a few minutes";
+        } else {
+            ChunkRenderScheduler scheduler = plugin.renderer.chunkScheduler;
+            int queued = scheduler.queuedChunks();
+
+            if (queued == 0) {
+                return null;
+            }
+
+            s = String.format("Building %d chunks (build p50 %.0f ms, p95 %.0f ms, p99 %.0f ms, frame p99 %.0f ms)",
+                    queued,
+                    scheduler.buildTimePercentile(50),
+                    scheduler.buildTimePercentile(95),
+                    scheduler.buildTimePercentile(99),
+                    plugin.framerateTracker.frameTimePercentile(99)
+            );
+
+            // Keep out of the way of the world, which is already being drawn
+            centerY = 50;
+        }
+
         graphics.setFont(FontManager.getRunescapeBoldFont());
 
-        String s = "Downloading game cache, this may take a few minutes";
         Rectangle2D bounds = graphics.getFontMetrics().getStringBounds(s, graphics);
 
         graphics.setColor(new Color(255, 255, 255));
         graphics.fillRect(
                 client.getCanvasWidth() / 2 - (int) bounds.getWidth() /2 - 10,
-                client.getCanvasHeight() / 2 - (int) bounds.getHeight()  - 10,
+                centerY - (int) bounds.getHeight()  - 10,
                 (int) bounds.getWidth() + 20,
                 (int) bounds.getHeight() + 10
         );
 
         graphics.setColor(new Color(0, 128, 255));
-        graphics.drawString(s, client.getCanvasWidth() / 2 - (int) bounds.getWidth() / 2, client.getCanvasHeight() / 2 - (int) bounds.getHeight() / 2);
+        graphics.drawString(s, client.getCanvasWidth() / 2 - (int) bounds.getWidth() / 2, centerY - (int) bounds.getHeight() / 2);
         return null;
     }
 }
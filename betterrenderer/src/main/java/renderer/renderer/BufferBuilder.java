@@ -1,59 +1,81 @@
 package renderer.renderer;
 
-import org.joml.Vector2d;
 import org.joml.Vector3d;
 import renderer.gl.VertexBuffer;
 import renderer.util.Colors;
+import renderer.util.DirectBufferPool;
 
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 
+/**
+ * Vertices are packed into 12 bytes: the position as three shorts in 1/128ths of a tile relative to the buffer's
+ * origin, the priority as a short and the color as an int. Lighting is applied to the color here, so no normal is
+ * stored.
+ */
 public class BufferBuilder {
-    public static final int VERTEX_SIZE = 32;
+    public static final int VERTEX_SIZE = 12;
+    public static final int POSITION_SCALE = 128;
     public static final Vector3d LIGHT = new Vector3d(-50, -50, 50).normalize(); // todo: this is (-50, -50, 10) on vanilla, but makes ground look bad
+    public final int originX;
+    public final int originY;
     private ByteBuffer buffer;
     public int vertexCount = 0;
     private int memoryUsage = -1;
     private VertexBuffer uploaded;
 
-    public BufferBuilder(int triangles) {
-        buffer = ByteBuffer.allocateDirect(triangles * 3 * VERTEX_SIZE).order(ByteOrder.nativeOrder());
+    public BufferBuilder(int triangles, int originX, int originY) {
+        this.originX = originX;
+        this.originY = originY;
+        buffer = DirectBufferPool.acquire(triangles * 3 * VERTEX_SIZE);
+    }
+
+    /**
+     * Makes room for the given number of additional vertices, so they can be added without growing the buffer.
+     */
+    public void reserve(int vertices) {
+        if (buffer.remaining() < vertices * VERTEX_SIZE) {
+            grow(buffer.position() + vertices * VERTEX_SIZE);
+        }
+    }
+
+    private void grow(int capacity) {
+        ByteBuffer newBuffer = DirectBufferPool.acquire(Math.max(capacity, buffer.capacity() * 2));
+        buffer.flip();
+        newBuffer.put(buffer);
+        DirectBufferPool.release(buffer);
+        buffer = newBuffer;
     }
 
     public void vertex(Vector3d position, Vector3d normal, int color, double priority, double ambient, double diffuse) {
-        double multiplier = ambient + diffuse * Math.abs(LIGHT.normalize().dot(normal));
+        double multiplier = ambient + diffuse * Math.abs(LIGHT.dot(normal));
         vertex(position, Colors.darken(color, multiplier), priority);
     }
 
     public void vertex(Vector3d position, int color, double priority) {
-        if (buffer.limit() - buffer.position() < VERTEX_SIZE) {
-            buffer.limit(buffer.position());
-            buffer.position(0);
-            ByteBuffer newBuffer = ByteBuffer.allocateDirect(buffer.capacity() * 2).order(ByteOrder.nativeOrder());
-            newBuffer.put(buffer);
-            buffer = newBuffer;
+        if (buffer.remaining() < VERTEX_SIZE) {
+            grow(buffer.capacity() * 2);
         }
 
         vertexCount++;
-        buffer.putFloat((float) position.x);
-        buffer.putFloat((float) position.y);
-        buffer.putFloat((float) position.z);
-
-        buffer.putFloat(0);
-        buffer.putFloat(0);
-        buffer.putFloat(0);
-
+        buffer.putShort(pack(position.x - originX));
+        buffer.putShort(pack(position.y - originY));
+        buffer.putShort(pack(position.z));
+        buffer.putShort((short) Math.round(priority));
         buffer.putInt(color);
-        buffer.putFloat((float) priority);
     }
 
-    @SuppressWarnings("RedundantCast") // java 8
+    private static short pack(double coordinate) {
+        long value = Math.round(coordinate * POSITION_SCALE);
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+    }
+
     public VertexBuffer buffer() {
         if (uploaded == null) {
             memoryUsage = buffer.position();
-            uploaded = new VertexBuffer();
-            buffer.limit(buffer.position());
-            uploaded.set(vertexCount, (ByteBuffer) buffer.position(0));
+            uploaded = new VertexBuffer(originX, originY);
+            buffer.flip();
+            uploaded.set(vertexCount, buffer);
+            DirectBufferPool.release(buffer);
             buffer = null;
         }
 
@@ -64,9 +86,17 @@ public class BufferBuilder {
         if (uploaded != null) {
             uploaded.close();
         }
+
+        if (buffer != null) {
+            DirectBufferPool.release(buffer);
+            buffer = null;
+        }
     }
 
+    /**
+     * Returns the number of bytes this takes up once uploaded.
+     */
     public int memoryUsage() {
-        return buffer != null ? buffer.limit() : memoryUsage;
+        return buffer != null ? buffer.position() : memoryUsage;
     }
 }
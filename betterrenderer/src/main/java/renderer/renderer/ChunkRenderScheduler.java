@@ -4,86 +4,308 @@ import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.Weigher;
 import org.joml.Vector2i;
-import org.joml.Vector3i;
-import org.joml.Vector4i;
+import org.joml.Vector3d;
 import renderer.cache.CacheSystem;
 import renderer.world.Position;
 import renderer.world.World;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Builds chunks on a pool of worker threads. Chunks are requested every frame by {@link #get}, and the workers
+ * always take the most urgent request: visible chunks before ones outside the view, and closer chunks before
+ * further ones. Requests that weren't repeated in the last frame are dropped, so chunks the camera has moved away
+ * from are never built.
+ * <p>
+ * The requests made during a frame are collected on the render thread and handed to the workers in one go by
+ * {@link #endFrame}, and the queue is only reordered once the camera has moved a whole chunk.
+ */
 public class ChunkRenderScheduler {
-    private final List<WorldRenderer> renderersToClose = new ArrayList<>();
-    private final ExecutorService buildExecutor;
+    private static final long FAILURE_RETRY_DELAY = TimeUnit.SECONDS.toNanos(30);
+    private static final int LATENCY_SAMPLES = 512;
+    private static final int VISIBLE = 1;
+    private static final int REPLACES_CHUNK = 2;
+    private static final int SIMPLIFIED = 4;
+
+    private final Queue<WorldRenderer> renderersToClose = new ConcurrentLinkedQueue<>();
     private final Cache<Integer, WorldRenderer> chunks = CacheBuilder
             .newBuilder()
             .expireAfterAccess(300, TimeUnit.SECONDS)
             .weigher((Weigher<Integer, WorldRenderer>) (key, value) -> value.opaqueBuffer.memoryUsage() + value.translucentBuffer.memoryUsage())
-            .maximumWeight(32 * 1024 * 1024L * 1024L) // todo: set this based on max graphics memory
+            .maximumWeight(1024 * 1024 * 1024L) // todo: set this based on max graphics memory
             .removalListener(n -> renderersToClose.add(n.getValue()))
             .concurrencyLevel(Runtime.getRuntime().availableProcessors() + 2)
             .build();
-    private final Set<Integer> scheduled = ConcurrentHashMap.newKeySet();
     private final World world;
+    private final Map<Integer, BuildTask> tasks = new HashMap<>();
+    private final PriorityQueue<BuildTask> queue = new PriorityQueue<>();
+    private final Set<Integer> empty = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, Long> failed = new ConcurrentHashMap<>();
+    private final long[] buildTimes = new long[LATENCY_SAMPLES];
+    private int buildCount;
+    private long frame;
+    private double cameraX;
+    private double cameraY;
+    private double prioritizedX = Double.NaN;
+    private double prioritizedY = Double.NaN;
+    private double range;
+    private long[] frameRequests = new long[256];
+    private int frameRequestCount;
+    private boolean stopped;
     private HashSet<Position> roofsRemoved = new HashSet<>();
     private int roofRemovalPlane;
 
     public ChunkRenderScheduler(World world) {
         this.world = world;
-        buildExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+
+        for (int i = 0; i < Runtime.getRuntime().availableProcessors(); i++) {
+            Thread worker = new Thread(this::work, "chunk-builder-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    /**
+     * Starts a new round of requests. Queued chunks that weren't requested during the previous frame are cancelled,
+     * either here or when a worker takes them, and once the camera has moved a chunk the rest are reordered around
+     * it. Rebuilds of chunks that are already drawn are only cancelled once they're out of range, since a drawn
+     * chunk isn't requested again.
+     */
+    public synchronized void beginFrame(Vector3d cameraPosition, int viewDistance) {
+        cameraX = cameraPosition.x / Renderer.CHUNK_SIZE;
+        cameraY = cameraPosition.y / Renderer.CHUNK_SIZE;
+        range = (double) viewDistance / Renderer.CHUNK_SIZE + 1;
+        frame++;
+
+        if (!(Math.abs(cameraX - prioritizedX) < 1 && Math.abs(cameraY - prioritizedY) < 1)) {
+            prioritizedX = cameraX;
+            prioritizedY = cameraY;
+            reprioritize();
+        }
+    }
+
+    /**
+     * Hands the requests made since {@link #beginFrame} to the workers.
+     */
+    public void endFrame() {
+        synchronized (this) {
+            for (int i = 0; i < frameRequestCount; i++) {
+                long request = frameRequests[i];
+                int key = (int) (request >> 3);
+                int flags = (int) request & 7;
+                request(key >> 16, key & 0xffff, (flags & VISIBLE) != 0, (flags & REPLACES_CHUNK) != 0, (flags & SIMPLIFIED) != 0);
+            }
+        }
+
+        frameRequestCount = 0;
     }
 
-    public WorldRenderer get(int x, int y) {
+    private void reprioritize() {
+        List<BuildTask> queued = new ArrayList<>(queue);
+        queue.clear();
+
+        for (BuildTask task : queued) {
+            task.updatePriority();
+
+            if (cancel(task)) {
+                continue;
+            }
+
+            queue.add(task);
+        }
+    }
+
+    /**
+     * Forgets the task if it is no longer wanted. The priority has to be up to date.
+     */
+    private boolean cancel(BuildTask task) {
+        if (task.replacesChunk ? task.distanceSquared <= range * range : task.requestedFrame >= frame - 1) {
+            return false;
+        }
+
+        tasks.remove(task.key);
+
+        // A rebuild that won't happen leaves the old chunk out of date, so it has to go too
+        if (task.replacesChunk) {
+            chunks.invalidate(task.key);
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the chunk if it has been built, and otherwise requests it. Invisible chunks are requested so they're
+     * ready when the camera turns towards them, but only after every visible chunk has been built. A simplified
+     * chunk is returned until the full one replacing it is built once the camera comes closer.
+     */
+    public WorldRenderer get(int x, int y, boolean visible, boolean simplified) {
         closedUncachedRenderers();
 
         int key = (x << 16) + y;
         WorldRenderer chunk = chunks.getIfPresent(key);
 
-        if (chunk != null) {
+        if (chunk != null && chunk.simplified && !simplified) {
+            addFrameRequest(key, visible, true, false);
+        }
+
+        if (chunk != null || empty.contains(key)) {
             return chunk;
         }
 
-        if (scheduled.add(key)) {
-            buildExecutor.submit(() -> render(x, y));
+        Long failedAt = failed.get(key);
+
+        if (failedAt != null && System.nanoTime() - failedAt < FAILURE_RETRY_DELAY) {
+            return null;
         }
 
+        addFrameRequest(key, visible, false, simplified);
         return null;
     }
 
-    private void closedUncachedRenderers() {
-        for (WorldRenderer renderer : new ArrayList<>(renderersToClose)) {
-            if (renderer != null) {
-                renderer.opaqueBuffer.close();
-                renderer.translucentBuffer.close();
-            }
+    private void addFrameRequest(int key, boolean visible, boolean replacesChunk, boolean simplified) {
+        if (frameRequestCount == frameRequests.length) {
+            frameRequests = Arrays.copyOf(frameRequests, frameRequestCount * 2);
         }
 
-        renderersToClose.clear();
+        frameRequests[frameRequestCount++] = (long) key << 3
+                | (visible ? VISIBLE : 0)
+                | (replacesChunk ? REPLACES_CHUNK : 0)
+                | (simplified ? SIMPLIFIED : 0);
+    }
+
+    private void request(int x, int y, boolean visible, boolean replacesChunk, boolean simplified) {
+        int key = (x << 16) + y;
+        BuildTask task = tasks.get(key);
+
+        if (task != null && task.running) {
+            // The running build may be out of date, or too coarse, by the time it is done
+            task.rebuild |= replacesChunk;
+            task.simplified &= simplified || !replacesChunk;
+            return;
+        }
+
+        // Anything that isn't drawn yet will be built from the current world anyway
+        if (replacesChunk && chunks.getIfPresent(key) == null) {
+            return;
+        }
+
+        if (task == null) {
+            task = new BuildTask(x, y);
+            task.requestedFrame = frame;
+            task.visible = visible;
+            task.replacesChunk = replacesChunk;
+            task.simplified = simplified;
+            task.updatePriority();
+            tasks.put(key, task);
+            queue.add(task);
+            notify();
+            return;
+        }
+
+        task.requestedFrame = frame;
+        task.simplified &= simplified;
+
+        if (task.visible != visible || replacesChunk && !task.replacesChunk) {
+            queue.remove(task);
+            task.visible = visible;
+            task.replacesChunk |= replacesChunk;
+            task.updatePriority();
+            queue.add(task);
+        }
     }
 
-    public void render(int x, int y) {
+    private void work() {
+        while (true) {
+            BuildTask task;
+            boolean simplified;
+
+            synchronized (this) {
+                while (queue.isEmpty() && !stopped) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+
+                if (stopped) {
+                    return;
+                }
+
+                task = queue.poll();
+                task.updatePriority();
+
+                if (cancel(task)) {
+                    continue;
+                }
+
+                task.running = true;
+                simplified = task.simplified;
+            }
+
+            boolean success = build(task, simplified);
+
+            synchronized (this) {
+                task.running = false;
+
+                if (task.rebuild && success) {
+                    task.rebuild = false;
+                    task.replacesChunk = true;
+                    task.requestedFrame = frame;
+                    task.updatePriority();
+                    queue.add(task);
+                } else {
+                    tasks.remove(task.key);
+                }
+            }
+        }
+    }
+
+    private boolean build(BuildTask task, boolean simplified) {
+        long start = System.nanoTime();
+
         try {
-            if (CacheSystem.region(x * Renderer.CHUNK_SIZE / 64, y * Renderer.CHUNK_SIZE / 64) == null) {
-                return;
+            if (CacheSystem.region(task.x * Renderer.CHUNK_SIZE / 64, task.y * Renderer.CHUNK_SIZE / 64) == null) {
+                empty.add(task.key);
+                return true;
             }
 
-            WorldRenderer renderer = new WorldRenderer(world);
-            renderer.chunk(x, y);
+            WorldRenderer renderer = new WorldRenderer(world, task.x * Renderer.CHUNK_SIZE, task.y * Renderer.CHUNK_SIZE, simplified);
+            renderer.chunk(task.x, task.y);
 
-            int key = (x << 16) + y;
-            chunks.put(key, renderer);
-            scheduled.remove(key);
+            chunks.put(task.key, renderer);
+            failed.remove(task.key);
+            recordBuildTime(System.nanoTime() - start);
+            return true;
         } catch (Throwable t) {
+            System.err.println("Couldn't build chunk (" + task.x + ", " + task.y + ")");
             t.printStackTrace();
-            System.exit(0);
+            failed.put(task.key, System.nanoTime());
+            return false;
+        }
+    }
+
+    private void closedUncachedRenderers() {
+        WorldRenderer renderer;
+
+        while ((renderer = renderersToClose.poll()) != null) {
+            renderer.opaqueBuffer.close();
+            renderer.translucentBuffer.close();
         }
     }
 
+    /**
+     * Queues a rebuild of every chunk containing a tile whose roof was removed or put back. The chunks that are
+     * already built keep being drawn until their rebuild is done.
+     */
     public void setRoofsRemoved(HashSet<Position> newRoofsRemoved, int roofRemovalPlane) {
+        if (newRoofsRemoved == roofsRemoved && roofRemovalPlane == this.roofRemovalPlane) {
+            return;
+        }
+
         Set<Vector2i> toUpdate = new HashSet<>();
 
         for (Position p : roofsRemoved) {
@@ -98,20 +320,90 @@ public class ChunkRenderScheduler {
             }
         }
 
-        for (Vector2i chunkPos : toUpdate) {
-            render(chunkPos.x, chunkPos.y);
+        synchronized (this) {
+            for (Vector2i chunkPos : toUpdate) {
+                WorldRenderer chunk = chunks.getIfPresent((chunkPos.x << 16) + chunkPos.y);
+                request(chunkPos.x, chunkPos.y, true, true, chunk == null || chunk.simplified);
+            }
         }
 
-        roofsRemoved = new HashSet<>(newRoofsRemoved);
+        roofsRemoved = newRoofsRemoved;
         this.roofRemovalPlane = roofRemovalPlane;
     }
 
+    public synchronized int queuedChunks() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the given percentile of the time taken by recent chunk builds, in milliseconds, or -1 if no chunk
+     * has been built yet.
+     */
+    public synchronized double buildTimePercentile(double percentile) {
+        int count = Math.min(buildCount, LATENCY_SAMPLES);
+
+        if (count == 0) {
+            return -1;
+        }
+
+        long[] sorted = Arrays.copyOf(buildTimes, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, index))] / 1_000_000.;
+    }
+
+    private synchronized void recordBuildTime(long nanos) {
+        buildTimes[buildCount++ % LATENCY_SAMPLES] = nanos;
+    }
+
     public void clear() {
+        synchronized (this) {
+            queue.clear();
+            tasks.values().removeIf(task -> !task.running);
+        }
+
         chunks.invalidateAll();
-        scheduled.clear();
+        empty.clear();
+        failed.clear();
     }
 
     public void stopAllThreads() {
-        buildExecutor.shutdown();
+        synchronized (this) {
+            stopped = true;
+            queue.clear();
+            notifyAll();
+        }
+    }
+
+    private class BuildTask implements Comparable<BuildTask> {
+        private final int x;
+        private final int y;
+        private final int key;
+        private long requestedFrame;
+        private boolean visible;
+        private boolean replacesChunk;
+        private boolean running;
+        private boolean rebuild;
+        private boolean simplified;
+        private double distanceSquared;
+        private double priority;
+
+        private BuildTask(int x, int y) {
+            this.x = x;
+            this.y = y;
+            this.key = (x << 16) + y;
+        }
+
+        private void updatePriority() {
+            double dx = x + 0.5 - cameraX;
+            double dy = y + 0.5 - cameraY;
+            distanceSquared = dx * dx + dy * dy;
+            priority = (visible ? 0 : 1_000_000) + distanceSquared;
+        }
+
+        @Override
+        public int compareTo(BuildTask other) {
+            return Double.compare(priority, other.priority);
+        }
     }
 }
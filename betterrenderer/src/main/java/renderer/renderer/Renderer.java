@@ -17,6 +17,7 @@ public class Renderer {
     public static final double CROSSHAIR_SIZE = 50;
     public static final double CROSSHAIR_THICKNESS = 5;
     public static final int CHUNK_SIZE = 8;
+    public static final int SIMPLIFIED_DISTANCE = 96;
     public int viewDistance = 150;
     public Vector3d fogColor = new Vector3d(0.8, 0.9, 0.95);
     public double scale;
@@ -76,6 +77,7 @@ public class Renderer {
         );
 
         List<WorldRenderer> chunks = new ArrayList<>();
+        chunkScheduler.beginFrame(position, viewDistance);
 
         for (int dx = -viewDistance; dx <= viewDistance; dx += CHUNK_SIZE) {
             int w = (int) Math.sqrt(viewDistance * viewDistance - dx * dx);
@@ -84,18 +86,18 @@ public class Renderer {
                 int x = (int) (position.x + dx) / CHUNK_SIZE;
                 int y = (int) (position.y + dy) / CHUNK_SIZE;
 
-                if (Math.sqrt(dx*dx + dy*dy) > 16 && !visible(x, y)) {
-                    continue;
-                }
-
-                WorldRenderer chunk = chunkScheduler.get(x, y);
+                double distance = Math.sqrt(dx*dx + dy*dy);
+                boolean visible = distance <= 16 || visible(x, y);
+                WorldRenderer chunk = chunkScheduler.get(x, y, visible, distance > SIMPLIFIED_DISTANCE);
 
-                if (chunk != null) {
+                if (chunk != null && visible) {
                     chunks.add(chunk);
                 }
             }
         }
 
+        chunkScheduler.endFrame();
+
         for (WorldRenderer chunk : chunks) {
             program.render(chunk.opaqueBuffer.buffer());
         }
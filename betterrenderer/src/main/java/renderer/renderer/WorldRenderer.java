@@ -18,12 +18,28 @@ public class WorldRenderer {
     public static final int CHUNK_SIZE = Renderer.CHUNK_SIZE;
     public static final double AMBIENT = 0.5;
     public static final double DIFFUSE = 2. / 3;
-    public final BufferBuilder opaqueBuffer = new BufferBuilder(2500);
-    public final BufferBuilder translucentBuffer = new BufferBuilder(100);
+    public static final int SIMPLIFIED_MIN_FACES = 32;
+    public final BufferBuilder opaqueBuffer;
+    public final BufferBuilder translucentBuffer;
     public final World world;
+    public final boolean simplified;
 
-    public WorldRenderer(World world) {
+    public WorldRenderer(World world, int originX, int originY) {
+        this(world, originX, originY, false);
+    }
+
+    /**
+     * @param originX    x coordinate positions in the buffers are stored relative to, must be within 256 tiles of
+     *                   everything drawn
+     * @param originY    y coordinate positions in the buffers are stored relative to
+     * @param simplified whether to leave out decorations and small objects, for chunks far enough away that they
+     *                   would only be a few pixels wide
+     */
+    public WorldRenderer(World world, int originX, int originY, boolean simplified) {
         this.world = world;
+        this.simplified = simplified;
+        opaqueBuffer = new BufferBuilder(2500, originX, originY);
+        translucentBuffer = new BufferBuilder(100, originX, originY);
     }
 
     public void chunk(int chunkX, int chunkY) {
@@ -32,6 +48,8 @@ public class WorldRenderer {
         int x2 = x1 + CHUNK_SIZE;
         int y2 = y1 + CHUNK_SIZE;
 
+        reserve(x1, y1, x2, y2);
+
         opaqueBuffer.vertex(new Vector3d(x2, y2, -10), 0xff000000, 0);
         opaqueBuffer.vertex(new Vector3d(x1, y2, -10), 0xff000000, 0);
         opaqueBuffer.vertex(new Vector3d(x1, y1, -10), 0xff000000, 0);
@@ -70,10 +88,86 @@ public class WorldRenderer {
                 continue;
             }
 
+            if (simplified && !keepWhenSimplified(location)) {
+                continue;
+            }
+
             object(location.object, location.type, plane, x, y, location.rotation);
         }
     }
 
+    /**
+     * Counts an upper bound on the vertices the chunk needs, so each buffer is sized once instead of growing as
+     * vertices are added.
+     */
+    private void reserve(int x1, int y1, int x2, int y2) {
+        int opaque = 6;
+        int translucent = 0;
+
+        for (int plane = 0; plane < 4; plane++) {
+            for (int x = x1; x < x2; x++) {
+                for (int y = y1; y < y2; y++) {
+                    if (world.overlay(x, y, plane) != null) {
+                        OverlayShape shape = world.getOverlayShape(x, y, plane);
+                        opaque += shape == null ? 6 : shape.triangles.length * 3;
+                    } else if (world.underlay(x, y, plane) != null) {
+                        opaque += 6;
+                    }
+                }
+            }
+        }
+
+        for (Location location : world.locations(x1 / 8, y1 / 8)) {
+            if (simplified && !keepWhenSimplified(location)) {
+                continue;
+            }
+
+            List<ModelDefinition> models = models(location.object, location.type);
+
+            if (models == null) {
+                continue;
+            }
+
+            int copies = location.type == LocationType.WALL_CORNER ? 2 : 1;
+
+            for (ModelDefinition model : models) {
+                for (ModelDefinition.Face face : model.faces) {
+                    if (face.transparency == 0) {
+                        opaque += 3 * copies;
+                    } else {
+                        translucent += 3 * copies;
+                    }
+                }
+            }
+        }
+
+        opaqueBuffer.reserve(opaque);
+        translucentBuffer.reserve(translucent);
+    }
+
+    private boolean keepWhenSimplified(Location location) {
+        LocationType type = location.type;
+
+        if (type.baseType == LocationType.WALL_DECORATION || type == LocationType.FLOOR_DECORATION) {
+            return false;
+        }
+
+        if (type.baseType != LocationType.OBJECT) {
+            return true;
+        }
+
+        List<ModelDefinition> models = models(location.object, type);
+        int faces = 0;
+
+        if (models != null) {
+            for (ModelDefinition model : models) {
+                faces += model.faces.size();
+            }
+        }
+
+        return faces >= SIMPLIFIED_MIN_FACES;
+    }
+
     public void tile(int plane, int x, int y) {
         UnderlayDefinition underlay = world.underlay(x, y, plane);
         OverlayDefinition overlay = world.overlay(x, y, plane);
@@ -172,25 +266,9 @@ public class WorldRenderer {
             return;
         }
 
-        if (object.models == null && object.typeModels == null) {
-            return;
-        }
+        List<ModelDefinition> models = models(object, type);
 
-        List<ModelDefinition> models = null;
-
-        if (object.typeModels != null) {
-            ModelDefinition model = object.typeModels.get(type.baseType);
-
-            if (model != null) {
-                models = Collections.singletonList(model);
-            }
-        }
-
-        if (models == null && object.models != null) {
-            models = object.models;
-        }
-
-        if (models == null || models.isEmpty()) {
+        if (models == null) {
             return;
         }
 
@@ -261,6 +339,24 @@ public class WorldRenderer {
         }
     }
 
+    private static List<ModelDefinition> models(ObjectDefinition object, LocationType type) {
+        List<ModelDefinition> models = null;
+
+        if (object.typeModels != null) {
+            ModelDefinition model = object.typeModels.get(type.baseType);
+
+            if (model != null) {
+                models = Collections.singletonList(model);
+            }
+        }
+
+        if (models == null && object.models != null) {
+            models = object.models;
+        }
+
+        return models == null || models.isEmpty() ? null : models;
+    }
+
     public void model(ObjectDefinition object, int plane, ModelDefinition model, boolean flipped, double centerZ, double priority, double ambient, double diffuse, Matrix4d matrix, int contouredGround) {
         Matrix3d normalMatrix = matrix.normal(new Matrix3d());
 
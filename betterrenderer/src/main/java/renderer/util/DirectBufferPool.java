@@ -0,0 +1,66 @@
+package renderer.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Direct buffers used to stage vertex data until it is uploaded. Buffers are handed out in power of two sizes and
+ * given back once their contents have been uploaded, so building a chunk doesn't allocate new direct memory.
+ */
+public class DirectBufferPool {
+    private static final int MIN_SIZE_BITS = 12; // 4 KiB
+    private static final int MAX_SIZE_BITS = 26; // 64 MiB
+    private static final int MAX_POOLED_PER_SIZE = 16;
+
+    @SuppressWarnings("unchecked")
+    private static final Queue<ByteBuffer>[] pools = new Queue[MAX_SIZE_BITS + 1];
+
+    static {
+        for (int bits = MIN_SIZE_BITS; bits <= MAX_SIZE_BITS; bits++) {
+            pools[bits] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    private DirectBufferPool() {
+    }
+
+    /**
+     * Returns an empty buffer in native byte order with at least the given capacity.
+     */
+    public static ByteBuffer acquire(int capacity) {
+        int bits = Math.max(MIN_SIZE_BITS, 32 - Integer.numberOfLeadingZeros(Math.max(capacity, 1) - 1));
+
+        if (bits > MAX_SIZE_BITS) {
+            return ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+        }
+
+        ByteBuffer buffer = pools[bits].poll();
+
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(1 << bits).order(ByteOrder.nativeOrder());
+        }
+
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Gives a buffer back to the pool. It must not be used after this.
+     */
+    public static void release(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        int bits = 31 - Integer.numberOfLeadingZeros(capacity);
+
+        if (Integer.bitCount(capacity) != 1 || bits < MIN_SIZE_BITS || bits > MAX_SIZE_BITS) {
+            return;
+        }
+
+        Queue<ByteBuffer> pool = pools[bits];
+
+        if (pool.size() < MAX_POOLED_PER_SIZE) {
+            pool.add(buffer);
+        }
+    }
+}
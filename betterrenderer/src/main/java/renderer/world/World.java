@@ -15,8 +15,8 @@ import java.util.*;
 public class World {
     public static final int BLEND_RADIUS = 5;
     private final Int2ObjectMap<List<Position>> roofs = new Int2ObjectOpenHashMap<>();
-    public HashSet<Position> roofsRemoved = new HashSet<>();
-    public int roofRemovalPlane;
+    public volatile HashSet<Position> roofsRemoved = new HashSet<>();
+    public volatile int roofRemovalPlane;
     public Int2ObjectMap<Region> instanceRegions = null;
     private Int2ObjectMap<List<Location>> localChunks = new Int2ObjectOpenHashMap<>();
 
@@ -283,7 +283,8 @@ public class World {
             }
         }
 
-        roofsRemoved.clear();
+        // Chunks are built on other threads while this runs, so the new set is only published once it's complete
+        HashSet<Position> roofsRemoved = new HashSet<>();
 
         for (List<Position> roof : roofs) {
             for (Position p : roof) {
@@ -304,6 +305,7 @@ public class World {
             }
         }
 
+        this.roofsRemoved = roofsRemoved;
         roofRemovalPlane = z + 1;
     }
 }
@@ -4,6 +4,7 @@ uniform mat4 transform;
 uniform mat4 projection;
 uniform float view_distance;
 uniform vec3 camera_position;
+uniform vec3 origin;
 in vec3 position;
 in int color;
 in float priority;
@@ -13,7 +14,8 @@ out vec3 f_position;
 out float f_fog;
 
 void main(void) {
-    vec4 pos = transform * vec4(position, 1);
+    vec3 world_position = origin + position / 128;
+    vec4 pos = transform * vec4(world_position, 1);
 
     float z_offset = priority / 100;
     if (pos.z + z_offset < 0) {
@@ -26,12 +28,12 @@ void main(void) {
 
     gl_Position = pos;
 
-    f_position = position;
+    f_position = world_position;
     f_color = vec4((color >> 16) & 0xff, (color >> 8) & 0xff, (color >> 0) & 0xff, (color >> 24) & 0xff) / 0xff;
 
     float fog_start = 0.9 * view_distance;
     float fog_end = view_distance;
-    f_fog = (length((position - camera_position).xy) - fog_start) / (fog_end - fog_start);
+    f_fog = (length((world_position - camera_position).xy) - fog_start) / (fog_end - fog_start);
 
     if (f_fog > 1) {
         f_fog = 1;
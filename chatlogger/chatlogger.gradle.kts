@@ -29,10 +29,6 @@ project.extra["PluginProvider"] = "hex-agon"
 project.extra["PluginName"] = "Chat Logger"
 project.extra["PluginDescription"] = "Logs clan chat messages to a file in runelite's folder"
 
-dependencies {
-    compileOnly(group = "ch.qos.logback", name = "logback-classic", version = "1.2.3")
-}
-
 tasks {
     jar {
         manifest {
@@ -0,0 +1,502 @@
+package fking.work.chatlogger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Chat log storage. Messages are handed to a background thread through a bounded queue, so logging a message costs
+ * the client thread no more than a queue insert. The writer keeps one text file per channel per day, syncs it to disk
+ * at most once a second, and once the day is over compresses it and writes an index of its senders and words next to
+ * it, so searches only have to decompress the days that contain a match.
+ */
+final class ChatArchive {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatArchive.class);
+
+    private static final int QUEUE_CAPACITY = 4096;
+    private static final long SYNC_INTERVAL_MS = 1000;
+    // Queued by close() to wake the writer up. Interrupting it instead would close the file channels it is writing to
+    private static final Entry STOP = new Entry(null, null, null);
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+    private static final String SEGMENT_PREFIX = "chatlog_";
+    private static final String SEGMENT_EXTENSION = ".log";
+    private static final String COMPRESSED_EXTENSION = ".log.gz";
+    private static final String INDEX_EXTENSION = ".idx";
+    // Written by the old logback appender, and moved into a dated segment on startup
+    private static final String LEGACY_LATEST = "latest.log";
+
+    enum Channel {
+        PUBLIC("public"),
+        PRIVATE("private"),
+        FRIENDS("friends");
+
+        private final String directory;
+
+        Channel(String directory) {
+            this.directory = directory;
+        }
+
+        static Channel of(String name) {
+            for (Channel channel : values()) {
+                if (channel.directory.equalsIgnoreCase(name) || channel.name().equalsIgnoreCase(name)) {
+                    return channel;
+                }
+            }
+
+            return null;
+        }
+    }
+
+    private final Path baseDirectory;
+    private final IntSupplier retentionDays;
+    private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    // Only touched by the writer thread
+    private final Map<Channel, Segment> segments = new EnumMap<>(Channel.class);
+    private boolean unsynced;
+    private long lastSync;
+
+    ChatArchive(Path baseDirectory, IntSupplier retentionDays) {
+        this.baseDirectory = baseDirectory;
+        this.retentionDays = retentionDays;
+
+        writerThread = new Thread(this::run, "chat-archive-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Queues a line to be written. Never blocks: if the writer has fallen a whole queue behind the line is dropped.
+     */
+    void add(Channel channel, String line) {
+        if (!queue.offer(new Entry(channel, LocalDateTime.now(), line)) && dropped.getAndIncrement() == 0) {
+            log.warn("Chat archive queue is full, messages are being dropped");
+        }
+    }
+
+    /**
+     * Writes out everything still queued and stops the writer thread.
+     */
+    void close() {
+        running = false;
+
+        // If the queue is full the writer is busy anyway, and sees running is false once it has caught up
+        queue.offer(STOP);
+
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (dropped.get() > 0) {
+            log.warn("Dropped {} chat messages because the archive couldn't keep up", dropped.get());
+        }
+    }
+
+    /**
+     * Finds the most recent lines matching a search, newest first. Safe to call from any thread, but reads from
+     * disk so it shouldn't be called from the client thread.
+     *
+     * @param sender   name the lines must be sent by, or null for anyone
+     * @param words    words the lines must all contain
+     * @param channels channels to search
+     * @param from     first day to search, inclusive
+     * @param to       last day to search, inclusive
+     * @param limit    maximum number of lines to return
+     */
+    List<String> search(String sender, Collection<String> words, Set<Channel> channels, LocalDate from, LocalDate to, int limit) {
+        Set<String> keys = ChatIndex.queryKeys(sender, words);
+        List<String> results = new ArrayList<>();
+
+        for (LocalDate day = to; !day.isBefore(from) && results.size() < limit; day = day.minusDays(1)) {
+            List<String> dayResults = new ArrayList<>();
+
+            for (Channel channel : channels) {
+                try {
+                    for (String line : searchSegment(channel, day, keys)) {
+                        int timeEnd = Math.min(8, line.length());
+                        dayResults.add(day + " " + line.substring(0, timeEnd) + " (" + channel.directory + ")" + line.substring(timeEnd));
+                    }
+                } catch (IOException e) {
+                    log.debug("Couldn't search {} chat for {}", channel.directory, day, e);
+                }
+            }
+
+            // Every line starts with its time, so this puts the day's matches across all channels in order
+            dayResults.sort(Collections.reverseOrder());
+            results.addAll(dayResults.subList(0, Math.min(dayResults.size(), limit - results.size())));
+        }
+
+        return results;
+    }
+
+    private List<String> searchSegment(Channel channel, LocalDate day, Set<String> keys) throws IOException {
+        Path directory = directory(channel);
+        Path compressed = directory.resolve(SEGMENT_PREFIX + day + COMPRESSED_EXTENSION);
+        Path index = directory.resolve(SEGMENT_PREFIX + day + INDEX_EXTENSION);
+        List<String> matches = new ArrayList<>();
+
+        if (Files.exists(compressed) && Files.exists(index)) {
+            int[] lines = ChatIndex.read(index).match(keys);
+
+            if (lines != null && lines.length == 0) {
+                return matches;
+            }
+
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(Files.newInputStream(compressed)), StandardCharsets.UTF_8))) {
+                String line;
+                int number = 0;
+                int next = 0;
+
+                while ((line = reader.readLine()) != null && (lines == null || next < lines.length)) {
+                    if (lines == null || lines[next] == number) {
+                        matches.add(line);
+                        next++;
+                    }
+
+                    number++;
+                }
+            }
+
+            return matches;
+        }
+
+        // The day that is still being written, or one that wasn't indexed, is scanned line by line
+        Path segment = Files.exists(compressed) ? compressed : directory.resolve(SEGMENT_PREFIX + day + SEGMENT_EXTENSION);
+
+        if (!Files.exists(segment)) {
+            return matches;
+        }
+
+        for (String line : readLines(segment)) {
+            if (ChatIndex.keysOf(line).containsAll(keys)) {
+                matches.add(line);
+            }
+        }
+
+        return matches;
+    }
+
+    private void run() {
+        try {
+            recover();
+        } catch (IOException e) {
+            log.warn("Couldn't archive old chat logs", e);
+        }
+
+        List<Entry> batch = new ArrayList<>();
+
+        while (running || !queue.isEmpty()) {
+            Entry first = null;
+
+            try {
+                first = queue.poll(SYNC_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // Nothing interrupts the writer, close() stops it through running
+            }
+
+            if (first != null) {
+                batch.add(first);
+                queue.drainTo(batch);
+                batch.removeIf(entry -> entry == STOP);
+
+                if (!batch.isEmpty()) {
+                    write(batch);
+                }
+
+                batch.clear();
+            }
+
+            if (unsynced && (first == null || System.currentTimeMillis() - lastSync >= SYNC_INTERVAL_MS)) {
+                sync();
+            }
+        }
+
+        sync();
+
+        for (Segment segment : segments.values()) {
+            closeQuietly(segment);
+        }
+
+        segments.clear();
+    }
+
+    private void write(List<Entry> batch) {
+        for (Entry entry : batch) {
+            try {
+                Segment segment = segment(entry.channel, entry.time.toLocalDate());
+                segment.writer.write(TIME_FORMAT.format(entry.time));
+                segment.writer.write(' ');
+                segment.writer.write(entry.line);
+                segment.writer.write('\n');
+                unsynced = true;
+            } catch (IOException e) {
+                log.warn("Couldn't write {} chat message", entry.channel.directory, e);
+                // Reopened on the next message
+                closeQuietly(segments.remove(entry.channel));
+            }
+        }
+    }
+
+    private void sync() {
+        for (Segment segment : segments.values()) {
+            try {
+                segment.writer.flush();
+                segment.channel.force(false);
+            } catch (IOException e) {
+                log.warn("Couldn't sync chat log {}", segment.path, e);
+            }
+        }
+
+        unsynced = false;
+        lastSync = System.currentTimeMillis();
+    }
+
+    private Segment segment(Channel channel, LocalDate day) throws IOException {
+        Segment segment = segments.get(channel);
+
+        if (segment != null && segment.day.equals(day)) {
+            return segment;
+        }
+
+        if (segment != null) {
+            // The day is over, so the segment won't change any more
+            segments.remove(channel);
+            closeQuietly(segment);
+            archive(segment.path);
+            deleteExpired(channel);
+        }
+
+        Path directory = directory(channel);
+        Files.createDirectories(directory);
+        segment = new Segment(directory.resolve(SEGMENT_PREFIX + day + SEGMENT_EXTENSION), day);
+        segments.put(channel, segment);
+        return segment;
+    }
+
+    /**
+     * Archives every segment from a previous day, which may have been left behind if the client closed before the
+     * day was over or written by an older version of the plugin.
+     */
+    private void recover() throws IOException {
+        LocalDate today = LocalDate.now();
+
+        for (Channel channel : Channel.values()) {
+            Path directory = directory(channel);
+
+            if (!Files.isDirectory(directory)) {
+                continue;
+            }
+
+            moveLegacyLatest(directory);
+
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_EXTENSION)) {
+                for (Path file : files) {
+                    LocalDate day = dayOf(file);
+
+                    if (day != null && day.isBefore(today)) {
+                        archive(file);
+                    }
+                }
+            }
+
+            deleteExpired(channel);
+        }
+    }
+
+    private static void moveLegacyLatest(Path directory) throws IOException {
+        Path latest = directory.resolve(LEGACY_LATEST);
+
+        if (!Files.exists(latest)) {
+            return;
+        }
+
+        LocalDate day = LocalDateTime.ofInstant(Files.getLastModifiedTime(latest).toInstant(), ZoneId.systemDefault()).toLocalDate();
+        Path segment = directory.resolve(SEGMENT_PREFIX + day + SEGMENT_EXTENSION);
+
+        if (Files.exists(segment)) {
+            Files.write(segment, Files.readAllBytes(latest), StandardOpenOption.APPEND);
+            Files.delete(latest);
+        } else {
+            Files.move(latest, segment);
+        }
+    }
+
+    /**
+     * Indexes and compresses a finished segment.
+     */
+    private static void archive(Path segment) {
+        String name = segment.getFileName().toString();
+        String baseName = name.substring(0, name.length() - SEGMENT_EXTENSION.length());
+        Path compressed = segment.resolveSibling(baseName + COMPRESSED_EXTENSION);
+        Path temporary = segment.resolveSibling(baseName + COMPRESSED_EXTENSION + ".tmp");
+
+        try {
+            List<String> lines = readLines(segment);
+
+            // The day may already have been archived, either by an archive that was interrupted before it could
+            // delete the segment or before more lines for the day turned up after the clock went back
+            if (Files.exists(compressed)) {
+                List<String> existing = readLines(compressed);
+                boolean alreadyArchived = existing.size() >= lines.size()
+                        && existing.subList(existing.size() - lines.size(), existing.size()).equals(lines);
+
+                if (!alreadyArchived) {
+                    existing.addAll(lines);
+                }
+
+                lines = existing;
+            }
+
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temporary));
+                 Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+                for (String line : lines) {
+                    writer.write(line);
+                    writer.write('\n');
+                }
+            }
+
+            ChatIndex.build(lines).write(segment.resolveSibling(baseName + INDEX_EXTENSION));
+            Files.move(temporary, compressed, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.delete(segment);
+        } catch (IOException e) {
+            log.warn("Couldn't archive chat log {}", segment, e);
+        }
+    }
+
+    private void deleteExpired(Channel channel) {
+        LocalDate oldest = LocalDate.now().minusDays(retentionDays.getAsInt());
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory(channel), SEGMENT_PREFIX + "*")) {
+            for (Path file : files) {
+                LocalDate day = dayOf(file);
+
+                if (day != null && day.isBefore(oldest)) {
+                    Files.delete(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Couldn't delete expired {} chat logs", channel.directory, e);
+        }
+    }
+
+    private Path directory(Channel channel) {
+        return baseDirectory.resolve(channel.directory);
+    }
+
+    private static LocalDate dayOf(Path file) {
+        String name = file.getFileName().toString();
+        int start = SEGMENT_PREFIX.length();
+
+        if (!name.startsWith(SEGMENT_PREFIX) || name.length() < start + 10) {
+            return null;
+        }
+
+        try {
+            return LocalDate.parse(name.substring(start, start + 10));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads a segment, decompressing it if needed. Bytes that aren't valid UTF-8, which older logs written in the
+     * platform charset may contain, are replaced rather than failing the read.
+     */
+    private static List<String> readLines(Path segment) throws IOException {
+        byte[] bytes;
+
+        try (InputStream in = segment.toString().endsWith(".gz")
+                ? new GZIPInputStream(Files.newInputStream(segment))
+                : Files.newInputStream(segment)) {
+            bytes = in.readAllBytes();
+        }
+
+        List<String> lines = new ArrayList<>(Arrays.asList(new String(bytes, StandardCharsets.UTF_8).split("\r?\n")));
+
+        if (!lines.isEmpty() && lines.get(lines.size() - 1).isEmpty()) {
+            lines.remove(lines.size() - 1);
+        }
+
+        return lines;
+    }
+
+    private static void closeQuietly(Segment segment) {
+        if (segment == null) {
+            return;
+        }
+
+        try {
+            segment.writer.close();
+        } catch (IOException e) {
+            log.warn("Couldn't close chat log {}", segment.path, e);
+        }
+    }
+
+    private static final class Entry {
+        private final Channel channel;
+        private final LocalDateTime time;
+        private final String line;
+
+        private Entry(Channel channel, LocalDateTime time, String line) {
+            this.channel = channel;
+            this.time = time;
+            this.line = line;
+        }
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final LocalDate day;
+        private final FileChannel channel;
+        private final Writer writer;
+
+        private Segment(Path path, LocalDate day) throws IOException {
+            this.path = path;
+            this.day = day;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            this.writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1));
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package fking.work.chatlogger;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import net.runelite.api.util.Text;
+
+/**
+ * Inverted index of a single day's chat log, mapping each sender and word to the lines it appears on.
+ */
+final class ChatIndex {
+
+    private static final int VERSION = 1;
+    private static final String SENDER_KEY = "n:";
+    private static final String TERM_KEY = "t:";
+    private static final Pattern TERM_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    // Lines are written as "HH:mm:ss " followed by the message
+    private static final int TIME_LENGTH = 9;
+
+    private final Map<String, int[]> postings;
+
+    private ChatIndex(Map<String, int[]> postings) {
+        this.postings = postings;
+    }
+
+    static ChatIndex build(List<String> lines) {
+        Map<String, List<Integer>> builder = new HashMap<>();
+
+        for (int i = 0; i < lines.size(); i++) {
+            for (String key : keysOf(lines.get(i))) {
+                builder.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        Map<String, int[]> postings = new HashMap<>(builder.size());
+        builder.forEach((key, list) -> postings.put(key, list.stream().mapToInt(Integer::intValue).toArray()));
+        return new ChatIndex(postings);
+    }
+
+    static ChatIndex read(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path);
+             DataInputStream data = new DataInputStream(new GZIPInputStream(in))) {
+            if (data.readInt() != VERSION) {
+                throw new IOException("Unknown index version in " + path);
+            }
+
+            int keys = data.readInt();
+            Map<String, int[]> postings = new HashMap<>(keys);
+
+            for (int i = 0; i < keys; i++) {
+                String key = data.readUTF();
+                int[] lines = new int[data.readInt()];
+                int line = 0;
+
+                for (int j = 0; j < lines.length; j++) {
+                    line += data.readInt();
+                    lines[j] = line;
+                }
+
+                postings.put(key, lines);
+            }
+
+            return new ChatIndex(postings);
+        }
+    }
+
+    void write(Path path) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path);
+             DataOutputStream data = new DataOutputStream(new GZIPOutputStream(out))) {
+            data.writeInt(VERSION);
+            data.writeInt(postings.size());
+
+            for (Map.Entry<String, int[]> entry : postings.entrySet()) {
+                data.writeUTF(entry.getKey());
+                data.writeInt(entry.getValue().length);
+                int previous = 0;
+
+                // Line numbers are stored as gaps, which compress far better
+                for (int line : entry.getValue()) {
+                    data.writeInt(line - previous);
+                    previous = line;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the sorted line numbers containing every key, or null if there are no keys and so every line matches.
+     */
+    int[] match(Collection<String> keys) {
+        int[] result = null;
+
+        for (String key : keys) {
+            int[] lines = postings.get(key);
+
+            if (lines == null) {
+                return new int[0];
+            }
+
+            result = result == null ? lines : intersect(result, lines);
+        }
+
+        return result;
+    }
+
+    /**
+     * The keys a search for the given sender and words looks up.
+     */
+    static Set<String> queryKeys(String sender, Collection<String> words) {
+        Set<String> keys = new LinkedHashSet<>();
+
+        if (sender != null && !sender.isEmpty()) {
+            keys.add(SENDER_KEY + normalize(sender));
+        }
+
+        for (String word : words) {
+            for (String term : TERM_SEPARATOR.split(normalize(word))) {
+                if (!term.isEmpty()) {
+                    keys.add(TERM_KEY + term);
+                }
+            }
+        }
+
+        return keys;
+    }
+
+    /**
+     * The keys a line is indexed under: its sender and each word of its message.
+     */
+    static Set<String> keysOf(String line) {
+        Set<String> keys = new LinkedHashSet<>();
+
+        if (line.length() <= TIME_LENGTH) {
+            return keys;
+        }
+
+        String text = line.substring(TIME_LENGTH);
+
+        // Friends chat lines start with the channel name
+        if (text.startsWith("[")) {
+            int channelEnd = text.indexOf("] ");
+
+            if (channelEnd != -1) {
+                text = text.substring(channelEnd + 2);
+            }
+        }
+
+        int senderEnd = text.indexOf(": ");
+
+        if (senderEnd != -1) {
+            keys.add(SENDER_KEY + normalize(text.substring(0, senderEnd)));
+            text = text.substring(senderEnd + 2);
+        }
+
+        for (String term : TERM_SEPARATOR.split(normalize(text))) {
+            if (!term.isEmpty()) {
+                keys.add(TERM_KEY + term);
+            }
+        }
+
+        return keys;
+    }
+
+    private static String normalize(String text) {
+        return Text.removeTags(text).replace('\u00A0', ' ').trim().toLowerCase();
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int count = 0;
+
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+
+        return Arrays.copyOf(result, count);
+    }
+}
@@ -33,4 +33,13 @@ public interface ChatLoggerConfig extends Config {
     default boolean logFriendsChat() {
         return true;
     }
+
+    @ConfigItem(
+            keyName = "retentionDays",
+            name = "Days To Keep",
+            description = "Number of days of chat logs to keep"
+    )
+    default int retentionDays() {
+        return 30;
+    }
 }
@@ -1,22 +1,26 @@
 package fking.work.chatlogger;
 
-import ch.qos.logback.classic.Level;
-import ch.qos.logback.classic.Logger;
-import ch.qos.logback.classic.LoggerContext;
-import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
-import ch.qos.logback.classic.spi.ILoggingEvent;
-import ch.qos.logback.core.rolling.RollingFileAppender;
-import ch.qos.logback.core.rolling.TimeBasedRollingPolicy;
 import com.google.inject.Inject;
 import com.google.inject.Provides;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import net.runelite.api.ChatMessageType;
 import net.runelite.api.events.ChatMessage;
+import net.runelite.api.events.CommandExecuted;
+import net.runelite.client.chat.ChatMessageManager;
+import net.runelite.client.chat.QueuedMessage;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.eventbus.Subscribe;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
 import net.runelite.client.plugins.PluginType;
 import org.pf4j.Extension;
-import org.slf4j.LoggerFactory;
 
 @Extension
 @PluginDescriptor(
@@ -28,13 +32,20 @@ import org.slf4j.LoggerFactory;
 public class ChatLoggerPlugin extends Plugin {
 
     private static final String BASE_DIRECTORY = System.getProperty("user.home") + "/.runelite/chatlogs/";
+    private static final String SEARCH_COMMAND = "chatsearch";
+    private static final int SEARCH_RESULTS = 10;
+    private static final int DEFAULT_SEARCH_DAYS = 30;
 
     @Inject
     private ChatLoggerConfig config;
 
-    private Logger publicChatLogger;
-    private Logger privateChatLogger;
-    private Logger friendsChatLogger;
+    @Inject
+    private ChatMessageManager chatMessageManager;
+
+    @Inject
+    private ScheduledExecutorService executor;
+
+    private ChatArchive archive;
 
     @Provides
     ChatLoggerConfig provideConfig(ConfigManager configManager) {
@@ -43,9 +54,13 @@ public class ChatLoggerPlugin extends Plugin {
 
     @Override
     protected void startUp() {
-        publicChatLogger = setupLogger("PublicChatLogger", "public");
-        privateChatLogger = setupLogger("PrivateChatLogger", "private");
-        friendsChatLogger = setupLogger("FriendsChatLogger", "friends");
+        archive = new ChatArchive(Paths.get(BASE_DIRECTORY), config::retentionDays);
+    }
+
+    @Override
+    protected void shutDown() {
+        archive.close();
+        archive = null;
     }
 
     @Subscribe
@@ -54,56 +69,89 @@ public class ChatLoggerPlugin extends Plugin {
 
             case FRIENDSCHAT:
                 if (config.logFriendsChat()) {
-                    friendsChatLogger.info("[{}] {}: {}", event.getSender(), event.getName(), event.getMessage());
+                    archive.add(ChatArchive.Channel.FRIENDS, "[" + event.getSender() + "] " + event.getName() + ": " + event.getMessage());
                 }
                 break;
             case PRIVATECHAT:
             case MODPRIVATECHAT:
                 if (config.logPrivateChat()) {
-                    privateChatLogger.info("{}: {}", event.getName(), event.getMessage());
+                    archive.add(ChatArchive.Channel.PRIVATE, event.getName() + ": " + event.getMessage());
                 }
                 break;
             case MODCHAT:
             case PUBLICCHAT:
                 if (config.logPublicChat()) {
-                    publicChatLogger.info("{}: {}", event.getName(), event.getMessage());
+                    archive.add(ChatArchive.Channel.PUBLIC, event.getName() + ": " + event.getMessage());
                 }
                 break;
         }
     }
 
-    private Logger setupLogger(String loggerName, String subFolder) {
-        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+    /**
+     * Searches the chat logs, e.g. {@code ::chatsearch name:some_player type:friends days:7 drop party}.
+     * Every option is optional, and underscores in names stand for spaces.
+     */
+    @Subscribe
+    public void onCommandExecuted(CommandExecuted event) {
+        if (!SEARCH_COMMAND.equalsIgnoreCase(event.getCommand())) {
+            return;
+        }
+
+        String name = null;
+        Set<ChatArchive.Channel> channels = EnumSet.allOf(ChatArchive.Channel.class);
+        int days = DEFAULT_SEARCH_DAYS;
+        List<String> words = new ArrayList<>();
+
+        for (String argument : event.getArguments()) {
+            String lower = argument.toLowerCase();
+
+            if (lower.startsWith("name:")) {
+                name = argument.substring(5).replace('_', ' ');
+            } else if (lower.startsWith("type:")) {
+                ChatArchive.Channel channel = ChatArchive.Channel.of(argument.substring(5));
 
-        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
-        encoder.setContext(context);
-        encoder.setPattern("%d{HH:mm:ss} %msg%n");
-        encoder.start();
+                if (channel == null) {
+                    sendMessage("Unknown chat type " + argument.substring(5) + ", use public, private or friends");
+                    return;
+                }
 
-        String directory = BASE_DIRECTORY + subFolder + "/";
+                channels = EnumSet.of(channel);
+            } else if (lower.startsWith("days:")) {
+                try {
+                    days = Math.max(1, Integer.parseInt(argument.substring(5)));
+                } catch (NumberFormatException e) {
+                    sendMessage("Invalid number of days " + argument.substring(5));
+                    return;
+                }
+            } else {
+                words.add(argument);
+            }
+        }
 
-        RollingFileAppender<ILoggingEvent> appender = new RollingFileAppender<>();
-        appender.setFile(directory + "latest.log");
-        appender.setAppend(true);
-        appender.setEncoder(encoder);
-        appender.setContext(context);
+        ChatArchive archive = this.archive;
+        String sender = name;
+        Set<ChatArchive.Channel> searchChannels = channels;
+        LocalDate to = LocalDate.now();
+        LocalDate from = to.minusDays(days - 1);
 
-        TimeBasedRollingPolicy<ILoggingEvent> logFilePolicy = new TimeBasedRollingPolicy<>();
-        logFilePolicy.setContext(context);
-        logFilePolicy.setParent(appender);
-        logFilePolicy.setFileNamePattern(directory + "chatlog_%d{yyyy-MM-dd}.log");
-        logFilePolicy.setMaxHistory(30);
-        logFilePolicy.start();
+        // Reads the logs from disk, so it is kept off the client thread
+        executor.execute(() -> {
+            List<String> results = archive.search(sender, words, searchChannels, from, to, SEARCH_RESULTS);
 
-        appender.setRollingPolicy(logFilePolicy);
-        appender.start();
+            if (results.isEmpty()) {
+                sendMessage("No chat log lines found");
+                return;
+            }
 
-        Logger logger = context.getLogger(loggerName);
-        logger.detachAndStopAllAppenders();
-        logger.setAdditive(false);
-        logger.setLevel(Level.INFO);
-        logger.addAppender(appender);
+            Collections.reverse(results);
+            results.forEach(this::sendMessage);
+        });
+    }
 
-        return logger;
+    private void sendMessage(String message) {
+        chatMessageManager.queue(QueuedMessage.builder()
+                .type(ChatMessageType.CONSOLE)
+                .runeLiteFormattedMessage(message)
+                .build());
     }
 }
@@ -95,4 +95,15 @@ public interface DataExportConfig extends Config
 		return false;
 	}
 
+	@ConfigItem(
+		keyName = "writeChangeLog",
+		name = "Write change log",
+		description = "Appends every item added to or removed from a container to a timestamped change log",
+		position = 9
+	)
+	default boolean writeChangeLog()
+	{
+		return false;
+	}
+
 }
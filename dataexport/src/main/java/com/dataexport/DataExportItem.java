@@ -1,7 +1,9 @@
 package com.dataexport;
 
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 
+@EqualsAndHashCode
 public class DataExportItem
 {
 	@Getter
@@ -149,7 +149,7 @@ public class DataExportPlugin extends Plugin
 		log.debug("Data Export stopped!");
 
 		clientToolbar.removeNavigation(navButton);
-
+		dataWriter.close();
 	}
 
 	@Subscribe
@@ -242,27 +242,37 @@ public class DataExportPlugin extends Plugin
 		int hash = hashItems(widgetItems);
 		//log.info("New hash: " + hash);
 
+		Map<Integer, DataExportItem> previousContainer = getContainerItems(itemContainerId);
 		Map<Integer, DataExportItem> mapContainer = new LinkedHashMap<>();
 
 		for (Item widgetItem : widgetItems)
 		{
-			ItemDefinition itemComposition = itemManager.getItemDefinition(widgetItem.getId());
-
-			String name = itemComposition.getName();
 			int quantity = widgetItem.getQuantity();
 			int id = widgetItem.getId();
 
-			if (itemComposition.getPlaceholderTemplateId() != -1)
+			if (quantity <= 0 || id == -1)
 			{
-				quantity = 0;
+				continue;
 			}
 
-			if (name != null && quantity > 0 && id != -1)
+			// Items whose quantity didn't change are reused, so only new stacks need their definition looked up
+			DataExportItem item = previousContainer.get(id);
+
+			if (item == null || item.getQuantity() != quantity)
 			{
-				DataExportItem item = new DataExportItem(name, quantity, id);
-				mapContainer.putIfAbsent(id, item);
-				dataExport.addItemAll(id, item);
+				ItemDefinition itemComposition = itemManager.getItemDefinition(id);
+				String name = itemComposition.getName();
+
+				if (name == null || itemComposition.getPlaceholderTemplateId() != -1)
+				{
+					continue;
+				}
+
+				item = new DataExportItem(name, quantity, id);
 			}
+
+			mapContainer.putIfAbsent(id, item);
+			dataExport.addItemAll(id, item);
 		}
 
 		if (mapContainer.size() < 2)
@@ -296,10 +306,30 @@ public class DataExportPlugin extends Plugin
 		}
 	}
 
+	private Map<Integer, DataExportItem> getContainerItems(int itemContainerId)
+	{
+		if (itemContainerId == InventoryID.BANK.getId())
+		{
+			return dataExport.getMapBank();
+		}
+		else if (itemContainerId == InventoryID.SEED_VAULT.getId())
+		{
+			return dataExport.getMapSeedVault();
+		}
+		else if (itemContainerId == InventoryID.INVENTORY.getId())
+		{
+			return dataExport.getMapInventory();
+		}
+		else
+		{
+			return dataExport.getMapEquipment();
+		}
+	}
+
 	private void updateBankData(Map<Integer, DataExportItem> map)
 	{
 		dataExport.setMapBank(map);
-		dataWriter.writeJSON("container_bank", map);
+		dataWriter.updateContainer("container_bank", map);
 		log.debug("Bank Container Map: {}", map);
 
 		if (map.size() > 1)
@@ -315,7 +345,7 @@ public class DataExportPlugin extends Plugin
 	private void updateSeedVaultData(Map<Integer, DataExportItem> map)
 	{
 		dataExport.setMapSeedVault(map);
-		dataWriter.writeJSON("container_seed_vault", map);
+		dataWriter.updateContainer("container_seed_vault", map);
 		log.debug("Seed Vault Container Map: {}", map);
 
 		if (map.size() > 1)
@@ -331,7 +361,7 @@ public class DataExportPlugin extends Plugin
 	private void updateInventoryData(Map<Integer, DataExportItem> map)
 	{
 		dataExport.setMapInventory(map);
-		dataWriter.writeJSON("container_inventory", map);
+		dataWriter.updateContainer("container_inventory", map);
 		log.debug("Inventory Container Map: {}", map);
 
 		if (map.size() > 1)
@@ -347,7 +377,7 @@ public class DataExportPlugin extends Plugin
 	private void updateEquipmentData(Map<Integer, DataExportItem> map)
 	{
 		dataExport.setMapEquipment(map);
-		dataWriter.writeJSON("container_equipment", map);
+		dataWriter.updateContainer("container_equipment", map);
 		log.debug("Equipment Container Map: {}", map);
 
 		if (map.size() > 1)
@@ -2,15 +2,38 @@ package com.dataexport.localstorage;
 
 import com.dataexport.DataExportConfig;
 import com.dataexport.DataExportItem;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.JsonParseException;
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import lombok.extern.slf4j.Slf4j;
 import static net.runelite.client.RuneLite.RUNELITE_DIR;
 import net.runelite.http.api.RuneLiteAPI;
 
+/**
+ * Writes container exports on a background thread. Updates of the same container that arrive while a write is
+ * pending are merged, so only the latest one is written. Each item's JSON and CSV rows are kept until the item
+ * changes, and files are written to a temporary file first and then renamed over the old one, so a crash never
+ * leaves a half written export behind.
+ */
 @Slf4j
 public class DataWriter
 {
@@ -18,9 +41,22 @@ public class DataWriter
 
 	private static final String FILE_EXTENSION_CSV = ".csv";
 
+	private static final String CHANGE_LOG_SUFFIX = "_changes";
+
 	private static final File LOOT_RECORD_DIR = new File(RUNELITE_DIR, "Data Exports");
 
-	private File playerFolder = LOOT_RECORD_DIR;
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(
+		new ThreadFactoryBuilder().setNameFormat("data-export-writer").setDaemon(true).build());
+
+	private final Map<String, Map<Integer, DataExportItem>> pendingUpdates = new ConcurrentHashMap<>();
+
+	// Only used on the writer thread
+	private final Map<String, Map<Integer, DataExportItem>> writtenItems = new HashMap<>();
+
+	// Only used on the writer thread
+	private final Map<String, Map<Integer, ItemRow>> rowCache = new HashMap<>();
+
+	private volatile File playerFolder = LOOT_RECORD_DIR;
 
 	private String name;
 
@@ -42,6 +78,11 @@ public class DataWriter
 		return dataContainerName.toLowerCase().trim() + FILE_EXTENSION_CSV;
 	}
 
+	private static String fileNameChangeLog(final String dataContainerName)
+	{
+		return dataContainerName.toLowerCase().trim() + CHANGE_LOG_SUFFIX + FILE_EXTENSION_JSON;
+	}
+
 	public void setPlayerUsername(final String username)
 	{
 		if (username.equalsIgnoreCase(name))
@@ -49,65 +90,248 @@ public class DataWriter
 			return;
 		}
 
-		playerFolder = new File(LOOT_RECORD_DIR, username);
-		playerFolder.mkdir();
 		name = username;
+		executor.execute(() ->
+		{
+			playerFolder = new File(LOOT_RECORD_DIR, username);
+			playerFolder.mkdir();
+			writtenItems.clear();
+		});
+	}
+
+	/**
+	 * Exports the new contents of a container. Only the items that changed since the last export are encoded again,
+	 * and nothing is written if no item changed. When the change log is enabled, a record is appended to it for every
+	 * item that was added or removed. The map must not be changed afterwards.
+	 */
+	public void updateContainer(String dataContainer, Map<Integer, DataExportItem> items)
+	{
+		if (pendingUpdates.put(dataContainer, items) == null)
+		{
+			executor.execute(() -> writeUpdate(dataContainer));
+		}
 	}
 
 	public void writeFile(String dataContainer, Map<Integer, DataExportItem> items)
 	{
-		if (config.downloadJSON())
+		final boolean json = config.downloadJSON();
+		final boolean csv = config.downloadCSV();
+		final Map<Integer, DataExportItem> snapshot = new LinkedHashMap<>(items);
+
+		executor.execute(() ->
+		{
+			if (json)
+			{
+				writeJSON(dataContainer, snapshot);
+			}
+			if (csv)
+			{
+				writeCSV(dataContainer, snapshot);
+			}
+		});
+	}
+
+	/**
+	 * Waits for the pending writes to finish and stops the writer thread.
+	 */
+	public void close()
+	{
+		executor.shutdown();
+
+		try
 		{
-			writeJSON(dataContainer, items);
+			if (!executor.awaitTermination(5, TimeUnit.SECONDS))
+			{
+				log.warn("Timed out waiting for data exports to be written");
+			}
 		}
-		if (config.downloadCSV())
+		catch (InterruptedException e)
 		{
-			writeCSV(dataContainer, items);
+			Thread.currentThread().interrupt();
 		}
 	}
 
-	public synchronized boolean writeJSON(String dataContainer, Map<Integer, DataExportItem> items)
+	private void writeUpdate(String dataContainer)
 	{
-		final String fileName = fileNameJSON(dataContainer);
-		final File lootFile = new File(playerFolder, fileName);
+		final Map<Integer, DataExportItem> items = pendingUpdates.remove(dataContainer);
+		if (items == null)
+		{
+			return;
+		}
 
-		try
+		final boolean changeLog = config.writeChangeLog();
+		Map<Integer, DataExportItem> previous = writtenItems.get(dataContainer);
+
+		if (previous == null && changeLog)
+		{
+			previous = readJSON(dataContainer);
+		}
+
+		if (previous != null)
 		{
-			final BufferedWriter file = new BufferedWriter(new FileWriter(String.valueOf(lootFile), false));
-			for (Map.Entry<Integer, DataExportItem> item : items.entrySet())
+			final List<ItemChange> changes = diff(previous, items);
+			if (changes.isEmpty())
 			{
-				// Convert entry to JSON
-				final String dataAsString = RuneLiteAPI.GSON.toJson(item.getValue());
-				file.append(dataAsString);
-				file.newLine();
+				writtenItems.put(dataContainer, items);
+				return;
 			}
-			file.close();
 
-			return true;
+			if (changeLog)
+			{
+				appendChanges(dataContainer, changes);
+			}
+		}
+
+		if (writeJSON(dataContainer, items))
+		{
+			writtenItems.put(dataContainer, items);
+		}
+	}
+
+	private static List<ItemChange> diff(Map<Integer, DataExportItem> previous, Map<Integer, DataExportItem> items)
+	{
+		final long timestamp = System.currentTimeMillis();
+		final List<ItemChange> changes = new ArrayList<>();
+
+		for (DataExportItem item : items.values())
+		{
+			final DataExportItem old = previous.get(item.getId());
+			final int oldQuantity = old == null ? 0 : old.getQuantity();
+
+			if (item.getQuantity() != oldQuantity)
+			{
+				changes.add(new ItemChange(timestamp, item.getId(), item.getName(), item.getQuantity(), item.getQuantity() - oldQuantity));
+			}
+		}
+
+		for (DataExportItem old : previous.values())
+		{
+			if (!items.containsKey(old.getId()))
+			{
+				changes.add(new ItemChange(timestamp, old.getId(), old.getName(), 0, -old.getQuantity()));
+			}
+		}
+
+		return changes;
+	}
+
+	private void appendChanges(String dataContainer, List<ItemChange> changes)
+	{
+		final String fileName = fileNameChangeLog(dataContainer);
+		final File changeLogFile = new File(playerFolder, fileName);
+
+		try (final BufferedWriter file = Files.newBufferedWriter(changeLogFile.toPath(), StandardCharsets.UTF_8,
+			StandardOpenOption.CREATE, StandardOpenOption.APPEND))
+		{
+			for (ItemChange change : changes)
+			{
+				file.append(RuneLiteAPI.GSON.toJson(change));
+				file.newLine();
+			}
 		}
 		catch (IOException ioe)
 		{
-			log.warn("Error rewriting data to file {}: {}", fileName, ioe.getMessage());
-			return false;
+			log.warn("Error appending data to file {}: {}", fileName, ioe.getMessage());
+		}
+	}
+
+	/**
+	 * Reads the items of the last export of a container, so changes made while the client was closed show up in the
+	 * change log. Without an earlier export every item counts as added.
+	 */
+	private Map<Integer, DataExportItem> readJSON(String dataContainer)
+	{
+		final File lootFile = new File(playerFolder, fileNameJSON(dataContainer));
+		final Map<Integer, DataExportItem> items = new LinkedHashMap<>();
+
+		if (!lootFile.exists())
+		{
+			return items;
+		}
+
+		try (final BufferedReader file = Files.newBufferedReader(lootFile.toPath(), StandardCharsets.UTF_8))
+		{
+			String line;
+			while ((line = file.readLine()) != null)
+			{
+				if (line.isEmpty())
+				{
+					continue;
+				}
+
+				final DataExportItem item = RuneLiteAPI.GSON.fromJson(line, DataExportItem.class);
+				items.putIfAbsent(item.getId(), item);
+			}
+
+			return items;
+		}
+		catch (IOException | JsonParseException e)
+		{
+			log.warn("Error reading data from file {}: {}", lootFile.getName(), e.getMessage());
+			return null;
 		}
 	}
 
-	public synchronized boolean writeCSV(String dataContainer, Map<Integer, DataExportItem> items)
+	private boolean writeJSON(String dataContainer, Map<Integer, DataExportItem> items)
+	{
+		return write(fileNameJSON(dataContainer), rowsFor(dataContainer, items), ItemRow::getJSON);
+	}
+
+	private boolean writeCSV(String dataContainer, Map<Integer, DataExportItem> items)
+	{
+		return write(fileNameCSV(dataContainer), rowsFor(dataContainer, items), ItemRow::getCSV);
+	}
+
+	/**
+	 * Returns the rows of the given items, reusing the rows of the items that haven't changed since the container was
+	 * last written.
+	 */
+	private List<ItemRow> rowsFor(String dataContainer, Map<Integer, DataExportItem> items)
+	{
+		final Map<Integer, ItemRow> cached = rowCache.getOrDefault(dataContainer, new HashMap<>());
+		final Map<Integer, ItemRow> rows = new HashMap<>(items.size() * 2);
+		final List<ItemRow> ordered = new ArrayList<>(items.size());
+
+		for (Map.Entry<Integer, DataExportItem> entry : items.entrySet())
+		{
+			ItemRow row = cached.get(entry.getKey());
+			if (row == null || !row.item.equals(entry.getValue()))
+			{
+				row = new ItemRow(entry.getValue());
+			}
+
+			rows.put(entry.getKey(), row);
+			ordered.add(row);
+		}
+
+		rowCache.put(dataContainer, rows);
+		return ordered;
+	}
+
+	private boolean write(String fileName, List<ItemRow> rows, Function<ItemRow, String> encoder)
 	{
-		final String fileName = fileNameCSV(dataContainer);
 		final File lootFile = new File(playerFolder, fileName);
+		final File tempFile = new File(playerFolder, fileName + ".tmp");
 
 		try
 		{
-			final BufferedWriter file = new BufferedWriter(new FileWriter(String.valueOf(lootFile), false));
-			for (Map.Entry<Integer, DataExportItem> item : items.entrySet())
+			try (final Writer file = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8))
 			{
-				// Convert entry to CSV
-				final String line = item.getValue().getCSV();
-				file.append(line);
-				file.newLine();
+				for (ItemRow row : rows)
+				{
+					file.append(encoder.apply(row));
+					file.append(System.lineSeparator());
+				}
+			}
+
+			try
+			{
+				Files.move(tempFile.toPath(), lootFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException e)
+			{
+				Files.move(tempFile.toPath(), lootFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
 			}
-			file.close();
 
 			return true;
 		}
@@ -117,4 +341,41 @@ public class DataWriter
 			return false;
 		}
 	}
+
+	/**
+	 * An item with its encoded rows, which are only encoded once they're first written.
+	 */
+	private static class ItemRow
+	{
+		private final DataExportItem item;
+
+		private String json;
+
+		private String csv;
+
+		private ItemRow(DataExportItem item)
+		{
+			this.item = item;
+		}
+
+		private String getJSON()
+		{
+			if (json == null)
+			{
+				json = RuneLiteAPI.GSON.toJson(item);
+			}
+
+			return json;
+		}
+
+		private String getCSV()
+		{
+			if (csv == null)
+			{
+				csv = item.getCSV();
+			}
+
+			return csv;
+		}
+	}
 }
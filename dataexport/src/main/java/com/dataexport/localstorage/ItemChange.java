@@ -0,0 +1,21 @@
+package com.dataexport.localstorage;
+
+import lombok.Value;
+
+/**
+ * A single line of a container's change log. A positive change means items were added, a negative one that they were
+ * removed.
+ */
+@Value
+public class ItemChange
+{
+	private final long timestamp;
+
+	private final int id;
+
+	private final String name;
+
+	private final int quantity;
+
+	private final int change;
+}
@@ -32,6 +32,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
 import lombok.Data;
 
 @Data
@@ -42,6 +44,14 @@ public class AccountData
 	private Instant sessionStartTime = Instant.now();
 	private Duration accumulatedSessionTime = Duration.ZERO;
 	private Instant lastSessionTimeUpdate;
+	//sequence number of the last journaled offer that is included in this data, see TradePersister.
+	private long journalSequence;
+	//offers journaled since this account's snapshot was last written.
+	private transient int uncompactedOffers;
+	//how far into the account's journal this data is up to date.
+	private transient long journalOffset;
+	//whether the user changed the trades since the snapshot was written, which isn't journaled.
+	private transient boolean edited;
 
 	/**
 	 * Resets all session related data associated with an account. This is called when the plugin first starts
@@ -53,4 +63,51 @@ public class AccountData
 		accumulatedSessionTime = Duration.ZERO;
 		lastSessionTimeUpdate = null;
 	}
+
+	/**
+	 * Updates the trades list in response to an OfferEvent. This is used both when a new offer comes in and when
+	 * TradePersister replays an account's journal, so that both end up with the same trades list.
+	 *
+	 * @param newOffer new offer that just came in
+	 * @param newItem  creates the flipping item for the offer if the trades list doesn't have one for it yet
+	 * @return the flipping item that was updated
+	 */
+	public FlippingItem updateTrades(OfferEvent newOffer, Supplier<FlippingItem> newItem)
+	{
+		Optional<FlippingItem> flippingItem = trades.stream().filter(item -> item.getItemId() == newOffer.getItemId()).findFirst();
+		if (flippingItem.isPresent())
+		{
+			FlippingItem item = flippingItem.get();
+			if (newOffer.isMarginCheck())
+			{
+				trades.remove(item);
+				trades.add(0, item);
+				item.updateMargin(newOffer);
+			}
+			//if a user buys/sells an item they previously deleted from the flipping panel, show the panel again.
+			if (!item.getValidFlippingPanelItem())
+			{
+				item.setValidFlippingPanelItem(true);
+				trades.remove(item);
+				trades.add(0, item);
+			}
+
+			item.updateHistory(newOffer);
+			item.updateLatestTimes(newOffer);
+			return item;
+		}
+
+		FlippingItem item = newItem.get();
+		item.setValidFlippingPanelItem(true);
+
+		if (newOffer.isMarginCheck())
+		{
+			item.updateMargin(newOffer);
+		}
+		item.updateHistory(newOffer);
+		item.updateLatestTimes(newOffer);
+
+		trades.add(0, item);
+		return item;
+	}
 }
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2020, Belieal <https://github.com/Belieal>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.flippingutilities;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+/**
+ * The account wide trades list, which has one flipping item per item id with the merged histories of every
+ * account's flipping item for it. Instead of cloning and merging every account's trades whenever anything changes,
+ * only the items that were reported as changed are merged again, and the merged items are kept in a set that is
+ * ordered by latest activity so nothing needs to be re-sorted.
+ * <p>
+ * The merged items are clones, so the account's own flipping items are never modified through the account wide view.
+ */
+class AccountWideIndex
+{
+	private static final Comparator<FlippingItem> LATEST_ACTIVITY_FIRST = Comparator
+		.comparing(FlippingItem::getLatestActivityTime, Comparator.nullsFirst(Comparator.<Instant>naturalOrder()))
+		.reversed()
+		.thenComparingInt(FlippingItem::getItemId);
+
+	private final Supplier<Collection<AccountData>> accounts;
+
+	private final Map<Integer, FlippingItem> mergedItems = new HashMap<>();
+
+	private final TreeSet<FlippingItem> orderedItems = new TreeSet<>(LATEST_ACTIVITY_FIRST);
+
+	private final Set<Integer> changedItems = new HashSet<>();
+
+	private boolean rebuildAll = true;
+
+	private List<FlippingItem> items = new ArrayList<>();
+
+	AccountWideIndex(Supplier<Collection<AccountData>> accounts)
+	{
+		this.accounts = accounts;
+	}
+
+	/**
+	 * Marks an item as changed in one of the accounts, so it is merged again the next time the list is asked for.
+	 */
+	synchronized void itemChanged(int itemId)
+	{
+		changedItems.add(itemId);
+	}
+
+	/**
+	 * Marks every item of an account as changed. When an account's data is replaced this should be called with both
+	 * the old and the new data, so that items which are only in one of them are updated too.
+	 */
+	synchronized void accountChanged(AccountData accountData)
+	{
+		if (accountData != null)
+		{
+			accountData.getTrades().forEach(item -> changedItems.add(item.getItemId()));
+		}
+	}
+
+	/**
+	 * Merges every item again the next time the list is asked for.
+	 */
+	synchronized void invalidate()
+	{
+		rebuildAll = true;
+	}
+
+	/**
+	 * @return the account wide trades list, latest activity first
+	 */
+	synchronized List<FlippingItem> getItems()
+	{
+		Collection<AccountData> accountsData = accounts.get();
+
+		if (rebuildAll)
+		{
+			mergedItems.clear();
+			orderedItems.clear();
+			changedItems.clear();
+			accountsData.forEach(this::accountChanged);
+			rebuildAll = false;
+		}
+
+		if (changedItems.isEmpty())
+		{
+			return items;
+		}
+
+		for (int itemId : changedItems)
+		{
+			//removed before anything is merged into it as the set is ordered by its latest activity time
+			FlippingItem previous = mergedItems.remove(itemId);
+			if (previous != null)
+			{
+				orderedItems.remove(previous);
+			}
+
+			FlippingItem merged = merge(accountsData, itemId);
+			if (merged != null)
+			{
+				mergedItems.put(itemId, merged);
+				orderedItems.add(merged);
+			}
+		}
+		changedItems.clear();
+
+		items = new ArrayList<>(orderedItems);
+		return items;
+	}
+
+	private static FlippingItem merge(Collection<AccountData> accountsData, int itemId)
+	{
+		FlippingItem merged = null;
+		for (AccountData accountData : accountsData)
+		{
+			for (FlippingItem item : accountData.getTrades())
+			{
+				if (item.getItemId() == itemId)
+				{
+					merged = FlippingItem.merge(merged, item.clone());
+					break;
+				}
+			}
+		}
+		return merged;
+	}
+}
@@ -26,6 +26,7 @@
 
 package com.flippingutilities;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.file.FileSystems;
 import java.nio.file.Path;
@@ -34,9 +35,9 @@ import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
@@ -50,6 +51,10 @@ import lombok.extern.slf4j.Slf4j;
  * The reason it accepts callbacks is so that this class is not tied to any specific component's way of handling a file
  * change. This decoupling allows the cache updater to be used easily by any component that wishes to fire an action
  * when a file for an account is changed.
+ * <p>
+ * Changes are coalesced: a file's callbacks fire once the directory has been quiet for {@link #debounceMs}, or at
+ * most {@link #maxDelayMs} after the first change, however many events the writes to it caused. Files that are
+ * still exactly as this client wrote them are skipped, so a client doesn't reload its own writes.
  */
 @Slf4j
 public class CacheUpdater
@@ -63,9 +68,13 @@ public class CacheUpdater
 
 	Future realTimeUpdateTask;
 
-	Map<String, Long> lastEvents = new HashMap<>();
+	//changed files whose callbacks haven't fired yet, in the order they first changed
+	Set<String> pendingFiles = new LinkedHashSet<>();
+	long firstPendingEvent;
+	long lastPendingEvent;
 
-	int requiredMinMsSinceLastUpdate = 5;
+	int debounceMs = 250;
+	int maxDelayMs = 2000;
 	int failureCount;
 	int failureThreshold = 2;
 
@@ -103,26 +112,30 @@ public class CacheUpdater
 
 			path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
 
-			WatchKey key;
-			while ((key = watchService.take()) != null)
+			while (true)
 			{
-				for (WatchEvent<?> event : key.pollEvents())
+				//while changes are pending, only wait out the rest of the debounce window for more of them
+				WatchKey key = pendingFiles.isEmpty() ? watchService.take() :
+					watchService.poll(msUntilPendingAreDue(), TimeUnit.MILLISECONDS);
+				if (key != null)
 				{
-					log.info("change in directory for {} with event: {}", event.context(), event.kind());
-					if (!isDuplicateEvent(event.context().toString()))
+					for (WatchEvent<?> event : key.pollEvents())
 					{
-						log.info("not duplicate event, firing callbacks");
-						callbacks.forEach(callback -> callback.accept(event.context().toString()));
-					}
-					else
-					{
-						log.info("duplicate event, not firing callbacks");
+						//overflow events have no file
+						if (event.context() != null)
+						{
+							onFileChanged(event.context().toString());
+						}
 					}
+					//put the key back in the queue so we can take out more events when they occur
+					key.reset();
+					failureCount = 0;
+				}
 
+				if (!pendingFiles.isEmpty() && msUntilPendingAreDue() == 0)
+				{
+					firePendingCallbacks();
 				}
-				//put the key back in the queue so we can take out more events when they occur
-				key.reset();
-				failureCount = 0;
 			}
 		}
 
@@ -168,27 +181,48 @@ public class CacheUpdater
 		log.info("shutting down cache updater due to the client shutdown");
 	}
 
-	private boolean isDuplicateEvent(String fileName)
+	private void onFileChanged(String fileName)
+	{
+		//temp files from an in-progress write don't hold anything yet
+		if (!TradePersister.isAccountFile(fileName))
+		{
+			return;
+		}
+
+		long now = System.currentTimeMillis();
+		if (pendingFiles.isEmpty())
+		{
+			firstPendingEvent = now;
+		}
+		lastPendingEvent = now;
+		pendingFiles.add(fileName);
+	}
+
+	private long msUntilPendingAreDue()
+	{
+		long due = Math.min(lastPendingEvent + debounceMs, firstPendingEvent + maxDelayMs);
+		return Math.max(0, due - System.currentTimeMillis());
+	}
+
+	private void firePendingCallbacks()
 	{
-		long lastModified = TradePersister.lastModified(fileName);
-		if (lastEvents.containsKey(fileName))
+		for (String fileName : pendingFiles)
 		{
-			long prevModificationTime = lastEvents.get(fileName);
-			long diffSinceLastModification = Math.abs(lastModified - prevModificationTime);
-			if (diffSinceLastModification < requiredMinMsSinceLastUpdate)
+			//a journal that has since been compacted away has nothing left to read
+			if (!new File(TradePersister.PARENT_DIRECTORY, fileName).exists())
 			{
-				return true;
+				continue;
 			}
-			else
+
+			if (TradePersister.isOwnWrite(fileName))
 			{
-				lastEvents.put(fileName, lastModified);
-				return false;
+				log.info("{} is as this client last wrote it, not firing callbacks", fileName);
+				continue;
 			}
+
+			log.info("change in directory for {}, firing callbacks", fileName);
+			callbacks.forEach(callback -> callback.accept(fileName));
 		}
-		else
-		{
-			lastEvents.put(fileName, lastModified);
-			return false;
-		}
+		pendingFiles.clear();
 	}
 }
\ No newline at end of file
@@ -210,13 +210,13 @@ public class FlippingItem
 
 		if (item1.getLatestActivityTime().compareTo(item2.getLatestActivityTime()) >= 0)
 		{
-			item1.getHistory().getCompressedOfferEvents().addAll(item2.getHistory().getCompressedOfferEvents());
+			item1.getHistory().addOffers(item2.getHistory().getCompressedOfferEvents());
 			item1.setFavorite(item1.isFavorite() || item2.isFavorite());
 			return item1;
 		}
 		else
 		{
-			item2.getHistory().getCompressedOfferEvents().addAll(item1.getHistory().getCompressedOfferEvents());
+			item2.getHistory().addOffers(item1.getHistory().getCompressedOfferEvents());
 			item2.setFavorite(item2.isFavorite() || item1.isFavorite());
 			return item2;
 		}
@@ -232,9 +232,29 @@ public class FlippingItem
 		return history.getFlippedCashFlow(tradeList, getExpense);
 	}
 
+	public long currentProfit(Instant earliestTime)
+	{
+		return history.currentProfit(earliestTime);
+	}
+
 	public long getFlippedCashFlow(Instant earliestTime, boolean getExpense)
 	{
-		return history.getFlippedCashFlow(getIntervalHistory(earliestTime), getExpense);
+		return history.getFlippedCashFlow(earliestTime, getExpense);
+	}
+
+	public long getTotalCashFlow(Instant earliestTime, boolean getExpense)
+	{
+		return history.getTotalCashFlow(earliestTime, getExpense);
+	}
+
+	public int countItemsFlipped(Instant earliestTime)
+	{
+		return history.countItemsFlipped(earliestTime);
+	}
+
+	public boolean hasOffersAfter(Instant earliestTime)
+	{
+		return history.hasOffersAfter(earliestTime);
 	}
 
 	public long getTotalCashFlow(List<OfferEvent> tradeList, boolean getExpense)
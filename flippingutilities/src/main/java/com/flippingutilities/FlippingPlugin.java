@@ -41,8 +41,6 @@ import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.List;
@@ -159,10 +157,9 @@ public class FlippingPlugin extends Plugin
 	//which account's trade list to add to, we queue the events here to be processed as soon as a display name is set.
 	private List<OfferEvent> eventsReceivedBeforeFullLogin = new ArrayList<>();
 
-	//building the account wide trade list is an expensive operation so we store it in this variable and only recompute
-	//it if we have gotten an update since the last account wide trade list build.
-	boolean updateSinceLastAccountWideBuild = true;
-	List<FlippingItem> prevBuiltAccountWideList;
+	//merging every account's trades into the account wide trade list is expensive, so the index only merges the
+	//items it has been told have changed since it was last asked for the list.
+	private final AccountWideIndex accountWideIndex = new AccountWideIndex(() -> accountCache.values());
 
 	//updates the cache by monitoring the directory and loading a file's contents into the cache if it has been changed
 	private CacheUpdater cacheUpdater;
@@ -172,9 +169,6 @@ public class FlippingPlugin extends Plugin
 	private ScheduledFuture slotTimersTask;
 	private Instant startUpTime = Instant.now();
 
-	//name of the account this client last stored trades for.
-	private String thisClientLastStored;
-
 	private int loginTickCount;
 
 	private GeHistoryTabPanel geHistoryTabPanel;
@@ -207,6 +201,7 @@ public class FlippingPlugin extends Plugin
 			}
 
 			accountCache = setupCache();
+			accountWideIndex.invalidate();
 			setupAccSelectorDropdown();
 
 			statPanel.setSelectedTimeInterval("Session");
@@ -255,7 +250,9 @@ public class FlippingPlugin extends Plugin
 		if (currentlyLoggedInAccount != null)
 		{
 			log.info("Shutting down, saving trades!");
-			storeTrades(currentlyLoggedInAccount);
+			String displayName = currentlyLoggedInAccount;
+			//queued behind any offers still being journaled
+			clientShutdownEvent.waitFor(executor.submit(() -> compactTrades(displayName)));
 		}
 	}
 
@@ -363,7 +360,8 @@ public class FlippingPlugin extends Plugin
 	{
 		log.info("{} is logging out", currentlyLoggedInAccount);
 		accountCache.get(currentlyLoggedInAccount).setLastSessionTimeUpdate(null);
-		storeTrades(currentlyLoggedInAccount);
+		String displayName = currentlyLoggedInAccount;
+		executor.execute(() -> compactTrades(displayName));
 		if (slotTimersTask != null && !slotTimersTask.isCancelled())
 		{
 			log.info("cancelling slot timers task on logout");
@@ -511,13 +509,23 @@ public class FlippingPlugin extends Plugin
 
 		OfferEvent finalizedOfferEvent = screenedOfferEvent.get();
 
-		List<FlippingItem> currentlyLoggedInAccountsTrades = accountCache.get(currentlyLoggedInAccount).getTrades();
+		AccountData accountData = accountCache.get(currentlyLoggedInAccount);
+
+		Optional<FlippingItem> flippingItem = accountData.getTrades().stream().filter(item -> item.getItemId() == finalizedOfferEvent.getItemId()).findFirst();
 
-		Optional<FlippingItem> flippingItem = currentlyLoggedInAccountsTrades.stream().filter(item -> item.getItemId() == finalizedOfferEvent.getItemId()).findFirst();
+		OfferEvent newOffer = finalizedOfferEvent.clone();
+		FlippingItem updatedItem;
+		long sequence;
+		synchronized (accountData)
+		{
+			updatedItem = accountData.updateTrades(newOffer, () -> createFlippingItem(newOffer));
+			sequence = accountData.getJournalSequence() + 1;
+			accountData.setJournalSequence(sequence);
+		}
 
-		updateTradesList(currentlyLoggedInAccountsTrades, flippingItem, finalizedOfferEvent.clone());
+		journalOffer(currentlyLoggedInAccount, accountData, sequence, newOffer, updatedItem.getItemName());
 
-		updateSinceLastAccountWideBuild = true;
+		accountWideIndex.itemChanged(newOffer.getItemId());
 
 		rebuildDisplayAfterOfferEvent(flippingItem, finalizedOfferEvent);
 	}
@@ -639,67 +647,81 @@ public class FlippingPlugin extends Plugin
 	}
 
 	/**
-	 * This method updates the given trade list in response to an OfferEvent
+	 * Constructs a FlippingItem, the data structure that represents an item the user is currently flipping. This
+	 * method is invoked when we receive an offer event for an item that isn't currently present in the trades list.
 	 *
-	 * @param trades       the trades list to update
-	 * @param flippingItem the flipping item to be updated in the tradeslist, if it even exists
-	 * @param newOffer     new offer that just came in
+	 * @param newOffer the offer the item is being created for
+	 * @return the flipping item for the offer's item
+	 */
+	private FlippingItem createFlippingItem(OfferEvent newOffer)
+	{
+		int tradeItemId = newOffer.getItemId();
+		String itemName = itemManager.getItemDefinition(tradeItemId).getName();
+
+		ItemStats itemStats = itemManager.getItemStats(tradeItemId, false);
+		int geLimit = itemStats != null ? itemStats.getGeLimit() : 0;
+
+		return new FlippingItem(tradeItemId, itemName, geLimit, currentlyLoggedInAccount);
+	}
+
+	/**
+	 * Appends an offer that was just applied to an account's trades list to that account's journal, so it is on disk
+	 * straight away rather than only when the account's data is stored on logout. Compacts the journal into the
+	 * account's snapshot once it has grown large enough. Both happen on the executor, so the client thread never waits
+	 * on the disk.
 	 */
-	private void updateTradesList(List<FlippingItem> trades, Optional<FlippingItem> flippingItem, OfferEvent newOffer)
+	private void journalOffer(String displayName, AccountData accountData, long sequence, OfferEvent offer, String itemName)
 	{
-		if (flippingItem.isPresent())
+		//the offer in the trades list can still change before the executor gets to it
+		OfferEvent journaledOffer = offer.clone();
+		executor.execute(() ->
 		{
-			FlippingItem item = flippingItem.get();
-			if (newOffer.isMarginCheck())
+			try
 			{
-				trades.remove(item);
-				trades.add(0, item);
-				item.updateMargin(newOffer);
+				if (TradePersister.appendOffer(displayName, accountData, sequence, journaledOffer, itemName))
+				{
+					log.info("journal for {} has reached {} offers, compacting it", displayName, TradePersister.COMPACTION_THRESHOLD);
+					storeTrades(displayName);
+				}
 			}
-			//if a user buys/sells an item they previously deleted from the flipping panel, show the panel again.
-			if (!item.getValidFlippingPanelItem())
+			catch (IOException e)
 			{
-				item.setValidFlippingPanelItem(true);
-				trades.remove(item);
-				trades.add(0, item);
+				log.info("couldn't journal offer, it will be stored with the rest of the trades on logout. error = " + e);
+				accountData.setEdited(true);
 			}
+		});
+	}
 
-			item.updateHistory(newOffer);
-			item.updateLatestTimes(newOffer);
-		}
-		else
+	/**
+	 * Writes an account's snapshot on logout or shutdown, unless nothing was journaled or edited since it was last
+	 * written, in which case the snapshot and journal on disk already have everything. Runs on the executor, after
+	 * the offers that are still being journaled.
+	 */
+	private void compactTrades(String displayName)
+	{
+		AccountData data = accountCache.get(displayName);
+		if (data != null && data.getUncompactedOffers() == 0 && !data.isEdited())
 		{
-			addToTradesList(trades, newOffer);
+			log.info("nothing to compact for {}, not storing trades", displayName);
+			return;
 		}
+		storeTrades(displayName);
 	}
 
 	/**
-	 * Constructs a FlippingItem, the data structure that represents an item the user is currently flipping, and
-	 * adds it to the given trades list. This method is invoked when we receive an offer event for an item that isn't
-	 * currently present in the trades list.
-	 *
-	 * @param tradesList the trades list to be updated
-	 * @param newOffer   the offer to update the trade list with
+	 * Called when the user changed the trades in a way that isn't journaled, like deleting or favoriting an item, so
+	 * the change is stored with the snapshot on logout.
 	 */
-	private void addToTradesList(List<FlippingItem> tradesList, OfferEvent newOffer)
+	public void markTradesEdited()
 	{
-		int tradeItemId = newOffer.getItemId();
-		String itemName = itemManager.getItemDefinition(tradeItemId).getName();
-
-		ItemStats itemStats = itemManager.getItemStats(tradeItemId, false);
-		int geLimit = itemStats != null ? itemStats.getGeLimit() : 0;
-
-		FlippingItem flippingItem = new FlippingItem(tradeItemId, itemName, geLimit, currentlyLoggedInAccount);
-		flippingItem.setValidFlippingPanelItem(true);
-
-		if (newOffer.isMarginCheck())
+		if (accountCurrentlyViewed.equals(ACCOUNT_WIDE))
 		{
-			flippingItem.updateMargin(newOffer);
+			accountCache.values().forEach(account -> account.setEdited(true));
+		}
+		else
+		{
+			accountCache.get(accountCurrentlyViewed).setEdited(true);
 		}
-		flippingItem.updateHistory(newOffer);
-		flippingItem.updateLatestTimes(newOffer);
-
-		tradesList.add(0, flippingItem);
 	}
 
 	/**
@@ -709,7 +731,7 @@ public class FlippingPlugin extends Plugin
 	 */
 	public List<FlippingItem> getTradesForCurrentView()
 	{
-		return accountCurrentlyViewed.equals(ACCOUNT_WIDE) ? createAccountWideList() : accountCache.get(accountCurrentlyViewed).getTrades();
+		return accountCurrentlyViewed.equals(ACCOUNT_WIDE) ? accountWideIndex.getItems() : accountCache.get(accountCurrentlyViewed).getTrades();
 	}
 
 	/**
@@ -774,7 +796,6 @@ public class FlippingPlugin extends Plugin
 	{
 		try
 		{
-			thisClientLastStored = displayName;
 			AccountData data = accountCache.get(displayName);
 			if (data == null)
 			{
@@ -821,7 +842,25 @@ public class FlippingPlugin extends Plugin
 
 	public void truncateTradeList()
 	{
-		List<FlippingItem> currItems = getTradesForCurrentView();
+		if (accountCurrentlyViewed.equals(ACCOUNT_WIDE))
+		{
+			removeDeletedItems(getTradesForCurrentView());
+			return;
+		}
+
+		AccountData accountData = accountCache.get(accountCurrentlyViewed);
+		accountWideIndex.accountChanged(accountData);
+		markTradesEdited();
+
+		//locked as the executor may be storing the account's trades meanwhile
+		synchronized (accountData)
+		{
+			removeDeletedItems(accountData.getTrades());
+		}
+	}
+
+	private void removeDeletedItems(List<FlippingItem> currItems)
+	{
 		currItems.removeIf((item) ->
 		{
 			if (item.getGeLimitResetTime() != null)
@@ -833,11 +872,6 @@ public class FlippingPlugin extends Plugin
 			}
 			return !item.getValidFlippingPanelItem() && !item.hasValidOffers();
 		});
-
-		if (!accountCurrentlyViewed.equals(ACCOUNT_WIDE))
-		{
-			accountCache.get(accountCurrentlyViewed).setTrades(currItems);
-		}
 	}
 
 	/**
@@ -857,7 +891,7 @@ public class FlippingPlugin extends Plugin
 		{
 			flippingPanel.getResetIcon().setVisible(false);
 			statPanel.getResetIcon().setVisible(false);
-			tradesListToDisplay = createAccountWideList();
+			tradesListToDisplay = accountWideIndex.getItems();
 		}
 		else
 		{
@@ -876,25 +910,55 @@ public class FlippingPlugin extends Plugin
 	 * file changed belonged to a different acc than the currently logged in one, it updates the cache of that
 	 * account to ensure this client has the most up to date data on each account. If the user is currently looking
 	 * at the account that had its cache updated, a rebuild takes place to display the most recent trade list.
+	 * <p>
+	 * When another client appended to an account's journal, only the entries appended since this client last read it
+	 * are applied. They're applied to a copy of the account's data which then replaces it, as the panels may be going
+	 * through the old trades list meanwhile. The account is only loaded again from scratch when its snapshot changed.
 	 *
 	 * @param fileName name of the file which was modified.
 	 */
 	public void onDirectoryUpdate(String fileName)
 	{
-		String displayNameOfChangedAcc = fileName.split("\\.")[0];
+		String displayNameOfChangedAcc = fileName.substring(0, fileName.lastIndexOf('.'));
 
-		if (displayNameOfChangedAcc.equals(thisClientLastStored))
+		//this client is the one appending to the logged in account's journal
+		if (fileName.endsWith(TradePersister.JOURNAL_EXTENSION) && displayNameOfChangedAcc.equals(currentlyLoggedInAccount))
 		{
-			log.info("not reloading data for {} into the cache as this client was the last one to store it", displayNameOfChangedAcc);
-			thisClientLastStored = null;
 			return;
 		}
 
-		executor.schedule(() ->
+		executor.execute(() ->
 		{
-			log.info("second has passed, updating cache for {}", displayNameOfChangedAcc);
+			AccountData accountData = accountCache.get(displayNameOfChangedAcc);
+			Set<Integer> changedItems = null;
+			if (fileName.endsWith(TradePersister.JOURNAL_EXTENSION) && accountData != null)
+			{
+				AccountData journaledData = TradePersister.copyAccountData(accountData);
+				changedItems = readJournal(displayNameOfChangedAcc, journaledData);
+				if (changedItems != null)
+				{
+					accountCache.put(displayNameOfChangedAcc, journaledData);
+				}
+			}
+
+			if (changedItems == null)
+			{
+				log.info("updating cache for {}", displayNameOfChangedAcc);
+				AccountData updatedData = loadTrades(displayNameOfChangedAcc);
+				//the old data's items are marked too, in case some of them are no longer in the new data
+				accountWideIndex.accountChanged(accountCache.put(displayNameOfChangedAcc, updatedData));
+				accountWideIndex.accountChanged(updatedData);
+			}
+			else if (changedItems.isEmpty())
+			{
+				return;
+			}
+			else
+			{
+				log.info("applied new journal entries for {} to the cache", displayNameOfChangedAcc);
+				changedItems.forEach(accountWideIndex::itemChanged);
+			}
 
-			accountCache.put(displayNameOfChangedAcc, loadTrades(displayNameOfChangedAcc));
 			if (!masterPanel.getViewSelectorItems().contains(displayNameOfChangedAcc))
 			{
 				masterPanel.getAccountSelector().addItem(displayNameOfChangedAcc);
@@ -905,8 +969,6 @@ public class FlippingPlugin extends Plugin
 				masterPanel.getAccountSelector().setVisible(true);
 			}
 
-			updateSinceLastAccountWideBuild = true;
-
 			//rebuild if you are currently looking at the account who's cache just got updated or the account wide view.
 			if (accountCurrentlyViewed.equals(ACCOUNT_WIDE) || accountCurrentlyViewed.equals(displayNameOfChangedAcc))
 			{
@@ -914,47 +976,25 @@ public class FlippingPlugin extends Plugin
 				flippingPanel.rebuild(updatedList);
 				statPanel.rebuild(updatedList);
 			}
-		}, 1000, TimeUnit.MILLISECONDS);
+		});
 	}
 
 	/**
-	 * creates a view of an "account wide tradelist". An account wide tradelist is just a reflection of the flipping
-	 * items currently in each of the account's tradelists. It does this by merging the flipping items of the same type
-	 * from each account's trade list into one flipping item.
+	 * Applies what another client appended to an account's journal since this client last read it.
 	 *
-	 * @return
+	 * @return ids of the items that changed, or null if the account has to be loaded again
 	 */
-	private List<FlippingItem> createAccountWideList()
+	private Set<Integer> readJournal(String displayName, AccountData accountData)
 	{
-		//since this is an expensive operation, cache its results and only recompute it if there has been an update
-		//to one of the account's tradelists, (updateSinceLastAccountWideBuild is set in onGrandExchangeOfferChanged)
-		if (!updateSinceLastAccountWideBuild)
+		try
 		{
-			return prevBuiltAccountWideList;
+			return TradePersister.readJournal(displayName, accountData, itemManager, true);
 		}
-
-		if (accountCache.values().size() == 0)
+		catch (IOException e)
 		{
-			return new ArrayList<>();
+			log.info("couldn't read the journal for {}, loading it again. error = " + e, displayName);
+			return null;
 		}
-
-		//take all flipping items from the account cache, regardless of account, and segregate them based on item name.
-		Map<String, List<FlippingItem>> groupedItems = accountCache.values().stream().
-			flatMap(accountData -> accountData.getTrades().stream()).
-			map(FlippingItem::clone).
-			collect(Collectors.groupingBy(FlippingItem::getItemName));
-
-		//take every list containing flipping items of the same type and reduce it to one merged flipping item and put that
-		//item in a final merged list
-		List<FlippingItem> mergedItems = groupedItems.values().stream().
-			map(list -> list.stream().reduce(FlippingItem::merge)).filter(Optional::isPresent).map(Optional::get).
-			collect(Collectors.toList());
-
-		mergedItems.sort(Collections.reverseOrder(Comparator.comparing(FlippingItem::getLatestActivityTime)));
-
-		updateSinceLastAccountWideBuild = false;
-		prevBuiltAccountWideList = mergedItems;
-		return mergedItems;
 	}
 
 	/**
@@ -1062,29 +1102,40 @@ public class FlippingPlugin extends Plugin
 		if (currentlyLoggedInAccount == null) {
 			return;
 		}
-		Optional<FlippingItem> flippingItem = accountCache.get(currentlyLoggedInAccount).getTrades().stream().filter(item -> item.getItemId() == selectedOffer.getItemId()).findFirst();
-		if (flippingItem.isPresent()) {
-			flippingItem.get().updateHistory(selectedOffer);
-		}
-		else {
-			int tradeItemId = selectedOffer.getItemId();
-			FlippingItem item = new FlippingItem(tradeItemId, "", -1, currentlyLoggedInAccount);
+		accountWideIndex.itemChanged(selectedOffer.getItemId());
+		AccountData accountData = accountCache.get(currentlyLoggedInAccount);
+		FlippingItem item;
+
+		//locked as the executor may be storing the account's trades meanwhile. The offer isn't journaled, so the
+		//snapshot has to be rewritten on logout.
+		synchronized (accountData)
+		{
+			accountData.setEdited(true);
+			Optional<FlippingItem> flippingItem = accountData.getTrades().stream().filter(i -> i.getItemId() == selectedOffer.getItemId()).findFirst();
+			if (flippingItem.isPresent()) {
+				flippingItem.get().updateHistory(selectedOffer);
+				return;
+			}
+
+			item = new FlippingItem(selectedOffer.getItemId(), "", -1, currentlyLoggedInAccount);
 			item.setValidFlippingPanelItem(true);
 			item.updateHistory(selectedOffer);
-			accountCache.get(currentlyLoggedInAccount).getTrades().add(0, item);
-
-			//itemmanager can only be used on the client thread.
-			//i can't put everything in the runnable given to the client thread cause then it executes async and if there
-			//are multiple offers for the same flipping item that doesn't yet exist in trades list, it might create multiple
-			//of them.
-			clientThread.invokeLater(()-> {
-				String itemName = itemManager.getItemDefinition(tradeItemId).getName();
-				ItemStats itemStats = itemManager.getItemStats(tradeItemId, false);
-				int geLimit = itemStats != null ? itemStats.getGeLimit() : 0;
-				item.setItemName(itemName);
-				item.setTotalGELimit(geLimit);
-			});
+			accountData.getTrades().add(0, item);
 		}
+
+		int tradeItemId = selectedOffer.getItemId();
+
+		//itemmanager can only be used on the client thread.
+		//i can't put everything in the runnable given to the client thread cause then it executes async and if there
+		//are multiple offers for the same flipping item that doesn't yet exist in trades list, it might create multiple
+		//of them.
+		clientThread.invokeLater(()-> {
+			String itemName = itemManager.getItemDefinition(tradeItemId).getName();
+			ItemStats itemStats = itemManager.getItemStats(tradeItemId, false);
+			int geLimit = itemStats != null ? itemStats.getGeLimit() : 0;
+			item.setItemName(itemName);
+			item.setTotalGELimit(geLimit);
+		});
 	}
 
 	public List<OfferEvent> findOfferMatches(OfferEvent offerEvent, int limit)
@@ -1202,12 +1253,12 @@ public class FlippingPlugin extends Plugin
 	public void deleteAccount(String displayName)
 	{
 		log.info("deleting all data for {}", displayName);
-		accountCache.remove(displayName);
+		accountWideIndex.accountChanged(accountCache.remove(displayName));
 		if (accountCurrentlyViewed.equals(displayName))
 		{
 			masterPanel.getAccountSelector().setSelectedItem(accountCache.keySet().toArray()[0]);
 		}
-		TradePersister.deleteFile(displayName + ".json");
+		TradePersister.deleteAccount(displayName);
 		if (accountCache.keySet().size() < 2)
 		{
 			masterPanel.getAccountSelector().setVisible(false);
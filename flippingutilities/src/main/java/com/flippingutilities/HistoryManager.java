@@ -34,13 +34,12 @@ import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
-import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -49,13 +48,11 @@ import lombok.extern.slf4j.Slf4j;
  * next ge limit refresh for this an item will be.
  */
 @Slf4j
-@AllArgsConstructor
 @NoArgsConstructor
 public class HistoryManager
 {
 	@SerializedName("sO")
 	@Getter
-	@Setter
 	private List<OfferEvent> compressedOfferEvents = new ArrayList<>();
 
 	@SerializedName("nGLR")
@@ -69,6 +66,25 @@ public class HistoryManager
 	@SerializedName("pIB")
 	private int itemsBoughtThroughCompleteOffers;
 
+	/**
+	 * Built on the first interval query and kept up to date from then on. Any change to compressedOfferEvents
+	 * has to go through this class so the index sees it.
+	 */
+	private transient ProfitIndex profitIndex;
+
+	//flips per interval start, valid for as long as the index version doesn't change
+	private transient Map<Instant, List<Flip>> flipCache;
+	private transient int flipCacheVersion;
+
+	private HistoryManager(List<OfferEvent> compressedOfferEvents, Instant nextGeLimitRefresh, int itemsBoughtThisLimitWindow,
+		int itemsBoughtThroughCompleteOffers)
+	{
+		this.compressedOfferEvents = compressedOfferEvents;
+		this.nextGeLimitRefresh = nextGeLimitRefresh;
+		this.itemsBoughtThisLimitWindow = itemsBoughtThisLimitWindow;
+		this.itemsBoughtThroughCompleteOffers = itemsBoughtThroughCompleteOffers;
+	}
+
 	public enum PanelSelection
 	{
 		FLIPPING,
@@ -83,7 +99,13 @@ public class HistoryManager
 		return new HistoryManager(clonedCompressedOfferEvents, clonedGeLimitRefresh, itemsBoughtThisLimitWindow, itemsBoughtThroughCompleteOffers);
 	}
 
-	public void updateHistory(OfferEvent newOffer)
+	public synchronized void setCompressedOfferEvents(List<OfferEvent> compressedOfferEvents)
+	{
+		this.compressedOfferEvents = compressedOfferEvents;
+		profitIndex = null;
+	}
+
+	public synchronized void updateHistory(OfferEvent newOffer)
 	{
 		//if slot is -1 than the offer was added manually from GE history. Since we don't know when it came or its slot,
 		//there is no point in updating ge properties or trying to delete previous offers for the trade.
@@ -93,6 +115,31 @@ public class HistoryManager
 		}
 
 		compressedOfferEvents.add(newOffer);
+		if (profitIndex != null)
+		{
+			profitIndex.add(newOffer);
+		}
+	}
+
+	/**
+	 * Adds the offers of another history, used when merging the items of several accounts.
+	 */
+	public synchronized void addOffers(List<OfferEvent> offers)
+	{
+		compressedOfferEvents.addAll(offers);
+		if (profitIndex != null)
+		{
+			offers.forEach(profitIndex::add);
+		}
+	}
+
+	private ProfitIndex index()
+	{
+		if (profitIndex == null)
+		{
+			profitIndex = new ProfitIndex(compressedOfferEvents);
+		}
+		return profitIndex;
 	}
 
 	/**
@@ -156,7 +203,7 @@ public class HistoryManager
 	 *
 	 * @param newOfferEvent offer event just received
 	 */
-	public void deletePreviousOffersForTrade(OfferEvent newOfferEvent)
+	public synchronized void deletePreviousOffersForTrade(OfferEvent newOfferEvent)
 	{
 		for (int i = compressedOfferEvents.size() - 1; i > -1; i--)
 		{
@@ -172,6 +219,10 @@ public class HistoryManager
 				else
 				{
 					compressedOfferEvents.remove(i);
+					if (profitIndex != null)
+					{
+						profitIndex.remove(aPreviousOffer);
+					}
 				}
 			}
 		}
@@ -333,6 +384,38 @@ public class HistoryManager
 		return result;
 	}
 
+	/**
+	 * Whether any valid offer was made after earliestTime.
+	 */
+	public synchronized boolean hasOffersAfter(Instant earliestTime)
+	{
+		return index().hasOffersAfter(earliestTime);
+	}
+
+	/**
+	 * Profit over the valid offers made after earliestTime, the same as {@link #currentProfit(List)} with
+	 * {@link #getIntervalsHistory(Instant)}, but answered from the index.
+	 */
+	public synchronized long currentProfit(Instant earliestTime)
+	{
+		return index().currentProfit(earliestTime);
+	}
+
+	public synchronized long getFlippedCashFlow(Instant earliestTime, boolean getExpense)
+	{
+		return index().getFlippedCashFlow(earliestTime, getExpense);
+	}
+
+	public synchronized long getTotalCashFlow(Instant earliestTime, boolean getExpense)
+	{
+		return index().getTotalCashFlow(earliestTime, getExpense);
+	}
+
+	public synchronized int countItemsFlipped(Instant earliestTime)
+	{
+		return (int) index().countItemsFlipped(earliestTime);
+	}
+
 	/**
 	 * This is to prevent old values from remaining for items that a user has bought and whose
 	 * refresh times have already passed. If the user buys the item again, the values will be up to date,
@@ -358,13 +441,20 @@ public class HistoryManager
 		return compressedOfferEvents.stream().anyMatch(OfferEvent::isValidOfferEvent);
 	}
 
-	public void invalidateOffers(List<OfferEvent> offerList)
+	public synchronized void invalidateOffers(List<OfferEvent> offerList)
 	{
-		offerList.forEach(offer -> offer.setValidOfferEvent(false));
+		offerList.forEach(offer ->
+		{
+			offer.setValidOfferEvent(false);
+			if (profitIndex != null)
+			{
+				profitIndex.remove(offer);
+			}
+		});
 		removeInvalidatedOfferEvents();
 	}
 
-	public void removeInvalidatedOfferEvents()
+	public synchronized void removeInvalidatedOfferEvents()
 	{
 		if (nextGeLimitRefresh == null)
 		{
@@ -382,10 +472,24 @@ public class HistoryManager
 	 * Creates Flips from offers. Flips represent a buy trade followed by a sell trade. A trade is a collection
 	 * of offers from the empty offer to the completed offer. A completed offer marks the end of a trade.
 	 *
+	 * The flips are cached per earliestTime until the offers change, so they are only paired again for items that
+	 * were actually traded since the last time.
+	 *
 	 * @param earliestTime the time after which trades should be looked at
 	 * @return flips
 	 */
-	public List<Flip> getFlips(Instant earliestTime)
+	public synchronized List<Flip> getFlips(Instant earliestTime)
+	{
+		int version = index().getVersion();
+		if (flipCache == null || flipCacheVersion != version)
+		{
+			flipCache = new HashMap<>();
+			flipCacheVersion = version;
+		}
+		return Collections.unmodifiableList(flipCache.computeIfAbsent(earliestTime, this::pairFlips));
+	}
+
+	private List<Flip> pairFlips(Instant earliestTime)
 	{
 		ArrayList<OfferEvent> intervalHistory = getIntervalsHistory(earliestTime);
 
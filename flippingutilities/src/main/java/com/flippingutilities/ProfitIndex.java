@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2020, Belieal <https://github.com/Belieal>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package com.flippingutilities;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Running totals over the valid offers of a {@link HistoryManager}. Buys and sells are each kept in time order
+ * together with prefix sums of their quantities and values, so the profit, cash flow and quantity flipped for any
+ * interval ending now take a couple of binary searches instead of a walk over every offer.
+ * <p>
+ * Offers almost always arrive in time order, so adding one is usually an append. Removing an offer, or adding
+ * one from the ge history tab with an older time, only recomputes the sums after its position.
+ */
+class ProfitIndex
+{
+	private final Side buys = new Side();
+	private final Side sells = new Side();
+
+	/**
+	 * Changes every time the index does, so that results derived from it can be cached.
+	 */
+	private int version;
+
+	ProfitIndex(List<OfferEvent> offers)
+	{
+		for (OfferEvent offer : offers)
+		{
+			add(offer);
+		}
+	}
+
+	void add(OfferEvent offer)
+	{
+		if (offer.isValidOfferEvent())
+		{
+			side(offer).insert(offer);
+			version++;
+		}
+	}
+
+	void remove(OfferEvent offer)
+	{
+		if (side(offer).remove(offer))
+		{
+			version++;
+		}
+	}
+
+	int getVersion()
+	{
+		return version;
+	}
+
+	boolean hasOffersAfter(Instant earliestTime)
+	{
+		return buys.firstAfter(earliestTime) < buys.size() || sells.firstAfter(earliestTime) < sells.size();
+	}
+
+	/**
+	 * Same as {@link HistoryManager#countItemsFlipped(List)} over the offers after earliestTime.
+	 */
+	long countItemsFlipped(Instant earliestTime)
+	{
+		return Math.min(buys.quantityFrom(buys.firstAfter(earliestTime)), sells.quantityFrom(sells.firstAfter(earliestTime)));
+	}
+
+	/**
+	 * Same as {@link HistoryManager#getFlippedCashFlow(List, boolean)} over the offers after earliestTime.
+	 */
+	long getFlippedCashFlow(Instant earliestTime, boolean getExpense)
+	{
+		Side side = getExpense ? buys : sells;
+		return side.valueOfFirst(side.firstAfter(earliestTime), countItemsFlipped(earliestTime));
+	}
+
+	/**
+	 * Same as {@link HistoryManager#getTotalCashFlow(List, boolean)} over the offers after earliestTime.
+	 */
+	long getTotalCashFlow(Instant earliestTime, boolean getExpense)
+	{
+		Side side = getExpense ? buys : sells;
+		return side.valueFrom(side.firstAfter(earliestTime));
+	}
+
+	long currentProfit(Instant earliestTime)
+	{
+		return getFlippedCashFlow(earliestTime, false) - getFlippedCashFlow(earliestTime, true);
+	}
+
+	private Side side(OfferEvent offer)
+	{
+		return offer.isBuy() ? buys : sells;
+	}
+
+	/**
+	 * The buy or the sell offers in time order. Offers with the same time stay in the order they were added.
+	 * quantities[i] and values[i] hold the sums of the first i offers.
+	 */
+	private static class Side
+	{
+		private final List<OfferEvent> offers = new ArrayList<>();
+		private long[] quantities = new long[16];
+		private long[] values = new long[16];
+
+		int size()
+		{
+			return offers.size();
+		}
+
+		void insert(OfferEvent offer)
+		{
+			int index = firstAfter(offer.getTime());
+			offers.add(index, offer);
+			if (offers.size() >= quantities.length)
+			{
+				quantities = Arrays.copyOf(quantities, quantities.length * 2);
+				values = Arrays.copyOf(values, values.length * 2);
+			}
+			recompute(index);
+		}
+
+		boolean remove(OfferEvent offer)
+		{
+			for (int i = firstAtOrAfter(offer.getTime()); i < offers.size(); i++)
+			{
+				OfferEvent candidate = offers.get(i);
+				if (candidate == offer)
+				{
+					offers.remove(i);
+					recompute(i);
+					return true;
+				}
+				if (!candidate.getTime().equals(offer.getTime()))
+				{
+					break;
+				}
+			}
+			return false;
+		}
+
+		private void recompute(int from)
+		{
+			for (int i = from; i < offers.size(); i++)
+			{
+				OfferEvent offer = offers.get(i);
+				quantities[i + 1] = quantities[i] + offer.getCurrentQuantityInTrade();
+				values[i + 1] = values[i] + (long) offer.getCurrentQuantityInTrade() * offer.getPrice();
+			}
+		}
+
+		/**
+		 * Index of the first offer strictly after the given time.
+		 */
+		int firstAfter(Instant time)
+		{
+			int low = 0;
+			int high = offers.size();
+			while (low < high)
+			{
+				int mid = (low + high) >>> 1;
+				if (offers.get(mid).getTime().isAfter(time))
+				{
+					high = mid;
+				}
+				else
+				{
+					low = mid + 1;
+				}
+			}
+			return low;
+		}
+
+		private int firstAtOrAfter(Instant time)
+		{
+			int low = 0;
+			int high = offers.size();
+			while (low < high)
+			{
+				int mid = (low + high) >>> 1;
+				if (offers.get(mid).getTime().isBefore(time))
+				{
+					low = mid + 1;
+				}
+				else
+				{
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+		long quantityFrom(int from)
+		{
+			return quantities[offers.size()] - quantities[from];
+		}
+
+		long valueFrom(int from)
+		{
+			return values[offers.size()] - values[from];
+		}
+
+		/**
+		 * Value of the first itemLimit items from the offer at index from onwards, counting the last offer only
+		 * partially, the same way {@link HistoryManager} values the flipped part of a trade list.
+		 */
+		long valueOfFirst(int from, long itemLimit)
+		{
+			if (itemLimit <= 0 || from >= offers.size())
+			{
+				return 0;
+			}
+
+			// first end such that the offers in [from, end) hold at least itemLimit items
+			int low = from + 1;
+			int high = offers.size();
+			long target = quantities[from] + itemLimit;
+			while (low < high)
+			{
+				int mid = (low + high) >>> 1;
+				if (quantities[mid] >= target)
+				{
+					high = mid;
+				}
+				else
+				{
+					low = mid + 1;
+				}
+			}
+
+			int last = low - 1;
+			long itemsBefore = quantities[last] - quantities[from];
+			return values[last] - values[from] + (itemLimit - itemsBefore) * offers.get(last).getPrice();
+		}
+	}
+}
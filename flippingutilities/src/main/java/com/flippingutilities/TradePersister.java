@@ -27,16 +27,36 @@
 package com.flippingutilities;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.annotations.SerializedName;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.Instant;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.client.RuneLite;
 import net.runelite.client.game.ItemManager;
@@ -46,6 +66,12 @@ import net.runelite.http.api.item.ItemStats;
  * This class is responsible for handling all the IO related tasks for persisting trades. This class should contain
  * any logic that pertains to reading/writing to disk. This includes logic related to whether it should reload things
  * again, etc.
+ * <p>
+ * Each account has a snapshot, {displayName}.json, and a journal, {displayName}.journal. Offers are appended to the
+ * journal as they come in and the snapshot is only rewritten when the journal is compacted into it (on logout, client
+ * shutdown, or once the journal has grown to {@link #COMPACTION_THRESHOLD} offers). Every journaled offer carries a
+ * sequence number and the snapshot records the last one it includes, so replaying a journal that outlived its
+ * compaction doesn't apply any offer twice.
  */
 @Slf4j
 public class TradePersister
@@ -56,6 +82,18 @@ public class TradePersister
 
 	public static final File OLD_FILE = new File(PARENT_DIRECTORY, "trades.json");
 
+	public static final String SNAPSHOT_EXTENSION = ".json";
+
+	public static final String JOURNAL_EXTENSION = ".journal";
+
+	//number of journaled offers after which the journal is compacted into the snapshot.
+	public static final int COMPACTION_THRESHOLD = 250;
+
+	private static final Gson GSON = new Gson();
+
+	//file name to the length and modification time it had after this client last wrote it.
+	private static final Map<String, String> ownWrites = new ConcurrentHashMap<>();
+
 	/**
 	 * Creates flipping directory if it doesn't exist and partitions trades.json into individual files
 	 * for each account, if it exists.
@@ -162,19 +200,21 @@ public class TradePersister
 	 */
 	public static Map<String, AccountData> loadAllTrades(ItemManager itemManager) throws IOException
 	{
-		Map<String, AccountData> accountsData = new HashMap<>();
+		//an account that never got compacted only has a journal.
+		TreeSet<String> displayNames = new TreeSet<>();
 		for (File f : PARENT_DIRECTORY.listFiles())
 		{
-			String displayName = f.getName().split("\\.")[0];
-			log.info("loading data for {}", displayName);
-			AccountData accountData = loadFromFile(f, itemManager);
-			if (accountData == null)
+			String fileName = f.getName();
+			if (isAccountFile(fileName))
 			{
-				log.info("data for {} is null for some reason, setting it to a empty AccountData object", displayName);
-				accountData = new AccountData();
+				displayNames.add(fileName.substring(0, fileName.lastIndexOf('.')));
 			}
+		}
 
-			accountsData.put(displayName, accountData);
+		Map<String, AccountData> accountsData = new HashMap<>();
+		for (String displayName : displayNames)
+		{
+			accountsData.put(displayName, loadTrades(displayName, itemManager));
 		}
 
 		return accountsData;
@@ -183,30 +223,167 @@ public class TradePersister
 	public static AccountData loadTrades(String displayName, ItemManager itemManager) throws IOException
 	{
 		log.info("loading data for {}", displayName);
-		File accountFile = new File(PARENT_DIRECTORY, displayName + ".json");
-		AccountData accountData = loadFromFile(accountFile, itemManager);
+		File accountFile = new File(PARENT_DIRECTORY, displayName + SNAPSHOT_EXTENSION);
+		AccountData accountData = accountFile.exists() ? loadFromFile(accountFile) : null;
 		if (accountData == null)
 		{
 			log.info("data for {} is null for some reason, setting it to a empty AccountData object", displayName);
 			accountData = new AccountData();
 		}
+		readJournal(displayName, accountData, itemManager, false);
+		cleanAccountData(accountData, itemManager);
 		return accountData;
 	}
 
-	private static AccountData loadFromFile(File f, ItemManager itemManager) throws IOException
+	/**
+	 * Whether the file holds an account's snapshot or journal, as opposed to a temp file from an in-progress write.
+	 */
+	public static boolean isAccountFile(String fileName)
 	{
-		String accountDataJson = new String(Files.readAllBytes(f.toPath()));
-		final Gson gson = new Gson();
-		Type type = new TypeToken<AccountData>()
+		return fileName.endsWith(SNAPSHOT_EXTENSION) || fileName.endsWith(JOURNAL_EXTENSION);
+	}
+
+	private static AccountData loadFromFile(File f) throws IOException
+	{
+		try (JsonReader reader = new JsonReader(Files.newBufferedReader(f.toPath(), StandardCharsets.UTF_8)))
 		{
-		}.getType();
-		AccountData accountData = gson.fromJson(accountDataJson, type);
-		cleanAccountData(accountData, itemManager);
-		return accountData;
+			return GSON.fromJson(reader, AccountData.class);
+		}
+		catch (JsonParseException e)
+		{
+			throw new IOException("unable to parse " + f.getName(), e);
+		}
+	}
+
+	/**
+	 * Applies the entries appended to an account's journal since it was last read, starting at the offset recorded
+	 * in the account's data. Only complete lines are read, so an entry that another client is still writing, or that
+	 * a crash cut short, is left for the next read.
+	 *
+	 * @param displayName display name of the account the journal belongs to
+	 * @param accountData the account's data, which the entries are applied to
+	 * @param itemManager used to look up the ge limit of items the trades list doesn't have yet
+	 * @param incremental whether the data was already up to date with the journal up to its offset. If so, the
+	 *                    journal has to carry on exactly from there, otherwise it was compacted by another client and
+	 *                    the account has to be loaded again.
+	 * @return ids of the items whose trades changed, or null if the account has to be loaded again
+	 * @throws IOException
+	 */
+	public static Set<Integer> readJournal(String displayName, AccountData accountData, ItemManager itemManager,
+		boolean incremental) throws IOException
+	{
+		File journal = new File(PARENT_DIRECTORY, displayName + JOURNAL_EXTENSION);
+		Set<Integer> changedItems = new HashSet<>();
+		long offset = accountData.getJournalOffset();
+		int applied = 0;
+
+		try (FileChannel channel = FileChannel.open(journal.toPath(), StandardOpenOption.READ))
+		{
+			if (channel.size() < offset)
+			{
+				return null;
+			}
+
+			InputStream in = new BufferedInputStream(Channels.newInputStream(channel.position(offset)));
+			ByteArrayOutputStream line = new ByteArrayOutputStream(512);
+			int b;
+			while ((b = in.read()) != -1)
+			{
+				if (b != '\n')
+				{
+					line.write(b);
+					continue;
+				}
+
+				offset += line.size() + 1;
+				JournalEntry entry = parseEntry(displayName, line);
+				line.reset();
+				if (entry == null || entry.sequence <= accountData.getJournalSequence())
+				{
+					continue;
+				}
+				if (incremental && entry.sequence != accountData.getJournalSequence() + 1)
+				{
+					log.info("journal for {} doesn't continue from entry {}, it has to be loaded again", displayName,
+						accountData.getJournalSequence());
+					return null;
+				}
+
+				applyEntry(displayName, accountData, entry, itemManager);
+				changedItems.add(entry.offer.getItemId());
+				applied++;
+			}
+		}
+		catch (NoSuchFileException e)
+		{
+			//nothing has been journaled since the last compaction
+			return changedItems;
+		}
+
+		accountData.setJournalOffset(offset);
+		accountData.setUncompactedOffers(accountData.getUncompactedOffers() + applied);
+		log.info("read {} offers from the journal for {}", applied, displayName);
+		return changedItems;
+	}
+
+	/**
+	 * Copies an account's data, so journal entries can be applied to the copy while the panels are still showing the
+	 * original.
+	 */
+	public static AccountData copyAccountData(AccountData data)
+	{
+		AccountData copy = GSON.fromJson(GSON.toJsonTree(data), AccountData.class);
+		copy.setUncompactedOffers(data.getUncompactedOffers());
+		copy.setJournalOffset(data.getJournalOffset());
+		copy.setEdited(data.isEdited());
+		return copy;
+	}
+
+	private static JournalEntry parseEntry(String displayName, ByteArrayOutputStream line)
+	{
+		if (line.size() == 0)
+		{
+			return null;
+		}
+
+		try
+		{
+			JournalEntry entry = GSON.fromJson(new String(line.toByteArray(), StandardCharsets.UTF_8), JournalEntry.class);
+			return entry == null || entry.offer == null ? null : entry;
+		}
+		catch (JsonParseException e)
+		{
+			log.info("skipping unreadable entry in the journal for {}, error = {}", displayName, e);
+			return null;
+		}
+	}
+
+	private static void applyEntry(String displayName, AccountData accountData, JournalEntry entry, ItemManager itemManager)
+	{
+		OfferEvent offer = entry.offer;
+		offer.setBeforeLogin(entry.beforeLogin);
+		if (offer.getMadeBy() == null)
+		{
+			offer.setMadeBy(displayName);
+		}
+		if (offer.getSlot() != -1)
+		{
+			accountData.getLastOffers().put(offer.getSlot(), offer);
+		}
+
+		accountData.updateTrades(offer.clone(), () ->
+		{
+			ItemStats itemStats = itemManager.getItemStats(offer.getItemId(), false);
+			int geLimit = itemStats != null ? itemStats.getGeLimit() : 0;
+			return new FlippingItem(offer.getItemId(), entry.itemName, geLimit, displayName);
+		});
+		accountData.setJournalSequence(entry.sequence);
 	}
 
 	/**
 	 * stores trades for an account in {user's home directory}/.runelite/flipping/{account's display name}.json
+	 * and clears its journal, as everything in the journal is now part of the snapshot. The snapshot is written to a
+	 * temp file which then replaces the old snapshot, so a crash midway through leaves the old one intact.
 	 *
 	 * @param displayName display name of the account the data is associated with
 	 * @param data        the trades and last offers of that account
@@ -215,15 +392,82 @@ public class TradePersister
 	public static void storeTrades(String displayName, AccountData data) throws IOException
 	{
 		log.info("storing trades for {}", displayName);
-		File accountFile = new File(PARENT_DIRECTORY, displayName + ".json");
-		final Gson gson = new Gson();
-		final String json = gson.toJson(data);
-		Files.write(accountFile.toPath(), json.getBytes());
+		File accountFile = new File(PARENT_DIRECTORY, displayName + SNAPSHOT_EXTENSION);
+		File tempFile = new File(PARENT_DIRECTORY, displayName + SNAPSHOT_EXTENSION + ".tmp");
+		//serialized under the data's lock as the client thread keeps applying offers to it
+		String json;
+		synchronized (data)
+		{
+			json = GSON.toJson(data);
+		}
+		try (Writer out = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8))
+		{
+			out.write(json);
+		}
+		try
+		{
+			Files.move(tempFile.toPath(), accountFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (AtomicMoveNotSupportedException e)
+		{
+			Files.move(tempFile.toPath(), accountFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+
+		ownWrites.put(accountFile.getName(), fileState(accountFile));
+
+		data.setUncompactedOffers(0);
+		data.setJournalOffset(0);
+		data.setEdited(false);
+		Files.deleteIfExists(new File(PARENT_DIRECTORY, displayName + JOURNAL_EXTENSION).toPath());
+	}
+
+	/**
+	 * appends an offer to an account's journal in {user's home directory}/.runelite/flipping/{account's display name}.journal.
+	 * The offer must already have been applied to the account's data, together with taking the entry's sequence number
+	 * from it, so that a snapshot written in between never has the offer without its sequence number.
+	 *
+	 * @param displayName display name of the account the offer was made by
+	 * @param data        the account's data
+	 * @param sequence    the entry's sequence number
+	 * @param offer       the offer that was applied to the account's trades list
+	 * @param itemName    name of the offer's item, so that replaying it can create the flipping item
+	 * @return whether the journal has grown large enough that it should be compacted
+	 * @throws IOException
+	 */
+	public static boolean appendOffer(String displayName, AccountData data, long sequence, OfferEvent offer, String itemName) throws IOException
+	{
+		File journal = new File(PARENT_DIRECTORY, displayName + JOURNAL_EXTENSION);
+		String json = GSON.toJson(new JournalEntry(sequence, offer, offer.isBeforeLogin(), itemName));
+		try (FileChannel channel = FileChannel.open(journal.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+			StandardOpenOption.WRITE))
+		{
+			long size = channel.size();
+			//a crash can leave an entry without its newline, which would otherwise swallow this entry too.
+			ByteBuffer lastByte = ByteBuffer.allocate(1);
+			boolean terminated = size == 0 || channel.read(lastByte, size - 1) == 1 && lastByte.get(0) == '\n';
+			byte[] line = ((terminated ? "" : "\n") + json + "\n").getBytes(StandardCharsets.UTF_8);
+			channel.write(ByteBuffer.wrap(line), size);
+			data.setJournalOffset(size + line.length);
+		}
+		ownWrites.put(journal.getName(), fileState(journal));
+
+		data.setUncompactedOffers(data.getUncompactedOffers() + 1);
+		return data.getUncompactedOffers() >= COMPACTION_THRESHOLD;
+	}
+
+	/**
+	 * Whether a file is still exactly as this client last wrote it, in which case there is nothing in it that this
+	 * client doesn't already have.
+	 */
+	public static boolean isOwnWrite(String fileName)
+	{
+		String state = ownWrites.get(fileName);
+		return state != null && state.equals(fileState(new File(PARENT_DIRECTORY, fileName)));
 	}
 
-	public static long lastModified(String fileName)
+	private static String fileState(File f)
 	{
-		return new File(PARENT_DIRECTORY, fileName).lastModified();
+		return f.length() + "@" + f.lastModified();
 	}
 
 	public static void deleteFile(String fileName)
@@ -242,6 +486,17 @@ public class TradePersister
 		}
 	}
 
+	/**
+	 * deletes everything stored for an account: its snapshot and its journal.
+	 *
+	 * @param displayName display name of the account
+	 */
+	public static void deleteAccount(String displayName)
+	{
+		deleteFile(displayName + SNAPSHOT_EXTENSION);
+		deleteFile(displayName + JOURNAL_EXTENSION);
+	}
+
 	/**
 	 * Over time as we delete/add fields, we need to make sure the fields are set properly the first time the user
 	 * loads their trades after the new update. This method serves as a way to sanitize the data.
@@ -272,4 +527,24 @@ public class TradePersister
 			}
 		}
 	}
+
+	/**
+	 * A line of an account's journal.
+	 */
+	@AllArgsConstructor
+	private static class JournalEntry
+	{
+		@SerializedName("q")
+		private long sequence;
+
+		@SerializedName("o")
+		private OfferEvent offer;
+
+		//not part of an OfferEvent's serialized form, but it affects how the offer updates the ge limit.
+		@SerializedName("bL")
+		private boolean beforeLogin;
+
+		@SerializedName("n")
+		private String itemName;
+	}
 }
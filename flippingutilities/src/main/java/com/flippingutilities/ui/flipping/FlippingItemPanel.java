@@ -202,6 +202,7 @@ public class FlippingItemPanel extends JPanel
 				if (e.getButton() == MouseEvent.BUTTON1)
 				{
 					flippingItem.setValidFlippingPanelItem(false);
+					plugin.markTradesEdited();
 					onDeleteCallback.run();
 				}
 			}
@@ -280,6 +281,7 @@ public class FlippingItemPanel extends JPanel
 					}
 					flippingItem.setFavorite(false);
 					favoriteIcon.setIcon(STAR_OFF_ICON);
+					plugin.markTradesEdited();
 				}
 				else
 				{
@@ -289,6 +291,7 @@ public class FlippingItemPanel extends JPanel
 					}
 					flippingItem.setFavorite(true);
 					favoriteIcon.setIcon(STAR_ON_ICON);
+					plugin.markTradesEdited();
 				}
 			}
 
@@ -490,11 +490,11 @@ public class StatItemPanel extends JPanel
 				numItemsSold += offer.getCurrentQuantityInTrade();
 			}
 		}
-		long revenueFromFlippedItems = flippingItem.getFlippedCashFlow(tradeHistory, false);
-		long expenseFromFlippedItems = flippingItem.getFlippedCashFlow(tradeHistory, true);
-		long totalRevenue = flippingItem.getTotalCashFlow(tradeHistory, false);
-		long totalExpense = flippingItem.getTotalCashFlow(tradeHistory, true);
-		int itemCountFlipped = flippingItem.countItemsFlipped(tradeHistory);
+		long revenueFromFlippedItems = flippingItem.getFlippedCashFlow(startOfInterval, false);
+		long expenseFromFlippedItems = flippingItem.getFlippedCashFlow(startOfInterval, true);
+		long totalRevenue = flippingItem.getTotalCashFlow(startOfInterval, false);
+		long totalExpense = flippingItem.getTotalCashFlow(startOfInterval, true);
+		int itemCountFlipped = flippingItem.countItemsFlipped(startOfInterval);
 
 		updateTitleLabels(revenueFromFlippedItems - expenseFromFlippedItems, itemCountFlipped);
 		updateFlippingLabels(expenseFromFlippedItems, revenueFromFlippedItems, itemCountFlipped);
@@ -29,7 +29,6 @@ package com.flippingutilities.ui.statistics;
 import com.flippingutilities.FlippingItem;
 import com.flippingutilities.FlippingPlugin;
 import com.flippingutilities.HistoryManager;
-import com.flippingutilities.OfferEvent;
 import com.flippingutilities.ui.utilities.Paginator;
 import com.flippingutilities.ui.utilities.UIUtilities;
 import static com.flippingutilities.ui.utilities.UIUtilities.RESET_HOVER_ICON;
@@ -511,17 +510,15 @@ public class StatsPanel extends JPanel
 	{
 		activePanels.clear();
 		List<FlippingItem> sortedItems = sortTradeList(flippingItems);
-		List<FlippingItem> itemsThatShouldHavePanels = sortedItems.stream().filter(item -> item.getIntervalHistory(startOfInterval).stream().anyMatch(OfferEvent::isValidOfferEvent)).collect(Collectors.toList());
+		List<FlippingItem> itemsThatShouldHavePanels = sortedItems.stream().filter(item -> item.hasOffersAfter(startOfInterval)).collect(Collectors.toList());
 		paginator.updateTotalPages(itemsThatShouldHavePanels.size());
 		List<FlippingItem> itemsOnCurrentPage = paginator.getCurrentPageItems(itemsThatShouldHavePanels);
 		statItemContainer.removeAll();
 		int index = 0;
 		for (FlippingItem item : itemsOnCurrentPage)
 		{
-			ArrayList<OfferEvent> itemTradeHistory = new ArrayList<>(item.getIntervalHistory(startOfInterval));
-
 			//Make sure the item has stats we can use
-			if (itemTradeHistory.isEmpty())
+			if (!item.hasOffersAfter(startOfInterval))
 			{
 				continue;
 			}
@@ -582,15 +579,14 @@ public class StatsPanel extends JPanel
 
 		for (FlippingItem item : tradesList)
 		{
-			List<OfferEvent> intervalHistory = item.getIntervalHistory(startOfInterval);
-			if (intervalHistory.isEmpty())
+			if (!item.hasOffersAfter(startOfInterval))
 			{
 				continue;
 			}
-			totalProfit += item.currentProfit(intervalHistory);
+			totalProfit += item.currentProfit(startOfInterval);
 			totalExpenses += item.getFlippedCashFlow(startOfInterval, true);
 			totalRevenues += item.getFlippedCashFlow(startOfInterval, false);
-			totalQuantity += item.countItemsFlipped(intervalHistory);
+			totalQuantity += item.countItemsFlipped(startOfInterval);
 			int flips = item.getFlips(startOfInterval).size();
 			totalFlips += flips;
 			if (mostCommonItemName == null || mostFlips < flips)
@@ -779,6 +775,8 @@ public class StatsPanel extends JPanel
 		FlippingItem item = itemPanel.getFlippingItem();
 
 		item.invalidateOffers(item.getIntervalHistory(reset ? Instant.EPOCH : startOfInterval));
+		//invalidated offers aren't journaled, so the trades have to be stored again on logout
+		plugin.markTradesEdited();
 	}
 
 	/**
@@ -894,14 +892,11 @@ public class StatsPanel extends JPanel
 
 			case "Most Total Profit":
 				result.sort((item1, item2) -> {
-					ArrayList<OfferEvent> intervalHistory1 = item1.getIntervalHistory(startOfInterval);
-					ArrayList<OfferEvent> intervalHistory2 = item2.getIntervalHistory(startOfInterval);
-
-					long totalExpense1 = item1.getFlippedCashFlow(intervalHistory1, true);
-					long totalRevenue1 = item1.getFlippedCashFlow(intervalHistory1, false);
+					long totalExpense1 = item1.getFlippedCashFlow(startOfInterval, true);
+					long totalRevenue1 = item1.getFlippedCashFlow(startOfInterval, false);
 
-					long totalExpense2 = item2.getFlippedCashFlow(intervalHistory2, true);
-					long totalRevenue2 = item2.getFlippedCashFlow(intervalHistory2, false);
+					long totalExpense2 = item2.getFlippedCashFlow(startOfInterval, true);
+					long totalRevenue2 = item2.getFlippedCashFlow(startOfInterval, false);
 
 					if ((totalExpense1 != 0 && totalRevenue1 != 0) && (totalExpense2 == 0 || totalRevenue2 == 0))
 					{
@@ -918,35 +913,31 @@ public class StatsPanel extends JPanel
 						return 0;
 					}
 
-					return Long.compare(item1.currentProfit(intervalHistory1), item2.currentProfit(intervalHistory2));
+					return Long.compare(totalRevenue1 - totalExpense1, totalRevenue2 - totalExpense2);
 				});
 				break;
 
 			case "Most Profit Each":
 				result.sort(Comparator.comparing(item ->
 				{
-					ArrayList<OfferEvent> intervalHistory = item.getIntervalHistory(startOfInterval);
-					int quantity = item.countItemsFlipped(intervalHistory);
+					int quantity = item.countItemsFlipped(startOfInterval);
 
 					if (quantity == 0)
 					{
 						return 0;
 					}
 
-					return (int) item.currentProfit(intervalHistory) / quantity;
+					return (int) item.currentProfit(startOfInterval) / quantity;
 				}));
 				break;
 			case "Highest ROI":
 				result.sort((item1, item2) ->
 				{
-					ArrayList<OfferEvent> intervalHistory1 = item1.getIntervalHistory(startOfInterval);
-					ArrayList<OfferEvent> intervalHistory2 = item2.getIntervalHistory(startOfInterval);
-
-					long totalExpense1 = item1.getFlippedCashFlow(intervalHistory1, true);
-					long totalRevenue1 = item1.getFlippedCashFlow(intervalHistory1, false);
+					long totalExpense1 = item1.getFlippedCashFlow(startOfInterval, true);
+					long totalRevenue1 = item1.getFlippedCashFlow(startOfInterval, false);
 
-					long totalExpense2 = item2.getFlippedCashFlow(intervalHistory2, true);
-					long totalRevenue2 = item2.getFlippedCashFlow(intervalHistory2, false);
+					long totalExpense2 = item2.getFlippedCashFlow(startOfInterval, true);
+					long totalRevenue2 = item2.getFlippedCashFlow(startOfInterval, false);
 
 					if ((totalExpense1 != 0 && totalRevenue1 != 0) && (totalExpense2 == 0 || totalRevenue2 == 0))
 					{
@@ -963,12 +954,12 @@ public class StatsPanel extends JPanel
 						return 0;
 					}
 
-					return Float.compare((float) item1.currentProfit(intervalHistory1) / totalExpense1, (float) item2.currentProfit(intervalHistory2) / totalExpense2);
+					return Float.compare((float) (totalRevenue1 - totalExpense1) / totalExpense1, (float) (totalRevenue2 - totalExpense2) / totalExpense2);
 				});
 				break;
 
 			case "Highest Quantity":
-				result.sort(Comparator.comparing(item -> item.countItemsFlipped(item.getIntervalHistory(startOfInterval))));
+				result.sort(Comparator.comparing(item -> item.countItemsFlipped(startOfInterval)));
 				break;
 
 			default:
@@ -0,0 +1,71 @@
+package info.sigterm.plugins.httpserver;
+
+import com.google.gson.JsonElement;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+import net.runelite.http.api.RuneLiteAPI;
+
+/**
+ * A serialized JSON body with its ETag. The gzipped form is only built the first time a client
+ * asks for it, and is then kept for as long as the body is.
+ */
+final class CachedResponse
+{
+	private final byte[] body;
+	private final String etag;
+	private volatile byte[] gzipped;
+
+	private CachedResponse(byte[] body)
+	{
+		this.body = body;
+
+		CRC32 crc = new CRC32();
+		crc.update(body);
+		etag = String.format("\"%08x-%x\"", crc.getValue(), body.length);
+	}
+
+	static CachedResponse of(JsonElement json)
+	{
+		return new CachedResponse(RuneLiteAPI.GSON.toJson(json).getBytes(StandardCharsets.UTF_8));
+	}
+
+	byte[] getBody()
+	{
+		return body;
+	}
+
+	String getEtag()
+	{
+		return etag;
+	}
+
+	byte[] getGzipped()
+	{
+		byte[] result = gzipped;
+		if (result == null)
+		{
+			// Two threads may compress at the same time; both get the same bytes, so that is harmless
+			result = gzip(body);
+			gzipped = result;
+		}
+		return result;
+	}
+
+	private static byte[] gzip(byte[] data)
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out))
+		{
+			gzip.write(data);
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+		return out.toByteArray();
+	}
+}
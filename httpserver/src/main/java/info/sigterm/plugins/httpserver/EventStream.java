@@ -0,0 +1,255 @@
+package info.sigterm.plugins.httpserver;
+
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.http.api.RuneLiteAPI;
+
+/**
+ * Server-sent events on /events. A new subscriber first gets the full state, and after that one event
+ * per tick with only what changed. Each event is serialized once and the same bytes are queued for
+ * every subscriber.
+ * <p>
+ * Every subscriber has a small queue and its own writer task, so a slow client only delays itself. When
+ * a queue is full the oldest event is dropped, and the subscriber is sent the full state again before
+ * the next delta so it never ends up with a wrong picture.
+ */
+@Slf4j
+class EventStream implements HttpHandler
+{
+	private static final int MAX_SUBSCRIBERS = 64;
+	private static final int QUEUE_SIZE = 32;
+	private static final int KEEPALIVE_TICKS = 25;
+	private static final byte[] KEEPALIVE = ": keepalive\n\n".getBytes(StandardCharsets.UTF_8);
+
+	private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+	private final ExecutorService writers;
+	private volatile GameSnapshot latest;
+	private volatile Event latestFull;
+	private int quietTicks;
+
+	EventStream(ExecutorService writers)
+	{
+		this.writers = writers;
+	}
+
+	/**
+	 * Called on the client thread after every new snapshot.
+	 */
+	void publish(GameSnapshot previous, GameSnapshot current)
+	{
+		latest = current;
+		if (subscribers.isEmpty())
+		{
+			return;
+		}
+
+		JsonObject delta = current.delta(previous);
+		Event event;
+		if (delta != null)
+		{
+			event = new Event(current.getTick(), delta);
+			quietTicks = 0;
+		}
+		else if (++quietTicks >= KEEPALIVE_TICKS)
+		{
+			// Lets the writers notice clients that went away while nothing changed
+			event = new Event(current.getTick(), KEEPALIVE);
+			quietTicks = 0;
+		}
+		else
+		{
+			return;
+		}
+
+		for (Subscriber subscriber : subscribers)
+		{
+			subscriber.offer(event);
+		}
+	}
+
+	void close()
+	{
+		for (Subscriber subscriber : subscribers)
+		{
+			subscriber.close();
+		}
+		latest = null;
+		latestFull = null;
+	}
+
+	@Override
+	public void handle(HttpExchange exchange) throws IOException
+	{
+		if (!"GET".equals(exchange.getRequestMethod()))
+		{
+			exchange.getResponseHeaders().set("Allow", "GET");
+			exchange.sendResponseHeaders(405, -1);
+			exchange.close();
+			return;
+		}
+
+		if (subscribers.size() >= MAX_SUBSCRIBERS)
+		{
+			exchange.sendResponseHeaders(503, -1);
+			exchange.close();
+			return;
+		}
+
+		Headers headers = exchange.getResponseHeaders();
+		headers.set("Content-Type", "text/event-stream; charset=utf-8");
+		headers.set("Cache-Control", "no-cache");
+		exchange.sendResponseHeaders(200, 0);
+
+		// The exchange stays open after this returns; the writer owns it from here on
+		Subscriber subscriber = new Subscriber(exchange);
+		subscribers.add(subscriber);
+		writers.execute(subscriber);
+	}
+
+	/**
+	 * Full state of the latest snapshot, shared by every subscriber that needs it on the same tick.
+	 */
+	private Event fullState()
+	{
+		GameSnapshot snapshot = latest;
+		if (snapshot == null)
+		{
+			return null;
+		}
+
+		Event full = latestFull;
+		if (full == null || full.tick != snapshot.getTick())
+		{
+			full = new Event(snapshot.getTick(), snapshot.delta(null));
+			latestFull = full;
+		}
+		return full;
+	}
+
+	private static final class Event
+	{
+		private final int tick;
+		private final byte[] bytes;
+
+		Event(int tick, byte[] bytes)
+		{
+			this.tick = tick;
+			this.bytes = bytes;
+		}
+
+		Event(int tick, JsonObject data)
+		{
+			this(tick, ("id: " + tick + "\ndata: " + RuneLiteAPI.GSON.toJson(data) + "\n\n").getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	private class Subscriber implements Runnable
+	{
+		private final HttpExchange exchange;
+		private final ArrayDeque<Event> queue = new ArrayDeque<>(QUEUE_SIZE);
+		private boolean resync = true;
+		private boolean closed;
+
+		Subscriber(HttpExchange exchange)
+		{
+			this.exchange = exchange;
+		}
+
+		synchronized void offer(Event event)
+		{
+			if (closed)
+			{
+				return;
+			}
+
+			if (queue.size() == QUEUE_SIZE)
+			{
+				queue.pollFirst();
+				resync = true;
+			}
+			queue.addLast(event);
+			notifyAll();
+		}
+
+		synchronized void close()
+		{
+			closed = true;
+			notifyAll();
+		}
+
+		@Override
+		public void run()
+		{
+			int sentTick = Integer.MIN_VALUE;
+			try (OutputStream out = exchange.getResponseBody())
+			{
+				while (true)
+				{
+					Event event;
+					boolean full;
+					synchronized (this)
+					{
+						// A resync has to wait for the first snapshot when the client connects before login
+						while (!closed && queue.isEmpty() && !(resync && latest != null))
+						{
+							wait();
+						}
+
+						if (closed)
+						{
+							break;
+						}
+
+						full = resync && latest != null;
+						if (full)
+						{
+							resync = false;
+						}
+						event = full ? null : queue.pollFirst();
+					}
+
+					if (full)
+					{
+						event = fullState();
+						if (event == null)
+						{
+							continue;
+						}
+					}
+					else if (event.tick <= sentTick && event.bytes != KEEPALIVE)
+					{
+						// Already covered by the full state that was sent instead
+						continue;
+					}
+
+					out.write(event.bytes);
+					out.flush();
+					sentTick = Math.max(sentTick, event.tick);
+				}
+			}
+			catch (IOException e)
+			{
+				log.debug("Event subscriber disconnected", e);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+			finally
+			{
+				subscribers.remove(this);
+				exchange.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,308 @@
+package info.sigterm.plugins.httpserver;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import java.util.Arrays;
+import java.util.function.Function;
+import net.runelite.api.Client;
+import net.runelite.api.InventoryID;
+import net.runelite.api.Item;
+import net.runelite.api.ItemContainer;
+import net.runelite.api.Player;
+import net.runelite.api.Skill;
+import net.runelite.api.coords.WorldPoint;
+
+/**
+ * Game state captured on the client thread once per tick. Snapshots are immutable, so the HTTP
+ * threads can read them without any locking. Each part keeps the raw values it was built from, and a
+ * part whose values did not change since the previous tick is carried over with its serialized body,
+ * so JSON is only written when something actually changed.
+ */
+final class GameSnapshot
+{
+	private static final int[] EMPTY_STATE = new int[0];
+	private static final Skill[] SKILLS = Arrays.stream(Skill.values())
+		.filter(skill -> skill != Skill.OVERALL)
+		.toArray(Skill[]::new);
+	private static final String[] SKILL_FIELDS = {"level", "boostedLevel", "xp"};
+
+	private final int tick;
+	private final Part stats;
+	private final Part inventory;
+	private final Part equipment;
+	private final Part location;
+	private final Part varps;
+
+	private GameSnapshot(int tick, Part stats, Part inventory, Part equipment, Part location, Part varps)
+	{
+		this.tick = tick;
+		this.stats = stats;
+		this.inventory = inventory;
+		this.equipment = equipment;
+		this.location = location;
+		this.varps = varps;
+	}
+
+	/**
+	 * Captures the current state. Must be called on the client thread. The varps are only copied
+	 * when {@code varpsChanged} is set, as the array is large and rarely changes.
+	 */
+	static GameSnapshot capture(Client client, GameSnapshot previous, int tick, boolean varpsChanged)
+	{
+		int[] skills = new int[SKILLS.length * 3];
+		for (int i = 0; i < SKILLS.length; i++)
+		{
+			skills[i * 3] = client.getRealSkillLevel(SKILLS[i]);
+			skills[i * 3 + 1] = client.getBoostedSkillLevel(SKILLS[i]);
+			skills[i * 3 + 2] = client.getSkillExperience(SKILLS[i]);
+		}
+
+		int[] position = EMPTY_STATE;
+		Player player = client.getLocalPlayer();
+		if (player != null)
+		{
+			WorldPoint point = player.getWorldLocation();
+			position = new int[]{point.getX(), point.getY(), point.getPlane()};
+		}
+
+		Part varpPart;
+		if (previous == null || varpsChanged)
+		{
+			varpPart = Part.update(previous == null ? null : previous.varps, client.getVarps().clone(), GameSnapshot::serializeVarps);
+		}
+		else
+		{
+			varpPart = previous.varps;
+		}
+
+		return new GameSnapshot(tick,
+			Part.update(previous == null ? null : previous.stats, skills, GameSnapshot::serializeStats),
+			Part.update(previous == null ? null : previous.inventory, items(client, InventoryID.INVENTORY), GameSnapshot::serializeItems),
+			Part.update(previous == null ? null : previous.equipment, items(client, InventoryID.EQUIPMENT), GameSnapshot::serializeItems),
+			Part.update(previous == null ? null : previous.location, position, GameSnapshot::serializeLocation),
+			varpPart);
+	}
+
+	int getTick()
+	{
+		return tick;
+	}
+
+	CachedResponse getStats()
+	{
+		return stats.response;
+	}
+
+	CachedResponse getInventory()
+	{
+		return inventory.response;
+	}
+
+	CachedResponse getEquipment()
+	{
+		return equipment.response;
+	}
+
+	CachedResponse getLocation()
+	{
+		return location.response;
+	}
+
+	CachedResponse getVarps()
+	{
+		return varps.response;
+	}
+
+	/**
+	 * Builds an event with only what differs from {@code previous}: the changed fields of each skill,
+	 * the changed inventory and equipment slots, and the location if it moved. Everything is included
+	 * when {@code previous} is null. Returns null when nothing changed.
+	 */
+	JsonObject delta(GameSnapshot previous)
+	{
+		JsonObject event = new JsonObject();
+		event.addProperty("tick", tick);
+		boolean changed = previous == null;
+
+		if (previous == null || previous.stats != stats)
+		{
+			JsonArray skills = skillsDelta(previous == null ? null : previous.stats.state, stats.state);
+			if (skills.size() > 0)
+			{
+				event.add("skills", skills);
+				changed = true;
+			}
+		}
+
+		if (previous == null || previous.location != location)
+		{
+			event.add("location", serializeLocation(location.state));
+			changed = true;
+		}
+
+		if (previous == null || previous.inventory != inventory)
+		{
+			event.add("inventory", itemsDelta(previous == null ? EMPTY_STATE : previous.inventory.state, inventory.state));
+			changed = true;
+		}
+
+		if (previous == null || previous.equipment != equipment)
+		{
+			event.add("equipment", itemsDelta(previous == null ? EMPTY_STATE : previous.equipment.state, equipment.state));
+			changed = true;
+		}
+
+		return changed ? event : null;
+	}
+
+	private static JsonArray skillsDelta(int[] previous, int[] current)
+	{
+		JsonArray skills = new JsonArray();
+		for (int i = 0; i < SKILLS.length; i++)
+		{
+			int base = i * 3;
+			JsonObject object = null;
+			for (int field = 0; field < 3; field++)
+			{
+				if (previous != null && previous[base + field] == current[base + field])
+				{
+					continue;
+				}
+
+				if (object == null)
+				{
+					object = new JsonObject();
+					object.addProperty("stat", SKILLS[i].getName());
+				}
+				object.addProperty(SKILL_FIELDS[field], current[base + field]);
+			}
+
+			if (object != null)
+			{
+				skills.add(object);
+			}
+		}
+		return skills;
+	}
+
+	/**
+	 * Changed slots only. Slots that no longer exist, because the container shrank or went away, are
+	 * sent as empty.
+	 */
+	private static JsonArray itemsDelta(int[] previous, int[] current)
+	{
+		JsonArray items = new JsonArray();
+		int length = Math.max(previous.length, current.length);
+		for (int i = 0; i < length; i += 2)
+		{
+			int id = i < current.length ? current[i] : -1;
+			int quantity = i < current.length ? current[i + 1] : 0;
+			if (i < previous.length && previous[i] == id && previous[i + 1] == quantity)
+			{
+				continue;
+			}
+
+			JsonObject object = new JsonObject();
+			object.addProperty("slot", i / 2);
+			object.addProperty("id", id);
+			object.addProperty("quantity", quantity);
+			items.add(object);
+		}
+		return items;
+	}
+
+	private static int[] items(Client client, InventoryID id)
+	{
+		ItemContainer container = client.getItemContainer(id);
+		if (container == null)
+		{
+			return EMPTY_STATE;
+		}
+
+		Item[] items = container.getItems();
+		int[] state = new int[items.length * 2];
+		for (int i = 0; i < items.length; i++)
+		{
+			state[i * 2] = items[i].getId();
+			state[i * 2 + 1] = items[i].getQuantity();
+		}
+		return state;
+	}
+
+	private static JsonElement serializeStats(int[] state)
+	{
+		JsonArray skills = new JsonArray();
+		for (int i = 0; i < SKILLS.length; i++)
+		{
+			JsonObject object = new JsonObject();
+			object.addProperty("stat", SKILLS[i].getName());
+			for (int field = 0; field < 3; field++)
+			{
+				object.addProperty(SKILL_FIELDS[field], state[i * 3 + field]);
+			}
+			skills.add(object);
+		}
+		return skills;
+	}
+
+	private static JsonElement serializeItems(int[] state)
+	{
+		JsonArray items = new JsonArray();
+		for (int i = 0; i < state.length; i += 2)
+		{
+			JsonObject object = new JsonObject();
+			object.addProperty("slot", i / 2);
+			object.addProperty("id", state[i]);
+			object.addProperty("quantity", state[i + 1]);
+			items.add(object);
+		}
+		return items;
+	}
+
+	private static JsonElement serializeLocation(int[] state)
+	{
+		if (state.length == 0)
+		{
+			return JsonNull.INSTANCE;
+		}
+
+		JsonObject object = new JsonObject();
+		object.addProperty("x", state[0]);
+		object.addProperty("y", state[1]);
+		object.addProperty("plane", state[2]);
+		return object;
+	}
+
+	private static JsonElement serializeVarps(int[] state)
+	{
+		JsonArray varps = new JsonArray();
+		for (int value : state)
+		{
+			varps.add(value);
+		}
+		return varps;
+	}
+
+	private static final class Part
+	{
+		private final int[] state;
+		private final CachedResponse response;
+
+		private Part(int[] state, CachedResponse response)
+		{
+			this.state = state;
+			this.response = response;
+		}
+
+		static Part update(Part previous, int[] state, Function<int[], JsonElement> serializer)
+		{
+			if (previous != null && Arrays.equals(previous.state, state))
+			{
+				return previous;
+			}
+			return new Part(state, CachedResponse.of(serializer.apply(state)));
+		}
+	}
+}
@@ -1,21 +1,24 @@
 package info.sigterm.plugins.httpserver;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
+import java.io.OutputStream;
 import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.function.Function;
 import javax.inject.Inject;
 import net.runelite.api.Client;
-import net.runelite.api.Skill;
+import net.runelite.api.events.GameTick;
+import net.runelite.api.events.VarbitChanged;
+import net.runelite.client.eventbus.Subscribe;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
 import net.runelite.client.plugins.PluginType;
-import net.runelite.http.api.RuneLiteAPI;
 import org.pf4j.Extension;
 
 @Extension
@@ -27,10 +30,21 @@ import org.pf4j.Extension;
 )
 public class HttpServerPlugin extends Plugin
 {
+	private static final int THREADS = 4;
+
 	@Inject
 	private Client client;
 
 	private HttpServer server;
+	private ExecutorService executor;
+	private ExecutorService eventWriters;
+	private EventStream events;
+
+	/**
+	 * Written on the client thread every tick, read by the HTTP threads.
+	 */
+	private volatile GameSnapshot snapshot;
+	private boolean varpsChanged;
 
 	@Override
 	protected void startUp() throws Exception
@@ -38,8 +52,22 @@ public class HttpServerPlugin extends Plugin
 		try
 		{
 			server = HttpServer.create(new InetSocketAddress(8080), 0);
-			server.createContext("/stats", new StatsHandler());
-			server.setExecutor(Executors.newSingleThreadExecutor());
+			server.createContext("/stats", new SnapshotHandler(GameSnapshot::getStats));
+			server.createContext("/inventory", new SnapshotHandler(GameSnapshot::getInventory));
+			server.createContext("/equipment", new SnapshotHandler(GameSnapshot::getEquipment));
+			server.createContext("/location", new SnapshotHandler(GameSnapshot::getLocation));
+			server.createContext("/varps", new SnapshotHandler(GameSnapshot::getVarps));
+			eventWriters = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+				.setNameFormat("http-server-events-%d")
+				.setDaemon(true)
+				.build());
+			events = new EventStream(eventWriters);
+			server.createContext("/events", events);
+			executor = Executors.newFixedThreadPool(THREADS, new ThreadFactoryBuilder()
+				.setNameFormat("http-server-%d")
+				.setDaemon(true)
+				.build());
+			server.setExecutor(executor);
 			server.start();
 		}
 		catch (IOException ignored)
@@ -50,35 +78,152 @@ public class HttpServerPlugin extends Plugin
 	@Override
 	protected void shutDown() throws Exception
 	{
-		server.stop(1);
+		if (events != null)
+		{
+			events.close();
+			events = null;
+		}
+
+		if (server != null)
+		{
+			server.stop(1);
+			server = null;
+		}
+
+		if (executor != null)
+		{
+			executor.shutdown();
+			executor = null;
+		}
+
+		if (eventWriters != null)
+		{
+			eventWriters.shutdownNow();
+			eventWriters = null;
+		}
+
+		snapshot = null;
+	}
+
+	@Subscribe
+	public void onVarbitChanged(VarbitChanged event)
+	{
+		varpsChanged = true;
+	}
+
+	@Subscribe
+	public void onGameTick(GameTick event)
+	{
+		GameSnapshot previous = snapshot;
+		snapshot = GameSnapshot.capture(client, previous, client.getTickCount(), varpsChanged);
+		varpsChanged = false;
+
+		if (events != null)
+		{
+			events.publish(previous, snapshot);
+		}
 	}
 
-	class StatsHandler implements HttpHandler
+	/**
+	 * Serves one part of the latest snapshot. Only reads the snapshot, never the client, so any number
+	 * of requests can run in parallel with the game.
+	 */
+	class SnapshotHandler implements HttpHandler
 	{
+		private final Function<GameSnapshot, CachedResponse> part;
+
+		SnapshotHandler(Function<GameSnapshot, CachedResponse> part)
+		{
+			this.part = part;
+		}
+
 		@Override
 		public void handle(HttpExchange exchange) throws IOException
 		{
-			JsonArray skills = new JsonArray();
-			for (Skill skill : Skill.values())
+			try
 			{
-				if (skill == Skill.OVERALL)
+				String method = exchange.getRequestMethod();
+				boolean head = "HEAD".equals(method);
+				Headers headers = exchange.getResponseHeaders();
+				if (!head && !"GET".equals(method))
+				{
+					headers.set("Allow", "GET, HEAD");
+					exchange.sendResponseHeaders(405, -1);
+					return;
+				}
+
+				GameSnapshot current = snapshot;
+				if (current == null)
+				{
+					// Not logged in yet, so there is nothing to serve
+					exchange.sendResponseHeaders(503, -1);
+					return;
+				}
+
+				CachedResponse response = part.apply(current);
+				headers.set("Content-Type", "application/json; charset=utf-8");
+				headers.set("Cache-Control", "no-cache");
+				headers.set("Vary", "Accept-Encoding");
+				headers.set("ETag", response.getEtag());
+				headers.set("X-Game-Tick", Integer.toString(current.getTick()));
+
+				if (matches(exchange.getRequestHeaders().getFirst("If-None-Match"), response.getEtag()))
+				{
+					exchange.sendResponseHeaders(304, -1);
+					return;
+				}
+
+				byte[] body;
+				String encoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+				if (encoding != null && encoding.contains("gzip"))
+				{
+					headers.set("Content-Encoding", "gzip");
+					body = response.getGzipped();
+				}
+				else
+				{
+					body = response.getBody();
+				}
+
+				if (head)
 				{
-					continue;
+					exchange.sendResponseHeaders(200, -1);
+					return;
 				}
 
-				JsonObject object = new JsonObject();
-				object.addProperty("stat", skill.getName());
-				object.addProperty("level", client.getRealSkillLevel(skill));
-				object.addProperty("boostedLevel", client.getBoostedSkillLevel(skill));
-				object.addProperty("xp", client.getSkillExperience(skill));
-				skills.add(object);
+				exchange.sendResponseHeaders(200, body.length);
+				try (OutputStream out = exchange.getResponseBody())
+				{
+					out.write(body);
+				}
+			}
+			finally
+			{
+				exchange.close();
+			}
+		}
+
+		private boolean matches(String ifNoneMatch, String etag)
+		{
+			if (ifNoneMatch == null)
+			{
+				return false;
 			}
 
-			exchange.sendResponseHeaders(200, 0);
-			try (OutputStreamWriter out = new OutputStreamWriter(exchange.getResponseBody()))
+			for (String candidate : ifNoneMatch.split(","))
 			{
-				RuneLiteAPI.GSON.toJson(skills, out);
+				candidate = candidate.trim();
+				if (candidate.startsWith("W/"))
+				{
+					candidate = candidate.substring(2);
+				}
+
+				if (candidate.equals(etag) || candidate.equals("*"))
+				{
+					return true;
+				}
 			}
+			return false;
 		}
 	}
 }
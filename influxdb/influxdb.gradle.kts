@@ -30,8 +30,6 @@ project.extra["PluginName"] = "InfluxDB"
 project.extra["PluginDescription"] = "Saves statistics to InfluxDB"
 
 dependencies {
-    implementation(group = "org.influxdb", name = "influxdb-java", version = "2.20")
-
     compileOnly("com.openosrs.externals:loottracker:0.0.+")
 }
 
@@ -140,6 +140,29 @@ public interface InfluxDbConfig extends Config {
         return 15;
     }
 
+    @ConfigItem(
+            keyName = "writeBatchSize",
+            name = "Write batch size",
+            description = "Maximum number of records sent to the server in one request",
+            position = 14
+    )
+    @Range(min = 1, max = 5000)
+    default int writeBatchSize() {
+        return 500;
+    }
+
+    @ConfigItem(
+            keyName = "writeLinger",
+            name = "Write linger",
+            description = "How long records may wait for a batch to fill up before they are sent anyway",
+            position = 15
+    )
+    @Units(Units.MILLISECONDS)
+    @Range(min = 10, max = 60_000)
+    default int writeLingerMillis() {
+        return 1000;
+    }
+
     @ConfigItem(
             keyName = "activityTimeout",
             name = "Activity timeout",
@@ -178,7 +178,7 @@ public class InfluxDbPlugin extends Plugin {
     @Subscribe
     public void onConfigChanged(ConfigChanged changed) {
         if (InfluxDbConfig.GROUP.equals(changed.getGroup())) {
-            failureBackoff = 0;
+            writer.resetBackoff();
             if (InfluxDbConfig.WRITE_INTERVAL.equals(changed.getKey())) {
                 rescheduleFlush();
             }
@@ -198,21 +198,11 @@ public class InfluxDbPlugin extends Plugin {
         measurer.createKillCountMeasurement(key).ifPresent(writer::submit);
     }
 
-    private int failures = 0;
-    private int failureBackoff = 0;
-
     public void flush() {
-        if (failureBackoff > 0) {
-            failureBackoff--;
-            return;
-        }
         try {
             writer.flush();
-            failures = 0;
         } catch (RuntimeException ex) {
-            failures++;
-            log.error("Failed to write to influxDB " + failures + " times", ex);
-            failureBackoff = Math.min(32, failures * failures);
+            log.error("Failed to queue measurements for influxDB", ex);
         }
     }
 
@@ -292,6 +282,7 @@ public class InfluxDbPlugin extends Plugin {
 
     @Override
     protected void startUp() {
+        writer.start();
         rescheduleFlush();
         if (client.getGameState() == GameState.LOGGED_IN) {
             measureInitialState();
@@ -306,5 +297,6 @@ public class InfluxDbPlugin extends Plugin {
         updateActivity(); // get the final activity before shutting down
         flush();
         unscheduleFlush();
+        writer.stop();
     }
 }
@@ -1,120 +1,176 @@
 package net.machpi.runelite.influxdb.write;
 
 import com.google.common.collect.HashMultiset;
-import com.google.common.collect.Maps;
 import com.google.common.collect.Multiset;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import net.machpi.runelite.influxdb.InfluxDbConfig;
 import net.machpi.runelite.influxdb.MeasurementCreator;
 import net.runelite.api.coords.WorldPoint;
+import net.runelite.client.RuneLite;
 import net.runelite.http.api.loottracker.LootRecord;
+import okhttp3.Credentials;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
 import org.apache.commons.lang3.StringUtils;
-import org.influxdb.InfluxDB;
-import org.influxdb.InfluxDBFactory;
-import org.influxdb.dto.BatchPoints;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
 
 @Slf4j
 @Singleton
 public class InfluxWriter {
+    private static final int QUEUE_CAPACITY = 10_000;
+    private static final int MAX_QUEUED_MEASUREMENTS = 1000;
+    private static final File JOURNAL = new File(new File(RuneLite.RUNELITE_DIR, "influxdb"), "journal.lp");
+    private static final MediaType LINE_PROTOCOL = MediaType.parse("text/plain; charset=utf-8");
+
     private final InfluxDbConfig config;
-    private final ConcurrentMap<Series, Writer> writers = new ConcurrentHashMap<>();
+    private final OkHttpClient httpClient;
+    private final ConcurrentMap<Series, SeriesWriter> writers = new ConcurrentHashMap<>();
+    private final AtomicLong droppedMeasurements = new AtomicLong();
+    private final WritePipeline pipeline;
+
+    // reused by flush(), under its lock
+    private final StringBuilder line = new StringBuilder(256);
+    // reused by write(), which only runs on the pipeline's flusher thread
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(64 * 1024);
 
     @Inject
-    public InfluxWriter(InfluxDbConfig config) {
+    public InfluxWriter(InfluxDbConfig config, OkHttpClient httpClient) {
         this.config = config;
+        this.httpClient = httpClient;
+        this.pipeline = new WritePipeline(this::write, new LineJournal(JOURNAL), QUEUE_CAPACITY,
+                config::writeBatchSize, config::writeLingerMillis);
     }
 
-    public void submit(Measurement m) {
-        writer(m.getSeries()).submit(m);
+    public void start() {
+        pipeline.start();
     }
 
-    public boolean isBlocked(Series s) {
-        return writer(s).isBlocked();
+    public void stop() {
+        pipeline.stop();
     }
 
-    private InfluxDB cachedServer = null;
-    private String serverUrl, serverUser, serverPass;
-
-    private synchronized Optional<InfluxDB> getInflux() {
-        if (StringUtils.isEmpty(config.getDatabase())) {
-            return Optional.empty();
-        }
+    public void resetBackoff() {
+        pipeline.resetBackoff();
+    }
 
-        String newServerUrl = config.getServerUrl();
-        String newServerUser = config.getServerUsername();
-        String newServerPass = config.getServerPassword();
+    public WriteStats getStats() {
+        return new WriteStats(pipeline.getQueueDepth(), pipeline.getDropped() + droppedMeasurements.get(),
+                pipeline.getWritten(), pipeline.getJournaled(), pipeline.getFailedWrites());
+    }
 
-        if (!Objects.equals(newServerUrl, serverUrl)
-                || !Objects.equals(newServerUser, serverUser)
-                || !Objects.equals(newServerPass, serverPass)
-                || cachedServer == null) {
-            if (cachedServer != null) {
-                cachedServer.close();
-                cachedServer = null;
-                serverUrl = null;
-                serverUser = null;
-                serverPass = null;
-            }
+    public void submit(Measurement m) {
+        writer(m.getSeries()).submit(m);
+    }
 
-            if (!StringUtils.isEmpty(serverUrl)) {
-                if (StringUtils.isEmpty(serverPass) || StringUtils.isEmpty(serverUser)) {
-                    cachedServer = InfluxDBFactory.connect(serverUrl);
-                } else {
-                    cachedServer = InfluxDBFactory.connect(serverUrl, serverUser, serverPass);
-                }
-            }
-            serverUrl = newServerUrl;
-            serverUser = newServerUser;
-            serverPass = newServerPass;
-        }
-        return Optional.ofNullable(cachedServer);
+    public boolean isBlocked(Series s) {
+        return writer(s).isBlocked();
     }
 
-    private Writer writer(Series s) {
+    private SeriesWriter writer(Series s) {
         return writers.computeIfAbsent(s, series -> {
+            String key = LineProtocol.seriesKey(series);
             if (series.getMeasurement().equals(MeasurementCreator.SERIES_SELF_LOC)) {
-                return new Writer(new ThrottledWriter(), SELF_DEDUPE);
+                return new SeriesWriter(key, new ThrottledWriter(), SELF_DEDUPE);
             } else if (series.getMeasurement().equals(MeasurementCreator.SERIES_ACTIVITY)
                     || series.getMeasurement().equals(MeasurementCreator.SERIES_LOOT)) {
-                return new Writer(new AlwaysWriter(), (a, b) -> true);
+                return new SeriesWriter(key, new AlwaysWriter(droppedMeasurements), (a, b) -> true);
             }
-            return new Writer(new ThrottledWriter(), FULL_DEDUPE);
+            return new SeriesWriter(key, new ThrottledWriter(), FULL_DEDUPE);
         });
     }
 
-    public void flush() {
-        BatchPoints.Builder batch = BatchPoints.database(config.getDatabase())
-                .retentionPolicy(config.getServerRetentionPolicy())
-                .consistency(InfluxDB.ConsistencyLevel.ONE);
-        writers.forEach((k, v) -> v.flush(batch));
-
-        getInflux().ifPresent(influxDB -> {
-            BatchPoints built = batch.build();
-            if (!built.getPoints().isEmpty()) {
-                influxDB.write(built);
-                log.debug("Writing {}", built.lineProtocol());
+    /**
+     * Moves everything that is due into the write pipeline. Never blocks on the server.
+     */
+    public synchronized void flush() {
+        List<String> lines = new ArrayList<>();
+        writers.forEach((k, v) -> v.flush(line, lines));
+
+        if (!lines.isEmpty() && !StringUtils.isEmpty(config.getDatabase())) {
+            pipeline.offer(lines);
+        }
+        log.debug("Write pipeline: {}", getStats());
+    }
+
+    /**
+     * Posts a batch, gzipped, to the server's /write endpoint. Runs on the pipeline's flusher thread.
+     */
+    private void write(List<String> lines) throws IOException, WritePipeline.RejectedException {
+        String serverUrl = config.getServerUrl();
+        HttpUrl base = StringUtils.isEmpty(serverUrl) ? null : HttpUrl.parse(serverUrl);
+        if (base == null || StringUtils.isEmpty(config.getDatabase())) {
+            throw new IOException("No InfluxDB server configured");
+        }
+
+        HttpUrl.Builder url = base.newBuilder()
+                .addPathSegment("write")
+                .addQueryParameter("db", config.getDatabase())
+                .addQueryParameter("consistency", "one");
+        if (!StringUtils.isEmpty(config.getServerRetentionPolicy())) {
+            url.addQueryParameter("rp", config.getServerRetentionPolicy());
+        }
+
+        body.reset();
+        try (Writer out = new OutputStreamWriter(new GZIPOutputStream(body), StandardCharsets.UTF_8)) {
+            for (String record : lines) {
+                out.write(record);
+                out.write('\n');
             }
-        });
+        }
+
+        Request.Builder request = new Request.Builder()
+                .url(url.build())
+                .header("Content-Encoding", "gzip")
+                .post(RequestBody.create(LINE_PROTOCOL, body.toByteArray()));
+        if (!StringUtils.isEmpty(config.getServerUsername()) && !StringUtils.isEmpty(config.getServerPassword())) {
+            request.header("Authorization", Credentials.basic(config.getServerUsername(), config.getServerPassword()));
+        }
+
+        try (Response response = httpClient.newCall(request.build()).execute()) {
+            if (!response.isSuccessful()) {
+                String message = response.body() == null ? "" : response.body().string();
+                int code = response.code();
+                // other client errors, like a parse error, a field type conflict or bad credentials, fail again on retry
+                if (code >= 400 && code < 500 && code != 429) {
+                    throw new WritePipeline.RejectedException("InfluxDB write failed with " + code + ": " + message);
+                }
+                throw new IOException("InfluxDB write failed with " + code + ": " + message);
+            }
+        }
+        log.debug("Wrote {} lines", lines.size());
     }
 
-    private static class Writer {
+    private static class SeriesWriter {
+        private final String seriesKey;
         private final TerminalOp terminal;
         private final FilterOp[] filters;
 
-        private Writer(TerminalOp terminal, FilterOp... filters) {
+        private SeriesWriter(String seriesKey, TerminalOp terminal, FilterOp... filters) {
+            this.seriesKey = seriesKey;
             this.terminal = terminal;
             this.filters = filters;
         }
@@ -124,38 +180,47 @@ public class InfluxWriter {
         }
 
         synchronized void submit(Measurement m) {
-            Measurement prev = terminal.getLastWritten();
+            MeasurementFields fields = MeasurementFields.of(m);
+            if (fields.isEmpty()) {
+                return;
+            }
+            MeasurementFields prev = terminal.getLastWritten();
             for (FilterOp e : filters) {
-                if (!e.shouldWrite(prev, m)) {
+                if (!e.shouldWrite(prev, fields)) {
                     return;
                 }
             }
-            terminal.submit(m);
+            terminal.submit(fields);
         }
 
-        synchronized void flush(BatchPoints.Builder output) {
-            terminal.flush(output);
+        synchronized void flush(StringBuilder line, List<String> output) {
+            terminal.flush(fields -> {
+                line.setLength(0);
+                if (LineProtocol.append(line, seriesKey, fields)) {
+                    output.add(line.toString());
+                }
+            });
         }
     }
 
     private interface TerminalOp {
-        Measurement getLastWritten();
+        MeasurementFields getLastWritten();
 
         boolean isBlocked();
 
-        void submit(Measurement m);
+        void submit(MeasurementFields m);
 
-        void flush(BatchPoints.Builder output);
+        void flush(Consumer<MeasurementFields> output);
     }
 
     private interface FilterOp {
-        boolean shouldWrite(Measurement lastWritten, Measurement measurement);
+        boolean shouldWrite(MeasurementFields lastWritten, MeasurementFields measurement);
     }
 
     private static class ThrottledWriter implements TerminalOp {
         @Getter
-        private volatile Measurement lastWritten;
-        private final AtomicReference<Measurement> waitingForWrite = new AtomicReference<>();
+        private volatile MeasurementFields lastWritten;
+        private final AtomicReference<MeasurementFields> waitingForWrite = new AtomicReference<>();
 
         @Override
         public boolean isBlocked() {
@@ -163,24 +228,29 @@ public class InfluxWriter {
         }
 
         @Override
-        public void submit(Measurement m) {
+        public void submit(MeasurementFields m) {
             waitingForWrite.set(m);
         }
 
         @Override
-        public void flush(BatchPoints.Builder output) {
-            Measurement flush = waitingForWrite.getAndSet(null);
+        public void flush(Consumer<MeasurementFields> output) {
+            MeasurementFields flush = waitingForWrite.getAndSet(null);
             lastWritten = flush;
             if (flush != null)
-                flush.toInflux().ifPresent(output::point);
+                output.accept(flush);
         }
     }
 
     private static class AlwaysWriter implements TerminalOp {
-        private final ArrayDeque<Measurement> queued = new ArrayDeque<>();
+        private final ArrayDeque<MeasurementFields> queued = new ArrayDeque<>();
+        private final AtomicLong dropped;
+
+        private AlwaysWriter(AtomicLong dropped) {
+            this.dropped = dropped;
+        }
 
         @Override
-        public synchronized Measurement getLastWritten() {
+        public synchronized MeasurementFields getLastWritten() {
             return queued.isEmpty() ? null : queued.peekLast();
         }
 
@@ -190,36 +260,43 @@ public class InfluxWriter {
         }
 
         @Override
-        public synchronized void submit(Measurement m) {
+        public synchronized void submit(MeasurementFields m) {
+            if (queued.size() >= MAX_QUEUED_MEASUREMENTS) {
+                queued.removeFirst();
+                dropped.incrementAndGet();
+            }
             queued.add(m);
         }
 
         @Override
-        public synchronized void flush(BatchPoints.Builder output) {
+        public synchronized void flush(Consumer<MeasurementFields> output) {
             while (!queued.isEmpty()) {
-                queued.removeFirst().toInflux().ifPresent(output::point);
+                output.accept(queued.removeFirst());
             }
         }
     }
 
-    private static final FilterOp FULL_DEDUPE = (prev, b) -> prev == null || !prev.getNumericValues().equals(b.getNumericValues())
-            || !prev.getStringValues().equals(b.getStringValues());
+    private static final FilterOp FULL_DEDUPE = (prev, b) -> prev == null || !prev.sameNumbers(b) || !prev.sameStrings(b);
 
     private static final FilterOp SELF_DEDUPE = (prev, curr) -> {
         if (prev == null)
             return true;
-        if (!prev.getStringValues().equals(curr.getStringValues()))
+        if (!prev.sameStrings(curr))
             return true;
-        for (String posKey : MeasurementCreator.SELF_POS_KEYS) {
-            Number p = prev.getNumericValues().get(posKey);
-            Number c = curr.getNumericValues().get(posKey);
-            if (p == null || c == null)
+        if (!Arrays.equals(prev.numericKeys, curr.numericKeys))
+            return true;
+        for (int i = 0; i < curr.numericKeys.length; i++) {
+            if (MeasurementCreator.SELF_POS_KEYS.contains(curr.numericKeys[i])) {
+                if (Math.abs(prev.numericAsDouble(i) - curr.numericAsDouble(i)) > 5)
+                    return true;
+            } else if (prev.numericValues[i] != curr.numericValues[i] || prev.floating[i] != curr.floating[i]) {
                 return true;
-            if (Math.abs(p.doubleValue() - c.doubleValue()) > 5)
+            }
+        }
+        for (String posKey : MeasurementCreator.SELF_POS_KEYS) {
+            if (curr.indexOfNumeric(posKey) < 0)
                 return true;
         }
-        return !Objects.equals(
-                Maps.filterKeys(prev.getNumericValues(), x -> !MeasurementCreator.SELF_POS_KEYS.contains(x)),
-                Maps.filterKeys(curr.getNumericValues(), x -> !MeasurementCreator.SELF_POS_KEYS.contains(x)));
+        return false;
     };
 }
@@ -0,0 +1,79 @@
+package net.machpi.runelite.influxdb.write;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Line protocol records that could not be written yet, one record per line. The file is capped at
+ * {@link #MAX_BYTES}; records past that are dropped and counted by the caller.
+ */
+@Slf4j
+class LineJournal {
+    private static final long MAX_BYTES = 16L << 20;
+
+    private final File file;
+    private long bytes;
+
+    LineJournal(File file) {
+        this.file = file;
+        this.bytes = file.length();
+    }
+
+    synchronized boolean isEmpty() {
+        return bytes == 0;
+    }
+
+    /**
+     * @return how many of the lines were appended, the rest did not fit
+     */
+    synchronized int append(List<String> lines) {
+        int appended = 0;
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            try (BufferedWriter out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (String line : lines) {
+                    long size = line.getBytes(StandardCharsets.UTF_8).length + 1L;
+                    if (bytes + size > MAX_BYTES) {
+                        break;
+                    }
+                    out.write(line);
+                    out.write('\n');
+                    bytes += size;
+                    appended++;
+                }
+            }
+        } catch (IOException ex) {
+            log.warn("Failed to append to journal {}", file, ex);
+        }
+        return appended;
+    }
+
+    synchronized List<String> read() throws IOException {
+        return Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Replaces the journal with the lines that are still not written.
+     */
+    synchronized void rewrite(List<String> remaining) throws IOException {
+        if (remaining.isEmpty()) {
+            Files.deleteIfExists(file.toPath());
+            bytes = 0;
+            return;
+        }
+
+        File tmp = new File(file.getPath() + ".tmp");
+        Files.write(tmp.toPath(), remaining, StandardCharsets.UTF_8);
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        bytes = file.length();
+    }
+}
@@ -0,0 +1,106 @@
+package net.machpi.runelite.influxdb.write;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Writes InfluxDB line protocol without going through intermediate points. The series part
+ * ({@code measurement,tag=value,...}) never changes for a series, so it is encoded once and reused for
+ * every record. Tags and fields are written in key order, the same as the influxdb-java client did.
+ */
+final class LineProtocol {
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    private LineProtocol() {
+    }
+
+    static String seriesKey(Series series) {
+        StringBuilder sb = new StringBuilder();
+        escape(sb, series.getMeasurement(), false);
+
+        Map<String, String> tags = series.getTags();
+        String[] keys = tags.keySet().toArray(new String[0]);
+        Arrays.sort(keys);
+        for (String key : keys) {
+            String value = tags.get(key);
+            // the server rejects empty tag values, influxdb-java dropped them as well
+            if (key.isEmpty() || value == null || value.isEmpty()) {
+                continue;
+            }
+            sb.append(',');
+            escape(sb, key, true);
+            sb.append('=');
+            escape(sb, value, true);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Appends one record, without a trailing newline, and returns whether it had any fields to write.
+     */
+    static boolean append(StringBuilder sb, String seriesKey, MeasurementFields fields) {
+        int start = sb.length();
+        sb.append(seriesKey);
+        boolean first = true;
+
+        // both field arrays are sorted, merge them to keep the fields in key order
+        int s = 0;
+        int n = 0;
+        while (s < fields.stringKeys.length || n < fields.numericKeys.length) {
+            boolean string = n == fields.numericKeys.length
+                    || (s < fields.stringKeys.length && fields.stringKeys[s].compareTo(fields.numericKeys[n]) < 0);
+            if (string) {
+                String value = fields.stringValues[s];
+                if (value != null) {
+                    first = appendKey(sb, fields.stringKeys[s], first);
+                    sb.append('"');
+                    for (int c = 0; c < value.length(); c++) {
+                        char ch = value.charAt(c);
+                        if (ch == '"' || ch == '\\') {
+                            sb.append('\\');
+                        }
+                        sb.append(ch);
+                    }
+                    sb.append('"');
+                }
+                s++;
+            } else if (fields.floating[n]) {
+                double value = Double.longBitsToDouble(fields.numericValues[n]);
+                if (!Double.isNaN(value) && !Double.isInfinite(value)) {
+                    first = appendKey(sb, fields.numericKeys[n], first);
+                    sb.append(value);
+                }
+                n++;
+            } else {
+                first = appendKey(sb, fields.numericKeys[n], first);
+                sb.append(fields.numericValues[n]).append('i');
+                n++;
+            }
+        }
+
+        if (first) {
+            sb.setLength(start);
+            return false;
+        }
+
+        sb.append(' ').append(fields.time * NANOS_PER_MILLI);
+        return true;
+    }
+
+    private static boolean appendKey(StringBuilder sb, String key, boolean first) {
+        sb.append(first ? ' ' : ',');
+        escape(sb, key, true);
+        sb.append('=');
+        return false;
+    }
+
+    private static void escape(StringBuilder sb, String s, boolean escapeEquals) {
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch == ',' || ch == ' ' || (escapeEquals && ch == '=')) {
+                sb.append('\\');
+            }
+            sb.append(ch);
+        }
+    }
+}
@@ -3,11 +3,8 @@ package net.machpi.runelite.influxdb.write;
 import lombok.Builder;
 import lombok.Singular;
 import lombok.Value;
-import org.influxdb.dto.Point;
 
 import java.util.Map;
-import java.util.Optional;
-import java.util.concurrent.TimeUnit;
 
 @Value
 @Builder
@@ -22,18 +19,4 @@ public class Measurement {
 
     @Singular
     Map<String, Number> numericValues;
-
-    // influx accepts Map<String, Object>, where object is String | Number
-    @SuppressWarnings("unchecked")
-    Optional<Point> toInflux() {
-        if (getStringValues().isEmpty() && getNumericValues().isEmpty()) {
-            return Optional.empty();
-        }
-        return Optional.of(Point.measurement(series.getMeasurement())
-                .tag(series.getTags())
-                .time(time, TimeUnit.MILLISECONDS)
-                .fields((Map) getStringValues())
-                .fields((Map) getNumericValues())
-                .build());
-    }
 }
@@ -0,0 +1,91 @@
+package net.machpi.runelite.influxdb.write;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * The fields of a {@link Measurement} as sorted parallel arrays, built once when the measurement is
+ * submitted. The dedupe filters compare these arrays and {@link LineProtocol} encodes straight from
+ * them, so the value maps are not walked again.
+ * <p>
+ * Numeric values are stored as raw longs: either the integer itself, or the bits of a double when
+ * {@link #floating} is set, matching the integer and float field types of the line protocol.
+ */
+final class MeasurementFields {
+    private static final String[] NO_KEYS = new String[0];
+
+    final long time;
+    final String[] numericKeys;
+    final long[] numericValues;
+    final boolean[] floating;
+    final String[] stringKeys;
+    final String[] stringValues;
+
+    private MeasurementFields(long time, String[] numericKeys, long[] numericValues, boolean[] floating,
+                              String[] stringKeys, String[] stringValues) {
+        this.time = time;
+        this.numericKeys = numericKeys;
+        this.numericValues = numericValues;
+        this.floating = floating;
+        this.stringKeys = stringKeys;
+        this.stringValues = stringValues;
+    }
+
+    static MeasurementFields of(Measurement m) {
+        Map<String, Number> numbers = m.getNumericValues();
+        String[] numericKeys = sortedKeys(numbers);
+        long[] numericValues = new long[numericKeys.length];
+        boolean[] floating = new boolean[numericKeys.length];
+        for (int i = 0; i < numericKeys.length; i++) {
+            Number value = numbers.get(numericKeys[i]);
+            if (value instanceof Double || value instanceof Float || value instanceof BigDecimal) {
+                floating[i] = true;
+                numericValues[i] = Double.doubleToLongBits(value.doubleValue());
+            } else {
+                numericValues[i] = value.longValue();
+            }
+        }
+
+        Map<String, String> strings = m.getStringValues();
+        String[] stringKeys = sortedKeys(strings);
+        String[] stringValues = new String[stringKeys.length];
+        for (int i = 0; i < stringKeys.length; i++) {
+            stringValues[i] = strings.get(stringKeys[i]);
+        }
+
+        return new MeasurementFields(m.getTime(), numericKeys, numericValues, floating, stringKeys, stringValues);
+    }
+
+    private static String[] sortedKeys(Map<String, ?> map) {
+        if (map.isEmpty()) {
+            return NO_KEYS;
+        }
+        String[] keys = map.keySet().toArray(NO_KEYS);
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    boolean isEmpty() {
+        return numericKeys.length == 0 && stringKeys.length == 0;
+    }
+
+    int indexOfNumeric(String key) {
+        int index = Arrays.binarySearch(numericKeys, key);
+        return index < 0 ? -1 : index;
+    }
+
+    double numericAsDouble(int index) {
+        return floating[index] ? Double.longBitsToDouble(numericValues[index]) : numericValues[index];
+    }
+
+    boolean sameStrings(MeasurementFields other) {
+        return Arrays.equals(stringKeys, other.stringKeys) && Arrays.equals(stringValues, other.stringValues);
+    }
+
+    boolean sameNumbers(MeasurementFields other) {
+        return Arrays.equals(numericKeys, other.numericKeys)
+                && Arrays.equals(numericValues, other.numericValues)
+                && Arrays.equals(floating, other.floating);
+    }
+}
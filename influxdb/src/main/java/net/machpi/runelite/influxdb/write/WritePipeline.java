@@ -0,0 +1,265 @@
+package net.machpi.runelite.influxdb.write;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Hands line protocol records to a background flusher so that no caller ever waits for the server.
+ * <p>
+ * Records go into a fixed size ring buffer; when it is full the oldest record is dropped. The flusher
+ * sends a batch once it has {@code batchSize} records or the oldest one has waited {@code linger}
+ * milliseconds. When a write fails the server is left alone for an exponentially growing delay, and
+ * everything that comes in meanwhile goes to the on-disk journal. The journal is replayed after the
+ * next successful write, also across restarts. A batch the server rejects for good is dropped instead,
+ * since sending it again would fail the same way and hold up everything journaled after it.
+ */
+@Slf4j
+class WritePipeline {
+    interface Sink {
+        void write(List<String> lines) throws Exception;
+    }
+
+    /**
+     * Thrown by a {@link Sink} when the server refused a batch in a way that retrying won't fix.
+     */
+    static class RejectedException extends Exception {
+        RejectedException(String message) {
+            super(message);
+        }
+    }
+
+    private static final long BASE_BACKOFF_MS = 1000;
+    private static final long MAX_BACKOFF_MS = TimeUnit.MINUTES.toMillis(5);
+    private static final long STOP_TIMEOUT_MS = 5000;
+
+    private final Sink sink;
+    private final LineJournal journal;
+    private final IntSupplier batchSize;
+    private final IntSupplier lingerMillis;
+
+    private final String[] ring;
+    private int head;
+    private int size;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong journaled = new AtomicLong();
+    private final AtomicLong failedWrites = new AtomicLong();
+
+    // only touched by the flusher thread
+    private int consecutiveFailures;
+    private volatile long retryAt;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    WritePipeline(Sink sink, LineJournal journal, int capacity, IntSupplier batchSize, IntSupplier lingerMillis) {
+        this.sink = sink;
+        this.journal = journal;
+        this.ring = new String[capacity];
+        this.batchSize = batchSize;
+        this.lingerMillis = lingerMillis;
+    }
+
+    synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::run, "influxdb-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Stops the flusher after it made a last attempt to write, or journaled, what is still queued.
+     */
+    void stop() {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = flusher;
+            flusher = null;
+            notifyAll();
+        }
+
+        if (thread != null) {
+            try {
+                thread.join(STOP_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    synchronized void offer(List<String> lines) {
+        for (String line : lines) {
+            if (size == ring.length) {
+                ring[head] = null;
+                head = (head + 1) % ring.length;
+                size--;
+                dropped.incrementAndGet();
+            }
+            ring[(head + size) % ring.length] = line;
+            size++;
+        }
+
+        if (size >= batchSize.getAsInt()) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Lets the next batch go to the server right away, for when its settings were changed.
+     */
+    void resetBackoff() {
+        retryAt = 0;
+    }
+
+    synchronized int getQueueDepth() {
+        return size;
+    }
+
+    long getDropped() {
+        return dropped.get();
+    }
+
+    long getWritten() {
+        return written.get();
+    }
+
+    long getJournaled() {
+        return journaled.get();
+    }
+
+    long getFailedWrites() {
+        return failedWrites.get();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                flushOnce(take(true));
+            } catch (InterruptedException e) {
+                break;
+            } catch (RuntimeException e) {
+                log.warn("Unexpected error in influxdb writer", e);
+            }
+        }
+
+        // last chance for whatever was queued before stop()
+        List<String> rest;
+        try {
+            while (!(rest = take(false)).isEmpty()) {
+                flushOnce(rest);
+            }
+        } catch (InterruptedException ignored) {
+        }
+    }
+
+    private void flushOnce(List<String> batch) {
+        if (System.currentTimeMillis() < retryAt) {
+            spill(batch);
+            return;
+        }
+
+        if (!batch.isEmpty() && !send(batch)) {
+            spill(batch);
+            return;
+        }
+
+        if (!journal.isEmpty()) {
+            replay();
+        }
+    }
+
+    /**
+     * Waits until a full batch is queued or the linger time is up, then removes at most one batch.
+     */
+    private synchronized List<String> take(boolean wait) throws InterruptedException {
+        int max = Math.max(1, batchSize.getAsInt());
+        if (wait) {
+            long deadline = System.currentTimeMillis() + Math.max(1, lingerMillis.getAsInt());
+            long remaining;
+            while (running && size < max && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                wait(remaining);
+            }
+        }
+
+        int count = Math.min(size, max);
+        List<String> batch = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            batch.add(ring[head]);
+            ring[head] = null;
+            head = (head + 1) % ring.length;
+        }
+        size -= count;
+        return batch;
+    }
+
+    /**
+     * @return false if the batch should be tried again later, true if it was written or rejected
+     */
+    private boolean send(List<String> batch) {
+        try {
+            sink.write(batch);
+            written.addAndGet(batch.size());
+            consecutiveFailures = 0;
+            retryAt = 0;
+            return true;
+        } catch (RejectedException e) {
+            dropped.addAndGet(batch.size());
+            log.error("InfluxDB rejected a batch of {} lines, dropping it: {}", batch.size(), e.getMessage());
+            return true;
+        } catch (Exception e) {
+            failedWrites.incrementAndGet();
+            long backoff = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << Math.min(consecutiveFailures, 20));
+            consecutiveFailures++;
+            retryAt = System.currentTimeMillis() + backoff;
+            log.warn("Failed to write to influxDB {} times, retrying in {} ms", consecutiveFailures, backoff, e);
+            return false;
+        }
+    }
+
+    private void spill(List<String> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int appended = journal.append(batch);
+        journaled.addAndGet(appended);
+        dropped.addAndGet(batch.size() - appended);
+    }
+
+    private void replay() {
+        List<String> lines;
+        try {
+            lines = journal.read();
+        } catch (IOException e) {
+            log.warn("Failed to read influxdb journal", e);
+            return;
+        }
+
+        int max = Math.max(1, batchSize.getAsInt());
+        int sent = 0;
+        while (sent < lines.size() && running) {
+            List<String> batch = lines.subList(sent, Math.min(lines.size(), sent + max));
+            if (!send(batch)) {
+                break;
+            }
+            sent += batch.size();
+        }
+
+        try {
+            journal.rewrite(new ArrayList<>(lines.subList(sent, lines.size())));
+        } catch (IOException e) {
+            log.warn("Failed to rewrite influxdb journal", e);
+        }
+        log.debug("Replayed {} of {} journaled lines", sent, lines.size());
+    }
+}
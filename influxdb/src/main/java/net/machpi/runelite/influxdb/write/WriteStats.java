@@ -0,0 +1,26 @@
+package net.machpi.runelite.influxdb.write;
+
+import lombok.Value;
+
+@Value
+public class WriteStats {
+    /**
+     * Records waiting in memory for the flusher.
+     */
+    int queueDepth;
+
+    /**
+     * Measurements and records thrown away because a queue or the journal was full, or because the
+     * server rejected them.
+     */
+    long dropped;
+
+    long written;
+
+    /**
+     * Records that went to the on-disk journal because the server was unavailable.
+     */
+    long journaled;
+
+    long failedWrites;
+}
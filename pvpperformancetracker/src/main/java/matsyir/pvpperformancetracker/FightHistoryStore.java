@@ -0,0 +1,618 @@
+/*
+ * Copyright (c)  2020, Matsyir <https://github.com/Matsyir>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package matsyir.pvpperformancetracker;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.ObjLongConsumer;
+import lombok.extern.slf4j.Slf4j;
+
+// Stores the fight history as a log with one fight per line, which new fights are appended to. Only the most recent
+// fights are kept in memory, older ones are read from the log when they're needed. The totals of all fights are kept
+// up to date as fights are added and evicted, and saved next to the log so they don't need to be recalculated at startup.
+// Fights are numbered in the order they were added since the log was last loaded, so pages of fights can be requested
+// without being affected by new fights.
+@Slf4j
+class FightHistoryStore
+{
+	static final String FIGHT_HISTORY_LOG_FNAME = "FightHistoryLog.json";
+	static final String FIGHT_HISTORY_TOTALS_FNAME = "FightHistoryTotals.json";
+	// number of the most recent fights kept in memory
+	private static final int RECENT_FIGHT_COUNT = 100;
+	// evicted fights are only removed from the log once they take up more space than this, and more than the rest of the log.
+	private static final long MIN_COMPACT_BYTES = 64 * 1024;
+
+	private final File logFile;
+	private final File totalsFile;
+	private final File legacyFile;
+	private final Gson gson;
+	private final Gson totalsGson = new Gson();
+
+	// byte offset of every line in the log, starting with the line of fight number firstLine.
+	private final List<Long> lineOffsets = new ArrayList<>();
+	// the last fights in the log, without gaps. Corrupted lines are never part of it.
+	private final ArrayDeque<FightPerformance> recentFights = new ArrayDeque<>();
+	// fights read from or added to this store, so they can be found again to be removed.
+	private final Map<FightPerformance, Long> fightNumbers = new WeakHashMap<>();
+
+	private FightHistoryTotals totals = new FightHistoryTotals();
+	private long firstLine = 0; // fight number of the first line in the log
+	private long start = 0; // fight number of the oldest fight, the lines before it are evicted fights
+	private long logLength = 0;
+	private int limit = 0;
+
+	FightHistoryStore(File dir, Gson gson)
+	{
+		this.logFile = new File(dir, FIGHT_HISTORY_LOG_FNAME);
+		this.totalsFile = new File(dir, FIGHT_HISTORY_TOTALS_FNAME);
+		this.legacyFile = new File(dir, PvpPerformanceTrackerPlugin.FIGHT_HISTORY_DATA_FNAME);
+		this.gson = gson;
+	}
+
+	// load the fight history log, or create it from the old fight history data if it doesn't exist yet.
+	// the saved totals are used as long as they match the log, otherwise they're recalculated.
+	synchronized void load(int limit) throws IOException
+	{
+		this.limit = limit;
+
+		if (!logFile.exists() && legacyFile.exists())
+		{
+			migrateLegacyData();
+			return;
+		}
+
+		FightHistoryTotals savedTotals = readTotals();
+		long fileLength = logFile.length();
+		boolean totalsValid = savedTotals != null && savedTotals.getLogLength() == fileLength &&
+			savedTotals.getLogStart() >= 0 && savedTotals.getLogStart() <= fileLength;
+
+		indexLog(totalsValid ? savedTotals.getLogStart() : 0);
+
+		if (totalsValid && logLength == fileLength)
+		{
+			totals = savedTotals;
+		}
+		else
+		{
+			totals = calculateTotals();
+		}
+
+		trimToLimit();
+		compact(true);
+		loadRecentFights();
+		saveTotals();
+	}
+
+	// append a fight to the log, evicting the oldest fights if the history is over the limit.
+	synchronized boolean add(FightPerformance fight)
+	{
+		byte[] line = (gson.toJson(fight) + "\n").getBytes(StandardCharsets.UTF_8);
+
+		try (OutputStream out = new FileOutputStream(logFile, true))
+		{
+			out.write(line);
+		}
+		catch (IOException e)
+		{
+			log.warn("Error while appending fight to fight history log: " + e.getMessage());
+			return false;
+		}
+
+		fightNumbers.put(fight, getEnd());
+		lineOffsets.add(logLength);
+		logLength += line.length;
+
+		recentFights.addLast(fight);
+		if (recentFights.size() > RECENT_FIGHT_COUNT)
+		{
+			recentFights.removeFirst();
+		}
+
+		totals.add(fight);
+		trimToLimit();
+		compact(false);
+		saveTotals();
+		return true;
+	}
+
+	// remove a fight that was previously returned by this store. Fight numbers start over afterwards.
+	synchronized boolean remove(FightPerformance fight) throws IOException
+	{
+		Long number = fightNumbers.get(fight);
+		if (number == null || number < start || number >= getEnd())
+		{
+			return false;
+		}
+
+		int index = (int) (number - firstLine);
+		long lineStart = lineOffsets.get(index);
+		long lineEnd = index + 1 < lineOffsets.size() ? lineOffsets.get(index + 1) : logLength;
+
+		File tempFile = getTempFile();
+		try (FileInputStream in = new FileInputStream(logFile); FileOutputStream out = new FileOutputStream(tempFile))
+		{
+			transfer(in.getChannel(), getLiveStart(), lineStart, out.getChannel());
+			transfer(in.getChannel(), lineEnd, logLength, out.getChannel());
+		}
+		moveFile(tempFile, logFile);
+
+		totals.remove(fight);
+		indexLog(0);
+		loadRecentFights();
+		saveTotals();
+		return true;
+	}
+
+	// merge fights into the history. Since they can be older than the fights already in it, the log is rewritten.
+	synchronized void importFights(List<FightPerformance> fights) throws IOException
+	{
+		List<FightPerformance> allFights = new ArrayList<>();
+		forEachFight(start, getEnd(), (f, number) -> allFights.add(f));
+
+		for (FightPerformance fight : fights)
+		{
+			if (isValid(fight))
+			{
+				setFightLogNames(fight);
+				allFights.add(fight);
+			}
+		}
+
+		allFights.sort(FightPerformance::compareTo);
+		if (limit > 0 && allFights.size() > limit)
+		{
+			allFights.subList(0, allFights.size() - limit).clear();
+		}
+
+		rewrite(allFights);
+	}
+
+	synchronized void reset() throws IOException
+	{
+		rewrite(new ArrayList<>());
+	}
+
+	synchronized void setLimit(int limit)
+	{
+		this.limit = limit;
+		trimToLimit();
+		compact(false);
+		saveTotals();
+	}
+
+	// returns the fights numbered from (inclusive) to (exclusive) that are still in the history, oldest first.
+	synchronized List<FightPerformance> getFights(long from, long to)
+	{
+		from = Math.max(from, start);
+		to = Math.min(to, getEnd());
+
+		List<FightPerformance> fights = new ArrayList<>();
+		long firstRecent = getEnd() - recentFights.size();
+		try
+		{
+			forEachFight(from, Math.min(to, firstRecent), (fight, number) ->
+			{
+				fights.add(fight);
+				fightNumbers.put(fight, number);
+			});
+		}
+		catch (IOException e)
+		{
+			log.warn("Error while reading fights from fight history log: " + e.getMessage());
+		}
+
+		long number = firstRecent;
+		for (FightPerformance fight : recentFights)
+		{
+			if (number >= from && number < to)
+			{
+				fights.add(fight);
+			}
+			number++;
+		}
+
+		return fights;
+	}
+
+	synchronized List<FightPerformance> getAllFights()
+	{
+		return getFights(start, getEnd());
+	}
+
+	// number of a fight returned by or added to this store, or -1 if it isn't known.
+	synchronized long getFightNumber(FightPerformance fight)
+	{
+		return fightNumbers.getOrDefault(fight, -1L);
+	}
+
+	// number of the oldest fight in the history
+	synchronized long getStart()
+	{
+		return start;
+	}
+
+	// number the next fight added to the history will get
+	synchronized long getEnd()
+	{
+		return firstLine + lineOffsets.size();
+	}
+
+	synchronized FightHistoryTotals getTotals()
+	{
+		return totals.copy();
+	}
+
+	synchronized void saveTotals()
+	{
+		totals.setLogRange(getLiveStart(), logLength);
+
+		File tempFile = new File(totalsFile.getParentFile(), totalsFile.getName() + ".tmp");
+		try
+		{
+			try (Writer writer = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8))
+			{
+				totalsGson.toJson(totals, writer);
+			}
+			moveFile(tempFile, totalsFile);
+		}
+		catch (IOException e)
+		{
+			log.warn("Error while saving fight history totals: " + e.getMessage());
+		}
+	}
+
+	// set fight log names since they aren't serialized but are on the parent class
+	static void setFightLogNames(FightPerformance fight)
+	{
+		if (fight.getCompetitor().getFightLogEntries() == null || fight.getOpponent().getFightLogEntries() == null)
+		{
+			return;
+		}
+
+		fight.getCompetitor().getFightLogEntries().forEach((FightLogEntry l) ->
+			l.attackerName = fight.getCompetitor().getName());
+		fight.getOpponent().getFightLogEntries().forEach((FightLogEntry l) ->
+			l.attackerName = fight.getOpponent().getName());
+	}
+
+	// check for nulls in case the data was corrupted
+	private static boolean isValid(FightPerformance fight)
+	{
+		return fight != null && fight.getCompetitor() != null && fight.getOpponent() != null;
+	}
+
+	private void migrateLegacyData() throws IOException
+	{
+		FightPerformance[] legacyFights;
+		try (Reader reader = Files.newBufferedReader(legacyFile.toPath(), StandardCharsets.UTF_8))
+		{
+			legacyFights = gson.fromJson(reader, FightPerformance[].class);
+		}
+		catch (JsonParseException e)
+		{
+			throw new IOException(e);
+		}
+
+		importFights(legacyFights == null ? new ArrayList<>() : Arrays.asList(legacyFights));
+
+		// keep the old data around in case anything went wrong, it is no longer read.
+		moveFile(legacyFile, new File(legacyFile.getParentFile(), legacyFile.getName() + ".bak"));
+	}
+
+	// write a new log containing the given fights, oldest first.
+	private void rewrite(List<FightPerformance> fights) throws IOException
+	{
+		File tempFile = getTempFile();
+		try (Writer writer = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8))
+		{
+			for (FightPerformance fight : fights)
+			{
+				writer.write(gson.toJson(fight));
+				writer.write('\n');
+			}
+		}
+		moveFile(tempFile, logFile);
+
+		indexLog(0);
+		totals = new FightHistoryTotals();
+		fights.forEach(totals::add);
+		loadRecentFights();
+		saveTotals();
+	}
+
+	// find the start of every line in the log from the given offset. A partially written last line is cut off.
+	private void indexLog(long offset) throws IOException
+	{
+		lineOffsets.clear();
+		recentFights.clear();
+		fightNumbers.clear();
+		firstLine = 0;
+		start = 0;
+		logLength = 0;
+
+		if (!logFile.exists())
+		{
+			return;
+		}
+
+		long position = offset;
+		long lineStart = offset;
+		try (FileInputStream file = new FileInputStream(logFile))
+		{
+			file.getChannel().position(offset);
+			InputStream in = new BufferedInputStream(file);
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) != -1)
+			{
+				for (int i = 0; i < read; i++)
+				{
+					if (buffer[i] == '\n')
+					{
+						lineOffsets.add(lineStart);
+						lineStart = position + i + 1;
+					}
+				}
+				position += read;
+			}
+		}
+
+		if (lineStart < position)
+		{
+			log.warn("Removing incomplete last line of fight history log");
+			try (RandomAccessFile file = new RandomAccessFile(logFile, "rw"))
+			{
+				file.setLength(lineStart);
+			}
+		}
+
+		logLength = lineStart;
+
+		// the evicted fights before the offset are kept in the index until the log is compacted.
+		if (offset > 0)
+		{
+			lineOffsets.add(0, 0L);
+			start = 1;
+		}
+	}
+
+	private void loadRecentFights() throws IOException
+	{
+		recentFights.clear();
+
+		long from = Math.max(start, getEnd() - RECENT_FIGHT_COUNT);
+		long[] nextNumber = { from };
+		forEachFight(from, getEnd(), (fight, number) ->
+		{
+			// keep the recent fights without gaps, so they only start after the last corrupted line
+			if (number != nextNumber[0])
+			{
+				recentFights.clear();
+			}
+			recentFights.addLast(fight);
+			fightNumbers.put(fight, number);
+			nextNumber[0] = number + 1;
+		});
+
+		if (nextNumber[0] != getEnd())
+		{
+			recentFights.clear();
+		}
+	}
+
+	private FightHistoryTotals calculateTotals() throws IOException
+	{
+		FightHistoryTotals calculated = new FightHistoryTotals();
+		forEachFight(start, getEnd(), (fight, number) -> calculated.add(fight));
+		return calculated;
+	}
+
+	// evict the oldest fights until the history respects the fightHistoryLimit.
+	private void trimToLimit()
+	{
+		if (limit <= 0 || getEnd() - start <= limit)
+		{
+			return;
+		}
+
+		long newStart = getEnd() - limit;
+		long firstRecent = getEnd() - recentFights.size();
+		try
+		{
+			// the evicted fights that aren't in memory are read back from the log, to remove them from the totals.
+			forEachFight(start, Math.min(newStart, firstRecent), (fight, number) -> totals.remove(fight));
+		}
+		catch (IOException e)
+		{
+			log.warn("Error while reading evicted fights from fight history log: " + e.getMessage());
+		}
+
+		for (long number = Math.max(start, firstRecent); number < newStart; number++)
+		{
+			totals.remove(recentFights.removeFirst());
+		}
+
+		start = newStart;
+	}
+
+	// remove the evicted fights from the start of the log. Unless forced, this only happens once they take up
+	// more space than the rest of the log, so each fight is copied a constant number of times on average.
+	private void compact(boolean force)
+	{
+		long evictedLength = getLiveStart();
+		if (evictedLength == 0 ||
+			(!force && (evictedLength < MIN_COMPACT_BYTES || evictedLength < logLength - evictedLength)))
+		{
+			return;
+		}
+
+		File tempFile = getTempFile();
+		try
+		{
+			try (FileInputStream in = new FileInputStream(logFile); FileOutputStream out = new FileOutputStream(tempFile))
+			{
+				transfer(in.getChannel(), evictedLength, logLength, out.getChannel());
+			}
+			moveFile(tempFile, logFile);
+		}
+		catch (IOException e)
+		{
+			log.warn("Error while compacting fight history log: " + e.getMessage());
+			return;
+		}
+
+		lineOffsets.subList(0, (int) (start - firstLine)).clear();
+		lineOffsets.replaceAll(offset -> offset - evictedLength);
+		firstLine = start;
+		logLength -= evictedLength;
+	}
+
+	// read the fights numbered from (inclusive) to (exclusive) from the log. Corrupted lines are skipped.
+	private void forEachFight(long from, long to, ObjLongConsumer<FightPerformance> action) throws IOException
+	{
+		if (from >= to)
+		{
+			return;
+		}
+
+		try (FileInputStream file = new FileInputStream(logFile))
+		{
+			file.getChannel().position(lineOffsets.get((int) (from - firstLine)));
+			BufferedReader reader = new BufferedReader(new InputStreamReader(file, StandardCharsets.UTF_8));
+
+			for (long number = from; number < to; number++)
+			{
+				String line = reader.readLine();
+				if (line == null)
+				{
+					break;
+				}
+
+				FightPerformance fight = parseFight(line);
+				if (fight != null)
+				{
+					action.accept(fight, number);
+				}
+			}
+		}
+	}
+
+	private FightPerformance parseFight(String line)
+	{
+		try
+		{
+			FightPerformance fight = gson.fromJson(line, FightPerformance.class);
+			if (!isValid(fight))
+			{
+				return null;
+			}
+
+			setFightLogNames(fight);
+			return fight;
+		}
+		catch (JsonParseException e)
+		{
+			log.warn("Skipping corrupted fight in fight history log: " + e.getMessage());
+			return null;
+		}
+	}
+
+	// byte offset of the oldest fight that wasn't evicted
+	private long getLiveStart()
+	{
+		return start < getEnd() ? lineOffsets.get((int) (start - firstLine)) : logLength;
+	}
+
+	private File getTempFile()
+	{
+		return new File(logFile.getParentFile(), logFile.getName() + ".tmp");
+	}
+
+	private static void transfer(FileChannel in, long from, long to, FileChannel out) throws IOException
+	{
+		while (from < to)
+		{
+			long transferred = in.transferTo(from, to - from, out);
+			if (transferred <= 0)
+			{
+				throw new IOException("Unexpected end of fight history log");
+			}
+			from += transferred;
+		}
+	}
+
+	private static void moveFile(File source, File target) throws IOException
+	{
+		try
+		{
+			Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (AtomicMoveNotSupportedException e)
+		{
+			Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private FightHistoryTotals readTotals()
+	{
+		if (!totalsFile.exists())
+		{
+			return null;
+		}
+
+		try (Reader reader = Files.newBufferedReader(totalsFile.toPath(), StandardCharsets.UTF_8))
+		{
+			return totalsGson.fromJson(reader, FightHistoryTotals.class);
+		}
+		catch (IOException | JsonParseException e)
+		{
+			log.warn("Error while reading fight history totals: " + e.getMessage());
+			return null;
+		}
+	}
+}
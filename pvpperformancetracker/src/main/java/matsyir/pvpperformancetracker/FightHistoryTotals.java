@@ -0,0 +1,153 @@
+/*
+ * Copyright (c)  2020, Matsyir <https://github.com/Matsyir>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package matsyir.pvpperformancetracker;
+
+import lombok.Getter;
+
+// running totals of every fight in the fight history, kept up to date as fights are added and removed so they never
+// need to be recalculated from all fights. Saved next to the fight history log, along with the log length they match.
+@Getter
+class FightHistoryTotals
+{
+	private int numFights = 0;
+	private int numKills = 0;
+	private int numDeaths = 0;
+
+	private double totalDeservedDmg = 0;
+	private double totalDeservedDmgDiff = 0;
+	private double totalDmgDealt = 0;
+	private double totalDmgDealtDiff = 0;
+
+	private double killTotalDeservedDmg = 0;
+	private double killTotalDeservedDmgDiff = 0;
+	private double killTotalDmgDealt = 0;
+	private double killTotalDmgDealtDiff = 0;
+
+	private double deathTotalDeservedDmg = 0;
+	private double deathTotalDeservedDmgDiff = 0;
+	private double deathTotalDmgDealt = 0;
+	private double deathTotalDmgDealtDiff = 0;
+
+	// competitor stats summed over all fights
+	private int offPraySuccessCount = 0;
+	private int attackCount = 0;
+	private double deservedDamage = 0;
+	private int damageDealt = 0;
+	private int magicHitCount = 0;
+	private double magicHitCountDeserved = 0;
+	private int offensivePraySuccessCount = 0;
+
+	// byte range of the fight history log these totals were saved with, the fights before logStart were evicted
+	private long logStart = 0;
+	private long logLength = 0;
+
+	void add(FightPerformance fight)
+	{
+		update(fight, 1);
+	}
+
+	void remove(FightPerformance fight)
+	{
+		update(fight, -1);
+	}
+
+	void setLogRange(long logStart, long logLength)
+	{
+		this.logStart = logStart;
+		this.logLength = logLength;
+	}
+
+	FightHistoryTotals copy()
+	{
+		FightHistoryTotals copy = new FightHistoryTotals();
+		copy.numFights = numFights;
+		copy.numKills = numKills;
+		copy.numDeaths = numDeaths;
+		copy.totalDeservedDmg = totalDeservedDmg;
+		copy.totalDeservedDmgDiff = totalDeservedDmgDiff;
+		copy.totalDmgDealt = totalDmgDealt;
+		copy.totalDmgDealtDiff = totalDmgDealtDiff;
+		copy.killTotalDeservedDmg = killTotalDeservedDmg;
+		copy.killTotalDeservedDmgDiff = killTotalDeservedDmgDiff;
+		copy.killTotalDmgDealt = killTotalDmgDealt;
+		copy.killTotalDmgDealtDiff = killTotalDmgDealtDiff;
+		copy.deathTotalDeservedDmg = deathTotalDeservedDmg;
+		copy.deathTotalDeservedDmgDiff = deathTotalDeservedDmgDiff;
+		copy.deathTotalDmgDealt = deathTotalDmgDealt;
+		copy.deathTotalDmgDealtDiff = deathTotalDmgDealtDiff;
+		copy.offPraySuccessCount = offPraySuccessCount;
+		copy.attackCount = attackCount;
+		copy.deservedDamage = deservedDamage;
+		copy.damageDealt = damageDealt;
+		copy.magicHitCount = magicHitCount;
+		copy.magicHitCountDeserved = magicHitCountDeserved;
+		copy.offensivePraySuccessCount = offensivePraySuccessCount;
+		copy.logStart = logStart;
+		copy.logLength = logLength;
+		return copy;
+	}
+
+	// sign is 1 to add the fight and -1 to remove it
+	private void update(FightPerformance fight, int sign)
+	{
+		Fighter competitor = fight.getCompetitor();
+		double deservedDmg = sign * competitor.getDeservedDamage();
+		double deservedDmgDiff = sign * fight.getCompetitorDeservedDmgDiff();
+		double dmgDealt = sign * competitor.getDamageDealt();
+		double dmgDealtDiff = sign * fight.getCompetitorDmgDealtDiff();
+
+		numFights += sign;
+		totalDeservedDmg += deservedDmg;
+		totalDeservedDmgDiff += deservedDmgDiff;
+		totalDmgDealt += dmgDealt;
+		totalDmgDealtDiff += dmgDealtDiff;
+
+		if (competitor.isDead())
+		{
+			numDeaths += sign;
+			deathTotalDeservedDmg += deservedDmg;
+			deathTotalDeservedDmgDiff += deservedDmgDiff;
+			deathTotalDmgDealt += dmgDealt;
+			deathTotalDmgDealtDiff += dmgDealtDiff;
+		}
+
+		if (fight.getOpponent().isDead())
+		{
+			numKills += sign;
+			killTotalDeservedDmg += deservedDmg;
+			killTotalDeservedDmgDiff += deservedDmgDiff;
+			killTotalDmgDealt += dmgDealt;
+			killTotalDmgDealtDiff += dmgDealtDiff;
+		}
+
+		offPraySuccessCount += sign * competitor.getOffPraySuccessCount();
+		attackCount += sign * competitor.getAttackCount();
+		deservedDamage += deservedDmg;
+		damageDealt += sign * competitor.getDamageDealt();
+		magicHitCount += sign * competitor.getMagicHitCount();
+		magicHitCountDeserved += sign * competitor.getMagicHitCountDeserved();
+		offensivePraySuccessCount += sign * competitor.getOffensivePraySuccessCount();
+	}
+}
@@ -28,6 +28,8 @@ package matsyir.pvpperformancetracker;
 import lombok.Getter;
 import static matsyir.pvpperformancetracker.AnimationData.AttackStyle;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 import static matsyir.pvpperformancetracker.FightLogEntry.nf;
 import net.runelite.api.PlayerAppearance;
@@ -94,6 +96,20 @@ public class PvpDamageCalc
 	public static final double SMOKE_BATTLESTAFF_DMG_ACC_MODIFIER = 1.1; // both dmg & accuracy modifier
 	public static final double TOME_OF_FIRE_DMG_MODIFIER = 1.5;
 
+	private static final int BONUS_CACHE_SIZE = 64;
+
+	// Total bonuses of recently seen equipment. Looking up every item's stats on every attack is the most
+	// expensive part of the calculation, while players rarely switch between more than a few sets of gear.
+	// Only used on the client thread.
+	private static final Map<EquipmentKey, int[]> BONUS_CACHE = new LinkedHashMap<EquipmentKey, int[]>(16, 0.75f, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<EquipmentKey, int[]> eldest)
+		{
+			return size() > BONUS_CACHE_SIZE;
+		}
+	};
+
 	private ItemManager itemManager;
 
 	@Getter
@@ -161,9 +177,12 @@ public class PvpDamageCalc
 
 		maxHit = (int)(maxHit * (success ? 1 : UNSUCCESSFUL_PRAY_DMG_MODIFIER));
 
-		log.info("attackStyle: " + attackStyle.toString() + ", avgHit: " + nf.format(averageHit) + ", acc: " + nf.format(accuracy) +
-			"\nattacker(" + attacker.getName() + ")stats: " + Arrays.toString(playerStats) +
-			"\ndefender(" +  defender.getName() + ")stats: " + Arrays.toString(opponentStats));
+		if (log.isDebugEnabled())
+		{
+			log.debug("attackStyle: " + attackStyle.toString() + ", avgHit: " + nf.format(averageHit) + ", acc: " + nf.format(accuracy) +
+				"\nattacker(" + attacker.getName() + ")stats: " + Arrays.toString(playerStats) +
+				"\ndefender(" +  defender.getName() + ")stats: " + Arrays.toString(opponentStats));
+		}
 	}
 
 	private void getAverageHit(boolean success, EquipmentData weapon, boolean usingSpec)
@@ -184,19 +203,18 @@ public class PvpDamageCalc
 			minHit = vls ? (int) (maxHit * VLS_SPEC_MIN_DMG_MODIFIER) : minHit;
 			minHit = swh ? (int) (maxHit * SWH_SPEC_MIN_DMG_MODIFIER) : minHit;
 
-			int total = 0;
-
 			// this odd logic is used to calculate avg hit because when there is a minimum hit,
 			// it does not simply change the potential hit range as you would expect:
 			// potential hit rolls (min=0 max=5): 0, 1, 2, 3, 4, 5
 			// potential hit rolls (min=3 max=5): 3, 3, 3, 3, 4, 5 (intuitively it would just be 3, 4, 5, but nope)
 			// so, it is more common to roll the minimum hit and that has to be accounted for in the average hit.
-			for (int i = 0; i <= maxHit; i++)
-			{
-				total += i < minHit ? minHit / accuracyAdjuster : i;
-			}
+			// The total of all rolls is the rolls below the minimum, which all count as the (rounded down)
+			// adjusted minimum, plus the sum of the rolls from the minimum up to the max hit.
+			int rollsBelowMinimum = Math.min(minHit, maxHit + 1);
+			long rollsFromMinimum = Math.max(0, maxHit - minHit + 1);
+			double total = rollsBelowMinimum * Math.floor(minHit / accuracyAdjuster) + rollsFromMinimum * (minHit + maxHit) / 2;
 
-			averageSuccessfulHit = (double) total / maxHit;
+			averageSuccessfulHit = total / maxHit;
 		}
 		else if (usingSpec && claws)
 		{
@@ -537,12 +555,28 @@ public class PvpDamageCalc
 		return null;
 	}
 
-	// Calculate total equipment bonuses for all given items
+	// Calculate total equipment bonuses for all given items, reusing the totals if the same equipment was
+	// seen recently. The returned array is shared, so it must not be modified.
 	private int[] calculateBonuses(int[] itemIds)
 	{
-		int[] equipmentBonuses = config.ringChoice() == RingData.NONE ?
+		final RingData ringChoice = config.ringChoice();
+		int[] equipmentBonuses = BONUS_CACHE.get(new EquipmentKey(ringChoice, itemIds));
+
+		if (equipmentBonuses == null)
+		{
+			equipmentBonuses = sumBonuses(ringChoice, itemIds);
+			// the appearance's array may be reused by the client, so the key needs its own copy
+			BONUS_CACHE.put(new EquipmentKey(ringChoice, itemIds.clone()), equipmentBonuses);
+		}
+
+		return equipmentBonuses;
+	}
+
+	private int[] sumBonuses(RingData ringChoice, int[] itemIds)
+	{
+		int[] equipmentBonuses = ringChoice == RingData.NONE ?
 			new int[] { 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0 } :
-			getItemStats(config.ringChoice().getItemId());
+			getItemStats(ringChoice.getItemId());
 
 		if (equipmentBonuses == null) // shouldn't happen, but as a failsafe if the ring lookup fails
 		{
@@ -570,6 +604,38 @@ public class PvpDamageCalc
 		return equipmentBonuses;
 	}
 
+	private static final class EquipmentKey
+	{
+		private final RingData ringChoice;
+		private final int[] itemIds;
+		private final int hash;
+
+		private EquipmentKey(RingData ringChoice, int[] itemIds)
+		{
+			this.ringChoice = ringChoice;
+			this.itemIds = itemIds;
+			this.hash = 31 * ringChoice.hashCode() + Arrays.hashCode(itemIds);
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof EquipmentKey))
+			{
+				return false;
+			}
+
+			EquipmentKey other = (EquipmentKey) o;
+			return ringChoice == other.ringChoice && Arrays.equals(itemIds, other.itemIds);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+	}
+
 	enum VoidStyle
 	{
 		VOID_MELEE(1.1, 1.1),
@@ -26,9 +26,12 @@ package matsyir.pvpperformancetracker;
 
 import java.awt.BorderLayout;
 import java.awt.Dimension;
-import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
 import javax.inject.Inject;
 import javax.swing.BoxLayout;
+import javax.swing.JButton;
+import javax.swing.JComponent;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.SwingUtilities;
@@ -38,19 +41,34 @@ import net.runelite.client.ui.PluginPanel;
 
 class PvpPerformanceTrackerPanel extends PluginPanel
 {
+	// Number of fights shown at first, and loaded each time the user asks for older fights.
+	private static final int PAGE_SIZE = 50;
+	// client property holding the fight number of each FightPerformancePanel in the fight history container.
+	private static final String FIGHT_NUMBER = "fightNumber";
+
 	// The main fight history container, this will hold all the individual FightPerformancePanels.
 	private final JPanel fightHistoryContainer = new JPanel();
 	private final TotalStatsPanel totalStatsPanel = new TotalStatsPanel();
+	private final JButton loadMoreButton = new JButton("Load older fights");
 
 	private final PvpPerformanceTrackerPlugin plugin;
 	private final PvpPerformanceTrackerConfig config;
+	private final ScheduledExecutorService executor;
+
+	// number of the oldest shown fight in the FightHistoryStore. The shown fights are all fights after it, newest first.
+	// only used on the swing thread.
+	private long oldestShownFight = 0;
+	// incremented by every rebuild, so older fights loaded before it are discarded.
+	private int rebuildCount = 0;
 
 	@Inject
-	private PvpPerformanceTrackerPanel(final PvpPerformanceTrackerPlugin plugin, final PvpPerformanceTrackerConfig config)
+	private PvpPerformanceTrackerPanel(final PvpPerformanceTrackerPlugin plugin, final PvpPerformanceTrackerConfig config,
+		final ScheduledExecutorService executor)
 	{
 		super(false);
 		this.plugin = plugin;
 		this.config = config;
+		this.executor = executor;
 
 		setLayout(new BorderLayout(0, 4));
 		setBackground(ColorScheme.DARK_GRAY_COLOR);
@@ -66,39 +84,109 @@ class PvpPerformanceTrackerPanel extends PluginPanel
 		scrollableContainer.setBackground(ColorScheme.DARK_GRAY_COLOR);
 		scrollableContainer.getVerticalScrollBar().setPreferredSize(new Dimension(6, 0));
 
+		loadMoreButton.setVisible(false);
+		loadMoreButton.addActionListener(e -> loadOlderFights());
+
 		mainContent.add(fightHistoryContainer, BorderLayout.NORTH);
+		mainContent.add(loadMoreButton, BorderLayout.SOUTH);
 		add(scrollableContainer, BorderLayout.CENTER);
 	}
 
+	// show a fight that was just added to the fight history, and remove the fights it evicted.
 	public void addFight(FightPerformance fight)
 	{
-		totalStatsPanel.addFight(fight);
+		FightHistoryStore fightHistory = plugin.getFightHistory();
+		FightHistoryTotals totals = fightHistory.getTotals();
+		long start = fightHistory.getStart();
+		long number = fightHistory.getFightNumber(fight);
+		totalStatsPanel.setTotals(totals);
 
 		SwingUtilities.invokeLater(() ->
 		{
-			fightHistoryContainer.add(new FightPerformancePanel(fight), 0);
+			fightHistoryContainer.add(createFightPanel(fight, number), 0);
+
+			// the oldest fights are shown last. Corrupted lines have no panel, so go by fight number rather than count.
+			for (int i = fightHistoryContainer.getComponentCount() - 1; i >= 0; i--)
+			{
+				JComponent panel = (JComponent) fightHistoryContainer.getComponent(i);
+				if ((long) panel.getClientProperty(FIGHT_NUMBER) < start)
+				{
+					fightHistoryContainer.remove(i);
+				}
+			}
+
+			oldestShownFight = Math.max(oldestShownFight, start);
+			loadMoreButton.setVisible(oldestShownFight > start);
 			updateUI();
 		});
 	}
 
-	public void addFights(ArrayList<FightPerformance> fights)
+	// show the most recent fights and the totals of the fight history again. Should not be called on the swing thread,
+	// since older fights may be read from the fight history log.
+	public void rebuild()
 	{
-		totalStatsPanel.addFights(fights);
+		FightHistoryStore fightHistory = plugin.getFightHistory();
+		FightHistoryTotals totals = fightHistory.getTotals();
+		long start = fightHistory.getStart();
+		long from = Math.max(start, fightHistory.getEnd() - PAGE_SIZE);
+		List<FightPerformance> fights = fightHistory.getFights(from, fightHistory.getEnd());
+		long[] numbers = fights.stream().mapToLong(fightHistory::getFightNumber).toArray();
+		totalStatsPanel.setTotals(totals);
+
 		SwingUtilities.invokeLater(() ->
 		{
-			fights.forEach((FightPerformance f) -> fightHistoryContainer.add(new FightPerformancePanel(f), 0));
+			rebuildCount++;
+			oldestShownFight = from;
+			fightHistoryContainer.removeAll();
+			for (int i = 0; i < fights.size(); i++)
+			{
+				fightHistoryContainer.add(createFightPanel(fights.get(i), numbers[i]), 0);
+			}
+			loadMoreButton.setVisible(from > start);
 			updateUI();
 		});
 	}
 
-	public void rebuild()
+	// load the page of fights before the oldest shown fight in the background, and show them below the others.
+	private void loadOlderFights()
 	{
-		totalStatsPanel.reset();
-		fightHistoryContainer.removeAll();
-		if (plugin.fightHistory.size() > 0)
+		final long to = oldestShownFight;
+		final int rebuild = rebuildCount;
+		loadMoreButton.setEnabled(false);
+
+		executor.execute(() ->
 		{
-			addFights(plugin.fightHistory);
-		}
-		SwingUtilities.invokeLater(this::updateUI);
+			FightHistoryStore fightHistory = plugin.getFightHistory();
+			long start = fightHistory.getStart();
+			long from = Math.max(start, to - PAGE_SIZE);
+			List<FightPerformance> fights = fightHistory.getFights(from, to);
+			long[] numbers = fights.stream().mapToLong(fightHistory::getFightNumber).toArray();
+
+			SwingUtilities.invokeLater(() ->
+			{
+				loadMoreButton.setEnabled(true);
+
+				// skip the fights if the shown fights changed in the meantime
+				if (rebuild != rebuildCount || to != oldestShownFight)
+				{
+					return;
+				}
+
+				oldestShownFight = from;
+				for (int i = fights.size() - 1; i >= 0; i--)
+				{
+					fightHistoryContainer.add(createFightPanel(fights.get(i), numbers[i]));
+				}
+				loadMoreButton.setVisible(from > start);
+				updateUI();
+			});
+		});
+	}
+
+	private FightPerformancePanel createFightPanel(FightPerformance fight, long number)
+	{
+		FightPerformancePanel panel = new FightPerformancePanel(fight);
+		panel.putClientProperty(FIGHT_NUMBER, number);
+		return panel;
 	}
-}
\ No newline at end of file
+}
@@ -35,15 +35,10 @@ import java.awt.Toolkit;
 import java.awt.datatransfer.StringSelection;
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.Writer;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
 import javax.inject.Inject;
@@ -112,7 +107,8 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 		FIGHT_HISTORY_DATA_DIR.mkdirs();
 	}
 
-	public ArrayList<FightPerformance> fightHistory;
+	@Getter(AccessLevel.PACKAGE)
+	private FightHistoryStore fightHistory;
 
 	@Getter(AccessLevel.PACKAGE)
 	private NavigationButton navButton;
@@ -184,7 +180,6 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 			.panel(panel)
 			.build();
 		SPRITE_MANAGER = spriteManager;
-		fightHistory = new ArrayList<>();
 
 		gson = new GsonBuilder()
 			.excludeFieldsWithoutExposeAnnotation()
@@ -192,11 +187,12 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 				value.isNaN() ? new JsonPrimitive(0) // Convert NaN to zero, otherwise, return as BigDecimal with scale of 3.
 				: new JsonPrimitive(BigDecimal.valueOf(value).setScale(3, RoundingMode.HALF_UP))
 			).create();
+		fightHistory = new FightHistoryStore(FIGHT_HISTORY_DATA_DIR, gson);
 
 		// Unset old storage config key, which is now un-used, in order to delete redundant use of storage for previous users.
 		configManager.unsetConfiguration("pvpperformancetracker", "fightHistoryData");
 
-		importFightHistoryData();
+		executor.execute(this::importFightHistoryData);
 
 		// add the panel's nav button depending on config
 		if (config.showFightHistoryPanel() &&
@@ -212,8 +208,6 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 	@Override
 	protected void shutDown() throws Exception
 	{
-		updateFightHistoryData();
-
 		clientToolbar.removeNavigation(navButton);
 		overlayManager.remove(overlay);
 	}
@@ -253,14 +247,11 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 				break;
 			// If the user updates the fight history limit, remove fights as necessary
 			case "fightHistoryLimit":
-				if (config.fightHistoryLimit() > 0 && fightHistory.size() > config.fightHistoryLimit())
+				executor.execute(() ->
 				{
-					int numToRemove = fightHistory.size() - config.fightHistoryLimit();
-					// Remove oldest fightHistory until the size is smaller than the limit.
-					// Should only remove one fight in most cases.
-					fightHistory.removeIf((FightPerformance f) -> fightHistory.indexOf(f) < numToRemove);
+					fightHistory.setLimit(config.fightHistoryLimit());
 					panel.rebuild();
-				}
+				});
 				break;
 		}
 	}
@@ -387,11 +378,11 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 		resetFightHistory();
 	}
 
-	// when the client shuts down, save the fight history data locally.
+	// when the client shuts down, wait for the fight history data to be saved locally.
 	@Subscribe
 	public void onClientShutdown(ClientShutdown event)
 	{
-		event.waitFor(executor.submit(this::updateFightHistoryData));
+		event.waitFor(executor.submit(fightHistory::saveTotals));
 	}
 
 	// Returns true if the player has an opponent.
@@ -413,80 +404,36 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 		}
 	}
 
-	// save the currently loaded fightHistory to the local json data so it is saved for the next client launch.
-	private void updateFightHistoryData()
-	{
-		// silently ignore errors, which shouldn't really happen - but if they do, don't prevent the plugin
-		// from continuing to work, even if there are issues saving the data.
-		try
-		{
-			File fightHistoryData = new File(FIGHT_HISTORY_DATA_DIR, FIGHT_HISTORY_DATA_FNAME);
-			Writer writer = new FileWriter(fightHistoryData);
-			gson.toJson(fightHistory, writer);
-			writer.flush();
-			writer.close();
-		}
-		catch (Exception e)
-		{
-			log.warn("Error ignored while updating fight history data: " + e.getMessage());
-		}
-	}
-
-	// add fight to loaded fight history
+	// add fight to the fight history log. Fights are appended to the log on the executor, since older fights
+	// evicted by the fightHistoryLimit may need to be read back from it.
 	void addToFightHistory(FightPerformance fight)
 	{
 		if (fight == null) { return; }
-		fightHistory.add(fight);
 		// no need to sort, since they sort chronologically, but they should automatically be added that way.
-
-		// remove fights as necessary to respect the fightHistoryLimit.
-		if (config.fightHistoryLimit() > 0 && fightHistory.size() > config.fightHistoryLimit())
+		executor.execute(() ->
 		{
-			int numToRemove = fightHistory.size() - config.fightHistoryLimit();
-			// Remove oldest fightHistory until the size is equal to the limit.
-			// Should only remove one fight in most cases.
-			fightHistory.removeIf((FightPerformance f) -> fightHistory.indexOf(f) < numToRemove);
-			panel.rebuild();
-		}
-		else
-		{
-			panel.addFight(fight);
-		}
+			if (fightHistory.add(fight))
+			{
+				panel.addFight(fight);
+			}
+		});
 	}
 
-	// import complete fight history data from the saved json data file
-	// this function only handles the direct file processing and json deserialization.
-	// more specific FightPerformance processing is done in importFights()
+	// load the fight history log, converting the old fight history data file to it if needed.
+	// only the most recent fights are read, along with the saved totals of all fights.
 	void importFightHistoryData()
 	{
 		// catch and ignore any errors we may have forgotten to handle - the import will fail but at least the plugin
 		// will continue to function. This should only happen if their fight history data is corrupted/outdated.
-		// The user will be notified by a modal if this happens.
 		try
 		{
 			FIGHT_HISTORY_DATA_DIR.mkdirs();
-			File fightHistoryData = new File(FIGHT_HISTORY_DATA_DIR, FIGHT_HISTORY_DATA_FNAME);
-
-			// if the fight history data file doesn't exist, create it with an empty array.
-			if (!fightHistoryData.exists())
-			{
-				Writer writer = new FileWriter(fightHistoryData);
-				writer.write("[]");
-				writer.close();
-			}
-
-			// read the saved fights from the file
-			List<FightPerformance> savedFights = Arrays.asList(
-				gson.fromJson(new FileReader(fightHistoryData), FightPerformance[].class));
-
-			fightHistory.clear();
-			importFights(savedFights);
+			fightHistory.load(config.fightHistoryLimit());
 		}
 		catch (Exception e)
 		{
 			log.warn("Error while deserializing fight history data: " + e.getMessage());
 			// Display no modal for this error since it could happen on client load and that has odd behavior.
-			return;
 		}
 
 		panel.rebuild();
@@ -494,78 +441,64 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 
 	// import additional/extra fight history data supplied by the user
 	// this only does the direct json deserialization and success response (modals)
-	// more specific FightPerformance processing is done in importFights()
+	// more specific FightPerformance processing is done in FightHistoryStore.importFights()
 	void importUserFightHistoryData(String data)
 	{
-		try
-		{
-			// read saved fights from the data string and import them
-			List<FightPerformance> savedFights = Arrays.asList(gson.fromJson(data, FightPerformance[].class));
-			importFights(savedFights);
-			createConfirmationModal("Data Import Successful",
-				"PvP Performance Tracker: your fight history data was successfully imported.");
-		}
-		catch (Exception e)
-		{
-			log.warn("Error while importing user's fight history data: " + e.getMessage());
-			// If an error was detected while deserializing fights, display that as a message dialog.
-			createConfirmationModal("Data Import Failed",
-				"PvP Performance Tracker: your fight history data was invalid, and could not be imported.");
-			return;
-		}
-
-		panel.rebuild();
-	}
-
-	// process and add a list of deserialized json fights to the currently loaded fights
-	// can throw NullPointerException if some of the serialized data is corrupted
-	void importFights(List<FightPerformance> fights) throws NullPointerException
-	{
-		if (fights == null || fights.size() < 1) { return; }
-
-		fights.removeIf(Objects::isNull);
-		fightHistory.addAll(fights);
-		fightHistory.sort(FightPerformance::compareTo);
-
-		// remove fights to respect the fightHistoryLimit.
-		if (config.fightHistoryLimit() > 0 && fightHistory.size() > config.fightHistoryLimit())
+		executor.execute(() ->
 		{
-			int numToRemove = fightHistory.size() - config.fightHistoryLimit();
-			// Remove oldest fightHistory until the size is equal to the limit.
-			// Should only remove one fight in most cases.
-			fightHistory.removeIf((FightPerformance f) -> fightHistory.indexOf(f) < numToRemove);
-		}
-
-		// set fight log names since they aren't serialized but are on the parent class
-		for (FightPerformance f : fightHistory)
-		{
-			// check for nulls in case the data was corrupted and entries are corrupted.
-			if (f.getCompetitor() == null || f.getOpponent() == null ||
-				f.getCompetitor().getFightLogEntries() == null || f.getOpponent().getFightLogEntries() == null)
+			try
+			{
+				// read saved fights from the data string and import them
+				List<FightPerformance> savedFights = Arrays.asList(gson.fromJson(data, FightPerformance[].class));
+				fightHistory.importFights(savedFights);
+				createConfirmationModal("Data Import Successful",
+					"PvP Performance Tracker: your fight history data was successfully imported.");
+			}
+			catch (Exception e)
 			{
-				continue;
+				log.warn("Error while importing user's fight history data: " + e.getMessage());
+				// If an error was detected while deserializing fights, display that as a message dialog.
+				createConfirmationModal("Data Import Failed",
+					"PvP Performance Tracker: your fight history data was invalid, and could not be imported.");
+				return;
 			}
 
-			f.getCompetitor().getFightLogEntries().forEach((FightLogEntry l) ->
-				l.attackerName = f.getCompetitor().getName());
-			f.getOpponent().getFightLogEntries().forEach((FightLogEntry l) ->
-				l.attackerName = f.getOpponent().getName());
-		}
+			panel.rebuild();
+		});
 	}
 
-	// reset the loaded fight history as well as the saved json data
+	// reset the loaded fight history as well as the saved data
 	void resetFightHistory()
 	{
-		fightHistory.clear();
-		updateFightHistoryData();
-		panel.rebuild();
+		executor.execute(() ->
+		{
+			try
+			{
+				fightHistory.reset();
+			}
+			catch (Exception e)
+			{
+				log.warn("Error ignored while resetting fight history data: " + e.getMessage());
+			}
+			panel.rebuild();
+		});
 	}
 
-	// remove a fight from the loaded fight history
+	// remove a fight from the fight history
 	void removeFight(FightPerformance fight)
 	{
-		fightHistory.remove(fight);
-		panel.rebuild();
+		executor.execute(() ->
+		{
+			try
+			{
+				fightHistory.remove(fight);
+			}
+			catch (Exception e)
+			{
+				log.warn("Error ignored while removing fight from fight history data: " + e.getMessage());
+			}
+			panel.rebuild();
+		});
 	}
 
 	boolean isAtLMS()
@@ -616,11 +549,15 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 	// save the complete fight history data to the clipboard.
 	public void exportFightHistory()
 	{
-		String fightHistoryDataJson = gson.toJson(fightHistory.toArray(new FightPerformance[0]), FightPerformance[].class);
-		final StringSelection contents = new StringSelection(fightHistoryDataJson);
-		Toolkit.getDefaultToolkit().getSystemClipboard().setContents(contents, null);
+		executor.execute(() ->
+		{
+			List<FightPerformance> fights = fightHistory.getAllFights();
+			String fightHistoryDataJson = gson.toJson(fights.toArray(new FightPerformance[0]), FightPerformance[].class);
+			final StringSelection contents = new StringSelection(fightHistoryDataJson);
+			Toolkit.getDefaultToolkit().getSystemClipboard().setContents(contents, null);
 
-		createConfirmationModal("Fight History Export Succeeded", "Fight history data was copied to the clipboard.");
+			createConfirmationModal("Fight History Export Succeeded", "Fight history data was copied to the clipboard.");
+		});
 	}
 
 	// retrieve offensive pray as SpriteID since that's all we will directly use it for aside from comparison.
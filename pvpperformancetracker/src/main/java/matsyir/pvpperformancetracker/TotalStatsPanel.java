@@ -29,7 +29,6 @@ import java.awt.Color;
 import java.awt.GridLayout;
 import java.math.RoundingMode;
 import java.text.NumberFormat;
-import java.util.ArrayList;
 import javax.swing.JLabel;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
@@ -82,33 +81,21 @@ public class TotalStatsPanel extends JPanel
 
 	private int numFights = 0;
 
-	private double totalDeservedDmg = 0;
-	private double totalDeservedDmgDiff = 0;
 	private double avgDeservedDmg = 0;
 	private double avgDeservedDmgDiff = 0;
 
-	private double killTotalDeservedDmg = 0;
-	private double killTotalDeservedDmgDiff = 0;
 	private double killAvgDeservedDmg = 0;
 	private double killAvgDeservedDmgDiff = 0;
 
-	private double deathTotalDeservedDmg = 0;
-	private double deathTotalDeservedDmgDiff = 0;
 	private double deathAvgDeservedDmg = 0;
 	private double deathAvgDeservedDmgDiff = 0;
 
-	private double totalDmgDealt = 0;
-	private double totalDmgDealtDiff = 0;
 	private double avgDmgDealt = 0;
 	private double avgDmgDealtDiff = 0;
 
-	private double killTotalDmgDealt = 0;
-	private double killTotalDmgDealtDiff = 0;
 	private double killAvgDmgDealt = 0;
 	private double killAvgDmgDealtDiff = 0;
 
-	private double deathTotalDmgDealt = 0;
-	private double deathTotalDmgDealtDiff = 0;
 	private double deathAvgDmgDealt = 0;
 	private double deathAvgDmgDealtDiff = 0;
 
@@ -342,155 +329,42 @@ public class TotalStatsPanel extends JPanel
 			nf2.format(totalStats.calculateOffensivePraySuccessPercentage()) + "%)");
 	}
 
-	public void addFight(FightPerformance fight)
+	// show the totals of the whole fight history, which are kept up to date by the FightHistoryStore.
+	public void setTotals(FightHistoryTotals totals)
 	{
-		numFights++;
-
-		totalDeservedDmg += fight.getCompetitor().getDeservedDamage();
-		totalDeservedDmgDiff += fight.getCompetitorDeservedDmgDiff();
-
-		totalDmgDealt += fight.getCompetitor().getDamageDealt();
-		totalDmgDealtDiff += fight.getCompetitorDmgDealtDiff();
-
-		avgDeservedDmg = totalDeservedDmg / numFights;
-		avgDeservedDmgDiff = totalDeservedDmgDiff / numFights;
-
-		avgDmgDealt = totalDmgDealt / numFights;
-		avgDmgDealtDiff = totalDmgDealtDiff / numFights;
-
-		if (fight.getCompetitor().isDead())
-		{
-			numDeaths++;
-
-			deathTotalDeservedDmg += fight.getCompetitor().getDeservedDamage();
-			deathTotalDeservedDmgDiff += fight.getCompetitorDeservedDmgDiff();
-
-			deathTotalDmgDealt += fight.getCompetitor().getDamageDealt();
-			deathTotalDmgDealtDiff += fight.getCompetitorDmgDealtDiff();
-
-			deathAvgDeservedDmg = deathTotalDeservedDmg / numDeaths;
-			deathAvgDeservedDmgDiff = deathTotalDeservedDmgDiff / numDeaths;
-
-			deathAvgDmgDealt = deathTotalDmgDealt / numDeaths;
-			deathAvgDmgDealtDiff = deathTotalDmgDealtDiff / numDeaths;
-		}
-
-		if (fight.getOpponent().isDead())
-		{
-			numKills++;
-
-			killTotalDeservedDmg += fight.getCompetitor().getDeservedDamage();
-			killTotalDeservedDmgDiff += fight.getCompetitorDeservedDmgDiff();
-
-			killTotalDmgDealt += fight.getCompetitor().getDamageDealt();
-			killTotalDmgDealtDiff += fight.getCompetitorDmgDealtDiff();
-
-			killAvgDeservedDmg = killTotalDeservedDmg / numKills;
-			killAvgDeservedDmgDiff = killTotalDeservedDmgDiff / numKills;
-
-			killAvgDmgDealt = killTotalDmgDealt / numKills;
-			killAvgDmgDealtDiff = killTotalDmgDealtDiff / numKills;
-		}
-
-		totalStats.addAttacks(fight.getCompetitor().getOffPraySuccessCount(), fight.getCompetitor().getAttackCount(),
-			fight.getCompetitor().getDeservedDamage(), fight.getCompetitor().getDamageDealt(),
-			fight.getCompetitor().getMagicHitCount(), fight.getCompetitor().getMagicHitCountDeserved(),
-			fight.getCompetitor().getOffensivePraySuccessCount());
-
-		SwingUtilities.invokeLater(this::setLabels);
-	}
-
-	public void addFights(ArrayList<FightPerformance> fights)
-	{
-		numFights += fights.size();
-		for (FightPerformance fight : fights)
+		SwingUtilities.invokeLater(() ->
 		{
-			totalDeservedDmg += fight.getCompetitor().getDeservedDamage();
-			totalDeservedDmgDiff += fight.getCompetitorDeservedDmgDiff();
-
-			totalDmgDealt += fight.getCompetitor().getDamageDealt();
-			totalDmgDealtDiff += fight.getCompetitorDmgDealtDiff();
-
-			if (fight.getCompetitor().isDead())
-			{
-				numDeaths++;
-
-				deathTotalDeservedDmg += fight.getCompetitor().getDeservedDamage();
-				deathTotalDeservedDmgDiff += fight.getCompetitorDeservedDmgDiff();
-
-				deathTotalDmgDealt += fight.getCompetitor().getDamageDealt();
-				deathTotalDmgDealtDiff += fight.getCompetitorDmgDealtDiff();
-			}
-			if (fight.getOpponent().isDead())
-			{
-				numKills++;
-
-				killTotalDeservedDmg += fight.getCompetitor().getDeservedDamage();
-				killTotalDeservedDmgDiff += fight.getCompetitorDeservedDmgDiff();
-
-				killTotalDmgDealt += fight.getCompetitor().getDamageDealt();
-				killTotalDmgDealtDiff += fight.getCompetitorDmgDealtDiff();
-			}
-			totalStats.addAttacks(fight.getCompetitor().getOffPraySuccessCount(), fight.getCompetitor().getAttackCount(),
-				fight.getCompetitor().getDeservedDamage(), fight.getCompetitor().getDamageDealt(),
-				fight.getCompetitor().getMagicHitCount(), fight.getCompetitor().getMagicHitCountDeserved(),
-				fight.getCompetitor().getOffensivePraySuccessCount());
-		}
-
-		avgDeservedDmg = totalDeservedDmg / numFights;
-		avgDeservedDmgDiff = totalDeservedDmgDiff / numFights;
-
-		avgDmgDealt = totalDmgDealt / numFights;
-		avgDmgDealtDiff = totalDmgDealtDiff / numFights;
-
-		killAvgDeservedDmg = killTotalDeservedDmg / numKills;
-		killAvgDeservedDmgDiff = killTotalDeservedDmgDiff / numKills;
-
-		deathAvgDeservedDmg = deathTotalDeservedDmg / numDeaths;
-		deathAvgDeservedDmgDiff = deathTotalDeservedDmgDiff / numDeaths;
-
-		killAvgDmgDealt = killTotalDmgDealt / numKills;
-		killAvgDmgDealtDiff = killTotalDmgDealtDiff / numKills;
-
-		deathAvgDmgDealt = deathTotalDmgDealt / numDeaths;
-		deathAvgDmgDealtDiff = deathTotalDmgDealtDiff / numDeaths;
-
-		SwingUtilities.invokeLater(this::setLabels);
+			numFights = totals.getNumFights();
+			numKills = totals.getNumKills();
+			numDeaths = totals.getNumDeaths();
+
+			avgDeservedDmg = average(totals.getTotalDeservedDmg(), numFights);
+			avgDeservedDmgDiff = average(totals.getTotalDeservedDmgDiff(), numFights);
+			avgDmgDealt = average(totals.getTotalDmgDealt(), numFights);
+			avgDmgDealtDiff = average(totals.getTotalDmgDealtDiff(), numFights);
+
+			killAvgDeservedDmg = average(totals.getKillTotalDeservedDmg(), numKills);
+			killAvgDeservedDmgDiff = average(totals.getKillTotalDeservedDmgDiff(), numKills);
+			killAvgDmgDealt = average(totals.getKillTotalDmgDealt(), numKills);
+			killAvgDmgDealtDiff = average(totals.getKillTotalDmgDealtDiff(), numKills);
+
+			deathAvgDeservedDmg = average(totals.getDeathTotalDeservedDmg(), numDeaths);
+			deathAvgDeservedDmgDiff = average(totals.getDeathTotalDeservedDmgDiff(), numDeaths);
+			deathAvgDmgDealt = average(totals.getDeathTotalDmgDealt(), numDeaths);
+			deathAvgDmgDealtDiff = average(totals.getDeathTotalDmgDealtDiff(), numDeaths);
+
+			totalStats = new Fighter("Player");
+			totalStats.addAttacks(totals.getOffPraySuccessCount(), totals.getAttackCount(),
+				totals.getDeservedDamage(), totals.getDamageDealt(),
+				totals.getMagicHitCount(), totals.getMagicHitCountDeserved(),
+				totals.getOffensivePraySuccessCount());
+
+			setLabels();
+		});
 	}
 
-	public void reset()
+	private static double average(double total, int count)
 	{
-		numFights = 0;
-		numDeaths = 0;
-		numKills = 0;
-
-		totalDeservedDmg = 0;
-		totalDeservedDmgDiff = 0;
-		killTotalDeservedDmg = 0;
-		killTotalDeservedDmgDiff = 0;
-		deathTotalDeservedDmg = 0;
-		deathTotalDeservedDmgDiff = 0;
-		totalDmgDealt = 0;
-		totalDmgDealtDiff = 0;
-		killTotalDmgDealt = 0;
-		killTotalDmgDealtDiff = 0;
-		deathTotalDmgDealt = 0;
-		deathTotalDmgDealtDiff = 0;
-
-		avgDeservedDmg = 0;
-		avgDeservedDmgDiff = 0;
-		killAvgDeservedDmg = 0;
-		killAvgDeservedDmgDiff = 0;
-		deathAvgDeservedDmg = 0;
-		deathAvgDeservedDmgDiff = 0;
-		avgDmgDealt = 0;
-		avgDmgDealtDiff = 0;
-		killAvgDmgDealt = 0;
-		killAvgDmgDealtDiff = 0;
-		deathAvgDmgDealt = 0;
-		deathAvgDmgDealtDiff = 0;
-
-		totalStats = new Fighter("Player");
-		SwingUtilities.invokeLater(this::setLabels);
+		return count > 0 ? total / count : 0;
 	}
 }
@@ -38,8 +38,6 @@ import lombok.Getter;
 import lombok.Setter;
 import net.runelite.api.Client;
 import net.runelite.api.QuestState;
-import net.runelite.api.events.VarbitChanged;
-import net.runelite.api.events.WidgetLoaded;
 import net.runelite.client.eventbus.EventBus;
 import com.questhelper.steps.OwnerStep;
 import com.questhelper.steps.QuestStep;
@@ -78,10 +76,9 @@ public abstract class QuestHelper implements Module
 		if (step != null)
 		{
 			currentStep = step;
-			currentStep.startUp();
 			//eventBus.register(currentStep);
-			eventBus.subscribe(VarbitChanged.class, currentStep, currentStep::onVarbitChanged);
-			eventBus.subscribe(WidgetLoaded.class, currentStep, currentStep::onWidgetLoaded);
+			currentStep.subscribeEvents(eventBus);
+			currentStep.startUp();
 		}
 		else
 		{
@@ -106,6 +106,7 @@ public class RumSmugglingStep extends ConditionalStep
 			atStart.setHasPassed(true);
 			hadRumOffKaramja.setHasPassed(false);
 			lostRum.setHasPassed(false);
+			conditionResults.clear();
 		}
 
 		if (crateSent.checkCondition(client))
@@ -115,6 +116,7 @@ public class RumSmugglingStep extends ConditionalStep
 			fillCrateWithBananasChat.setHasReceivedChatMessage(false);
 			filledCrateWithBananasAndRum.setHasPassed(false);
 			crateSent.setHasReceivedChatMessage(false);
+			conditionResults.clear();
 		}
 
 		super.updateSteps();
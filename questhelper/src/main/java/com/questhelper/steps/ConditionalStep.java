@@ -26,18 +26,43 @@ package com.questhelper.steps;
 
 import com.google.inject.Inject;
 import com.questhelper.requirements.Requirement;
+import com.questhelper.steps.conditional.ConditionInput;
+import com.questhelper.steps.conditional.ObjectCondition;
 import com.questhelper.steps.conditional.WidgetTextCondition;
 import java.awt.Graphics2D;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import net.runelite.api.ChatMessageType;
 import net.runelite.api.GameState;
+import net.runelite.api.InventoryID;
+import net.runelite.api.Player;
+import net.runelite.api.TileObject;
+import net.runelite.api.coords.WorldPoint;
 import net.runelite.api.events.ChatMessage;
+import net.runelite.api.events.DecorativeObjectChanged;
+import net.runelite.api.events.DecorativeObjectDespawned;
+import net.runelite.api.events.DecorativeObjectSpawned;
+import net.runelite.api.events.GameObjectChanged;
+import net.runelite.api.events.GameObjectDespawned;
+import net.runelite.api.events.GameObjectSpawned;
 import net.runelite.api.events.GameStateChanged;
 import net.runelite.api.events.GameTick;
+import net.runelite.api.events.GroundObjectChanged;
+import net.runelite.api.events.GroundObjectDespawned;
+import net.runelite.api.events.GroundObjectSpawned;
+import net.runelite.api.events.ItemContainerChanged;
+import net.runelite.api.events.ItemDespawned;
+import net.runelite.api.events.ItemSpawned;
 import net.runelite.api.events.NpcDespawned;
 import net.runelite.api.events.NpcSpawned;
+import net.runelite.api.events.StatChanged;
+import net.runelite.api.events.VarbitChanged;
+import net.runelite.api.events.WallObjectChanged;
+import net.runelite.api.events.WallObjectDespawned;
+import net.runelite.api.events.WallObjectSpawned;
 import net.runelite.api.events.WidgetLoaded;
 import net.runelite.client.eventbus.EventBus;
 import net.runelite.client.eventbus.Subscribe;
@@ -62,6 +87,15 @@ public class ConditionalStep extends QuestStep implements OwnerStep
 	protected final ArrayList<ChatMessageCondition> chatConditions = new ArrayList<>();
 	protected final ArrayList<NpcCondition> npcConditions = new ArrayList<>();
 	protected final ArrayList<WidgetTextCondition> widgetConditions = new ArrayList<>();
+	protected final ArrayList<ObjectCondition> objectConditions = new ArrayList<>();
+
+	// Results are kept until an input of the conditions changes, conditions read every tick are never kept
+	protected final HashMap<Conditions, Boolean> conditionResults = new HashMap<>();
+	protected final HashMap<Conditions, EnumSet<ConditionInput>> conditionInputs = new HashMap<>();
+
+	private WorldPoint lastPlayerLocation;
+	// Results are only kept, and objects only tracked, when the events that change them are delivered to this step
+	private boolean subscribed;
 
 	protected QuestStep currentStep;
 
@@ -90,6 +124,7 @@ public class ConditionalStep extends QuestStep implements OwnerStep
 		checkForChatConditions(conditions);
 		checkForNpcConditions(conditions);
 		checkForWidgetConditions(conditions);
+		checkForObjectConditions(conditions);
 	}
 
 	public void addStep(Conditions conditions, QuestStep step, boolean isLockable)
@@ -100,6 +135,7 @@ public class ConditionalStep extends QuestStep implements OwnerStep
 		checkForChatConditions(conditions);
 		checkForNpcConditions(conditions);
 		checkForWidgetConditions(conditions);
+		checkForObjectConditions(conditions);
 	}
 
 	public void addStep(ConditionForStep condition, QuestStep step)
@@ -109,6 +145,7 @@ public class ConditionalStep extends QuestStep implements OwnerStep
 		checkForChatConditions(condition);
 		checkForNpcConditions(condition);
 		checkForWidgetConditions(condition);
+		checkForObjectConditions(condition);
 	}
 
 	public void addStep(ConditionForStep condition, QuestStep step, boolean isLockable)
@@ -120,6 +157,7 @@ public class ConditionalStep extends QuestStep implements OwnerStep
 		checkForChatConditions(condition);
 		checkForNpcConditions(condition);
 		checkForWidgetConditions(condition);
+		checkForObjectConditions(condition);
 	}
 
 	public void checkForChatConditions(ConditionForStep condition)
@@ -176,14 +214,43 @@ public class ConditionalStep extends QuestStep implements OwnerStep
 		}
 	}
 
+	public void checkForObjectConditions(ConditionForStep condition)
+	{
+		if (condition != null && condition.getConditions() == null)
+		{
+			if (condition.getClass() == ObjectCondition.class && !objectConditions.contains(condition))
+			{
+				objectConditions.add((ObjectCondition) condition);
+			}
+		}
+		else
+		{
+			for (ConditionForStep subCondition : condition.getConditions())
+			{
+				checkForObjectConditions(subCondition);
+			}
+		}
+	}
+
 	@Override
 	public void startUp()
 	{
+		conditionResults.clear();
+		conditionInputs.clear();
+		lastPlayerLocation = null;
 		for (Conditions conditions : steps.keySet())
 		{
 			if (conditions != null)
 			{
 				conditions.initialize(client);
+				conditionInputs.put(conditions, conditions.getInputs());
+			}
+		}
+		if (subscribed)
+		{
+			for (ObjectCondition condition : objectConditions)
+			{
+				condition.startTracking(client);
 			}
 		}
 		updateSteps();
@@ -194,8 +261,42 @@ public class ConditionalStep extends QuestStep implements OwnerStep
 	public void shutDown()
 	{
 		started = false;
+		subscribed = false;
 		shutDownStep();
 		currentStep = null;
+		conditionResults.clear();
+		for (ObjectCondition condition : objectConditions)
+		{
+			condition.stopTracking();
+		}
+	}
+
+	@Override
+	public void subscribeEvents(EventBus eventBus)
+	{
+		super.subscribeEvents(eventBus);
+		subscribed = true;
+		eventBus.subscribe(GameTick.class, this, this::onGameTick);
+		eventBus.subscribe(GameStateChanged.class, this, this::onGameStateChanged);
+		eventBus.subscribe(ChatMessage.class, this, this::onChatMessage);
+		eventBus.subscribe(NpcSpawned.class, this, this::onNpcSpawned);
+		eventBus.subscribe(NpcDespawned.class, this, this::onNpcDespawned);
+		eventBus.subscribe(ItemContainerChanged.class, this, this::onItemContainerChanged);
+		eventBus.subscribe(StatChanged.class, this, this::onStatChanged);
+		eventBus.subscribe(ItemSpawned.class, this, this::onItemSpawned);
+		eventBus.subscribe(ItemDespawned.class, this, this::onItemDespawned);
+		eventBus.subscribe(GameObjectSpawned.class, this, this::onGameObjectSpawned);
+		eventBus.subscribe(GameObjectDespawned.class, this, this::onGameObjectDespawned);
+		eventBus.subscribe(GameObjectChanged.class, this, this::onGameObjectChanged);
+		eventBus.subscribe(GroundObjectSpawned.class, this, this::onGroundObjectSpawned);
+		eventBus.subscribe(GroundObjectDespawned.class, this, this::onGroundObjectDespawned);
+		eventBus.subscribe(GroundObjectChanged.class, this, this::onGroundObjectChanged);
+		eventBus.subscribe(DecorativeObjectSpawned.class, this, this::onDecorativeObjectSpawned);
+		eventBus.subscribe(DecorativeObjectDespawned.class, this, this::onDecorativeObjectDespawned);
+		eventBus.subscribe(DecorativeObjectChanged.class, this, this::onDecorativeObjectChanged);
+		eventBus.subscribe(WallObjectSpawned.class, this, this::onWallObjectSpawned);
+		eventBus.subscribe(WallObjectDespawned.class, this, this::onWallObjectDespawned);
+		eventBus.subscribe(WallObjectChanged.class, this, this::onWallObjectChanged);
 	}
 
 	@Subscribe
@@ -203,6 +304,12 @@ public class ConditionalStep extends QuestStep implements OwnerStep
 	{
 		if (started)
 		{
+			Player player = client.getLocalPlayer();
+			if (player != null && !player.getWorldLocation().equals(lastPlayerLocation))
+			{
+				lastPlayerLocation = player.getWorldLocation();
+				inputChanged(ConditionInput.PLAYER_LOCATION);
+			}
 			updateSteps();
 		}
 	}
@@ -210,6 +317,7 @@ public class ConditionalStep extends QuestStep implements OwnerStep
 	@Subscribe
 	public void onGameStateChanged(final GameStateChanged event)
 	{
+		conditionResults.clear();
 		if (event.getGameState() == GameState.LOADING || event.getGameState() == GameState.HOPPING)
 		{
 			for (Conditions conditions : steps.keySet())
@@ -231,6 +339,7 @@ public class ConditionalStep extends QuestStep implements OwnerStep
 			{
 				step.validateCondition(client, chatMessage.getMessage());
 			}
+			inputChanged(ConditionInput.CHAT);
 		}
 	}
 
@@ -241,6 +350,7 @@ public class ConditionalStep extends QuestStep implements OwnerStep
 		{
 			condition.checkNpcSpawned(event.getNpc());
 		}
+		inputChanged(ConditionInput.NPCS);
 	}
 
 	@Subscribe
@@ -250,6 +360,7 @@ public class ConditionalStep extends QuestStep implements OwnerStep
 		{
 			condition.checkNpcDespawned(event.getNpc().getId());
 		}
+		inputChanged(ConditionInput.NPCS);
 	}
 
 	@Subscribe
@@ -265,6 +376,154 @@ public class ConditionalStep extends QuestStep implements OwnerStep
 		}
 	}
 
+	@Subscribe
+	@Override
+	public void onVarbitChanged(VarbitChanged event)
+	{
+		super.onVarbitChanged(event);
+		inputChanged(ConditionInput.VARS);
+	}
+
+	@Subscribe
+	public void onItemContainerChanged(ItemContainerChanged event)
+	{
+		if (event.getContainerId() == InventoryID.INVENTORY.getId() || event.getContainerId() == InventoryID.EQUIPMENT.getId())
+		{
+			inputChanged(ConditionInput.ITEM_CONTAINERS);
+		}
+	}
+
+	@Subscribe
+	public void onStatChanged(StatChanged event)
+	{
+		inputChanged(ConditionInput.SKILLS);
+	}
+
+	@Subscribe
+	public void onItemSpawned(ItemSpawned event)
+	{
+		inputChanged(ConditionInput.GROUND_ITEMS);
+	}
+
+	@Subscribe
+	public void onItemDespawned(ItemDespawned event)
+	{
+		inputChanged(ConditionInput.GROUND_ITEMS);
+	}
+
+	@Subscribe
+	public void onGameObjectSpawned(GameObjectSpawned event)
+	{
+		objectSpawned(event.getGameObject());
+	}
+
+	@Subscribe
+	public void onGameObjectDespawned(GameObjectDespawned event)
+	{
+		objectDespawned(event.getGameObject());
+	}
+
+	@Subscribe
+	public void onGameObjectChanged(GameObjectChanged event)
+	{
+		objectDespawned(event.getPrevious());
+		objectSpawned(event.getGameObject());
+	}
+
+	@Subscribe
+	public void onGroundObjectSpawned(GroundObjectSpawned event)
+	{
+		objectSpawned(event.getGroundObject());
+	}
+
+	@Subscribe
+	public void onGroundObjectDespawned(GroundObjectDespawned event)
+	{
+		objectDespawned(event.getGroundObject());
+	}
+
+	@Subscribe
+	public void onGroundObjectChanged(GroundObjectChanged event)
+	{
+		objectDespawned(event.getPrevious());
+		objectSpawned(event.getGroundObject());
+	}
+
+	@Subscribe
+	public void onDecorativeObjectSpawned(DecorativeObjectSpawned event)
+	{
+		objectSpawned(event.getDecorativeObject());
+	}
+
+	@Subscribe
+	public void onDecorativeObjectDespawned(DecorativeObjectDespawned event)
+	{
+		objectDespawned(event.getDecorativeObject());
+	}
+
+	@Subscribe
+	public void onDecorativeObjectChanged(DecorativeObjectChanged event)
+	{
+		objectDespawned(event.getPrevious());
+		objectSpawned(event.getDecorativeObject());
+	}
+
+	@Subscribe
+	public void onWallObjectSpawned(WallObjectSpawned event)
+	{
+		objectSpawned(event.getWallObject());
+	}
+
+	@Subscribe
+	public void onWallObjectDespawned(WallObjectDespawned event)
+	{
+		objectDespawned(event.getWallObject());
+	}
+
+	@Subscribe
+	public void onWallObjectChanged(WallObjectChanged event)
+	{
+		objectDespawned(event.getPrevious());
+		objectSpawned(event.getWallObject());
+	}
+
+	private void objectSpawned(TileObject object)
+	{
+		for (ObjectCondition condition : objectConditions)
+		{
+			condition.checkObjectSpawned(object);
+		}
+		inputChanged(ConditionInput.OBJECTS);
+	}
+
+	private void objectDespawned(TileObject object)
+	{
+		for (ObjectCondition condition : objectConditions)
+		{
+			condition.checkObjectDespawned(object);
+		}
+		inputChanged(ConditionInput.OBJECTS);
+	}
+
+	protected void inputChanged(ConditionInput input)
+	{
+		conditionResults.keySet().removeIf(conditions -> conditionInputs.get(conditions).contains(input));
+	}
+
+	protected boolean checkConditions(Conditions conditions)
+	{
+		Boolean result = conditionResults.get(conditions);
+		if (result == null)
+		{
+			result = conditions.checkCondition(client);
+			if (subscribed && !conditionInputs.computeIfAbsent(conditions, Conditions::getInputs).contains(ConditionInput.TICK))
+			{
+				conditionResults.put(conditions, result);
+			}
+		}
+		return result;
+	}
+
 	protected void updateSteps()
 	{
 		Conditions lastPossibleCondition = null;
@@ -272,7 +531,7 @@ public class ConditionalStep extends QuestStep implements OwnerStep
 		for (Conditions conditions : steps.keySet())
 		{
 			boolean stepIsLocked = steps.get(conditions).isLocked();
-			if (conditions != null && conditions.checkCondition(client) && !stepIsLocked)
+			if (conditions != null && checkConditions(conditions) && !stepIsLocked)
 			{
 				startUpStep(steps.get(conditions));
 				return;
@@ -303,6 +562,7 @@ public class ConditionalStep extends QuestStep implements OwnerStep
 		if (currentStep == null)
 		{
 			//eventBus.register(step);
+			step.subscribeEvents(eventBus);
 			step.startUp();
 			currentStep = step;
 			return;
@@ -312,6 +572,7 @@ public class ConditionalStep extends QuestStep implements OwnerStep
 		{
 			shutDownStep();
 			//eventBus.register(step);
+			step.subscribeEvents(eventBus);
 			step.startUp();
 			currentStep = step;
 		}
@@ -46,6 +46,7 @@ import net.runelite.api.SpriteID;
 import net.runelite.api.events.VarbitChanged;
 import net.runelite.api.events.WidgetLoaded;
 import net.runelite.client.callback.ClientThread;
+import net.runelite.client.eventbus.EventBus;
 import net.runelite.client.eventbus.Subscribe;
 import net.runelite.client.game.SpriteManager;
 import com.questhelper.questhelpers.QuestHelper;
@@ -158,6 +159,13 @@ public abstract class QuestStep implements Module
 		this.substeps.addAll(substeps);
 	}
 
+	/* The EventBus only calls handlers that were subscribed explicitly, so steps with more handlers add theirs here */
+	public void subscribeEvents(EventBus eventBus)
+	{
+		eventBus.subscribe(VarbitChanged.class, this, this::onVarbitChanged);
+		eventBus.subscribe(WidgetLoaded.class, this, this::onWidgetLoaded);
+	}
+
 	@Subscribe
 	public void onVarbitChanged(VarbitChanged event)
 	{
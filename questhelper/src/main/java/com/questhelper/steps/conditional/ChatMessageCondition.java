@@ -26,6 +26,7 @@ package com.questhelper.steps.conditional;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
 import lombok.Setter;
 import net.runelite.api.Client;
 
@@ -49,6 +50,12 @@ public class ChatMessageCondition extends ConditionForStep
 		this.messages = new ArrayList<>(Arrays.asList(message));
 	}
 
+	@Override
+	public EnumSet<ConditionInput> getInputs()
+	{
+		return EnumSet.of(ConditionInput.CHAT);
+	}
+
 	@Override
 	public boolean checkCondition(Client client)
 	{
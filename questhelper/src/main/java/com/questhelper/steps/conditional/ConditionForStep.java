@@ -25,6 +25,7 @@
 package com.questhelper.steps.conditional;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import lombok.Getter;
 import lombok.Setter;
 import net.runelite.api.Client;
@@ -42,6 +43,12 @@ public abstract class ConditionForStep
 
 	abstract public boolean checkCondition(Client client);
 
+	/* Conditions that don't say what they read are checked every tick */
+	public EnumSet<ConditionInput> getInputs()
+	{
+		return EnumSet.of(ConditionInput.TICK);
+	}
+
 	public void initialize(Client client)
 	{
 	}
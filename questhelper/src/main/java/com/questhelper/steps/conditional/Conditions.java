@@ -26,6 +26,7 @@ package com.questhelper.steps.conditional;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
 import net.runelite.api.Client;
 
 public class Conditions extends ConditionForStep
@@ -69,6 +70,17 @@ public class Conditions extends ConditionForStep
 		}
 	}
 
+	@Override
+	public EnumSet<ConditionInput> getInputs()
+	{
+		EnumSet<ConditionInput> inputs = EnumSet.noneOf(ConditionInput.class);
+		for (ConditionForStep condition : conditions)
+		{
+			inputs.addAll(condition.getInputs());
+		}
+		return inputs;
+	}
+
 	@Override
 	public boolean checkCondition(Client client)
 	{
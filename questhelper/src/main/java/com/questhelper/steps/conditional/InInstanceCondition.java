@@ -1,9 +1,16 @@
 package com.questhelper.steps.conditional;
 
+import java.util.EnumSet;
 import net.runelite.api.Client;
 
 public class InInstanceCondition extends ConditionForStep
 {
+	@Override
+	public EnumSet<ConditionInput> getInputs()
+	{
+		return EnumSet.of(ConditionInput.SCENE);
+	}
+
 	@Override
 	public boolean checkCondition(Client client)
 	{
@@ -4,6 +4,7 @@ import com.questhelper.requirements.ItemRequirement;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import net.runelite.api.Client;
 import net.runelite.api.Tile;
@@ -40,6 +41,12 @@ public class ItemCondition extends ConditionForStep
 	}
 
 
+	@Override
+	public EnumSet<ConditionInput> getInputs()
+	{
+		return EnumSet.of(ConditionInput.GROUND_ITEMS, ConditionInput.PLAYER_LOCATION, ConditionInput.SCENE);
+	}
+
 	public boolean checkCondition(Client client)
 	{
 		return checkAllTiles(client);
@@ -26,6 +26,7 @@ package com.questhelper.steps.conditional;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 import net.runelite.api.Client;
 import com.questhelper.requirements.ItemRequirement;
@@ -61,6 +62,12 @@ public class ItemRequirementCondition extends ConditionForStep
 		this.comparisonType = operation;
 	}
 
+	@Override
+	public EnumSet<ConditionInput> getInputs()
+	{
+		return EnumSet.of(ConditionInput.ITEM_CONTAINERS);
+	}
+
 	@Override
 	public boolean checkCondition(Client client)
 	{
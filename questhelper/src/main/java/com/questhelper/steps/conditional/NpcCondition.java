@@ -3,6 +3,7 @@ package com.questhelper.steps.conditional;
 import com.questhelper.Zone;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.EnumSet;
 import net.runelite.api.Client;
 import net.runelite.api.NPC;
 import net.runelite.api.coords.LocalPoint;
@@ -43,6 +44,17 @@ public class NpcCondition extends ConditionForStep
 		}
 	}
 
+	@Override
+	public EnumSet<ConditionInput> getInputs()
+	{
+		// The npc can walk in and out of the zone without spawning or despawning
+		if (zone != null)
+		{
+			return EnumSet.of(ConditionInput.TICK);
+		}
+		return EnumSet.of(ConditionInput.NPCS);
+	}
+
 	public boolean checkCondition(Client client)
 	{
 		if (zone != null)
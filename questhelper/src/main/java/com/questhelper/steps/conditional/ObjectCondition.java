@@ -26,7 +26,11 @@ package com.questhelper.steps.conditional;
 
 import com.google.common.primitives.Ints;
 import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
 import net.runelite.api.Client;
+import static net.runelite.api.Constants.MAX_Z;
 import net.runelite.api.GameObject;
 import net.runelite.api.NullObjectID;
 import net.runelite.api.ObjectDefinition;
@@ -43,6 +47,10 @@ public class ObjectCondition extends ConditionForStep
 	private final int objectID;
 	private final WorldPoint worldPoint;
 
+	// Objects with the id in the scene, kept up to date by the ConditionalStep so the scene isn't searched every check
+	private final Set<TileObject> objects = new HashSet<>();
+	private boolean tracking;
+
 	public ObjectCondition(int objectID)
 	{
 		this.objectID = objectID;
@@ -55,6 +63,57 @@ public class ObjectCondition extends ConditionForStep
 		this.worldPoint = worldPoint;
 	}
 
+	// Only called by a ConditionalStep that is subscribed to the object events, otherwise the scene is searched instead
+	public void startTracking(Client client)
+	{
+		objects.clear();
+		if (worldPoint != null)
+		{
+			return;
+		}
+
+		tracking = true;
+		Tile[][][] tiles = client.getScene().getTiles();
+		for (int z = 0; z < MAX_Z; z++)
+		{
+			for (int x = 0; x < SCENE_SIZE; x++)
+			{
+				for (int y = 0; y < SCENE_SIZE; y++)
+				{
+					addTile(tiles[z][x][y]);
+				}
+			}
+		}
+	}
+
+	public void stopTracking()
+	{
+		tracking = false;
+		objects.clear();
+	}
+
+	public void checkObjectSpawned(TileObject object)
+	{
+		if (tracking && checkForObjects(object))
+		{
+			objects.add(object);
+		}
+	}
+
+	public void checkObjectDespawned(TileObject object)
+	{
+		if (tracking)
+		{
+			objects.remove(object);
+		}
+	}
+
+	@Override
+	public EnumSet<ConditionInput> getInputs()
+	{
+		return EnumSet.of(ConditionInput.OBJECTS, ConditionInput.PLAYER_LOCATION, ConditionInput.SCENE);
+	}
+
 	public boolean checkCondition(Client client)
 	{
 		if (worldPoint != null)
@@ -79,6 +138,16 @@ public class ObjectCondition extends ConditionForStep
 				}
 			}
 		}
+		else if (tracking)
+		{
+			for (TileObject object : objects)
+			{
+				if (object.getPlane() == client.getPlane())
+				{
+					return true;
+				}
+			}
+		}
 		else
 		{
 			Tile[][] tiles;
@@ -117,6 +186,22 @@ public class ObjectCondition extends ConditionForStep
 		return false;
 	}
 
+	private void addTile(Tile tile)
+	{
+		if (tile == null)
+		{
+			return;
+		}
+
+		for (GameObject object : tile.getGameObjects())
+		{
+			checkObjectSpawned(object);
+		}
+		checkObjectSpawned(tile.getDecorativeObject());
+		checkObjectSpawned(tile.getGroundObject());
+		checkObjectSpawned(tile.getWallObject());
+	}
+
 	private boolean checkForObjects(TileObject object)
 	{
 		return object != null && object.getId() == objectID;
@@ -125,6 +210,7 @@ public class ObjectCondition extends ConditionForStep
 	@Override
 	public void loadingHandler()
 	{
-		// Once this has checks done in ConditionalStep, this will need to set the boolean condition to false
+		// The objects of the new scene are all spawned again once it has loaded
+		objects.clear();
 	}
 }
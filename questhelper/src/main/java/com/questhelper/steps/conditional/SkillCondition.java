@@ -1,5 +1,6 @@
 package com.questhelper.steps.conditional;
 
+import java.util.EnumSet;
 import net.runelite.api.Client;
 import net.runelite.api.Skill;
 
@@ -25,6 +26,12 @@ public class SkillCondition extends ConditionForStep
 		this.operation = operation;
 	}
 
+	@Override
+	public EnumSet<ConditionInput> getInputs()
+	{
+		return EnumSet.of(ConditionInput.SKILLS);
+	}
+
 	@Override
 	public boolean checkCondition(Client client)
 	{
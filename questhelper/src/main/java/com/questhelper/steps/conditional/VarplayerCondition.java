@@ -25,6 +25,7 @@
 package com.questhelper.steps.conditional;
 
 import java.math.BigInteger;
+import java.util.EnumSet;
 import net.runelite.api.Client;
 
 public class VarplayerCondition extends ConditionForStep
@@ -67,6 +68,12 @@ public class VarplayerCondition extends ConditionForStep
 		this.bitIsSet = bitIsSet;
 	}
 
+	@Override
+	public EnumSet<ConditionInput> getInputs()
+	{
+		return EnumSet.of(ConditionInput.VARS);
+	}
+
 	@Override
 	public boolean checkCondition(Client client)
 	{
@@ -26,6 +26,7 @@ package com.questhelper.steps.conditional;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import net.runelite.api.Client;
 import net.runelite.api.Player;
@@ -52,6 +53,12 @@ public class ZoneCondition extends ConditionForStep
 		this.checkInZone = checkInZone;
 	}
 
+	@Override
+	public EnumSet<ConditionInput> getInputs()
+	{
+		return EnumSet.of(ConditionInput.PLAYER_LOCATION);
+	}
+
 	@Override
 	public boolean checkCondition(Client client)
 	{
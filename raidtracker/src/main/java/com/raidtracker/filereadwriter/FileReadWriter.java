@@ -110,7 +110,6 @@ public class FileReadWriter {
 
         try {
             Gson gson = new GsonBuilder().create();
-            JsonParser parser = new JsonParser();
 
             BufferedReader bufferedreader = new BufferedReader(new FileReader(fileName));
             String line;
@@ -123,7 +122,8 @@ public class FileReadWriter {
                     update = true;
                 }
                 try {
-                    RaidTracker parsed = gson.fromJson(parser.parse(line), RaidTracker.class);
+                    //parsed straight into a RaidTracker, without building a json tree first
+                    RaidTracker parsed = gson.fromJson(line, RaidTracker.class);
                     RTList.add(parsed);
                 }
                 catch (JsonSyntaxException e) {
@@ -0,0 +1,188 @@
+package com.raidtracker.ui;
+
+import com.raidtracker.RaidTracker;
+import com.raidtracker.RaidTrackerItem;
+import lombok.Getter;
+import net.runelite.api.ItemID;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Every figure the panel shows for one filter setting. Raids are added one at a time, so the figures can be built in a
+ * single pass over the logged raids and kept up to date when a new raid is logged.
+ */
+@Getter
+public class RaidStats {
+
+    private final EnumSet<RaidUniques> uniques;
+
+    //uniques by lowercase name, to match the special loot of a raid
+    private final Map<String, RaidUniques> uniquesByName = new HashMap<>();
+
+    private int personalPoints = 0;
+    private int totalPoints = 0;
+    private int splitGP = 0;
+    private int mvpCount = 0;
+
+    private final Set<String> killCountIDs = new HashSet<>();
+
+    private final Map<RaidUniques, Integer> seen = new EnumMap<>(RaidUniques.class);
+    private final Map<RaidUniques, Integer> received = new EnumMap<>(RaidUniques.class);
+
+    private final ArrayList<RaidTracker> purples = new ArrayList<>();
+
+    //total quantity of every regular drop by item id, clue scrolls are counted separately
+    private final Map<Integer, Integer> regularDrops = new LinkedHashMap<>();
+    private int clues = 0;
+
+    private int upperTime = -1;
+    private int middleTime = -1;
+    private int lowerTime = -1;
+    private int olmTime = 0;
+    private boolean hasOlmTime = false;
+    private int raidTime = -1;
+    private int maidenTime = -1;
+    private int bloatTime = -1;
+    private int nyloTime = -1;
+    private int sotetsegTime = -1;
+    private int xarpusTime = -1;
+    private int verzikTime = -1;
+
+    //date of the oldest raid added, used to tell when raids fall out of a date filter
+    private long oldestDate = Long.MAX_VALUE;
+
+    public RaidStats(EnumSet<RaidUniques> uniques) {
+        this.uniques = uniques;
+
+        for (RaidUniques unique : uniques) {
+            uniquesByName.put(unique.getName().toLowerCase(), unique);
+            seen.put(unique, 0);
+            received.put(unique, 0);
+        }
+    }
+
+    public int getKillsLogged() {
+        return killCountIDs.size();
+    }
+
+    public void add(RaidTracker RT) {
+        personalPoints += RT.getPersonalPoints();
+        totalPoints += RT.getTotalPoints();
+        splitGP += RT.getLootSplitReceived();
+        oldestDate = Math.min(oldestDate, RT.getDate());
+
+        if (RT.isMvpInOwnName()) {
+            mvpCount++;
+        }
+
+        killCountIDs.add(RT.getKillCountID());
+
+        addUniques(RT);
+        addRegularDrops(RT);
+        addTimes(RT);
+    }
+
+    private void addUniques(RaidTracker RT) {
+        RaidUniques specialLoot = uniquesByName.get(RT.getSpecialLoot().toLowerCase());
+
+        if (specialLoot != null) {
+            purples.add(RT);
+
+            //pets, kits and dust are counted by their own receivers below
+            if (specialLoot != RaidUniques.OLMLET && specialLoot != RaidUniques.LILZIK && specialLoot != RaidUniques.TWISTED_KIT && specialLoot != RaidUniques.DUST) {
+                increment(seen, specialLoot);
+
+                if (RT.getLootList().size() > 0 && RT.getLootList().get(0).getId() == specialLoot.getItemID()) {
+                    increment(received, specialLoot);
+                }
+            }
+        }
+
+        if (!RT.getDustReceiver().isEmpty()) {
+            increment(seen, RaidUniques.DUST);
+
+            if (RT.getLootList().stream().anyMatch(loot -> loot.getId() == ItemID.METAMORPHIC_DUST)) {
+                increment(received, RaidUniques.DUST);
+            }
+        }
+
+        if (!RT.getKitReceiver().isEmpty()) {
+            increment(seen, RaidUniques.TWISTED_KIT);
+
+            if (RT.getLootList().stream().anyMatch(loot -> loot.getId() == ItemID.TWISTED_ANCESTRAL_COLOUR_KIT)) {
+                increment(received, RaidUniques.TWISTED_KIT);
+            }
+        }
+
+        if (!RT.getPetReceiver().isEmpty()) {
+            increment(seen, RaidUniques.OLMLET);
+            increment(seen, RaidUniques.LILZIK);
+
+            if (RT.isPetInMyName()) {
+                increment(received, RaidUniques.OLMLET);
+                increment(received, RaidUniques.LILZIK);
+            }
+        }
+    }
+
+    private void increment(Map<RaidUniques, Integer> counts, RaidUniques unique) {
+        if (uniques.contains(unique)) {
+            counts.merge(unique, 1, Integer::sum);
+        }
+    }
+
+    private void addRegularDrops(RaidTracker RT) {
+        for (RaidTrackerItem item : RT.getLootList()) {
+            boolean unique = false;
+            for (RaidUniques raidUnique : uniques) {
+                if (item.getId() == raidUnique.getItemID()) {
+                    unique = true;
+                    break;
+                }
+            }
+
+            if (item.getName().toLowerCase().contains("clue")) {
+                clues++;
+            }
+            else if (!unique) {
+                regularDrops.merge(item.getId(), item.getQuantity(), Integer::sum);
+            }
+        }
+    }
+
+    private void addTimes(RaidTracker RT) {
+        upperTime = best(upperTime, RT.getUpperTime());
+        middleTime = best(middleTime, RT.getMiddleTime());
+        lowerTime = best(lowerTime, RT.getLowerTime());
+        raidTime = best(raidTime, RT.getRaidTime());
+        maidenTime = best(maidenTime, RT.getMaidenTime());
+        bloatTime = best(bloatTime, RT.getBloatTime());
+        nyloTime = best(nyloTime, RT.getNyloTime());
+        sotetsegTime = best(sotetsegTime, RT.getSotetsegTime());
+        xarpusTime = best(xarpusTime, RT.getXarpusTime());
+        verzikTime = best(verzikTime, RT.getVerzikTime());
+
+        if (RT.getLowerTime() > 0 && RT.getRaidTime() > 0) {
+            int olm = RT.getRaidTime() - RT.getLowerTime();
+            if (!hasOlmTime || olm < olmTime) {
+                olmTime = olm;
+                hasOlmTime = true;
+            }
+        }
+    }
+
+    //the best time is the lowest one that was recorded, times of -1 or 0 were not recorded
+    private static int best(int best, int time) {
+        if (time > 0 && (best < 0 || time < best)) {
+            return time;
+        }
+        return best;
+    }
+}
@@ -0,0 +1,171 @@
+package com.raidtracker.ui;
+
+import com.raidtracker.RaidTracker;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Caches the {@link RaidStats} of every filter setting that has been shown. Newly logged raids are added to the cached
+ * stats of the filters they pass, so the stats only need to be built again when the logged raids are changed or
+ * reloaded, or when raids have become too old for a date filter.
+ */
+public class RaidStatsIndex {
+
+    private final Map<Filter, RaidStats> cache = new HashMap<>();
+
+    public RaidStats get(List<RaidTracker> RTList, Filter filter, EnumSet<RaidUniques> uniques) {
+        RaidStats stats = cache.get(filter);
+        long now = System.currentTimeMillis();
+
+        if (stats == null || stats.getOldestDate() <= filter.getDateCutoff(now)) {
+            stats = new RaidStats(uniques);
+
+            for (RaidTracker RT : filter.apply(RTList, now)) {
+                stats.add(RT);
+            }
+
+            cache.put(filter, stats);
+        }
+
+        return stats;
+    }
+
+    public void add(RaidTracker RT) {
+        long now = System.currentTimeMillis();
+
+        //the last x kills move along with every new kill, so those are built again when they're shown next
+        cache.keySet().removeIf(filter -> filter.getDateFilter().equals("Last X Kills") && filter.isTob() == RT.isInTheatreOfBlood());
+
+        cache.forEach((filter, stats) -> {
+            if (filter.isTob() == RT.isInTheatreOfBlood() && filter.matches(RT) && RT.getDate() > filter.getDateCutoff(now)) {
+                stats.add(RT);
+            }
+        });
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * One setting of the panel's filters. Filters that don't apply to a raid type are left at their default, so
+     * settings that show the same raids share their stats.
+     */
+    @Value
+    public static class Filter {
+        boolean tob;
+        String dateFilter;
+        String cmFilter;
+        String mvpFilter;
+        String teamSizeFilter;
+        int lastXKills;
+
+        public static Filter of(boolean tob, String dateFilter, String cmFilter, String mvpFilter, String teamSizeFilter, int lastXKills) {
+            return new Filter(tob, dateFilter, tob ? "CM & Normal" : cmFilter, tob ? mvpFilter : "Both", teamSizeFilter,
+                    dateFilter.equals("Last X Kills") ? lastXKills : 0);
+        }
+
+        /**
+         * Returns the raids that pass this filter, in the order they were logged.
+         */
+        public List<RaidTracker> apply(List<RaidTracker> RTList, long now) {
+            ArrayList<RaidTracker> filtered = new ArrayList<>();
+            long cutoff = getDateCutoff(now);
+
+            for (RaidTracker RT : RTList) {
+                if (matches(RT) && RT.getDate() > cutoff) {
+                    filtered.add(RT);
+                }
+            }
+
+            if (dateFilter.equals("Last X Kills")) {
+                Set<String> kills = new LinkedHashSet<>();
+                for (RaidTracker RT : filtered) {
+                    kills.add(RT.getKillCountID());
+                }
+
+                Set<String> lastKills = new HashSet<>(new ArrayList<>(kills).subList(Math.max(kills.size() - lastXKills, 0), kills.size()));
+                filtered.removeIf(RT -> !lastKills.contains(RT.getKillCountID()));
+            }
+
+            return filtered;
+        }
+
+        /**
+         * Whether the raid passes the cm, mvp and team size filters.
+         */
+        public boolean matches(RaidTracker RT) {
+            if (tob) {
+                if (mvpFilter.equals("My MVP") && !RT.isMvpInOwnName()) {
+                    return false;
+                }
+                if (mvpFilter.equals("Not My MVP") && RT.isMvpInOwnName()) {
+                    return false;
+                }
+            }
+            else {
+                if (cmFilter.equals("CM Only") && !RT.isChallengeMode()) {
+                    return false;
+                }
+                if (cmFilter.equals("Normal Only") && RT.isChallengeMode()) {
+                    return false;
+                }
+            }
+
+            int teamSize = RT.getTeamSize();
+
+            switch (teamSizeFilter) {
+                case "Solo":
+                    return teamSize == 1;
+                case "Duo":
+                    return teamSize == 2;
+                case "Trio":
+                    return teamSize == 3;
+                case "4-man":
+                    return teamSize == 4;
+                case "5-man":
+                    return teamSize == 5;
+                case "6-man":
+                    return teamSize == 6;
+                case "7 Players":
+                    return teamSize == 7;
+                case "8-10 Players":
+                    return teamSize >= 8 && teamSize <= 10;
+                case "11-14 Players":
+                    return teamSize >= 11 && teamSize <= 14;
+                case "15+ Players":
+                    return teamSize >= 15;
+                default:
+                    //all sizes
+                    return true;
+            }
+        }
+
+        /**
+         * Returns the date raids have to be logged after to pass the date filter.
+         */
+        public long getDateCutoff(long now) {
+            //if people want to crash my plugin using a system year of before 1970, that's fine
+            switch (dateFilter) {
+                case "Today":
+                    return now - 86400000L;
+                case "Last Week":
+                    return now - 604800000L;
+                case "Last Month":
+                    return now - 2629746000L;
+                case "Last Year":
+                    return now - 31536000000L;
+                default:
+                    return Long.MIN_VALUE;
+            }
+        }
+    }
+}
@@ -9,7 +9,6 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.ItemDefinition;
-import net.runelite.api.ItemID;
 import net.runelite.client.callback.ClientThread;
 import net.runelite.client.game.ItemManager;
 import net.runelite.client.ui.ColorScheme;
@@ -35,10 +34,8 @@ import java.time.ZoneId;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.stream.Collectors;
 
 import static java.lang.Math.floor;
-import static java.util.Comparator.comparing;
 
 @Slf4j
 public class RaidTrackerPanel extends PluginPanel {
@@ -56,6 +53,8 @@ public class RaidTrackerPanel extends PluginPanel {
     private final HashMap<String, RaidTracker> UUIDMap = new LinkedHashMap<>();
     private final HashMap<String, RaidTracker> TobUUIDMap = new LinkedHashMap<>();
 
+    private final RaidStatsIndex statsIndex = new RaidStatsIndex();
+
     @Setter
     private boolean loaded = false;
     private final JPanel panel = new JPanel();
@@ -360,6 +359,8 @@ public class RaidTrackerPanel extends PluginPanel {
         int totalUniques = 0;
         int totalOwnName = 0;
 
+        final RaidStats stats = getStats();
+
         for (RaidUniques unique : getUniquesList()) {
             boolean isKit = false;
             boolean isDust = false;
@@ -380,51 +381,36 @@ public class RaidTrackerPanel extends PluginPanel {
                 icon.repaint();
             });
 
-            String amountReceived;
-            String amountSeen;
-            ArrayList<RaidTracker> l;
-            ArrayList<RaidTracker> l2;
-
             switch (unique.getName()) {
                 case "Metamorphic Dust":
-                    l = filterDustReceivers();
-                    l2 = filterOwnDusts(l);
                     isDust = true;
                     break;
                 case "Twisted Kit":
-                    l = filterKitReceivers();
-                    l2 = filterOwnKits(l);
                     isKit = true;
                     break;
                 case "Olmlet":
                 case "Lil' Zik":
-                    l = filterPetReceivers();
-                    l2 = filterOwnPets(l);
                     isPet = true;
                     break;
-                default:
-                    l = filterRTListByName(unique.getName());
-                    l2 = filterOwnDrops(l);
-                    break;
             }
 
-            amountSeen = Integer.toString(l.size());
-            amountReceived = Integer.toString(l2.size());
+            int amountSeen = stats.getSeen().get(unique);
+            int amountReceived = stats.getReceived().get(unique);
 
 
-            final JLabel received = new JLabel(amountReceived, SwingConstants.LEFT);
-            final JLabel seen = new JLabel(amountSeen, SwingConstants.LEFT);
+            final JLabel received = new JLabel(Integer.toString(amountReceived), SwingConstants.LEFT);
+            final JLabel seen = new JLabel(Integer.toString(amountSeen), SwingConstants.LEFT);
 
             received.setForeground(Color.WHITE);
             received.setFont(FontManager.getRunescapeSmallFont());
             seen.setForeground(Color.WHITE);
             seen.setFont(FontManager.getRunescapeSmallFont());
 
-            final String tooltip = getUniqueToolTip(unique, l.size(), l2.size());
+            final String tooltip = getUniqueToolTip(unique, amountSeen, amountReceived);
 
             if (!isDust && !isKit && !isPet) {
-                totalUniques += l.size();
-                totalOwnName += l2.size();
+                totalUniques += amountSeen;
+                totalOwnName += amountReceived;
             }
 
             int bottomBorder = 1;
@@ -489,8 +475,9 @@ public class RaidTrackerPanel extends PluginPanel {
         int totalPoints = 0;
 
         if (loaded) {
-            personalPoints = atleastZero(getFilteredRTList().stream().mapToInt(RaidTracker::getPersonalPoints).sum());
-            totalPoints = atleastZero(getFilteredRTList().stream().mapToInt(RaidTracker::getTotalPoints).sum());
+            RaidStats stats = getStats();
+            personalPoints = atleastZero(stats.getPersonalPoints());
+            totalPoints = atleastZero(stats.getTotalPoints());
         }
 
         JLabel personalPointsLabel = textPanel(format(personalPoints));
@@ -516,7 +503,7 @@ public class RaidTrackerPanel extends PluginPanel {
         int splitGP = 0;
 
         if (loaded) {
-            splitGP = atleastZero(getFilteredRTList().stream().mapToInt(RaidTracker::getLootSplitReceived).sum());
+            splitGP = atleastZero(getStats().getSplitGP());
 
 
         }
@@ -546,7 +533,7 @@ public class RaidTrackerPanel extends PluginPanel {
         int killsLogged = 0;
 
         if (loaded) {
-            killsLogged = getDistinctKills(getFilteredRTList()).size();
+            killsLogged = getStats().getKillsLogged();
         }
 
         JLabel textLabel = textPanel("Kills Logged:");
@@ -569,29 +556,7 @@ public class RaidTrackerPanel extends PluginPanel {
             } catch (InterruptedException | ExecutionException e) {
                 uniqueIDs = new HashMap<>();
             } finally {
-                Map<Integer, Integer> priceMap = new HashMap<>();
-
-                for (RaidTrackerItem item : uniqueIDs.values()) {
-                    priceMap.put(item.getId(), item.getPrice());
-                }
-
                 if (uniqueIDs.values().size() > 0) {
-                    for (RaidTracker RT : getFilteredRTList()) {
-                        for (RaidTrackerItem item : RT.getLootList()) {
-                            RaidTrackerItem RTI = uniqueIDs.get(item.getId());
-
-                            //making sure to not change the clues here as it's been handled in getDistinctRegularDrops
-                            if (RTI != null && RTI.getId() != 12073) {
-                                int qty = RTI.getQuantity();
-                                RTI.setQuantity(qty + item.getQuantity());
-
-                                RTI.setPrice(priceMap.get(item.getId()) * RTI.getQuantity());
-
-                                uniqueIDs.replace(item.getId(), RTI);
-                            }
-                        }
-                    }
-
                     ArrayList<RaidTrackerItem> regularDropsList = new ArrayList<>(uniqueIDs.values());
 
                     regularDropsList.sort((o2, o1) -> Integer.compare(o1.getPrice(), o2.getPrice()));
@@ -688,6 +653,7 @@ public class RaidTrackerPanel extends PluginPanel {
                 });
                 tobRTList = new ArrayList<>(TobUUIDMap.values());
                 fw.updateRTList(tobRTList, true);
+                statsIndex.clear();
             }
             else {
                 SCList.forEach(SC -> {
@@ -696,6 +662,7 @@ public class RaidTrackerPanel extends PluginPanel {
                 });
                 RTList = new ArrayList<>(UUIDMap.values());
                 fw.updateRTList(RTList);
+                statsIndex.clear();
             }
             updateView();
         });
@@ -709,7 +676,7 @@ public class RaidTrackerPanel extends PluginPanel {
         titleWrapper.add(update , c);
 
         if (loaded) {
-            ArrayList<RaidTracker> purpleList = filterPurples();
+            ArrayList<RaidTracker> purpleList = new ArrayList<>(getStats().getPurples());
             purpleList.sort((o2, o1) -> Long.compare(o1.getDate(), o2.getDate()));
 
             if (purpleList.size() > 0) {
@@ -899,14 +866,9 @@ public class RaidTrackerPanel extends PluginPanel {
 
 
         if (loaded) {
-            mvpAmount = tobRTList.stream().mapToInt(RT -> {
-                if (RT.isMvpInOwnName()) {
-                    return 1;
-                }
-                return 0;
-            }).sum();
-
-
+            //counted over every logged raid, regardless of the filters
+            RaidStatsIndex.Filter allRaids = RaidStatsIndex.Filter.of(true, "All Time", "CM & Normal", "Both", "All sizes", 0);
+            mvpAmount = statsIndex.get(tobRTList, allRaids, tobUniques).getMvpCount();
         }
 
         JLabel textLabel = textPanel("Total MVP's:");
@@ -941,25 +903,27 @@ public class RaidTrackerPanel extends PluginPanel {
             timeTable.setBorder(new EmptyBorder(5,3,1,3));
             timeTable.setBackground(ColorScheme.DARKER_GRAY_COLOR);
 
+            RaidStats stats = getStats();
+
             if (isTob) {
                 timeTable.add(textPanel("Maiden Time", 0));
-                timeTable.add(textPanel(secondsToMinuteString(getFilteredRTList().stream().filter(RT -> RT.getMaidenTime() > 0).min(comparing(RaidTracker::getMaidenTime)).orElse(new RaidTracker()).getMaidenTime()), 1));
+                timeTable.add(textPanel(secondsToMinuteString(stats.getMaidenTime()), 1));
                 timeTable.add(textPanel("Bloat Time", 0));
-                timeTable.add(textPanel(secondsToMinuteString(getFilteredRTList().stream().filter(RT -> RT.getBloatTime() > 0).min(comparing(RaidTracker::getBloatTime)).orElse(new RaidTracker()).getBloatTime()), 1));
+                timeTable.add(textPanel(secondsToMinuteString(stats.getBloatTime()), 1));
                 timeTable.add(textPanel("Nylo Time", 0));
-                timeTable.add(textPanel(secondsToMinuteString(getFilteredRTList().stream().filter(RT -> RT.getNyloTime() > 0).min(comparing(RaidTracker::getNyloTime)).orElse(new RaidTracker()).getNyloTime()), 1));
+                timeTable.add(textPanel(secondsToMinuteString(stats.getNyloTime()), 1));
                 timeTable.add(textPanel("Sotetseg Time", 0));
-                timeTable.add(textPanel(secondsToMinuteString(getFilteredRTList().stream().filter(RT -> RT.getSotetsegTime() > 0).min(comparing(RaidTracker::getSotetsegTime)).orElse(new RaidTracker()).getSotetsegTime()), 1));
+                timeTable.add(textPanel(secondsToMinuteString(stats.getSotetsegTime()), 1));
                 timeTable.add(textPanel("Xarpus Time", 0));
-                timeTable.add(textPanel(secondsToMinuteString(getFilteredRTList().stream().filter(RT -> RT.getNyloTime() > 0).min(comparing(RaidTracker::getXarpusTime)).orElse(new RaidTracker()).getXarpusTime()), 1));
+                timeTable.add(textPanel(secondsToMinuteString(stats.getXarpusTime()), 1));
                 timeTable.add(textPanel("Verzik Time", 0));
-                timeTable.add(textPanel(secondsToMinuteString(getFilteredRTList().stream().filter(RT -> RT.getVerzikTime() > 0).min(comparing(RaidTracker::getVerzikTime)).orElse(new RaidTracker()).getVerzikTime()), 1));
+                timeTable.add(textPanel(secondsToMinuteString(stats.getVerzikTime()), 1));
             } else {
                 timeTable.add(textPanel("Upper Level", 0));
-                timeTable.add(textPanel(secondsToMinuteString(getFilteredRTList().stream().filter(RT -> RT.getUpperTime() > 0).min(comparing(RaidTracker::getUpperTime)).orElse(new RaidTracker()).getUpperTime()), 1));
+                timeTable.add(textPanel(secondsToMinuteString(stats.getUpperTime()), 1));
 
                 if (!cmFilter.equals("Normal Only")) {
-                    int middleTime = getFilteredRTList().stream().filter(RT -> RT.getMiddleTime() > 0).filter(RT -> RT.getMiddleTime() > 0).min(comparing(RaidTracker::getMiddleTime)).orElse(new RaidTracker()).getMiddleTime();
+                    int middleTime = stats.getMiddleTime();
                     if (middleTime > 0) {
                         timeTable.add(textPanel("Middle Level", 0));
                         timeTable.add(textPanel(secondsToMinuteString(middleTime), 1));
@@ -967,20 +931,14 @@ public class RaidTrackerPanel extends PluginPanel {
 
                 }
                 timeTable.add(textPanel("Lower Level", 0));
-                timeTable.add(textPanel(secondsToMinuteString(getFilteredRTList().stream().filter(RT -> RT.getLowerTime() > 0).min(comparing(RaidTracker::getLowerTime)).orElse(new RaidTracker()).getLowerTime()), 1));
+                timeTable.add(textPanel(secondsToMinuteString(stats.getLowerTime()), 1));
 
                 timeTable.add(textPanel("Olm Time", 0));
-
-                RaidTracker olmTimeRT = getFilteredRTList().stream()
-                        .filter(RT -> RT.getLowerTime() > 0 && RT.getRaidTime() > 0)
-                        .min(Comparator.comparingInt(o -> o.getRaidTime() - o.getLowerTime()))
-                        .orElse(new RaidTracker());
-
-                timeTable.add(textPanel(secondsToMinuteString(olmTimeRT.getRaidTime() - olmTimeRT.getLowerTime()), 1));
+                timeTable.add(textPanel(secondsToMinuteString(stats.getOlmTime()), 1));
             }
 
             timeTable.add(textPanel("Overall Time", 2));
-            timeTable.add(textPanel(secondsToMinuteString(getFilteredRTList().stream().filter(RT -> RT.getRaidTime() > 0).min(comparing(RaidTracker::getRaidTime)).orElse(new RaidTracker()).getRaidTime()), 3));
+            timeTable.add(textPanel(secondsToMinuteString(stats.getRaidTime()), 3));
 
             wrapper.add(title);
             wrapper.add(timeTable);
@@ -1069,94 +1027,11 @@ public class RaidTrackerPanel extends PluginPanel {
             TobUUIDMap.put(RT.getUniqueID(), RT);
         }
 
+        statsIndex.clear();
         loaded = true;
         updateView();
     }
 
-    public ArrayList<RaidTracker> filterRTListByName(String name) {
-        if (loaded) {
-            return getFilteredRTList().stream().filter(RT -> name.toLowerCase().equals(RT.getSpecialLoot().toLowerCase()))
-                    .collect(Collectors.toCollection(ArrayList::new));
-        }
-        return new ArrayList<>();
-    }
-
-    public ArrayList<RaidTracker> filterKitReceivers() {
-        if (loaded) {
-            return getFilteredRTList().stream().filter(RT -> !RT.getKitReceiver().isEmpty())
-                    .collect(Collectors.toCollection(ArrayList::new));
-        }
-        return new ArrayList<>();
-    }
-
-    public ArrayList<RaidTracker> filterDustReceivers() {
-        if (loaded) {
-            return getFilteredRTList().stream().filter(RT -> !RT.getDustReceiver().isEmpty()).collect(Collectors.toCollection(ArrayList::new));
-        }
-        return new ArrayList<>();
-    }
-
-    public ArrayList<RaidTracker> filterPetReceivers() {
-        if (loaded) {
-            return getFilteredRTList().stream().filter(RT -> !RT.getPetReceiver().isEmpty()).collect(Collectors.toCollection(ArrayList::new));
-        }
-        return new ArrayList<>();
-    }
-
-    public ArrayList<RaidTracker> filterOwnDrops(ArrayList<RaidTracker> l) {
-        if (loaded) {
-            return l.stream().filter(RT -> {
-
-                if (RT.getSpecialLoot().isEmpty() || RT.getLootList().size() == 0) {
-                    return false;
-                }
-                return RT.getLootList().get(0).getId() == getByName(RT.getSpecialLoot()).getItemID();
-            }).collect(Collectors.toCollection(ArrayList::new));
-        }
-        return new ArrayList<>();
-    }
-
-    public ArrayList<RaidTracker> filterOwnKits(ArrayList<RaidTracker> l) {
-        if (loaded) {
-            return l.stream().filter(RT -> RT.getLootList().stream()
-                    .anyMatch(loot -> loot.getId() == ItemID.TWISTED_ANCESTRAL_COLOUR_KIT))
-                    .collect(Collectors.toCollection(ArrayList::new));
-        }
-        return new ArrayList<>();
-    }
-
-    public ArrayList<RaidTracker> filterOwnDusts(ArrayList<RaidTracker> l) {
-        if (loaded) {
-
-            return l.stream().filter(RT -> RT.getLootList().stream()
-                    .anyMatch(loot -> loot.getId() == ItemID.METAMORPHIC_DUST))
-                    .collect(Collectors.toCollection(ArrayList::new));
-        }
-        return new ArrayList<>();
-    }
-
-    public ArrayList<RaidTracker> filterOwnPets(ArrayList<RaidTracker> l) {
-        if (loaded) {
-            return l.stream().filter(RaidTracker::isPetInMyName).collect(Collectors.toCollection(ArrayList::new));
-        }
-        return new ArrayList<>();
-    }
-
-    public ArrayList<RaidTracker> filterPurples() {
-        if (loaded) {
-            return getFilteredRTList().stream().filter(RT -> {
-                for (RaidUniques unique : getUniquesList()) {
-                    if (unique.getName().toLowerCase().equals(RT.getSpecialLoot().toLowerCase())) {
-                        return true;
-                    }
-                }
-                return false;
-            }).collect(Collectors.toCollection(ArrayList::new));
-        }
-        return new ArrayList<>();
-
-    }
-
     public String getUniqueToolTip(RaidUniques unique, int amountSeen, int amountReceived) {
 
         return "<html>" +
@@ -1178,6 +1053,8 @@ public class RaidTrackerPanel extends PluginPanel {
             RTList.add(RT);
         }
 
+        statsIndex.add(RT);
+
         if (update) {
             //only add  item to the map when the parent raidtracker is added (child RT's are getting update false)
             if (RT.isInTheatreOfBlood()) {
@@ -1224,180 +1101,57 @@ public class RaidTrackerPanel extends PluginPanel {
     public Future<Map<Integer, RaidTrackerItem>> getDistinctRegularDrops()  {
         CompletableFuture<Map<Integer, RaidTrackerItem>> future = new CompletableFuture<>();
 
-        clientThread.invokeLater(() -> {
-
-            if (loaded) {
-                HashSet<Integer> uniqueIDs = new HashSet<>();
-
-                int clues = 0;
-
-                for (RaidTracker RT : getFilteredRTList()) {
-                    for (RaidTrackerItem item : RT.getLootList()) {
-                        boolean addToSet = true;
-                        for (RaidUniques unique : getUniquesList()) {
-                            if (item.getId() == unique.getItemID()) {
-                                addToSet = false;
-                                break;
-                            }
-                        }
-                        if (item.getName().toLowerCase().contains("clue")) {
-                            addToSet = false;
-                            clues++;
-                        }
-                        if (addToSet) {
-                            uniqueIDs.add(item.id);
-                        }
-                    }
-                }
-
-                Map<Integer, RaidTrackerItem> m = new HashMap<>();
-
-                for (Integer i : uniqueIDs) {
-                    ItemDefinition IC = itemManager.getItemDefinition(i);
+        if (!loaded) {
+            future.complete(new HashMap<>());
+            return future;
+        }
 
-                    m.put(i, new RaidTrackerItem() {
-                        {
-                            name = IC.getName();
-                            id = i;
-                            quantity = 0;
-                            price = itemManager.getItemPrice(i);
-                        }
-                    });
+        final RaidStats stats = getStats();
+        final Map<Integer, Integer> regularDrops = new HashMap<>(stats.getRegularDrops());
+        final int clues = stats.getClues();
 
-                }
+        clientThread.invokeLater(() -> {
+            Map<Integer, RaidTrackerItem> m = new HashMap<>();
 
-                if (clues > 0) {
-                    int finalClues = clues;
-                    m.put(12073, new RaidTrackerItem() {
-                        {
-                            name = "Clue scroll (elite)";
-                            id = 12073;
-                            quantity = finalClues;
-                            price = itemManager.getItemPrice(12073);
-                        }
-                    });
-                }
+            for (Map.Entry<Integer, Integer> drop : regularDrops.entrySet()) {
+                ItemDefinition IC = itemManager.getItemDefinition(drop.getKey());
 
-                future.complete(m);
-                return;
+                m.put(drop.getKey(), new RaidTrackerItem() {
+                    {
+                        name = IC.getName();
+                        id = drop.getKey();
+                        quantity = drop.getValue();
+                        price = itemManager.getItemPrice(drop.getKey()) * drop.getValue();
+                    }
+                });
             }
 
-            future.complete(new HashMap<>());
+            if (clues > 0) {
+                m.put(12073, new RaidTrackerItem() {
+                    {
+                        name = "Clue scroll (elite)";
+                        id = 12073;
+                        quantity = clues;
+                        price = itemManager.getItemPrice(12073);
+                    }
+                });
+            }
 
+            future.complete(m);
         });
         return future;
     }
 
-    private ArrayList<RaidTracker> getFilteredRTList() {
-        ArrayList<RaidTracker> tempRTList;
-
+    /**
+     * Returns the stats of the logged raids that pass the current filters.
+     */
+    private RaidStats getStats() {
         if (!loaded) {
-            return new ArrayList<>();
+            return new RaidStats(getUniquesList());
         }
 
-        if (isTob) {
-            if (mvpFilter.equals("Both")) {
-                tempRTList = tobRTList;
-            } else if (mvpFilter.equals("My MVP")) {
-                tempRTList = tobRTList.stream().filter(RaidTracker::isMvpInOwnName)
-                        .collect(Collectors.toCollection(ArrayList::new));
-            } else {
-                tempRTList = tobRTList.stream().filter(RT -> !RT.isMvpInOwnName())
-                        .collect(Collectors.toCollection(ArrayList::new));
-            }
-        }
-        else {
-            if (cmFilter.equals("CM & Normal")) {
-                tempRTList = RTList;
-            } else if (cmFilter.equals("CM Only")) {
-                tempRTList = RTList.stream().filter(RaidTracker::isChallengeMode)
-                        .collect(Collectors.toCollection(ArrayList::new));
-            } else {
-                tempRTList = RTList.stream().filter(RT -> !RT.isChallengeMode())
-                        .collect(Collectors.toCollection(ArrayList::new));
-            }
-        }
-
-        switch (teamSizeFilter) {
-            case "Solo":
-                tempRTList = tempRTList.stream().filter(RT -> (RT.getTeamSize() == 1))
-                        .collect(Collectors.toCollection(ArrayList::new));
-                break;
-            case "Duo":
-                tempRTList = tempRTList.stream().filter(RT -> (RT.getTeamSize() == 2))
-                        .collect(Collectors.toCollection(ArrayList::new));
-                break;
-            case "Trio":
-                tempRTList = tempRTList.stream().filter(RT -> (RT.getTeamSize() == 3))
-                        .collect(Collectors.toCollection(ArrayList::new));
-                break;
-            case "4-man":
-                tempRTList = tempRTList.stream().filter(RT -> (RT.getTeamSize() == 4))
-                        .collect(Collectors.toCollection(ArrayList::new));
-                break;
-            case "5-man":
-                tempRTList = tempRTList.stream().filter(RT -> (RT.getTeamSize() == 5))
-                        .collect(Collectors.toCollection(ArrayList::new));
-                break;
-            case "6-man":
-                tempRTList = tempRTList.stream().filter(RT -> (RT.getTeamSize() == 6))
-                        .collect(Collectors.toCollection(ArrayList::new));
-                break;
-            case "7 Players":
-                tempRTList = tempRTList.stream().filter(RT -> (RT.getTeamSize() == 7))
-                        .collect(Collectors.toCollection(ArrayList::new));
-                break;
-            case "8-10 Players":
-                tempRTList = tempRTList.stream().filter(RT -> (RT.getTeamSize() >= 8 && RT.getTeamSize() <= 10))
-                        .collect(Collectors.toCollection(ArrayList::new));
-                break;
-            case "11-14 Players":
-                tempRTList = tempRTList.stream().filter(RT -> (RT.getTeamSize() >= 11 && RT.getTeamSize() <= 14))
-                        .collect(Collectors.toCollection(ArrayList::new));
-                break;
-            case "15+ Players":
-                tempRTList = tempRTList.stream().filter(RT -> (RT.getTeamSize() >= 15))
-                        .collect(Collectors.toCollection(ArrayList::new));
-                break;
-            default:
-                //all sizes
-
-        }
-
-        //if people want to crash my plugin using a system year of before 1970, that's fine
-        long now = System.currentTimeMillis();
-
-
-        long yesterday = now - 86400000L;
-        long lastWeek = now - 604800000L;
-        long lastMonth = now - 2629746000L;
-        long lastYear = now - 31536000000L;
-
-        switch (dateFilter) {
-            case "All Time":
-                return tempRTList;
-            case "Today":
-                return tempRTList.stream().filter(RT -> RT.getDate() > yesterday)
-                        .collect(Collectors.toCollection(ArrayList::new));
-            case "Last Week":
-                return tempRTList.stream().filter(RT -> RT.getDate() > lastWeek)
-                        .collect(Collectors.toCollection(ArrayList::new));
-            case "Last Month":
-                return tempRTList.stream().filter(RT -> RT.getDate() > lastMonth)
-                        .collect(Collectors.toCollection(ArrayList::new));
-            case "Last Year":
-                return tempRTList.stream().filter(RT -> RT.getDate() > lastYear)
-                        .collect(Collectors.toCollection(ArrayList::new));
-            case "Last X Kills":
-                ArrayList<RaidTracker> tempUniqueKills = getDistinctKills(tempRTList);
-                ArrayList<RaidTracker> uniqueKills = new ArrayList<>(tempUniqueKills.subList(Math.max(tempUniqueKills.size() - config.lastXKills(), 0), tempUniqueKills.size()));
-
-                return tempRTList.stream().filter(RT -> uniqueKills.stream()
-                        .anyMatch(temp -> RT.getKillCountID().equals(temp.getKillCountID())))
-                        .collect(Collectors.toCollection(ArrayList::new));
-        }
-
-        return RTList;
+        RaidStatsIndex.Filter filter = RaidStatsIndex.Filter.of(isTob, dateFilter, cmFilter, mvpFilter, teamSizeFilter, config.lastXKills());
+        return statsIndex.get(isTob ? tobRTList : RTList, filter, getUniquesList());
     }
 
     public EnumSet<RaidUniques> getUniquesList() {
@@ -1418,16 +1172,6 @@ public class RaidTrackerPanel extends PluginPanel {
         return RaidUniques.OLMLET;
     }
 
-    public ArrayList<RaidTracker> getDistinctKills(ArrayList<RaidTracker> tempRTList) {
-        HashMap<String, RaidTracker> tempUUIDMap = new LinkedHashMap<>();
-
-        for (RaidTracker RT : tempRTList) {
-            tempUUIDMap.put(RT.getKillCountID(), RT);
-        }
-
-        return new ArrayList<>(tempUUIDMap.values());
-    }
-
     private void clearData()
     {
         // Confirm delete action
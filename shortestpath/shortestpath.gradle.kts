@@ -29,7 +29,61 @@ project.extra["PluginProvider"] = "Runemoro"
 project.extra["PluginName"] = "Shortest Path"
 project.extra["PluginDescription"] = "Draws the shortest path to a chosen destination on the map (right click a spot on the world map to use)"
 
+// Build-time generators for the packed resources, kept out of the plugin jar
+sourceSets {
+    create("tools") {
+        // Only the classes: main's resources are what these tools generate
+        compileClasspath += sourceSets.main.get().output.classesDirs + sourceSets.main.get().compileClasspath
+        runtimeClasspath += compileClasspath
+    }
+}
+
 tasks {
+    register<JavaExec>("packCollisionMap") {
+        val input = file("src/main/resources/collision-map")
+        val output = file("$buildDir/generated/collision-map/collision-map.bin")
+
+        inputs.file(input)
+        outputs.file(output)
+        classpath = sourceSets["tools"].runtimeClasspath
+        mainClass.set("shortestpath.pathfinder.CollisionMapPacker")
+        args(input.absolutePath, output.absolutePath)
+    }
+
+    register<JavaExec>("buildHierarchicalGraph") {
+        val collisionMap = file("$buildDir/generated/collision-map/collision-map.bin")
+        val transports = file("src/main/resources/transports.txt")
+        val output = file("$buildDir/generated/hierarchical-graph/hierarchical-graph.bin")
+
+        dependsOn("packCollisionMap")
+        inputs.files(collisionMap, transports)
+        outputs.file(output)
+        classpath = sourceSets["tools"].runtimeClasspath
+        mainClass.set("shortestpath.pathfinder.HierarchicalGraphBuilder")
+        args(collisionMap.absolutePath, transports.absolutePath, output.absolutePath)
+    }
+
+    register<JavaExec>("checkPathLengths") {
+        val collisionMap = file("$buildDir/generated/collision-map/collision-map.bin")
+        val transports = file("src/main/resources/transports.txt")
+        val graph = file("$buildDir/generated/hierarchical-graph/hierarchical-graph.bin")
+
+        dependsOn("buildHierarchicalGraph")
+        classpath = sourceSets["tools"].runtimeClasspath
+        mainClass.set("shortestpath.pathfinder.PathLengthCheck")
+        args(collisionMap.absolutePath, transports.absolutePath, graph.absolutePath)
+    }
+
+    check {
+        dependsOn("checkPathLengths")
+    }
+
+    processResources {
+        exclude("collision-map")
+        from(named("packCollisionMap"))
+        from(named("buildHierarchicalGraph"))
+    }
+
     jar {
         manifest {
             attributes(mapOf(
@@ -64,12 +64,15 @@ public class PathMapOverlay extends Overlay {
 
         mapClipArea = getWorldMapClipArea(client.getWidget(WidgetInfo.WORLD_MAP_VIEW).getBounds());
 
-        if (plugin.path != null && !plugin.pathUpdateScheduled) {
-            for (WorldPoint point : plugin.path) {
+        PathService pathService = plugin.pathService;
+        List<WorldPoint> path = plugin.getPath();
+
+        if (path != null && (pathService == null || !pathService.isSearching())) {
+            for (WorldPoint point : path) {
                 drawOnMap(graphics, point, new Color(255, 0, 0, 255));
             }
-        } else if (plugin.pathUpdateScheduled && plugin.pathfinder != null) {
-            List<WorldPoint> bestPath = plugin.pathfinder.currentBest();
+        } else if (pathService != null && pathService.isSearching()) {
+            List<WorldPoint> bestPath = pathService.getCurrentBest();
 
             if (bestPath != null) {
                 for (WorldPoint point : bestPath) {
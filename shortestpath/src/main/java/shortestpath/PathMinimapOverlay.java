@@ -14,6 +14,7 @@ import net.runelite.client.ui.overlay.OverlayPriority;
 import javax.inject.Inject;
 import java.awt.*;
 import java.util.Collection;
+import java.util.List;
 
 public class PathMinimapOverlay extends Overlay {
     private static final int TILE_WIDTH = 4;
@@ -39,8 +40,10 @@ public class PathMinimapOverlay extends Overlay {
             return null;
         }
 
-        if (plugin.path != null) {
-            for (WorldPoint point : plugin.path) {
+        List<WorldPoint> path = plugin.getPath();
+
+        if (path != null) {
+            for (WorldPoint point : path) {
                 if (point.getPlane() != client.getPlane()) {
                     continue;
                 }
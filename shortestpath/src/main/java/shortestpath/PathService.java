@@ -0,0 +1,248 @@
+package shortestpath;
+
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.coords.WorldPoint;
+import shortestpath.pathfinder.CollisionMap;
+import shortestpath.pathfinder.HierarchicalGraph;
+import shortestpath.pathfinder.Pathfinder;
+import shortestpath.pathfinder.SearchAlgorithm;
+import shortestpath.pathfinder.TargetTree;
+import shortestpath.pathfinder.Transports;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Computes paths on a single background thread. Requests are made from the client thread; a new
+ * request cancels the one before it, and finished paths are published as immutable lists through a
+ * volatile field, so the overlays can read them on the render thread.
+ * <p>
+ * Each request is answered by the configured {@link Pathfinder} first. Afterwards the worker grows a
+ * {@link TargetTree} for the same target, so that when the player strays from the path the new one
+ * can usually be read off the tree without searching again. Growing the tree stops as soon as another
+ * request is made or the path is cleared, so it never holds up a new search.
+ */
+@Slf4j
+public class PathService {
+    /**
+     * How many steps past the start the target tree is grown, which covers straying up to about that
+     * far from the path.
+     */
+    private static final int TREE_MARGIN = 64;
+    private final CollisionMap map;
+    private final Transports transports;
+    private final HierarchicalGraph graph;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "shortest-path");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Object lock = new Object();
+    private Request pending;
+    // Bumped by every new request and by clear(), so tree growth for an older request knows to stop
+    private volatile int generation;
+    private volatile Request running;
+    private volatile Result result;
+    private TargetTree tree;
+
+    public PathService(CollisionMap map, Transports transports, HierarchicalGraph graph) {
+        this.map = map;
+        this.transports = transports;
+        this.graph = graph;
+    }
+
+    /**
+     * Asks for a new path. Does nothing if the same path is already being computed or was the last one
+     * published, otherwise cancels whatever is still in progress.
+     */
+    public void request(WorldPoint start, WorldPoint target, boolean avoidWilderness, SearchAlgorithm algorithm) {
+        synchronized (lock) {
+            Request request = new Request(start, target, avoidWilderness, algorithm);
+            Result published = result;
+
+            if (request.equals(pending) || (pending == null && published != null && request.equals(published.request))) {
+                return;
+            }
+
+            if (pending != null) {
+                pending.cancel();
+            }
+
+            pending = request;
+            generation++;
+            executor.execute(() -> run(request));
+        }
+    }
+
+    /**
+     * Cancels any search in progress and removes the published path.
+     */
+    public void clear() {
+        synchronized (lock) {
+            if (pending != null) {
+                pending.cancel();
+                pending = null;
+            }
+
+            generation++;
+            result = null;
+        }
+    }
+
+    public void shutDown() {
+        clear();
+        executor.shutdownNow();
+    }
+
+    public List<WorldPoint> getPath() {
+        Result published = result;
+        return published == null ? null : published.path;
+    }
+
+    /**
+     * Whether a request has been made that hasn't been published or cancelled yet.
+     */
+    public boolean isPending() {
+        synchronized (lock) {
+            return pending != null;
+        }
+    }
+
+    public boolean isSearching() {
+        return running != null;
+    }
+
+    /**
+     * The best partial path of the search in progress, or null. Growing the target tree after a path
+     * has been published does not count as searching.
+     */
+    public List<WorldPoint> getCurrentBest() {
+        Request request = running;
+        Pathfinder pathfinder = request == null ? null : request.pathfinder;
+        return pathfinder == null ? null : pathfinder.currentBest();
+    }
+
+    private void run(Request request) {
+        try {
+            search(request);
+        } catch (RuntimeException e) {
+            log.warn("Couldn't find a path to {}", request.target, e);
+            tree = null;
+        } finally {
+            // A search that failed or found nothing mustn't keep later requests for the same path out
+            synchronized (lock) {
+                if (pending == request) {
+                    pending = null;
+                }
+            }
+        }
+    }
+
+    private void search(Request request) {
+        if (request.cancelled) {
+            return;
+        }
+
+        if (tree == null || !tree.isFor(request.target, request.avoidWilderness)) {
+            tree = new TargetTree(map, transports, request.start, request.target, request.avoidWilderness);
+        }
+
+        List<WorldPoint> path = tree.pathFrom(request.start);
+
+        if (path == null) {
+            request.pathfinder = new Pathfinder(map, transports, graph, request.start, request.target, request.avoidWilderness, request.algorithm);
+            running = request;
+
+            try {
+                if (request.cancelled) {
+                    return;
+                }
+
+                path = request.pathfinder.find();
+            } finally {
+                running = null;
+            }
+        }
+
+        int published = publish(request, path);
+
+        if (published >= 0) {
+            tree.grow(request.start, TREE_MARGIN, () -> request.cancelled || generation != published);
+        }
+    }
+
+    /**
+     * Publishes the path, returning the generation it was published in, or -1 if it wasn't.
+     */
+    private int publish(Request request, List<WorldPoint> path) {
+        synchronized (lock) {
+            if (request.cancelled || path == null) {
+                return -1;
+            }
+
+            result = new Result(request, Collections.unmodifiableList(path));
+
+            if (pending == request) {
+                pending = null;
+            }
+
+            return generation;
+        }
+    }
+
+    private static class Request {
+        private final WorldPoint start;
+        private final WorldPoint target;
+        private final boolean avoidWilderness;
+        private final SearchAlgorithm algorithm;
+        private volatile boolean cancelled;
+        private volatile Pathfinder pathfinder;
+
+        private Request(WorldPoint start, WorldPoint target, boolean avoidWilderness, SearchAlgorithm algorithm) {
+            this.start = start;
+            this.target = target;
+            this.avoidWilderness = avoidWilderness;
+            this.algorithm = algorithm;
+        }
+
+        private void cancel() {
+            cancelled = true;
+            Pathfinder current = pathfinder;
+
+            if (current != null) {
+                current.cancel();
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Request)) {
+                return false;
+            }
+
+            Request other = (Request) o;
+            return start.equals(other.start) &&
+                    target.equals(other.target) &&
+                    avoidWilderness == other.avoidWilderness &&
+                    algorithm == other.algorithm;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(start, target, avoidWilderness, algorithm);
+        }
+    }
+
+    private static class Result {
+        private final Request request;
+        private final List<WorldPoint> path;
+
+        private Result(Request request, List<WorldPoint> path) {
+            this.request = request;
+            this.path = path;
+        }
+    }
+}
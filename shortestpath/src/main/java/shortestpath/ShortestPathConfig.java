@@ -4,6 +4,7 @@ import net.runelite.client.config.Config;
 import net.runelite.client.config.ConfigGroup;
 import net.runelite.client.config.ConfigItem;
 import net.runelite.client.config.Range;
+import shortestpath.pathfinder.SearchAlgorithm;
 
 @ConfigGroup("shortestPath")
 public interface ShortestPathConfig extends Config {
@@ -48,4 +49,9 @@ public interface ShortestPathConfig extends Config {
     default boolean avoidWilderness() {
         return true;
     }
+
+    @ConfigItem(keyName = "algorithm", name = "Search algorithm", description = "Algorithm used to find the path. Breadth-first, A* and bidirectional search find a shortest path, hierarchical search is much faster on long routes but its paths can be around 1.5% longer")
+    default SearchAlgorithm algorithm() {
+        return SearchAlgorithm.A_STAR;
+    }
 }
@@ -19,17 +19,17 @@ import net.runelite.client.ui.overlay.worldmap.WorldMapPointManager;
 import net.runelite.client.util.ImageUtil;
 import org.pf4j.Extension;
 import shortestpath.pathfinder.CollisionMap;
-import shortestpath.pathfinder.Pathfinder;
-import shortestpath.pathfinder.SplitFlagMap;
+import shortestpath.pathfinder.HierarchicalGraph;
+import shortestpath.pathfinder.Transports;
 
 import javax.inject.Inject;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 
 @Extension
 @PluginDescriptor(
@@ -50,35 +50,27 @@ public class ShortestPathPlugin extends Plugin {
     @Inject private WorldMapPointManager worldMapPointManager;
     @Inject private WorldMapOverlay worldMapOverlay;
     public CollisionMap map;
-    public List<WorldPoint> path = null;
     private WorldPoint target = null;
-    private boolean running;
     private Point lastMenuOpenedPoint;
     public WorldMapPoint marker;
     private static final BufferedImage MARKER_IMAGE = ImageUtil.getResourceStreamFromClass(ShortestPathPlugin.class, "/marker.png");
-    public boolean pathUpdateScheduled = false;
     public final Map<WorldPoint, List<WorldPoint>> transports = new HashMap<>();
-    public Pathfinder pathfinder;
+    private HierarchicalGraph graph;
+    public PathService pathService;
 
     @Override
     protected void startUp() {
-        Map<SplitFlagMap.Position, byte[]> compressedRegions = new HashMap<>();
-
-        try (ZipInputStream in = new ZipInputStream(ShortestPathPlugin.class.getResourceAsStream("/collision-map"))) {
-            ZipEntry entry;
-            while ((entry = in.getNextEntry()) != null) {
-                String[] n = entry.getName().split("_");
-
-                compressedRegions.put(
-                        new SplitFlagMap.Position(Integer.parseInt(n[0]), Integer.parseInt(n[1])),
-                        Util.readAllBytes(in)
-                );
-            }
+        try (InputStream in = ShortestPathPlugin.class.getResourceAsStream("/collision-map.bin")) {
+            map = new CollisionMap(ByteBuffer.wrap(Util.readAllBytes(in)));
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
 
-        map = new CollisionMap(64, compressedRegions);
+        try (InputStream in = ShortestPathPlugin.class.getResourceAsStream("/hierarchical-graph.bin")) {
+            graph = new HierarchicalGraph(map, ByteBuffer.wrap(Util.readAllBytes(in)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
 
         try {
             String s = new String(Util.readAllBytes(ShortestPathPlugin.class.getResourceAsStream("/transports.txt")), StandardCharsets.UTF_8);
@@ -99,23 +91,7 @@ public class ShortestPathPlugin extends Plugin {
             throw new RuntimeException(e);
         }
 
-        running = true;
-
-        new Thread(() -> {
-            while (running) {
-                if (pathUpdateScheduled) {
-                    if (target == null) {
-                        path = null;
-                    } else {
-                        pathfinder = new Pathfinder(map, transports, client.getLocalPlayer().getWorldLocation(), target, config.avoidWilderness() && !isInWilderness(target));
-                        path = pathfinder.find();
-                        pathUpdateScheduled = false;
-                    }
-                }
-
-                Util.sleep(10);
-            }
-        }).start();
+        pathService = new PathService(map, new Transports(transports), graph);
 
         overlayManager.add(pathOverlay);
         overlayManager.add(pathMinimapOverlay);
@@ -124,11 +100,14 @@ public class ShortestPathPlugin extends Plugin {
 
     @Override
     protected void shutDown() {
-        map = null;
-        running = false;
         overlayManager.remove(pathOverlay);
         overlayManager.remove(pathMinimapOverlay);
-        overlayManager.add(pathMapOverlay);
+        overlayManager.remove(pathMapOverlay);
+        pathService.shutDown();
+        pathService = null;
+        map = null;
+        graph = null;
+        transports.clear();
     }
 
     public static boolean isInWilderness(WorldPoint p) {
@@ -136,6 +115,17 @@ public class ShortestPathPlugin extends Plugin {
                 WILDERNESS_UNDERGROUND.distanceTo(p) == 0;
     }
 
+    public static boolean isInWilderness(int x, int y, int plane) {
+        return contains(WILDERNESS_ABOVE_GROUND, x, y, plane) ||
+                contains(WILDERNESS_UNDERGROUND, x, y, plane);
+    }
+
+    private static boolean contains(WorldArea area, int x, int y, int plane) {
+        return plane == area.getPlane() &&
+                x >= area.getX() && x < area.getX() + area.getWidth() &&
+                y >= area.getY() && y < area.getY() + area.getHeight();
+    }
+
     @Subscribe
     public void onMenuOpened(MenuOpened event) {
         lastMenuOpenedPoint = client.getMouseCanvasPosition();
@@ -143,25 +133,41 @@ public class ShortestPathPlugin extends Plugin {
 
     @Subscribe
     public void onGameTick(GameTick tick) {
-        if (path != null) {
-            if (!isNearPath()) {
-                if (config.cancelInstead()) {
-                    target = null;
-                }
+        List<WorldPoint> path = getPath();
 
-                pathUpdateScheduled = true;
-            }
+        if (target == null || path == null) {
+            return;
+        }
+
+        WorldPoint location = client.getLocalPlayer().getWorldLocation();
 
-            if (client.getLocalPlayer().getWorldLocation().distanceTo(target) < config.reachedDistance()) {
+        if (location.distanceTo(target) < config.reachedDistance()) {
+            target = null;
+            pathService.clear();
+        } else if (!isNearPath(path, location)) {
+            if (config.cancelInstead()) {
                 target = null;
-                pathUpdateScheduled = true;
+                pathService.clear();
+            } else if (!pathService.isPending()) {
+                // A search slower than a tick would otherwise be cancelled by the next tick's request
+                // and never finish; the path it publishes is checked again on the following tick
+                requestPath(location);
             }
         }
     }
 
-    private boolean isNearPath() {
+    public List<WorldPoint> getPath() {
+        PathService service = pathService;
+        return service == null ? null : service.getPath();
+    }
+
+    private void requestPath(WorldPoint start) {
+        pathService.request(start, target, config.avoidWilderness() && !isInWilderness(target), config.algorithm());
+    }
+
+    private boolean isNearPath(List<WorldPoint> path, WorldPoint location) {
         for (WorldPoint point : path) {
-            if (client.getLocalPlayer().getWorldLocation().distanceTo(point) < config.recalculateDistance()) {
+            if (location.distanceTo(point) < config.recalculateDistance()) {
                 return true;
             }
         }
@@ -195,12 +201,13 @@ public class ShortestPathPlugin extends Plugin {
 
     private void setTarget(WorldPoint target) {
         this.target = target;
-        pathUpdateScheduled = true;
 
         if (target == null) {
+            pathService.clear();
             worldMapPointManager.remove(marker);
             marker = null;
         } else {
+            requestPath(client.getLocalPlayer().getWorldLocation());
             worldMapPointManager.removeIf(x -> x == marker);
             marker = new WorldMapPoint(target, MARKER_IMAGE);
             marker.setTarget(marker.getWorldPoint());
@@ -7,7 +7,7 @@ import java.io.InputStream;
 public class Util {
     public static byte[] readAllBytes(InputStream in) throws IOException {
         ByteArrayOutputStream result = new ByteArrayOutputStream();
-        byte[] buffer = new byte[1024];
+        byte[] buffer = new byte[64 * 1024];
 
         while (true) {
             int read = in.read(buffer, 0, buffer.length);
@@ -0,0 +1,73 @@
+package shortestpath.pathfinder;
+
+import net.runelite.api.coords.WorldPoint;
+
+import java.util.List;
+
+/**
+ * A* over the tile graph. The boundary is a heap of longs holding the estimated total cost, the
+ * cost so far (deeper tiles win ties, they are closer to the target) and the packed tile. The
+ * {@link TransportHeuristic} is consistent, so the cost of a tile is final once it is expanded:
+ * expanded tiles are closed by storing their cost complemented, and are never expanded again. The
+ * result is as short as the breadth-first path.
+ */
+public class AStarSearch extends SearchEngine {
+    private static final int MAX_TIE_COST = 0x3FFF;
+    private final LongHeap boundary = new LongHeap(EXPECTED_NODES);
+    private final IntIntHashMap costs = new IntIntHashMap(EXPECTED_NODES);
+    private final TransportHeuristic heuristic;
+
+    public AStarSearch(CollisionMap map, Transports transports, WorldPoint start, WorldPoint target, boolean avoidWilderness) {
+        super(map, transports, start, target, avoidWilderness);
+        heuristic = new TransportHeuristic(transports, this.target, this::isBlocked);
+    }
+
+    @Override
+    public List<WorldPoint> find() {
+        costs.put(start, 0);
+        parents.put(start, WorldPointUtil.UNDEFINED);
+        push(start, 0);
+
+        while (!boundary.isEmpty()) {
+            if (isCancelled()) {
+                return null;
+            }
+
+            int node = (int) boundary.poll();
+            int cost = costs.get(node, Integer.MAX_VALUE);
+
+            // Closed, and this is a stale entry from before a cheaper way to it was found
+            if (cost < 0) {
+                continue;
+            }
+
+            if (node == target) {
+                return finish(node);
+            }
+
+            costs.put(node, ~cost);
+            expanded(node);
+
+            int count = neighbors(node, transports);
+            for (int i = 0; i < count; i++) {
+                int neighbor = neighbors[i];
+
+                // Closed tiles have a negative cost, so they are skipped here as well
+                if (isBlocked(neighbor) || costs.get(neighbor, Integer.MAX_VALUE) <= cost + 1) {
+                    continue;
+                }
+
+                costs.put(neighbor, cost + 1);
+                parents.put(neighbor, node);
+                push(neighbor, cost + 1);
+            }
+        }
+
+        return finishNearest();
+    }
+
+    private void push(int node, int cost) {
+        long estimate = cost + heuristic.estimate(node);
+        boundary.add(estimate << 46 | (long) (MAX_TIE_COST - Math.min(cost, MAX_TIE_COST)) << 32 | node);
+    }
+}
@@ -0,0 +1,121 @@
+package shortestpath.pathfinder;
+
+import net.runelite.api.coords.WorldPoint;
+
+import java.util.List;
+
+/**
+ * Breadth-first search run from both ends, one full layer at a time on the smaller side. Walking
+ * edges are symmetric, so the backward search uses the same collision checks and only the transports
+ * have to be reversed. Once the layers meet, the shortest of the meeting points found in that layer
+ * is used. If the target turns out to be unreachable the forward search runs on by itself, so the
+ * closest reachable tile is still found.
+ */
+public class BidirectionalSearch extends SearchEngine {
+    private final Transports reverseTransports;
+    private final IntQueue forwardBoundary = new IntQueue(EXPECTED_NODES);
+    private final IntQueue backwardBoundary = new IntQueue(EXPECTED_NODES);
+    private final IntIntHashMap forwardCosts = new IntIntHashMap(EXPECTED_NODES);
+    private final IntIntHashMap backwardCosts = new IntIntHashMap(EXPECTED_NODES);
+    private final IntIntHashMap backwardParents = new IntIntHashMap(EXPECTED_NODES);
+    private int meet = WorldPointUtil.UNDEFINED;
+    private int meetCost = Integer.MAX_VALUE;
+
+    public BidirectionalSearch(CollisionMap map, Transports transports, WorldPoint start, WorldPoint target, boolean avoidWilderness) {
+        super(map, transports, start, target, avoidWilderness);
+        reverseTransports = transports.reverse();
+    }
+
+    @Override
+    public List<WorldPoint> find() {
+        forwardBoundary.add(start);
+        forwardCosts.put(start, 0);
+        parents.put(start, WorldPointUtil.UNDEFINED);
+        backwardBoundary.add(target);
+        backwardCosts.put(target, 0);
+        backwardParents.put(target, WorldPointUtil.UNDEFINED);
+
+        if (start == target) {
+            return finish(start);
+        }
+
+        while (!forwardBoundary.isEmpty()) {
+            if (isCancelled()) {
+                return null;
+            }
+
+            if (backwardBoundary.isEmpty() || forwardBoundary.size() <= backwardBoundary.size()) {
+                expandForward();
+            } else {
+                expandBackward();
+            }
+
+            if (meet != WorldPointUtil.UNDEFINED) {
+                return join();
+            }
+        }
+
+        return finishNearest();
+    }
+
+    private void expandForward() {
+        for (int remaining = forwardBoundary.size(); remaining > 0; remaining--) {
+            int node = forwardBoundary.poll();
+            int cost = forwardCosts.get(node, 0) + 1;
+            expanded(node);
+
+            int count = neighbors(node, transports);
+            for (int i = 0; i < count; i++) {
+                int neighbor = neighbors[i];
+
+                if (isBlocked(neighbor) || forwardCosts.containsKey(neighbor)) {
+                    continue;
+                }
+
+                forwardCosts.put(neighbor, cost);
+                parents.put(neighbor, node);
+                forwardBoundary.add(neighbor);
+                meet(neighbor, cost + backwardCosts.get(neighbor, Integer.MAX_VALUE - cost));
+            }
+        }
+    }
+
+    private void expandBackward() {
+        for (int remaining = backwardBoundary.size(); remaining > 0; remaining--) {
+            int node = backwardBoundary.poll();
+            int cost = backwardCosts.get(node, 0) + 1;
+            expandedUntracked();
+
+            int count = neighbors(node, reverseTransports);
+            for (int i = 0; i < count; i++) {
+                int neighbor = neighbors[i];
+
+                if ((isBlocked(neighbor) && neighbor != start) || backwardCosts.containsKey(neighbor)) {
+                    continue;
+                }
+
+                backwardCosts.put(neighbor, cost);
+                backwardParents.put(neighbor, node);
+                backwardBoundary.add(neighbor);
+                meet(neighbor, cost + forwardCosts.get(neighbor, Integer.MAX_VALUE - cost));
+            }
+        }
+    }
+
+    private void meet(int node, int cost) {
+        if (cost < meetCost) {
+            meet = node;
+            meetCost = cost;
+        }
+    }
+
+    private List<WorldPoint> join() {
+        List<WorldPoint> path = path(meet);
+
+        for (int node = backwardParents.get(meet, WorldPointUtil.UNDEFINED); node != WorldPointUtil.UNDEFINED; node = backwardParents.get(node, WorldPointUtil.UNDEFINED)) {
+            path.add(WorldPointUtil.unpack(node));
+        }
+
+        return path;
+    }
+}
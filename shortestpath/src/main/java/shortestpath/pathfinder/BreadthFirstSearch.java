@@ -0,0 +1,47 @@
+package shortestpath.pathfinder;
+
+import net.runelite.api.coords.WorldPoint;
+
+import java.util.List;
+
+public class BreadthFirstSearch extends SearchEngine {
+    private final IntQueue boundary = new IntQueue(EXPECTED_NODES);
+
+    public BreadthFirstSearch(CollisionMap map, Transports transports, WorldPoint start, WorldPoint target, boolean avoidWilderness) {
+        super(map, transports, start, target, avoidWilderness);
+    }
+
+    @Override
+    public List<WorldPoint> find() {
+        boundary.add(start);
+        parents.put(start, WorldPointUtil.UNDEFINED);
+
+        while (!boundary.isEmpty()) {
+            if (isCancelled()) {
+                return null;
+            }
+
+            int node = boundary.poll();
+
+            if (node == target) {
+                return finish(node);
+            }
+
+            expanded(node);
+
+            int count = neighbors(node, transports);
+            for (int i = 0; i < count; i++) {
+                int neighbor = neighbors[i];
+
+                if (isBlocked(neighbor) || parents.containsKey(neighbor)) {
+                    continue;
+                }
+
+                parents.put(neighbor, node);
+                boundary.add(neighbor);
+            }
+        }
+
+        return finishNearest();
+    }
+}
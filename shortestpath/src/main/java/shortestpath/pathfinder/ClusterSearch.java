@@ -0,0 +1,142 @@
+package shortestpath.pathfinder;
+
+import net.runelite.api.coords.WorldPoint;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Breadth-first search confined to one cluster of the {@link HierarchicalGraph}, used both to
+ * precompute the distances between a cluster's entrances and, at query time, to connect the start
+ * and target to them and to turn abstract edges back into tiles. Transports are left out, they are
+ * edges of the abstract graph.
+ */
+class ClusterSearch {
+    private final CollisionMap map;
+    private final int size;
+    private final int[] distances;
+    private final int[] parents;
+    private final int[] queue;
+    private int originX;
+    private int originY;
+    private int plane;
+
+    ClusterSearch(CollisionMap map, int size) {
+        this.map = map;
+        this.size = size;
+        distances = new int[size * size];
+        parents = new int[size * size];
+        queue = new int[size * size];
+    }
+
+    /**
+     * Searches from {@code source} to every tile of its cluster that can be reached without entering a
+     * blocked tile. The source itself is never treated as blocked.
+     */
+    void search(int source, IntPredicate blocked) {
+        originX = WorldPointUtil.unpackX(source) / size * size;
+        originY = WorldPointUtil.unpackY(source) / size * size;
+        plane = WorldPointUtil.unpackPlane(source);
+        Arrays.fill(distances, -1);
+
+        int start = local(source);
+        distances[start] = 0;
+        parents[start] = -1;
+        queue[0] = start;
+        int head = 0;
+        int tail = 1;
+
+        while (head < tail) {
+            int node = queue[head++];
+            int lx = node % size;
+            int ly = node / size;
+            int x = originX + lx;
+            int y = originY + ly;
+            int distance = distances[node] + 1;
+
+            if (map.w(x, y, plane)) {
+                tail = visit(lx - 1, ly, node, distance, tail, blocked);
+            }
+
+            if (map.e(x, y, plane)) {
+                tail = visit(lx + 1, ly, node, distance, tail, blocked);
+            }
+
+            if (map.s(x, y, plane)) {
+                tail = visit(lx, ly - 1, node, distance, tail, blocked);
+            }
+
+            if (map.n(x, y, plane)) {
+                tail = visit(lx, ly + 1, node, distance, tail, blocked);
+            }
+
+            if (map.sw(x, y, plane)) {
+                tail = visit(lx - 1, ly - 1, node, distance, tail, blocked);
+            }
+
+            if (map.se(x, y, plane)) {
+                tail = visit(lx + 1, ly - 1, node, distance, tail, blocked);
+            }
+
+            if (map.nw(x, y, plane)) {
+                tail = visit(lx - 1, ly + 1, node, distance, tail, blocked);
+            }
+
+            if (map.ne(x, y, plane)) {
+                tail = visit(lx + 1, ly + 1, node, distance, tail, blocked);
+            }
+        }
+    }
+
+    private int visit(int lx, int ly, int parent, int distance, int tail, IntPredicate blocked) {
+        if (lx < 0 || ly < 0 || lx >= size || ly >= size) {
+            return tail;
+        }
+
+        int node = ly * size + lx;
+
+        if (distances[node] != -1 || blocked.test(WorldPointUtil.pack(originX + lx, originY + ly, plane))) {
+            return tail;
+        }
+
+        distances[node] = distance;
+        parents[node] = parent;
+        queue[tail] = node;
+        return tail + 1;
+    }
+
+    /**
+     * Distance from the last source to the tile, or -1 if it is outside the cluster or unreachable.
+     */
+    int distance(int tile) {
+        int node = local(tile);
+        return node == -1 ? -1 : distances[node];
+    }
+
+    /**
+     * Appends the path from the last source to the tile, excluding the source.
+     */
+    void appendPath(int tile, List<WorldPoint> path) {
+        int start = path.size();
+
+        for (int node = local(tile); node != -1 && parents[node] != -1; node = parents[node]) {
+            path.add(new WorldPoint(originX + node % size, originY + node / size, plane));
+        }
+
+        for (int i = start, j = path.size() - 1; i < j; i++, j--) {
+            path.set(i, path.set(j, path.get(i)));
+        }
+    }
+
+    private int local(int tile) {
+        int lx = WorldPointUtil.unpackX(tile) - originX;
+        int ly = WorldPointUtil.unpackY(tile) - originY;
+
+        if (lx < 0 || ly < 0 || lx >= size || ly >= size || WorldPointUtil.unpackPlane(tile) != plane) {
+            return -1;
+        }
+
+        return ly * size + lx;
+    }
+}
@@ -1,10 +1,10 @@
 package shortestpath.pathfinder;
 
-import java.util.Map;
+import java.nio.ByteBuffer;
 
 public class CollisionMap extends SplitFlagMap {
-    public CollisionMap(int regionSize, Map<Position, byte[]> compressedRegions) {
-        super(regionSize, compressedRegions, 2);
+    public CollisionMap(ByteBuffer buffer) {
+        super(buffer, 2);
     }
 
     public boolean n(int x, int y, int z) {
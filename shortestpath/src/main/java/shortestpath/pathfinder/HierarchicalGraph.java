@@ -0,0 +1,145 @@
+package shortestpath.pathfinder;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntPredicate;
+
+/**
+ * Abstract graph for hierarchical path finding, written at build time by
+ * {@code HierarchicalGraphBuilder}. The map is cut into clusters of one region on one plane. Nodes
+ * are the tiles on either side of the walkable openings between neighbouring clusters and the two
+ * ends of every transport; edges are the steps through those openings, the transports, and the
+ * precomputed walking distances between the nodes of each cluster.
+ * <p>
+ * Layout, big-endian: magic, cluster size, node count, edge count, the packed tile of every node, the
+ * offset of every node's first edge (plus one past the last), then each edge's target node followed
+ * by its cost shifted left by two and or'ed with its type.
+ */
+public class HierarchicalGraph {
+    public static final int MAGIC = 0x53504847;
+    static final int INTRA = 0;
+    static final int ENTRANCE = 1;
+    static final int TRANSPORT = 2;
+    private final CollisionMap map;
+    private final int clusterSize;
+    private final int[] tiles;
+    private final IntIntHashMap nodes;
+    private final int[] edgeOffsets;
+    private final int[] edgeTargets;
+    private final int[] edgeData;
+    private final Map<Integer, int[]> clusterNodes = new HashMap<>();
+    private final Map<Integer, Boolean> wildernessClusters = new ConcurrentHashMap<>();
+
+    public HierarchicalGraph(CollisionMap map, ByteBuffer buffer) {
+        this.map = map;
+
+        if (buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a hierarchical graph");
+        }
+
+        clusterSize = buffer.getInt();
+        int nodeCount = buffer.getInt();
+        int edgeCount = buffer.getInt();
+        tiles = new int[nodeCount];
+        nodes = new IntIntHashMap(nodeCount);
+        edgeOffsets = new int[nodeCount + 1];
+        edgeTargets = new int[edgeCount];
+        edgeData = new int[edgeCount];
+
+        Map<Integer, List<Integer>> clusters = new HashMap<>();
+        for (int i = 0; i < nodeCount; i++) {
+            tiles[i] = buffer.getInt();
+            nodes.put(tiles[i], i);
+            clusters.computeIfAbsent(cluster(tiles[i]), k -> new ArrayList<>()).add(i);
+        }
+
+        for (int i = 0; i <= nodeCount; i++) {
+            edgeOffsets[i] = buffer.getInt();
+        }
+
+        for (int i = 0; i < edgeCount; i++) {
+            edgeTargets[i] = buffer.getInt();
+            edgeData[i] = buffer.getInt();
+        }
+
+        for (Map.Entry<Integer, List<Integer>> entry : clusters.entrySet()) {
+            clusterNodes.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
+
+    public CollisionMap getMap() {
+        return map;
+    }
+
+    public int getClusterSize() {
+        return clusterSize;
+    }
+
+    public int getNodeCount() {
+        return tiles.length;
+    }
+
+    int tile(int node) {
+        return tiles[node];
+    }
+
+    int edgeStart(int node) {
+        return edgeOffsets[node];
+    }
+
+    int edgeEnd(int node) {
+        return edgeOffsets[node + 1];
+    }
+
+    int edgeTarget(int edge) {
+        return edgeTargets[edge];
+    }
+
+    int edgeCost(int edge) {
+        return edgeData[edge] >>> 2;
+    }
+
+    int edgeType(int edge) {
+        return edgeData[edge] & 0x3;
+    }
+
+    int cluster(int tile) {
+        return cluster(tile, clusterSize);
+    }
+
+    int[] clusterNodes(int cluster) {
+        return clusterNodes.getOrDefault(cluster, new int[0]);
+    }
+
+    /**
+     * Whether any tile of the cluster is in the wilderness. The precomputed distances of such a cluster
+     * may cross the wilderness, so they are recomputed per query when it is being avoided.
+     */
+    boolean touchesWilderness(int cluster, IntPredicate inWilderness) {
+        return wildernessClusters.computeIfAbsent(cluster, k -> {
+            int originX = (cluster & 0xFF) * clusterSize;
+            int originY = ((cluster >>> 8) & 0x1FF) * clusterSize;
+            int plane = cluster >>> 17;
+
+            for (int y = originY; y < originY + clusterSize; y++) {
+                for (int x = originX; x < originX + clusterSize; x++) {
+                    if (inWilderness.test(WorldPointUtil.pack(x, y, plane))) {
+                        return true;
+                    }
+                }
+            }
+
+            return false;
+        });
+    }
+
+    static int cluster(int tile, int clusterSize) {
+        return WorldPointUtil.unpackX(tile) / clusterSize |
+                WorldPointUtil.unpackY(tile) / clusterSize << 8 |
+                WorldPointUtil.unpackPlane(tile) << 17;
+    }
+}
@@ -0,0 +1,232 @@
+package shortestpath.pathfinder;
+
+import net.runelite.api.coords.WorldPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Hierarchical (HPA*-style) search over a {@link HierarchicalGraph}. The start and target are linked
+ * to the nodes of their own clusters with a search confined to the cluster, A* then runs over the
+ * abstract graph, and each abstract edge of the result is refined back into tiles with another
+ * cluster search. The wilderness restriction is applied as an edge filter: steps and transports into
+ * it are skipped, and clusters touching it get their distances recomputed without it.
+ * <p>
+ * Entrances only sit at a few tiles of each opening and paths are refined per cluster, so the result
+ * can be a few tiles longer than the breadth-first path. If the target cannot be reached through the
+ * graph, a flat {@link AStarSearch} is run instead so the closest reachable tile is still found.
+ */
+public class HierarchicalSearch extends SearchEngine {
+    private static final int MAX_TIE_COST = 0xFFFF;
+    private final HierarchicalGraph graph;
+    private final TransportHeuristic heuristic;
+    private final ClusterSearch clusterSearch;
+    private final IntIntHashMap costs = new IntIntHashMap(1 << 12);
+    private final IntIntHashMap abstractParents = new IntIntHashMap(1 << 12);
+    private final IntIntHashMap parentEdges = new IntIntHashMap(1 << 12);
+    private final IntIntHashMap startEdges = new IntIntHashMap(64);
+    private final IntIntHashMap targetEdges = new IntIntHashMap(64);
+    private final LongHeap boundary = new LongHeap(1 << 12);
+    private final IntPredicate entered;
+    private final int startNode;
+    private final int targetNode;
+    private int directCost = -1;
+    private volatile SearchEngine fallback;
+
+    public HierarchicalSearch(HierarchicalGraph graph, Transports transports, WorldPoint start, WorldPoint target, boolean avoidWilderness) {
+        super(graph.getMap(), transports, start, target, avoidWilderness);
+        this.graph = graph;
+        heuristic = new TransportHeuristic(transports, this.target, this::isBlocked);
+        clusterSearch = new ClusterSearch(map, graph.getClusterSize());
+        entered = tile -> tile != this.start && isBlocked(tile);
+        startNode = graph.getNodeCount();
+        targetNode = startNode + 1;
+    }
+
+    @Override
+    public List<WorldPoint> find() {
+        linkEndpoints();
+
+        costs.put(startNode, 0);
+        abstractParents.put(startNode, -1);
+        push(startNode, 0);
+
+        while (!boundary.isEmpty()) {
+            if (isCancelled()) {
+                return null;
+            }
+
+            long entry = boundary.poll();
+            int node = (int) entry;
+            int cost = costs.get(node, Integer.MAX_VALUE);
+
+            if (cost < MAX_TIE_COST && MAX_TIE_COST - (int) ((entry >>> 32) & MAX_TIE_COST) > cost) {
+                continue;
+            }
+
+            if (node == targetNode) {
+                return finishAbstract();
+            }
+
+            expandedUntracked();
+            expand(node, cost);
+        }
+
+        fallback = new AStarSearch(map, transports, WorldPointUtil.unpack(start), WorldPointUtil.unpack(target), avoidWilderness);
+
+        if (isCancelled()) {
+            return null;
+        }
+
+        return fallback.find();
+    }
+
+    @Override
+    public void cancel() {
+        super.cancel();
+        SearchEngine engine = fallback;
+
+        if (engine != null) {
+            engine.cancel();
+        }
+    }
+
+    @Override
+    public List<WorldPoint> currentBest() {
+        SearchEngine engine = fallback;
+        return engine == null ? super.currentBest() : engine.currentBest();
+    }
+
+    @Override
+    public int getExpandedNodes() {
+        SearchEngine engine = fallback;
+        return super.getExpandedNodes() + (engine == null ? 0 : engine.getExpandedNodes());
+    }
+
+    private void linkEndpoints() {
+        clusterSearch.search(start, entered);
+
+        for (int node : graph.clusterNodes(graph.cluster(start))) {
+            int distance = clusterSearch.distance(graph.tile(node));
+
+            if (distance >= 0) {
+                startEdges.put(node, distance);
+            }
+        }
+
+        directCost = clusterSearch.distance(target);
+
+        // Walking is symmetric, so distances from the target are distances to it
+        clusterSearch.search(target, entered);
+
+        for (int node : graph.clusterNodes(graph.cluster(target))) {
+            int distance = clusterSearch.distance(graph.tile(node));
+
+            if (distance >= 0) {
+                targetEdges.put(node, distance);
+            }
+        }
+    }
+
+    private void expand(int node, int cost) {
+        if (node == startNode) {
+            for (int next : graph.clusterNodes(graph.cluster(start))) {
+                int distance = startEdges.get(next, -1);
+
+                if (distance >= 0) {
+                    relax(node, next, cost + distance, HierarchicalGraph.INTRA);
+                }
+            }
+
+            if (directCost >= 0) {
+                relax(node, targetNode, cost + directCost, HierarchicalGraph.INTRA);
+            }
+
+            return;
+        }
+
+        int tile = graph.tile(node);
+        int toTarget = targetEdges.get(node, -1);
+
+        if (toTarget >= 0) {
+            relax(node, targetNode, cost + toTarget, HierarchicalGraph.INTRA);
+        }
+
+        boolean recomputeIntra = avoidWilderness && graph.touchesWilderness(graph.cluster(tile), this::isBlocked);
+
+        for (int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++) {
+            int next = graph.edgeTarget(edge);
+            int type = graph.edgeType(edge);
+
+            if (type == HierarchicalGraph.INTRA ? recomputeIntra : isBlocked(graph.tile(next))) {
+                continue;
+            }
+
+            relax(node, next, cost + graph.edgeCost(edge), type);
+        }
+
+        if (recomputeIntra) {
+            clusterSearch.search(tile, entered);
+
+            for (int next : graph.clusterNodes(graph.cluster(tile))) {
+                int distance = clusterSearch.distance(graph.tile(next));
+
+                if (next != node && distance > 0) {
+                    relax(node, next, cost + distance, HierarchicalGraph.INTRA);
+                }
+            }
+        }
+    }
+
+    private void relax(int node, int next, int cost, int type) {
+        if (costs.get(next, Integer.MAX_VALUE) <= cost) {
+            return;
+        }
+
+        costs.put(next, cost);
+        abstractParents.put(next, node);
+        parentEdges.put(next, type);
+        push(next, cost);
+    }
+
+    private void push(int node, int cost) {
+        long estimate = cost + (node == targetNode ? 0 : heuristic.estimate(tileOf(node)));
+        boundary.add(estimate << 48 | (long) (MAX_TIE_COST - Math.min(cost, MAX_TIE_COST)) << 32 | node);
+    }
+
+    private int tileOf(int node) {
+        if (node == startNode) {
+            return start;
+        }
+
+        return node == targetNode ? target : graph.tile(node);
+    }
+
+    /**
+     * Turns the abstract path into tiles, refining each walking edge with a search inside its cluster.
+     */
+    private List<WorldPoint> finishAbstract() {
+        List<Integer> nodes = new ArrayList<>();
+        for (int node = targetNode; node != -1; node = abstractParents.get(node, -1)) {
+            nodes.add(0, node);
+        }
+
+        List<WorldPoint> path = new ArrayList<>();
+        path.add(WorldPointUtil.unpack(start));
+
+        for (int i = 1; i < nodes.size(); i++) {
+            int from = tileOf(nodes.get(i - 1));
+            int to = tileOf(nodes.get(i));
+
+            if (parentEdges.get(nodes.get(i), HierarchicalGraph.INTRA) == HierarchicalGraph.INTRA) {
+                clusterSearch.search(from, entered);
+                clusterSearch.appendPath(to, path);
+            } else {
+                path.add(WorldPointUtil.unpack(to));
+            }
+        }
+
+        return path;
+    }
+}
@@ -0,0 +1,110 @@
+package shortestpath.pathfinder;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from non-negative int keys to int values, so the search can record visited
+ * tiles without boxing or an entry object per tile.
+ */
+public class IntIntHashMap {
+    private static final int EMPTY = -1;
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    public IntIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2) - 1) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    public int get(int key, int defaultValue) {
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            int k = keys[slot];
+
+            if (k == key) {
+                return values[slot];
+            }
+
+            if (k == EMPTY) {
+                return defaultValue;
+            }
+        }
+    }
+
+    public boolean containsKey(int key) {
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            int k = keys[slot];
+
+            if (k == key) {
+                return true;
+            }
+
+            if (k == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    public void put(int key, int value) {
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            int k = keys[slot];
+
+            if (k == key) {
+                values[slot] = value;
+                return;
+            }
+
+            if (k == EMPTY) {
+                keys[slot] = key;
+                values[slot] = value;
+
+                if (++size * 2 > keys.length) {
+                    grow();
+                }
+
+                return;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        mask = keys.length - 1;
+        Arrays.fill(keys, EMPTY);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) {
+                continue;
+            }
+
+            int slot = hash(oldKeys[i]) & mask;
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
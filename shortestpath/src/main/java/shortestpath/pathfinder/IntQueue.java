@@ -0,0 +1,47 @@
+package shortestpath.pathfinder;
+
+/**
+ * Growable ring buffer of ints, used as the breadth-first boundary.
+ */
+public class IntQueue {
+    private int[] elements;
+    private int head;
+    private int size;
+
+    public IntQueue(int initialCapacity) {
+        elements = new int[Integer.highestOneBit(Math.max(16, initialCapacity) - 1) << 1];
+    }
+
+    public void add(int value) {
+        if (size == elements.length) {
+            int[] grown = new int[elements.length * 2];
+            int firstPart = elements.length - head;
+            System.arraycopy(elements, head, grown, 0, firstPart);
+            System.arraycopy(elements, 0, grown, firstPart, head);
+            elements = grown;
+            head = 0;
+        }
+
+        elements[(head + size++) & (elements.length - 1)] = value;
+    }
+
+    public int poll() {
+        int value = elements[head];
+        head = (head + 1) & (elements.length - 1);
+        size--;
+        return value;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+}
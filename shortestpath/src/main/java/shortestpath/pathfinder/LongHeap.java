@@ -0,0 +1,76 @@
+package shortestpath.pathfinder;
+
+/**
+ * Binary min-heap of longs. The A* boundary packs its ordering key and the tile into one long, so
+ * pushing a tile allocates nothing.
+ */
+public class LongHeap {
+    private long[] elements;
+    private int size;
+
+    public LongHeap(int initialCapacity) {
+        elements = new long[Math.max(16, initialCapacity)];
+    }
+
+    public void add(long value) {
+        if (size == elements.length) {
+            long[] grown = new long[elements.length * 2];
+            System.arraycopy(elements, 0, grown, 0, size);
+            elements = grown;
+        }
+
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+
+            if (elements[parent] <= value) {
+                break;
+            }
+
+            elements[i] = elements[parent];
+            i = parent;
+        }
+
+        elements[i] = value;
+    }
+
+    public long poll() {
+        long result = elements[0];
+        long last = elements[--size];
+        int i = 0;
+
+        while (true) {
+            int child = 2 * i + 1;
+
+            if (child >= size) {
+                break;
+            }
+
+            if (child + 1 < size && elements[child + 1] < elements[child]) {
+                child++;
+            }
+
+            if (last <= elements[child]) {
+                break;
+            }
+
+            elements[i] = elements[child];
+            i = child;
+        }
+
+        elements[i] = last;
+        return result;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+}
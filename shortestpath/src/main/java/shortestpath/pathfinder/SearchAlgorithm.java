@@ -0,0 +1,19 @@
+package shortestpath.pathfinder;
+
+public enum SearchAlgorithm {
+    BREADTH_FIRST("Breadth-first"),
+    A_STAR("A*"),
+    BIDIRECTIONAL("Bidirectional"),
+    HIERARCHICAL("Hierarchical");
+
+    private final String name;
+
+    SearchAlgorithm(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,169 @@
+package shortestpath.pathfinder;
+
+import net.runelite.api.coords.WorldPoint;
+import shortestpath.ShortestPathPlugin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Base class for the path searches. Every step, including a transport, costs one tile, so the
+ * engines are interchangeable and all return a shortest path in number of steps.
+ * <p>
+ * Tiles are handled as packed ints (see {@link WorldPointUtil}) and parents are kept in a primitive
+ * map, so nothing is allocated per expanded tile. WorldPoints are only created for the final path.
+ */
+public abstract class SearchEngine {
+    private static final int PUBLISH_INTERVAL = 1000;
+    protected static final int EXPECTED_NODES = 1 << 16;
+    protected final CollisionMap map;
+    protected final Transports transports;
+    protected final int start;
+    protected final int target;
+    protected final boolean avoidWilderness;
+    protected final IntIntHashMap parents = new IntIntHashMap(EXPECTED_NODES);
+    protected final int[] neighbors;
+    private int nearest = WorldPointUtil.UNDEFINED;
+    private int bestDistance = Integer.MAX_VALUE;
+    private int expandedNodes;
+    private int lastPublished;
+    private volatile List<WorldPoint> currentBest;
+    private volatile boolean cancelled;
+
+    protected SearchEngine(CollisionMap map, Transports transports, WorldPoint start, WorldPoint target, boolean avoidWilderness) {
+        this.map = map;
+        this.transports = transports;
+        this.start = WorldPointUtil.pack(start);
+        this.target = WorldPointUtil.pack(target);
+        this.avoidWilderness = avoidWilderness;
+        neighbors = new int[8 + Math.max(transports.getMaxDestinations(), transports.reverse().getMaxDestinations())];
+    }
+
+    /**
+     * Runs the search. Returns the path to the target, or the path to the tile closest to the target
+     * if it cannot be reached, or null if the search was cancelled.
+     */
+    public abstract List<WorldPoint> find();
+
+    /**
+     * Makes a running {@link #find()} return null at its next step. Safe to call from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Path to the closest tile found so far. Safe to call from other threads while the search runs;
+     * it is refreshed every {@value #PUBLISH_INTERVAL} expanded tiles.
+     */
+    public List<WorldPoint> currentBest() {
+        return currentBest;
+    }
+
+    public int getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    protected void expanded(int node) {
+        expandedNodes++;
+
+        int distance = WorldPointUtil.chebyshev(node, target);
+        if (nearest == WorldPointUtil.UNDEFINED || distance < bestDistance) {
+            nearest = node;
+            bestDistance = distance;
+        }
+
+        if (expandedNodes - lastPublished >= PUBLISH_INTERVAL) {
+            lastPublished = expandedNodes;
+            currentBest = path(nearest);
+        }
+    }
+
+    /**
+     * Counts an expansion that says nothing about how close the start's side of the search got, such
+     * as a tile of the backward search.
+     */
+    protected void expandedUntracked() {
+        expandedNodes++;
+    }
+
+    protected List<WorldPoint> finish(int node) {
+        List<WorldPoint> path = node == WorldPointUtil.UNDEFINED ? null : path(node);
+        currentBest = path;
+        return path;
+    }
+
+    protected List<WorldPoint> finishNearest() {
+        return finish(nearest);
+    }
+
+    protected List<WorldPoint> path(int node) {
+        List<WorldPoint> path = new ArrayList<>();
+
+        while (node != WorldPointUtil.UNDEFINED) {
+            path.add(WorldPointUtil.unpack(node));
+            node = parents.get(node, WorldPointUtil.UNDEFINED);
+        }
+
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Writes the walkable and transport neighbours of a tile into {@link #neighbors}, in the order the
+     * original breadth-first search visited them, and returns how many there are.
+     */
+    protected int neighbors(int node, Transports transports) {
+        int x = WorldPointUtil.unpackX(node);
+        int y = WorldPointUtil.unpackY(node);
+        int z = WorldPointUtil.unpackPlane(node);
+        int count = 0;
+
+        if (map.w(x, y, z)) {
+            neighbors[count++] = WorldPointUtil.pack(x - 1, y, z);
+        }
+
+        if (map.e(x, y, z)) {
+            neighbors[count++] = WorldPointUtil.pack(x + 1, y, z);
+        }
+
+        if (map.s(x, y, z)) {
+            neighbors[count++] = WorldPointUtil.pack(x, y - 1, z);
+        }
+
+        if (map.n(x, y, z)) {
+            neighbors[count++] = WorldPointUtil.pack(x, y + 1, z);
+        }
+
+        if (map.sw(x, y, z)) {
+            neighbors[count++] = WorldPointUtil.pack(x - 1, y - 1, z);
+        }
+
+        if (map.se(x, y, z)) {
+            neighbors[count++] = WorldPointUtil.pack(x + 1, y - 1, z);
+        }
+
+        if (map.nw(x, y, z)) {
+            neighbors[count++] = WorldPointUtil.pack(x - 1, y + 1, z);
+        }
+
+        if (map.ne(x, y, z)) {
+            neighbors[count++] = WorldPointUtil.pack(x + 1, y + 1, z);
+        }
+
+        for (int destination : transports.get(node)) {
+            neighbors[count++] = destination;
+        }
+
+        return count;
+    }
+
+    protected boolean isBlocked(int node) {
+        return avoidWilderness && ShortestPathPlugin.isInWilderness(WorldPointUtil.unpackX(node), WorldPointUtil.unpackY(node), WorldPointUtil.unpackPlane(node));
+    }
+}
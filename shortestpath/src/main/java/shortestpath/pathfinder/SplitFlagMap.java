@@ -1,80 +1,111 @@
 package shortestpath.pathfinder;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
-import com.google.common.cache.Weigher;
-import com.google.common.util.concurrent.UncheckedExecutionException;
-import shortestpath.Util;
-
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.UncheckedIOException;
-import java.util.Map;
-import java.util.concurrent.ExecutionException;
-import java.util.zip.GZIPInputStream;
+import java.nio.ByteBuffer;
 
+/**
+ * Flags for the whole map, stored as one uncompressed, region-indexed buffer (written at build time
+ * by {@code CollisionMapPacker}). A lookup is an index into the region table and a bit test in the
+ * region's block, so nothing is decoded, cached or allocated per call.
+ * <p>
+ * Layout, big-endian: magic, region size, flag count, minimum region x and y, width and height of
+ * the region table in regions, the region table itself (one block index per region, -1 when no tile
+ * in the region has a flag set), then the blocks. Within a block, bit
+ * {@code ((plane * regionSize + localY) * regionSize + localX) * flagCount + flag} is stored in byte
+ * {@code bit / 8} at position {@code bit % 8}.
+ */
 public abstract class SplitFlagMap {
-    private static final int MAXIMUM_SIZE = 20 * 1024 * 1024;
+    public static final int MAGIC = 0x53504D31;
+    private static final int HEADER_SIZE = 7 * 4;
+    private final ByteBuffer buffer;
     private final int regionSize;
-    private final LoadingCache<Position, FlagMap> regionMaps;
     private final int flagCount;
+    private final int minRegionX;
+    private final int minRegionY;
+    private final int widthRegions;
+    private final int heightRegions;
+    private final int[] regionOffsets;
 
-    public SplitFlagMap(int regionSize, Map<Position, byte[]> compressedRegions, int flagCount) {
-        this.regionSize = regionSize;
-        this.flagCount = flagCount;
-        regionMaps = CacheBuilder
-                .newBuilder()
-                .weigher((Weigher<Position, FlagMap>) (k, v) -> v.flags.size() / 8)
-                .maximumWeight(MAXIMUM_SIZE)
-                .build(CacheLoader.from(position -> {
-                    byte[] compressedRegion = compressedRegions.get(position);
-
-                    if (compressedRegion == null) {
-                        return new FlagMap(position.x * regionSize, position.y * regionSize, (position.x + 1) * regionSize - 1, (position.y + 1) * regionSize - 1, this.flagCount);
-                    }
-
-                    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressedRegion))) {
-                        return new FlagMap(Util.readAllBytes(in), this.flagCount);
-                    } catch (IOException e) {
-                        throw new UncheckedIOException(e);
-                    }
-                }));
-    }
+    public SplitFlagMap(ByteBuffer buffer, int flagCount) {
+        this.buffer = buffer;
 
-    public boolean get(int x, int y, int z, int flag) {
-        try {
-            return regionMaps.get(new Position(x / regionSize, y / regionSize)).get(x, y, z, flag);
-        } catch (ExecutionException e) {
-            throw new UncheckedExecutionException(e);
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a packed collision map");
         }
-    }
 
-    public static class Position {
-        public final int x;
-        public final int y;
+        regionSize = buffer.getInt(4);
+        this.flagCount = buffer.getInt(8);
+        minRegionX = buffer.getInt(12);
+        minRegionY = buffer.getInt(16);
+        widthRegions = buffer.getInt(20);
+        heightRegions = buffer.getInt(24);
 
-        public Position(int x, int y) {
-            this.x = x;
-            this.y = y;
+        if (this.flagCount != flagCount) {
+            throw new IllegalArgumentException("Expected " + flagCount + " flags, found " + this.flagCount);
         }
 
-        @Override
-        public boolean equals(Object o) {
-            return o instanceof Position &&
-                    ((Position) o).x == x &&
-                    ((Position) o).y == y;
+        int regionBytes = regionBytes(regionSize, flagCount);
+        int dataStart = HEADER_SIZE + widthRegions * heightRegions * 4;
+        regionOffsets = new int[widthRegions * heightRegions];
+
+        for (int i = 0; i < regionOffsets.length; i++) {
+            int block = buffer.getInt(HEADER_SIZE + i * 4);
+            regionOffsets[i] = block < 0 ? -1 : dataStart + block * regionBytes;
         }
+    }
 
-        @Override
-        public int hashCode() {
-            return x * 31 + y;
+    public boolean get(int x, int y, int z, int flag) {
+        if (x < 0 || y < 0 || z < 0 || z >= FlagMap.PLANE_COUNT) {
+            return false;
         }
 
-        @Override
-        public String toString() {
-            return "(" + x + ", " + y + ")";
+        int regionX = x / regionSize - minRegionX;
+        int regionY = y / regionSize - minRegionY;
+
+        if (regionX < 0 || regionY < 0 || regionX >= widthRegions || regionY >= heightRegions) {
+            return false;
         }
+
+        int offset = regionOffsets[regionY * widthRegions + regionX];
+
+        if (offset < 0) {
+            return false;
+        }
+
+        int bit = ((z * regionSize + y % regionSize) * regionSize + x % regionSize) * flagCount + flag;
+        return (buffer.get(offset + (bit >>> 3)) & (1 << (bit & 7))) != 0;
+    }
+
+    public int getRegionSize() {
+        return regionSize;
+    }
+
+    public int getMinRegionX() {
+        return minRegionX;
+    }
+
+    public int getMinRegionY() {
+        return minRegionY;
+    }
+
+    public int getMaxRegionX() {
+        return minRegionX + widthRegions - 1;
+    }
+
+    public int getMaxRegionY() {
+        return minRegionY + heightRegions - 1;
+    }
+
+    /**
+     * Whether any tile in the region has a flag set.
+     */
+    public boolean hasRegion(int regionX, int regionY) {
+        regionX -= minRegionX;
+        regionY -= minRegionY;
+        return regionX >= 0 && regionY >= 0 && regionX < widthRegions && regionY < heightRegions &&
+                regionOffsets[regionY * widthRegions + regionX] >= 0;
+    }
+
+    static int regionBytes(int regionSize, int flagCount) {
+        return (regionSize * regionSize * FlagMap.PLANE_COUNT * flagCount + 7) / 8;
     }
 }
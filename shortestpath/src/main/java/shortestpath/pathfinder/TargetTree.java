@@ -0,0 +1,114 @@
+package shortestpath.pathfinder;
+
+import net.runelite.api.coords.WorldPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Breadth-first search backwards from the target, kept around so the tree can answer later requests
+ * for the same target from a different start. The collision map and transports never change while
+ * the plugin runs, so no edge costs ever need repairing, which is what LPA* and D* Lite add on top of
+ * this. A moved start is either already in the tree, in which case the path is read straight off it,
+ * or the search resumes from where it stopped until the new start is reached.
+ */
+public class TargetTree extends SearchEngine {
+    private final Transports reverseTransports;
+    private final IntQueue boundary = new IntQueue(EXPECTED_NODES);
+    private int depth = -1;
+    private int layerRemaining;
+
+    public TargetTree(CollisionMap map, Transports transports, WorldPoint start, WorldPoint target, boolean avoidWilderness) {
+        super(map, transports, start, target, avoidWilderness);
+        reverseTransports = transports.reverse();
+        boundary.add(this.target);
+        parents.put(this.target, WorldPointUtil.UNDEFINED);
+    }
+
+    public boolean isFor(WorldPoint target, boolean avoidWilderness) {
+        return this.target == WorldPointUtil.pack(target) && this.avoidWilderness == avoidWilderness;
+    }
+
+    @Override
+    public List<WorldPoint> find() {
+        return grow(WorldPointUtil.unpack(start), 0, this::isCancelled) ? pathFrom(WorldPointUtil.unpack(start)) : null;
+    }
+
+    /**
+     * Path from the start to the target if the start is already in the tree, otherwise null.
+     */
+    public List<WorldPoint> pathFrom(WorldPoint start) {
+        int node = WorldPointUtil.pack(start);
+
+        if (!parents.containsKey(node)) {
+            return null;
+        }
+
+        List<WorldPoint> path = new ArrayList<>();
+        for (; node != WorldPointUtil.UNDEFINED; node = parents.get(node, WorldPointUtil.UNDEFINED)) {
+            path.add(WorldPointUtil.unpack(node));
+        }
+
+        return path;
+    }
+
+    /**
+     * Resumes the search until the start is in the tree and the tree reaches {@code margin} steps
+     * further out than it, so a player who strays from the path is likely still covered. Returns
+     * false if the start cannot reach the target, is itself blocked (the backward search never enters
+     * blocked tiles), or if cancelled.
+     */
+    public boolean grow(WorldPoint start, int margin, BooleanSupplier cancelled) {
+        int goal = WorldPointUtil.pack(start);
+
+        if (isBlocked(goal)) {
+            return false;
+        }
+
+        int goalDepth = parents.containsKey(goal) ? depth(goal) : Integer.MAX_VALUE;
+
+        while (!boundary.isEmpty() && depth <= (long) goalDepth + margin) {
+            if (cancelled.getAsBoolean()) {
+                return false;
+            }
+
+            if (layerRemaining == 0) {
+                depth++;
+                layerRemaining = boundary.size();
+            }
+
+            int node = boundary.poll();
+            layerRemaining--;
+            expandedUntracked();
+
+            int count = neighbors(node, reverseTransports);
+            for (int i = 0; i < count; i++) {
+                int neighbor = neighbors[i];
+
+                if (isBlocked(neighbor) || parents.containsKey(neighbor)) {
+                    continue;
+                }
+
+                parents.put(neighbor, node);
+                boundary.add(neighbor);
+
+                if (neighbor == goal) {
+                    goalDepth = depth + 1;
+                }
+            }
+        }
+
+        return goalDepth != Integer.MAX_VALUE;
+    }
+
+    private int depth(int node) {
+        int depth = 0;
+
+        for (node = parents.get(node, WorldPointUtil.UNDEFINED); node != WorldPointUtil.UNDEFINED; node = parents.get(node, WorldPointUtil.UNDEFINED)) {
+            depth++;
+        }
+
+        return depth;
+    }
+}
@@ -0,0 +1,267 @@
+package shortestpath.pathfinder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
+
+/**
+ * Lower bound on the number of steps to the target. A path either walks the whole way, which takes
+ * at least the Chebyshev distance (diagonal steps cost the same as straight ones, so the octile
+ * distance reduces to it), or walks to a transport first, which takes at least the distance to the
+ * transport plus its exit cost. The exit cost of a transport is one plus the bound at its best
+ * destination, so it covers chains of transports too; the costs are found with a Dijkstra over the
+ * transports, outwards from the target. The bound is the minimum over all of these. Every term
+ * changes by at most one per step, and taking a transport costs one and can't lower the bound by
+ * more than that, so the bound is consistent as well as admissible.
+ * <p>
+ * Only a handful of transports can be the minimum anywhere within one region, so they are picked
+ * out the first time the search enters a region and the per-tile estimate only looks at those.
+ */
+class TransportHeuristic {
+    private static final int REGION_SIZE = 64;
+    private static final int BLOCK_SIZE = REGION_SIZE * 8;
+    private final int[] originX;
+    private final int[] originY;
+    private final int[] exitCost;
+    private final Map<Integer, int[]> regionCandidates = new HashMap<>();
+    private int lastRegion = -1;
+    private int[] lastCandidates;
+
+    TransportHeuristic(Transports transports, int target, IntPredicate blocked) {
+        int[] costs = exitCosts(transports, target, blocked);
+        List<int[]> origins = new ArrayList<>(transports.size() + 1);
+        origins.add(new int[]{WorldPointUtil.unpackX(target), WorldPointUtil.unpackY(target), 0});
+
+        for (int i = 0; i < transports.size(); i++) {
+            if (costs[i] != Integer.MAX_VALUE) {
+                int origin = transports.origin(i);
+                origins.add(new int[]{WorldPointUtil.unpackX(origin), WorldPointUtil.unpackY(origin), costs[i]});
+            }
+        }
+
+        origins.sort((a, b) -> Integer.compare(a[2], b[2]));
+        originX = new int[origins.size()];
+        originY = new int[origins.size()];
+        exitCost = new int[origins.size()];
+
+        for (int i = 0; i < origins.size(); i++) {
+            originX[i] = origins.get(i)[0];
+            originY[i] = origins.get(i)[1];
+            exitCost[i] = origins.get(i)[2];
+        }
+    }
+
+    /**
+     * Exit cost of every transport, or {@link Integer#MAX_VALUE} for one that only leads into blocked
+     * tiles. Settling a transport lowers the bound at the destinations it's closer to than anything
+     * settled before. Destinations are grouped by region and regions by block of regions, and a group
+     * is skipped when even its nearest tile couldn't be lowered.
+     */
+    private static int[] exitCosts(Transports transports, int target, IntPredicate blocked) {
+        int count = transports.size();
+        int[] costs = new int[count];
+        Arrays.fill(costs, Integer.MAX_VALUE);
+        Map<Long, List<int[]>> byRegion = new TreeMap<>();
+        int destinationCount = 0;
+
+        for (int i = 0; i < count; i++) {
+            for (int destination : transports.destinations(i)) {
+                if (!blocked.test(destination)) {
+                    int x = WorldPointUtil.unpackX(destination);
+                    int y = WorldPointUtil.unpackY(destination);
+                    int region = (x / REGION_SIZE) << 16 | (y / REGION_SIZE);
+                    int block = (x / BLOCK_SIZE) << 16 | (y / BLOCK_SIZE);
+                    byRegion.computeIfAbsent((long) block << 32 | region, k -> new ArrayList<>()).add(new int[]{x, y, i});
+                    destinationCount++;
+                }
+            }
+        }
+
+        int[] regionX = new int[byRegion.size()];
+        int[] regionY = new int[byRegion.size()];
+        int[] regionStart = new int[byRegion.size() + 1];
+        int[] regionMax = new int[byRegion.size()];
+        int[] blockX = new int[byRegion.size()];
+        int[] blockY = new int[byRegion.size()];
+        int[] blockStart = new int[byRegion.size() + 1];
+        int[] blockMax = new int[byRegion.size()];
+        int[] destinationX = new int[destinationCount];
+        int[] destinationY = new int[destinationCount];
+        int[] owner = new int[destinationCount];
+        int[] remaining = new int[destinationCount];
+        int targetX = WorldPointUtil.unpackX(target);
+        int targetY = WorldPointUtil.unpackY(target);
+        int blocks = 0;
+        int r = 0;
+        int d = 0;
+
+        for (Map.Entry<Long, List<int[]>> region : byRegion.entrySet()) {
+            int block = (int) (region.getKey() >>> 32);
+
+            if (blocks == 0 || blockX[blocks - 1] != (block >>> 16) * BLOCK_SIZE || blockY[blocks - 1] != (block & 0xFFFF) * BLOCK_SIZE) {
+                blockX[blocks] = (block >>> 16) * BLOCK_SIZE;
+                blockY[blocks] = (block & 0xFFFF) * BLOCK_SIZE;
+                blockStart[blocks] = r;
+                blocks++;
+            }
+
+            regionX[r] = (region.getKey().intValue() >>> 16) * REGION_SIZE;
+            regionY[r] = (region.getKey().intValue() & 0xFFFF) * REGION_SIZE;
+            regionStart[r] = d;
+
+            for (int[] destination : region.getValue()) {
+                destinationX[d] = destination[0];
+                destinationY[d] = destination[1];
+                owner[d] = destination[2];
+                remaining[d] = Math.max(Math.abs(destination[0] - targetX), Math.abs(destination[1] - targetY));
+                costs[owner[d]] = Math.min(costs[owner[d]], 1 + remaining[d]);
+                regionMax[r] = Math.max(regionMax[r], remaining[d]);
+                d++;
+            }
+
+            blockMax[blocks - 1] = Math.max(blockMax[blocks - 1], regionMax[r]);
+            r++;
+        }
+
+        regionStart[r] = d;
+        blockStart[blocks] = r;
+        LongHeap boundary = new LongHeap(count);
+
+        for (int i = 0; i < count; i++) {
+            if (costs[i] != Integer.MAX_VALUE) {
+                boundary.add((long) costs[i] << 32 | i);
+            }
+        }
+
+        while (!boundary.isEmpty()) {
+            long entry = boundary.poll();
+            int next = (int) entry;
+            int cost = (int) (entry >>> 32);
+
+            // Costs only go down, so an entry that doesn't match is a stale one
+            if (cost != costs[next]) {
+                continue;
+            }
+
+            int x = WorldPointUtil.unpackX(transports.origin(next));
+            int y = WorldPointUtil.unpackY(transports.origin(next));
+
+            for (int b = 0; b < blocks; b++) {
+                if (distance(x, y, blockX[b], blockY[b], BLOCK_SIZE) + cost >= blockMax[b]) {
+                    continue;
+                }
+
+                int newBlockMax = 0;
+
+                for (r = blockStart[b]; r < blockStart[b + 1]; r++) {
+                    if (distance(x, y, regionX[r], regionY[r], REGION_SIZE) + cost < regionMax[r]) {
+                        int newRegionMax = 0;
+
+                        for (d = regionStart[r]; d < regionStart[r + 1]; d++) {
+                            int viaNext = Math.max(Math.abs(destinationX[d] - x), Math.abs(destinationY[d] - y)) + cost;
+
+                            if (viaNext < remaining[d]) {
+                                remaining[d] = viaNext;
+
+                                if (1 + viaNext < costs[owner[d]]) {
+                                    costs[owner[d]] = 1 + viaNext;
+                                    boundary.add((long) costs[owner[d]] << 32 | owner[d]);
+                                }
+                            }
+
+                            newRegionMax = Math.max(newRegionMax, remaining[d]);
+                        }
+
+                        regionMax[r] = newRegionMax;
+                    }
+
+                    newBlockMax = Math.max(newBlockMax, regionMax[r]);
+                }
+
+                blockMax[b] = newBlockMax;
+            }
+        }
+
+        return costs;
+    }
+
+    /**
+     * Chebyshev distance from a tile to the nearest tile of a square.
+     */
+    private static int distance(int x, int y, int minX, int minY, int size) {
+        int dx = Math.max(0, Math.max(minX - x, x - minX - size + 1));
+        int dy = Math.max(0, Math.max(minY - y, y - minY - size + 1));
+        return Math.max(dx, dy);
+    }
+
+    int estimate(int node) {
+        int x = WorldPointUtil.unpackX(node);
+        int y = WorldPointUtil.unpackY(node);
+        int region = (x / REGION_SIZE) << 16 | (y / REGION_SIZE);
+        int[] candidates = region == lastRegion ? lastCandidates : regionCandidates.computeIfAbsent(region, this::candidates);
+        lastRegion = region;
+        lastCandidates = candidates;
+        int best = Integer.MAX_VALUE;
+
+        for (int i : candidates) {
+            best = Math.min(best, Math.max(Math.abs(x - originX[i]), Math.abs(y - originY[i])) + exitCost[i]);
+        }
+
+        return best;
+    }
+
+    /**
+     * Transports whose best case over the region is no worse than the worst case of the best one.
+     */
+    private int[] candidates(int region) {
+        int minX = (region >>> 16) * REGION_SIZE;
+        int minY = (region & 0xFFFF) * REGION_SIZE;
+        int maxX = minX + REGION_SIZE - 1;
+        int maxY = minY + REGION_SIZE - 1;
+        int bestUpper = Integer.MAX_VALUE;
+
+        for (int i = 0; i < exitCost.length; i++) {
+            int dx = Math.max(Math.abs(minX - originX[i]), Math.abs(maxX - originX[i]));
+            int dy = Math.max(Math.abs(minY - originY[i]), Math.abs(maxY - originY[i]));
+            bestUpper = Math.min(bestUpper, Math.max(dx, dy) + exitCost[i]);
+        }
+
+        int[] candidates = new int[8];
+        int count = 0;
+
+        for (int i = 0; i < exitCost.length; i++) {
+            int dx = Math.max(0, Math.max(minX - originX[i], originX[i] - maxX));
+            int dy = Math.max(0, Math.max(minY - originY[i], originY[i] - maxY));
+
+            if (Math.max(dx, dy) + exitCost[i] <= bestUpper && !dominated(i, candidates, count)) {
+                if (count == candidates.length) {
+                    candidates = Arrays.copyOf(candidates, count * 2);
+                }
+
+                candidates[count++] = i;
+            }
+        }
+
+        return Arrays.copyOf(candidates, count);
+    }
+
+    /**
+     * Whether an already picked transport is at least as good as transport {@code i} everywhere,
+     * which holds when walking from {@code i} to it and taking it is no worse than taking {@code i}.
+     */
+    private boolean dominated(int i, int[] candidates, int count) {
+        for (int c = 0; c < count; c++) {
+            int j = candidates[c];
+
+            if (exitCost[j] + Math.max(Math.abs(originX[i] - originX[j]), Math.abs(originY[i] - originY[j])) <= exitCost[i]) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
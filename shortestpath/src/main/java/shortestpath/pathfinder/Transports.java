@@ -0,0 +1,121 @@
+package shortestpath.pathfinder;
+
+import net.runelite.api.coords.WorldPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transport edges keyed by packed origin tile, built once from transports.txt.
+ */
+public class Transports {
+    private static final int[] NONE = new int[0];
+    private final IntIntHashMap index;
+    private final int[] origins;
+    private final int[][] destinations;
+    private final int maxDestinations;
+    private Transports reversed;
+
+    public Transports(Map<WorldPoint, List<WorldPoint>> transports) {
+        index = new IntIntHashMap(transports.size());
+        origins = new int[transports.size()];
+        destinations = new int[transports.size()][];
+
+        int i = 0;
+        int max = 0;
+        for (Map.Entry<WorldPoint, List<WorldPoint>> entry : transports.entrySet()) {
+            origins[i] = WorldPointUtil.pack(entry.getKey());
+            destinations[i] = new int[entry.getValue().size()];
+
+            for (int j = 0; j < destinations[i].length; j++) {
+                destinations[i][j] = WorldPointUtil.pack(entry.getValue().get(j));
+            }
+
+            index.put(origins[i], i);
+            max = Math.max(max, destinations[i].length);
+            i++;
+        }
+
+        maxDestinations = max;
+    }
+
+    private Transports(int[] origins, int[][] destinations) {
+        this.origins = origins;
+        this.destinations = destinations;
+        index = new IntIntHashMap(origins.length);
+
+        int max = 0;
+        for (int i = 0; i < origins.length; i++) {
+            index.put(origins[i], i);
+            max = Math.max(max, destinations[i].length);
+        }
+
+        maxDestinations = max;
+    }
+
+    public int[] get(int origin) {
+        int i = index.get(origin, -1);
+        return i == -1 ? NONE : destinations[i];
+    }
+
+    public int size() {
+        return origins.length;
+    }
+
+    public int origin(int i) {
+        return origins[i];
+    }
+
+    public int[] destinations(int i) {
+        return destinations[i];
+    }
+
+    public int getMaxDestinations() {
+        return maxDestinations;
+    }
+
+    /**
+     * The same edges pointing the other way, for searching backwards from the target.
+     */
+    public synchronized Transports reverse() {
+        if (reversed == null) {
+            reversed = buildReverse();
+            reversed.reversed = this;
+        }
+
+        return reversed;
+    }
+
+    private Transports buildReverse() {
+        IntIntHashMap reverseIndex = new IntIntHashMap(origins.length);
+        List<int[]> reverse = new ArrayList<>();
+        List<Integer> reverseOrigins = new ArrayList<>();
+
+        for (int i = 0; i < origins.length; i++) {
+            for (int destination : destinations[i]) {
+                int j = reverseIndex.get(destination, -1);
+
+                if (j == -1) {
+                    j = reverse.size();
+                    reverseIndex.put(destination, j);
+                    reverse.add(NONE);
+                    reverseOrigins.add(destination);
+                }
+
+                int[] sources = reverse.get(j);
+                int[] grown = new int[sources.length + 1];
+                System.arraycopy(sources, 0, grown, 0, sources.length);
+                grown[sources.length] = origins[i];
+                reverse.set(j, grown);
+            }
+        }
+
+        int[] packedOrigins = new int[reverseOrigins.size()];
+        for (int i = 0; i < packedOrigins.length; i++) {
+            packedOrigins[i] = reverseOrigins.get(i);
+        }
+
+        return new Transports(packedOrigins, reverse.toArray(new int[0][]));
+    }
+}
@@ -0,0 +1,38 @@
+package shortestpath.pathfinder;
+
+import net.runelite.api.coords.WorldPoint;
+
+/**
+ * Packs a tile into a single non-negative int: 14 bits of x, 15 bits of y and 2 bits of plane.
+ */
+public class WorldPointUtil {
+    public static final int UNDEFINED = -1;
+
+    public static int pack(int x, int y, int plane) {
+        return (x & 0x3FFF) | (y & 0x7FFF) << 14 | (plane & 0x3) << 29;
+    }
+
+    public static int pack(WorldPoint point) {
+        return pack(point.getX(), point.getY(), point.getPlane());
+    }
+
+    public static int unpackX(int packed) {
+        return packed & 0x3FFF;
+    }
+
+    public static int unpackY(int packed) {
+        return (packed >>> 14) & 0x7FFF;
+    }
+
+    public static int unpackPlane(int packed) {
+        return (packed >>> 29) & 0x3;
+    }
+
+    public static WorldPoint unpack(int packed) {
+        return new WorldPoint(unpackX(packed), unpackY(packed), unpackPlane(packed));
+    }
+
+    public static int chebyshev(int a, int b) {
+        return Math.max(Math.abs(unpackX(a) - unpackX(b)), Math.abs(unpackY(a) - unpackY(b)));
+    }
+}
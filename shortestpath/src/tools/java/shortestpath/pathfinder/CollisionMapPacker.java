@@ -0,0 +1,126 @@
+package shortestpath.pathfinder;
+
+import shortestpath.Util;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Build-time converter from the zip of gzipped per-region {@link FlagMap}s to the flat format read
+ * by {@link SplitFlagMap}. Run by the {@code packCollisionMap} Gradle task.
+ */
+public class CollisionMapPacker {
+    private static final int REGION_SIZE = 64;
+    private static final int FLAG_COUNT = 2;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: CollisionMapPacker <collision-map zip> <output>");
+        }
+
+        Map<Integer, FlagMap> regions = new HashMap<>();
+        int minRegionX = Integer.MAX_VALUE;
+        int minRegionY = Integer.MAX_VALUE;
+        int maxRegionX = Integer.MIN_VALUE;
+        int maxRegionY = Integer.MIN_VALUE;
+
+        try (ZipInputStream in = new ZipInputStream(new FileInputStream(args[0]))) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                String[] n = entry.getName().split("_");
+                int regionX = Integer.parseInt(n[0]);
+                int regionY = Integer.parseInt(n[1]);
+
+                try (InputStream region = new GZIPInputStream(new ByteArrayInputStream(Util.readAllBytes(in)))) {
+                    regions.put(regionX << 16 | regionY, new FlagMap(Util.readAllBytes(region), FLAG_COUNT));
+                }
+
+                minRegionX = Math.min(minRegionX, regionX);
+                minRegionY = Math.min(minRegionY, regionY);
+                maxRegionX = Math.max(maxRegionX, regionX);
+                maxRegionY = Math.max(maxRegionY, regionY);
+            }
+        }
+
+        int widthRegions = maxRegionX - minRegionX + 1;
+        int heightRegions = maxRegionY - minRegionY + 1;
+        int[] blocks = new int[widthRegions * heightRegions];
+        List<byte[]> data = new ArrayList<>();
+
+        for (int regionY = minRegionY; regionY <= maxRegionY; regionY++) {
+            for (int regionX = minRegionX; regionX <= maxRegionX; regionX++) {
+                FlagMap region = regions.get(regionX << 16 | regionY);
+                byte[] block = region == null ? null : pack(region, regionX, regionY);
+                blocks[(regionY - minRegionY) * widthRegions + (regionX - minRegionX)] = block == null ? -1 : data.size();
+
+                if (block != null) {
+                    data.add(block);
+                }
+            }
+        }
+
+        Path output = Paths.get(args[1]);
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(output.toFile())))) {
+            out.writeInt(SplitFlagMap.MAGIC);
+            out.writeInt(REGION_SIZE);
+            out.writeInt(FLAG_COUNT);
+            out.writeInt(minRegionX);
+            out.writeInt(minRegionY);
+            out.writeInt(widthRegions);
+            out.writeInt(heightRegions);
+
+            for (int block : blocks) {
+                out.writeInt(block);
+            }
+
+            for (byte[] block : data) {
+                out.write(block);
+            }
+        }
+    }
+
+    /**
+     * Returns the region's block, or null if no tile in it has a flag set.
+     */
+    private static byte[] pack(FlagMap region, int regionX, int regionY) {
+        byte[] block = new byte[SplitFlagMap.regionBytes(REGION_SIZE, FLAG_COUNT)];
+        boolean empty = true;
+
+        for (int z = 0; z < FlagMap.PLANE_COUNT; z++) {
+            for (int localY = 0; localY < REGION_SIZE; localY++) {
+                for (int localX = 0; localX < REGION_SIZE; localX++) {
+                    for (int flag = 0; flag < FLAG_COUNT; flag++) {
+                        if (!region.get(regionX * REGION_SIZE + localX, regionY * REGION_SIZE + localY, z, flag)) {
+                            continue;
+                        }
+
+                        int bit = ((z * REGION_SIZE + localY) * REGION_SIZE + localX) * FLAG_COUNT + flag;
+                        block[bit >>> 3] |= 1 << (bit & 7);
+                        empty = false;
+                    }
+                }
+            }
+        }
+
+        return empty ? null : block;
+    }
+}
@@ -0,0 +1,207 @@
+package shortestpath.pathfinder;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Build-time generator of the {@link HierarchicalGraph} from the packed collision map and
+ * transports.txt. Run by the {@code buildHierarchicalGraph} Gradle task.
+ */
+public class HierarchicalGraphBuilder {
+    /**
+     * Openings between clusters longer than this get an entrance every this many tiles, so a path does
+     * not have to detour far to get through a wide opening.
+     */
+    private static final int ENTRANCE_SPACING = 8;
+    private final CollisionMap map;
+    private final int clusterSize;
+    private final IntIntHashMap nodes = new IntIntHashMap(1 << 16);
+    private final List<Integer> tiles = new ArrayList<>();
+    private final List<List<int[]>> edges = new ArrayList<>();
+
+    private HierarchicalGraphBuilder(CollisionMap map) {
+        this.map = map;
+        this.clusterSize = map.getRegionSize();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            throw new IllegalArgumentException("Usage: HierarchicalGraphBuilder <collision-map.bin> <transports.txt> <output>");
+        }
+
+        CollisionMap map = new CollisionMap(ByteBuffer.wrap(Files.readAllBytes(Paths.get(args[0]))));
+        HierarchicalGraphBuilder builder = new HierarchicalGraphBuilder(map);
+        builder.addEntrances();
+        builder.addTransports(Files.readAllLines(Paths.get(args[1]), StandardCharsets.UTF_8));
+        builder.addIntraEdges();
+        builder.write(Paths.get(args[2]));
+    }
+
+    private void addEntrances() {
+        for (int regionX = map.getMinRegionX(); regionX <= map.getMaxRegionX(); regionX++) {
+            for (int regionY = map.getMinRegionY(); regionY <= map.getMaxRegionY(); regionY++) {
+                if (!map.hasRegion(regionX, regionY)) {
+                    continue;
+                }
+
+                for (int z = 0; z < FlagMap.PLANE_COUNT; z++) {
+                    int eastX = regionX * clusterSize + clusterSize - 1;
+                    int northY = regionY * clusterSize + clusterSize - 1;
+                    int runStart = -1;
+
+                    for (int i = 0; i <= clusterSize; i++) {
+                        int y = regionY * clusterSize + i;
+                        boolean open = i < clusterSize && map.e(eastX, y, z);
+
+                        if (open && runStart == -1) {
+                            runStart = i;
+                        } else if (!open && runStart != -1) {
+                            for (int offset : entranceOffsets(runStart, i - 1)) {
+                                int y2 = regionY * clusterSize + offset;
+                                addEntrance(WorldPointUtil.pack(eastX, y2, z), WorldPointUtil.pack(eastX + 1, y2, z));
+                            }
+
+                            runStart = -1;
+                        }
+                    }
+
+                    for (int i = 0; i <= clusterSize; i++) {
+                        int x = regionX * clusterSize + i;
+                        boolean open = i < clusterSize && map.n(x, northY, z);
+
+                        if (open && runStart == -1) {
+                            runStart = i;
+                        } else if (!open && runStart != -1) {
+                            for (int offset : entranceOffsets(runStart, i - 1)) {
+                                int x2 = regionX * clusterSize + offset;
+                                addEntrance(WorldPointUtil.pack(x2, northY, z), WorldPointUtil.pack(x2, northY + 1, z));
+                            }
+
+                            runStart = -1;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Both ends of an opening, and every {@link #ENTRANCE_SPACING} tiles in between. Keeping the ends
+     * means an opening that is partly in the wilderness still has a usable entrance outside it.
+     */
+    private static List<Integer> entranceOffsets(int first, int last) {
+        List<Integer> offsets = new ArrayList<>();
+
+        for (int offset = first; offset < last; offset += ENTRANCE_SPACING) {
+            offsets.add(offset);
+        }
+
+        offsets.add(last);
+        return offsets;
+    }
+
+    private void addEntrance(int a, int b) {
+        addEdge(node(a), node(b), 1, HierarchicalGraph.ENTRANCE);
+        addEdge(node(b), node(a), 1, HierarchicalGraph.ENTRANCE);
+    }
+
+    private void addTransports(List<String> lines) {
+        for (String line : lines) {
+            if (line.startsWith("#") || line.trim().isEmpty()) {
+                continue;
+            }
+
+            String[] l = line.trim().split(" ");
+            int origin = WorldPointUtil.pack(Integer.parseInt(l[0]), Integer.parseInt(l[1]), Integer.parseInt(l[2]));
+            int destination = WorldPointUtil.pack(Integer.parseInt(l[3]), Integer.parseInt(l[4]), Integer.parseInt(l[5]));
+            addEdge(node(origin), node(destination), 1, HierarchicalGraph.TRANSPORT);
+        }
+    }
+
+    private void addIntraEdges() {
+        Map<Integer, List<Integer>> clusters = new HashMap<>();
+        for (int node = 0; node < tiles.size(); node++) {
+            clusters.computeIfAbsent(HierarchicalGraph.cluster(tiles.get(node), clusterSize), k -> new ArrayList<>()).add(node);
+        }
+
+        ClusterSearch search = new ClusterSearch(map, clusterSize);
+        for (List<Integer> clusterNodes : clusters.values()) {
+            if (clusterNodes.size() < 2) {
+                continue;
+            }
+
+            for (int from : clusterNodes) {
+                search.search(tiles.get(from), tile -> false);
+
+                for (int to : clusterNodes) {
+                    int distance = search.distance(tiles.get(to));
+
+                    if (from != to && distance > 0) {
+                        addEdge(from, to, distance, HierarchicalGraph.INTRA);
+                    }
+                }
+            }
+        }
+    }
+
+    private int node(int tile) {
+        int node = nodes.get(tile, -1);
+
+        if (node == -1) {
+            node = tiles.size();
+            nodes.put(tile, node);
+            tiles.add(tile);
+            edges.add(new ArrayList<>());
+        }
+
+        return node;
+    }
+
+    private void addEdge(int from, int to, int cost, int type) {
+        edges.get(from).add(new int[]{to, cost << 2 | type});
+    }
+
+    private void write(Path output) throws IOException {
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+
+        int edgeCount = edges.stream().mapToInt(List::size).sum();
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(output.toFile())))) {
+            out.writeInt(HierarchicalGraph.MAGIC);
+            out.writeInt(clusterSize);
+            out.writeInt(tiles.size());
+            out.writeInt(edgeCount);
+
+            for (int tile : tiles) {
+                out.writeInt(tile);
+            }
+
+            int offset = 0;
+            for (List<int[]> nodeEdges : edges) {
+                out.writeInt(offset);
+                offset += nodeEdges.size();
+            }
+            out.writeInt(offset);
+
+            for (List<int[]> nodeEdges : edges) {
+                for (int[] edge : nodeEdges) {
+                    out.writeInt(edge[0]);
+                    out.writeInt(edge[1]);
+                }
+            }
+        }
+    }
+}
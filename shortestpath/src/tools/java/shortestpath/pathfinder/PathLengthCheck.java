@@ -0,0 +1,151 @@
+package shortestpath.pathfinder;
+
+import net.runelite.api.coords.WorldPoint;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Build-time check of the path lengths of every {@link SearchAlgorithm} against the breadth-first
+ * path, between random pairs of reachable tiles. A* and bidirectional search have to find paths of
+ * exactly the same length; hierarchical paths may be longer, but not by more than
+ * {@link #MAX_HIERARCHICAL_OVERHEAD} in total. Run by the {@code checkPathLengths} Gradle task.
+ */
+public class PathLengthCheck {
+    private static final double MAX_HIERARCHICAL_OVERHEAD = 0.05;
+    private final CollisionMap map;
+    private final Transports transports;
+    private final HierarchicalGraph graph;
+    private final Random random;
+
+    private PathLengthCheck(CollisionMap map, Transports transports, HierarchicalGraph graph, long seed) {
+        this.map = map;
+        this.transports = transports;
+        this.graph = graph;
+        this.random = new Random(seed);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3 || args.length > 5) {
+            throw new IllegalArgumentException("Usage: PathLengthCheck <collision-map.bin> <transports.txt> <hierarchical-graph.bin> [pairs] [seed]");
+        }
+
+        CollisionMap map = new CollisionMap(ByteBuffer.wrap(Files.readAllBytes(Paths.get(args[0]))));
+        Transports transports = new Transports(readTransports(Files.readAllLines(Paths.get(args[1]), StandardCharsets.UTF_8)));
+        HierarchicalGraph graph = new HierarchicalGraph(map, ByteBuffer.wrap(Files.readAllBytes(Paths.get(args[2]))));
+        int pairs = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 0;
+
+        List<String> failures = new PathLengthCheck(map, transports, graph, seed).run(pairs);
+
+        if (!failures.isEmpty()) {
+            failures.forEach(System.err::println);
+            throw new IllegalStateException(failures.size() + " path length check(s) failed");
+        }
+    }
+
+    private static Map<WorldPoint, List<WorldPoint>> readTransports(List<String> lines) {
+        Map<WorldPoint, List<WorldPoint>> transports = new HashMap<>();
+
+        for (String line : lines) {
+            if (line.startsWith("#") || line.isEmpty()) {
+                continue;
+            }
+
+            String[] l = line.split(" ");
+            WorldPoint a = new WorldPoint(Integer.parseInt(l[0]), Integer.parseInt(l[1]), Integer.parseInt(l[2]));
+            WorldPoint b = new WorldPoint(Integer.parseInt(l[3]), Integer.parseInt(l[4]), Integer.parseInt(l[5]));
+            transports.computeIfAbsent(a, k -> new ArrayList<>()).add(b);
+        }
+
+        return transports;
+    }
+
+    private List<String> run(int pairs) {
+        List<String> failures = new ArrayList<>();
+        long breadthFirstSteps = 0;
+        long hierarchicalSteps = 0;
+
+        for (int i = 0; i < pairs; i++) {
+            WorldPoint start = randomTile();
+            WorldPoint target = randomTile();
+            boolean avoidWilderness = random.nextBoolean();
+            int expected = length(SearchAlgorithm.BREADTH_FIRST, start, target, avoidWilderness);
+
+            // Only pairs the breadth-first search connects say anything about path length
+            if (expected < 0) {
+                i--;
+                continue;
+            }
+
+            for (SearchAlgorithm algorithm : SearchAlgorithm.values()) {
+                if (algorithm == SearchAlgorithm.BREADTH_FIRST) {
+                    continue;
+                }
+
+                int actual = length(algorithm, start, target, avoidWilderness);
+                boolean shortest = algorithm != SearchAlgorithm.HIERARCHICAL;
+
+                if (actual < 0 || actual < expected || shortest && actual != expected) {
+                    failures.add(algorithm + " from " + start + " to " + target + (avoidWilderness ? " avoiding wilderness" : "")
+                            + ": " + actual + " steps, breadth-first: " + expected);
+                }
+
+                if (algorithm == SearchAlgorithm.HIERARCHICAL && actual >= 0) {
+                    breadthFirstSteps += expected;
+                    hierarchicalSteps += actual;
+                }
+            }
+        }
+
+        double overhead = breadthFirstSteps == 0 ? 0 : (double) hierarchicalSteps / breadthFirstSteps - 1;
+        System.out.printf("%d pairs, hierarchical paths %.2f%% longer than breadth-first%n", pairs, overhead * 100);
+
+        if (overhead > MAX_HIERARCHICAL_OVERHEAD) {
+            failures.add(String.format("Hierarchical paths are %.2f%% longer in total", overhead * 100));
+        }
+
+        return failures;
+    }
+
+    /**
+     * Number of steps of the path found by the algorithm, or -1 if it didn't reach the target.
+     */
+    private int length(SearchAlgorithm algorithm, WorldPoint start, WorldPoint target, boolean avoidWilderness) {
+        List<WorldPoint> path = new Pathfinder(map, transports, graph, start, target, avoidWilderness, algorithm).find();
+
+        if (path == null || path.isEmpty() || !path.get(path.size() - 1).equals(target)) {
+            return -1;
+        }
+
+        return path.size() - 1;
+    }
+
+    private WorldPoint randomTile() {
+        int size = map.getRegionSize();
+
+        while (true) {
+            int regionX = map.getMinRegionX() + random.nextInt(map.getMaxRegionX() - map.getMinRegionX() + 1);
+            int regionY = map.getMinRegionY() + random.nextInt(map.getMaxRegionY() - map.getMinRegionY() + 1);
+
+            if (!map.hasRegion(regionX, regionY)) {
+                continue;
+            }
+
+            int x = regionX * size + random.nextInt(size);
+            int y = regionY * size + random.nextInt(size);
+
+            if (map.n(x, y, 0) || map.e(x, y, 0) || map.s(x, y, 0) || map.w(x, y, 0)) {
+                return new WorldPoint(x, y, 0);
+            }
+        }
+    }
+}
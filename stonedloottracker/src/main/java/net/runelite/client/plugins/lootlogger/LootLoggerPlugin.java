@@ -45,6 +45,8 @@ import net.runelite.client.plugins.lootlogger.data.Pet;
 import net.runelite.client.plugins.lootlogger.data.UniqueItem;
 import net.runelite.client.plugins.lootlogger.localstorage.LTItemEntry;
 import net.runelite.client.plugins.lootlogger.localstorage.LTRecord;
+import net.runelite.client.plugins.lootlogger.localstorage.LootIndex;
+import net.runelite.client.plugins.lootlogger.localstorage.LootRecordPage;
 import net.runelite.client.plugins.lootlogger.localstorage.LootRecordWriter;
 import net.runelite.client.plugins.lootlogger.ui.LootLoggerPanel;
 import net.runelite.client.plugins.loottracker.LootReceived;
@@ -174,6 +176,7 @@ public class LootLoggerPlugin extends Plugin
 
 		gotPet = false;
 		petTicks = 0;
+		writer.close();
 	}
 
 	@Subscribe
@@ -284,6 +287,20 @@ public class LootLoggerPlugin extends Plugin
 		return writer.loadLootTrackerRecords(type, name);
 	}
 
+	/**
+	 * Reads a page of records for this name, starting at the offset returned with the previous page
+	 */
+	public LootRecordPage getDataPageByName(LootRecordType type, String name, long offset, int limit)
+	{
+		final BossTab tab = BossTab.getByName(name);
+		if (tab != null)
+		{
+			name = tab.getName();
+		}
+
+		return writer.loadLootTrackerRecords(type, name, offset, limit);
+	}
+
 	/**
 	 * Creates a loot log for this name and then attaches it to the UI when finished
 	 *
@@ -293,8 +310,9 @@ public class LootLoggerPlugin extends Plugin
 	{
 		clientThread.invoke(() ->
 		{
-			final Collection<LTRecord> records = getDataByName(type, name);
-			final LootLog log = new LootLog(records, name);
+			final BossTab tab = BossTab.getByName(name);
+			final LootIndex index = writer.loadLootIndex(type, tab == null ? name : tab.getName());
+			final LootLog log = new LootLog(index, name);
 			SwingUtilities.invokeLater(() -> panel.useLog(log));
 		});
 	}
@@ -386,7 +404,7 @@ public class LootLoggerPlugin extends Plugin
 			log.debug("Received Unsired item: {}", itemDefinition.getName());
 
 			// Don't have data for sire, create a new record with just this data.
-			if (data == null)
+			if (data.isEmpty())
 			{
 				log.debug("No previous Abyssal sire loot, creating new loot record");
 				LTRecord r = new LTRecord(BossTab.ABYSSAL_SIRE.getName(), 350, -1, LootRecordType.NPC, Collections.singletonList(itemEntry));
@@ -399,7 +417,7 @@ public class LootLoggerPlugin extends Plugin
 			final List<LTRecord> items = new ArrayList<>(data);
 			final LTRecord r = items.get(items.size() - 1);
 			r.addDropEntry(itemEntry);
-			writer.writeLootTrackerFile(BossTab.ABYSSAL_SIRE.getName(), items);
+			writer.writeLootTrackerFile(LootRecordType.NPC, BossTab.ABYSSAL_SIRE.getName(), items);
 			if (config.enableUI())
 			{
 				SwingUtilities.invokeLater(panel::refreshUI);
@@ -28,7 +28,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -37,41 +36,50 @@ import lombok.Getter;
 import net.runelite.api.ItemID;
 import net.runelite.client.plugins.lootlogger.localstorage.LTItemEntry;
 import net.runelite.client.plugins.lootlogger.localstorage.LTRecord;
+import net.runelite.client.plugins.lootlogger.localstorage.LootIndex;
 import net.runelite.http.api.loottracker.LootRecordType;
 
+/**
+ * Totals for a single loot log. Only the totals are kept, records are streamed from the writer when needed.
+ */
 @Getter
 public class LootLog
 {
 	private static final Pattern CLUE_ITEM_TYPE_PATTERN = Pattern.compile("\\((\\w*)\\)");
 	private final String name;
 	private final LootRecordType type;
-	// Store all records in case rewrite needs to happen
-	private final List<LTRecord> records = new ArrayList<>();
+	private int recordCount;
+	// Kill count of the most recent record
+	private int lastKillCount = -1;
 	private final Map<Integer, LTItemEntry> consolidated = new HashMap<>();
 	private final Collection<UniqueItem> uniques;
 
 	public LootLog(final Collection<LTRecord> records, final String name)
 	{
-		this.records.addAll(records);
-		this.name = name;
+		this(name, records.isEmpty() ? LootRecordType.UNKNOWN : records.iterator().next().getType());
 
-		if (records.size() == 0)
-		{
-			this.type = LootRecordType.UNKNOWN;
-		}
-		else
+		for (final LTRecord rec : records)
 		{
-			final LTRecord record = this.records.get(0);
-			this.type = record.getType();
+			addRecord(rec);
 		}
+	}
 
-		for (final LTRecord rec : records)
+	public LootLog(final LootIndex index, final String name)
+	{
+		this(name, index.getType() == null ? LootRecordType.UNKNOWN : index.getType());
+
+		this.recordCount = index.getRecordCount();
+		this.lastKillCount = index.getLastKillCount();
+		for (final LTItemEntry entry : index.getItems().values())
 		{
-			for (final LTItemEntry entry : rec.getDrops())
-			{
-				addItemEntryToMap(entry);
-			}
+			addItemEntryToMap(entry);
 		}
+	}
+
+	private LootLog(final String name, final LootRecordType type)
+	{
+		this.name = name;
+		this.type = type;
 
 		final Collection<UniqueItem> unsorted = UniqueItem.getUniquesForBoss(name);
 		if (unsorted == null)
@@ -85,7 +93,8 @@ public class LootLog
 
 	public synchronized void addRecord(final LTRecord record)
 	{
-		records.add(record);
+		recordCount++;
+		lastKillCount = record.getKillCount();
 		for (final LTItemEntry entry : record.getDrops())
 		{
 			addItemEntryToMap(entry);
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.lootlogger.localstorage;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.Getter;
+import net.runelite.http.api.loottracker.LootRecordType;
+
+/**
+ * Running totals for a single loot log, stored next to it as `*name*.idx`.
+ * Holds everything the summary panels need so the log itself only has to be read for playback.
+ */
+@Getter
+public class LootIndex
+{
+	// Number of bytes of the log file that have been counted, anything past this still has to be read
+	private long logLength;
+	private int recordCount;
+	private int lastKillCount = -1;
+	private LootRecordType type;
+	// Item totals keyed by item id, in the order they were first received
+	private final Map<Integer, LTItemEntry> items = new LinkedHashMap<>();
+
+	void setLogLength(final long logLength)
+	{
+		this.logLength = logLength;
+	}
+
+	void add(final LTRecord record)
+	{
+		recordCount++;
+		lastKillCount = record.getKillCount();
+		if (type == null)
+		{
+			type = record.getType();
+		}
+
+		for (final LTItemEntry entry : record.getDrops())
+		{
+			final LTItemEntry oldEntry = items.get(entry.getId());
+			if (oldEntry != null)
+			{
+				// Use the most recent price
+				oldEntry.setPrice(entry.getPrice());
+				oldEntry.setQuantity(oldEntry.getQuantity() + entry.getQuantity());
+			}
+			else
+			{
+				items.put(entry.getId(), new LTItemEntry(entry.getName(), entry.getId(), entry.getQuantity(), entry.getPrice()));
+			}
+		}
+	}
+
+	LootIndex copy()
+	{
+		final LootIndex copy = new LootIndex();
+		copy.logLength = logLength;
+		copy.recordCount = recordCount;
+		copy.lastKillCount = lastKillCount;
+		copy.type = type;
+		for (final LTItemEntry entry : items.values())
+		{
+			copy.items.put(entry.getId(), new LTItemEntry(entry.getName(), entry.getId(), entry.getQuantity(), entry.getPrice()));
+		}
+		return copy;
+	}
+}
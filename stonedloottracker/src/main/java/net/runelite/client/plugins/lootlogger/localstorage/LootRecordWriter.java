@@ -26,18 +26,33 @@ package net.runelite.client.plugins.lootlogger.localstorage;
 
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.SetMultimap;
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.JsonParseException;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import lombok.extern.slf4j.Slf4j;
@@ -48,13 +63,20 @@ import net.runelite.http.api.loottracker.LootRecordType;
 /**
  * Reads & Writes LootRecord data from `*name*.log` files located in `.runelite/loots/`.
  * Data is stored as json delimited by newlines, aka JSON Lines {@see <a href="http://jsonlines.org">http://jsonlines.org</a>}
+ * <p>
+ * Each log has a {@link LootIndex} stored next to it as `*name*.idx` which is kept up to date as records are added.
+ * Logs that are being written to are kept open and flushed, along with their index, shortly after the last write
+ * so a burst of kills only touches the disk once.
  */
 @Slf4j
 @Singleton
 public class LootRecordWriter
 {
 	private static final String FILE_EXTENSION = ".log";
+	private static final String INDEX_EXTENSION = ".idx";
 	private static final File LOOT_RECORD_DIR = new File(RUNELITE_DIR, "loots");
+	private static final long FLUSH_DELAY_MS = 1000;
+	private static final int MAX_OPEN_LOGS = 8;
 
 	// Data is stored in a folder with the players username (login name)
 	private File playerFolder = LOOT_RECORD_DIR;
@@ -62,19 +84,26 @@ public class LootRecordWriter
 	private final Map<LootRecordType, File> eventFolders = new HashMap<>();
 	private String name;
 
+	// Logs with an open append stream, least recently used first
+	private final Map<File, OpenLog> openLogs = new LinkedHashMap<>(16, 0.75f, true);
+	private final ScheduledExecutorService flushExecutor = Executors.newSingleThreadScheduledExecutor(
+		new ThreadFactoryBuilder().setNameFormat("loot-logger-writer").setDaemon(true).build());
+	private ScheduledFuture<?> pendingFlush;
+
 	@Inject
 	public LootRecordWriter()
 	{
 		LOOT_RECORD_DIR.mkdir();
 	}
 
-	public void setPlayerUsername(final String username)
+	public synchronized void setPlayerUsername(final String username)
 	{
 		if (username.equalsIgnoreCase(name))
 		{
 			return;
 		}
 
+		close();
 		playerFolder = new File(LOOT_RECORD_DIR, username);
 		playerFolder.mkdir();
 		name = username;
@@ -97,7 +126,13 @@ public class LootRecordWriter
 		return npcName.toLowerCase().trim() + FILE_EXTENSION;
 	}
 
-	public SetMultimap<LootRecordType, String> getKnownFileNames()
+	private static File indexFile(final File lootFile)
+	{
+		final String fileName = lootFile.getName();
+		return new File(lootFile.getParentFile(), fileName.substring(0, fileName.length() - FILE_EXTENSION.length()) + INDEX_EXTENSION);
+	}
+
+	public synchronized SetMultimap<LootRecordType, String> getKnownFileNames()
 	{
 		final SetMultimap<LootRecordType, String> fileNames = HashMultimap.create();
 
@@ -116,6 +151,21 @@ public class LootRecordWriter
 		return fileNames;
 	}
 
+	/**
+	 * Returns the totals for a log without reading its records, unless the index is missing or behind the log.
+	 */
+	public synchronized LootIndex loadLootIndex(final LootRecordType recordType, final String npcName)
+	{
+		final File lootFile = new File(eventFolders.get(recordType), npcNameToFileName(npcName));
+		final OpenLog openLog = openLogs.get(lootFile);
+		if (openLog != null)
+		{
+			return openLog.index.copy();
+		}
+
+		return loadIndex(lootFile);
+	}
+
 	public synchronized Collection<LTRecord> loadLootTrackerRecords(LootRecordType recordType, String npcName)
 	{
 		return loadLootTrackerRecords(npcName, eventFolders.get(recordType));
@@ -129,32 +179,10 @@ public class LootRecordWriter
 		final File file = new File(folder, fileName);
 		final Collection<LTRecord> data = new ArrayList<>();
 
-		StringBuilder sb = new StringBuilder();
-
-		try (final BufferedReader br = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8)))
+		try
 		{
-			// read line by line
-			String line;
-			int totalBrackets = 0;
-			while ((line = br.readLine()) != null)
-			{
-				if (line.contains("{"))
-				{
-					totalBrackets++;
-				}
-				if (line.contains("}"))
-				{
-					totalBrackets--;
-				}
-				sb.append(line);
-
-				if (totalBrackets == 0 && sb.length() > 0)
-				{
-					final LTRecord r = RuneLiteAPI.GSON.fromJson(sb.toString(), LTRecord.class);
-					data.add(r);
-					sb.setLength(0);
-				}
-			}
+			flushLog(file);
+			readRecords(file, 0, Integer.MAX_VALUE, data::add);
 		}
 		catch (FileNotFoundException e)
 		{
@@ -168,6 +196,33 @@ public class LootRecordWriter
 		return data;
 	}
 
+	/**
+	 * Reads up to `limit` records starting at the byte offset returned by the previous page, or 0 for the first page.
+	 */
+	public synchronized LootRecordPage loadLootTrackerRecords(LootRecordType recordType, String npcName, long offset, int limit)
+	{
+		final String fileName = npcNameToFileName(npcName);
+		final File file = new File(eventFolders.get(recordType), fileName);
+		final List<LTRecord> data = new ArrayList<>();
+
+		try
+		{
+			flushLog(file);
+			final long nextOffset = readRecords(file, offset, limit, data::add);
+			return new LootRecordPage(data, nextOffset, data.size() < limit || nextOffset >= file.length());
+		}
+		catch (FileNotFoundException e)
+		{
+			log.debug("File not found: {}", fileName);
+		}
+		catch (IOException e)
+		{
+			log.warn("IOException for file {}: {}", fileName, e.getMessage());
+		}
+
+		return new LootRecordPage(data, offset, true);
+	}
+
 	public synchronized boolean addLootTrackerRecord(LTRecord rec)
 	{
 		// Grab file
@@ -175,20 +230,23 @@ public class LootRecordWriter
 		final File lootFile = new File(eventFolders.get(rec.getType()), fileName);
 
 		// Convert entry to JSON
-		final String dataAsString = RuneLiteAPI.GSON.toJson(rec);
+		final byte[] data = (RuneLiteAPI.GSON.toJson(rec) + "\n").getBytes(StandardCharsets.UTF_8);
 
-		// Open File in append mode and write new data
 		try
 		{
-			final BufferedWriter file = new BufferedWriter(new FileWriter(String.valueOf(lootFile), StandardCharsets.UTF_8, true));
-			file.append(dataAsString);
-			file.newLine();
-			file.close();
+			final OpenLog openLog = openLog(lootFile);
+			openLog.out.write(data);
+			openLog.index.add(rec);
+			openLog.index.setLogLength(openLog.index.getLogLength() + data.length);
+			openLog.dirty = true;
+			scheduleFlush();
 			return true;
 		}
 		catch (IOException ioe)
 		{
 			log.warn("Error writing loot data to file {}: {}", fileName, ioe.getMessage());
+			// The index on disk is behind the log now, it'll catch up the next time it's opened
+			discardLog(lootFile);
 			return false;
 		}
 	}
@@ -198,6 +256,9 @@ public class LootRecordWriter
 		final String fileName = npcNameToFileName(npcName);
 		final File lootFile = new File(eventFolders.get(type), fileName);
 
+		discardLog(lootFile);
+		indexFile(lootFile).delete();
+
 		if (lootFile.delete())
 		{
 			log.debug("Deleted loot file: {}", fileName);
@@ -214,29 +275,338 @@ public class LootRecordWriter
 	 * Writes an entire log file based on the passed collection.
 	 * Used when you need to adjust previous data and not just append, such as receiving a pet.
 	 */
-	public synchronized boolean writeLootTrackerFile(final String npcName, final Collection<LTRecord> loots)
+	public synchronized boolean writeLootTrackerFile(final LootRecordType type, final String npcName, final Collection<LTRecord> loots)
 	{
 		final String fileName = npcNameToFileName(npcName);
-		final File lootFile = new File(playerFolder, fileName);
+		final File lootFile = new File(eventFolders.get(type), fileName);
 
-		try
+		discardLog(lootFile);
+
+		final LootIndex index = new LootIndex();
+		try (final OutputStream file = new BufferedOutputStream(new FileOutputStream(lootFile, false)))
 		{
-			final BufferedWriter file = new BufferedWriter(new FileWriter(String.valueOf(lootFile), StandardCharsets.UTF_8, false));
 			for (final LTRecord rec : loots)
 			{
 				// Convert entry to JSON
-				final String dataAsString = RuneLiteAPI.GSON.toJson(rec);
-				file.append(dataAsString);
-				file.newLine();
+				final byte[] data = (RuneLiteAPI.GSON.toJson(rec) + "\n").getBytes(StandardCharsets.UTF_8);
+				file.write(data);
+				index.add(rec);
+				index.setLogLength(index.getLogLength() + data.length);
 			}
-			file.close();
-
-			return true;
 		}
 		catch (IOException ioe)
 		{
 			log.warn("Error rewriting loot data to file {}: {}", fileName, ioe.getMessage());
+			indexFile(lootFile).delete();
 			return false;
 		}
+
+		saveIndex(indexFile(lootFile), index);
+		return true;
+	}
+
+	/**
+	 * Writes out everything that is waiting to be flushed.
+	 */
+	public synchronized void flush()
+	{
+		pendingFlush = null;
+		for (final Map.Entry<File, OpenLog> entry : openLogs.entrySet())
+		{
+			flush(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Flushes and closes every open log.
+	 */
+	public synchronized void close()
+	{
+		flush();
+		for (final OpenLog openLog : openLogs.values())
+		{
+			closeQuietly(openLog.out);
+		}
+		openLogs.clear();
+
+		if (pendingFlush != null)
+		{
+			pendingFlush.cancel(false);
+			pendingFlush = null;
+		}
+	}
+
+	private void scheduleFlush()
+	{
+		if (pendingFlush == null)
+		{
+			pendingFlush = flushExecutor.schedule(() -> flush(), FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private void flushLog(final File lootFile)
+	{
+		final OpenLog openLog = openLogs.get(lootFile);
+		if (openLog != null)
+		{
+			flush(lootFile, openLog);
+		}
+	}
+
+	private void flush(final File lootFile, final OpenLog openLog)
+	{
+		if (!openLog.dirty)
+		{
+			return;
+		}
+
+		try
+		{
+			openLog.out.flush();
+			openLog.dirty = false;
+			// Only written once the records it counts are on disk, so it can never be ahead of the log
+			saveIndex(indexFile(lootFile), openLog.index);
+		}
+		catch (IOException ioe)
+		{
+			log.warn("Error flushing loot data to file {}: {}", lootFile.getName(), ioe.getMessage());
+		}
+	}
+
+	private OpenLog openLog(final File lootFile) throws IOException
+	{
+		OpenLog openLog = openLogs.get(lootFile);
+		if (openLog != null)
+		{
+			return openLog;
+		}
+
+		final LootIndex index = loadIndex(lootFile);
+		openLog = new OpenLog(new BufferedOutputStream(new FileOutputStream(lootFile, true)), index);
+		openLogs.put(lootFile, openLog);
+
+		if (openLogs.size() > MAX_OPEN_LOGS)
+		{
+			final Iterator<Map.Entry<File, OpenLog>> it = openLogs.entrySet().iterator();
+			final Map.Entry<File, OpenLog> eldest = it.next();
+			flush(eldest.getKey(), eldest.getValue());
+			closeQuietly(eldest.getValue().out);
+			it.remove();
+		}
+
+		return openLog;
+	}
+
+	/**
+	 * Closes a log without writing its index, used before the log file is replaced or removed.
+	 */
+	private void discardLog(final File lootFile)
+	{
+		final OpenLog openLog = openLogs.remove(lootFile);
+		if (openLog != null)
+		{
+			closeQuietly(openLog.out);
+		}
+	}
+
+	/**
+	 * Loads the index for a log that isn't open, reading whatever part of the log it hasn't counted yet.
+	 */
+	private LootIndex loadIndex(final File lootFile)
+	{
+		final File indexFile = indexFile(lootFile);
+		final long length = lootFile.length();
+
+		final LootIndex stored = readIndex(indexFile);
+		// The log was rewritten or truncated by something else, start over
+		final LootIndex index = stored == null || stored.getLogLength() > length ? new LootIndex() : stored;
+		boolean changed = index != stored;
+
+		if (index.getLogLength() < length)
+		{
+			try
+			{
+				index.setLogLength(readRecords(lootFile, index.getLogLength(), Integer.MAX_VALUE, index::add));
+				changed = true;
+			}
+			catch (IOException e)
+			{
+				log.warn("IOException indexing file {}: {}", lootFile.getName(), e.getMessage());
+				return index;
+			}
+		}
+
+		if (changed && length > 0)
+		{
+			saveIndex(indexFile, index);
+		}
+
+		return index;
+	}
+
+	private static LootIndex readIndex(final File indexFile)
+	{
+		if (!indexFile.exists())
+		{
+			return null;
+		}
+
+		try (final Reader reader = Files.newBufferedReader(indexFile.toPath(), StandardCharsets.UTF_8))
+		{
+			return RuneLiteAPI.GSON.fromJson(reader, LootIndex.class);
+		}
+		catch (IOException | JsonParseException e)
+		{
+			log.warn("Couldn't read loot index {}, rebuilding it: {}", indexFile.getName(), e.getMessage());
+			return null;
+		}
+	}
+
+	private static void saveIndex(final File indexFile, final LootIndex index)
+	{
+		final File tempFile = new File(indexFile.getParentFile(), indexFile.getName() + ".tmp");
+		try
+		{
+			try (final Writer writer = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8))
+			{
+				RuneLiteAPI.GSON.toJson(index, writer);
+			}
+			Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException ioe)
+		{
+			log.warn("Error writing loot index {}: {}", indexFile.getName(), ioe.getMessage());
+		}
+	}
+
+	/**
+	 * Reads up to `limit` records from the log starting at the given byte offset.
+	 * Records may span several lines, in which case they're joined back together by counting brackets.
+	 *
+	 * @return the offset just past the last line read
+	 */
+	private static long readRecords(final File file, final long offset, final int limit, final Consumer<LTRecord> consumer) throws IOException
+	{
+		try (final FileInputStream fis = new FileInputStream(file))
+		{
+			fis.getChannel().position(offset);
+			final byte[] buffer = new byte[8192];
+			final ByteArrayOutputStream line = new ByteArrayOutputStream();
+			final StringBuilder sb = new StringBuilder();
+			long position = offset;
+			long end = offset;
+			int totalBrackets = 0;
+			int count = 0;
+			int read = 0;
+			int index = 0;
+
+			while (count < limit)
+			{
+				if (index == read)
+				{
+					read = fis.read(buffer);
+					index = 0;
+					if (read == -1)
+					{
+						break;
+					}
+					continue;
+				}
+
+				// Find the end of the current line
+				int lineEnd = index;
+				while (lineEnd < read && buffer[lineEnd] != '\n')
+				{
+					lineEnd++;
+				}
+
+				line.write(buffer, index, lineEnd - index);
+				position += lineEnd - index;
+				index = lineEnd;
+				if (lineEnd == read)
+				{
+					continue;
+				}
+
+				// Skip past the newline
+				index++;
+				position++;
+
+				final String text = line.toString(StandardCharsets.UTF_8).trim();
+				line.reset();
+				end = position;
+
+				if (text.contains("{"))
+				{
+					totalBrackets++;
+				}
+				if (text.contains("}"))
+				{
+					totalBrackets--;
+				}
+				sb.append(text);
+
+				if (totalBrackets == 0 && sb.length() > 0)
+				{
+					parseRecord(file, sb.toString(), consumer);
+					sb.setLength(0);
+					count++;
+				}
+			}
+
+			// The last line may be missing its newline
+			if (count < limit && line.size() > 0)
+			{
+				sb.append(line.toString(StandardCharsets.UTF_8).trim());
+				end = position;
+				if (sb.length() > 0)
+				{
+					parseRecord(file, sb.toString(), consumer);
+				}
+			}
+
+			return end;
+		}
+	}
+
+	private static void parseRecord(final File file, final String json, final Consumer<LTRecord> consumer)
+	{
+		try
+		{
+			final LTRecord r = RuneLiteAPI.GSON.fromJson(json, LTRecord.class);
+			if (r != null)
+			{
+				consumer.accept(r);
+			}
+		}
+		catch (JsonParseException e)
+		{
+			log.warn("Skipping malformed loot record in {}: {}", file.getName(), e.getMessage());
+		}
+	}
+
+	private static void closeQuietly(final OutputStream out)
+	{
+		try
+		{
+			out.close();
+		}
+		catch (IOException ioe)
+		{
+			log.warn("Error closing loot file: {}", ioe.getMessage());
+		}
+	}
+
+	private static class OpenLog
+	{
+		private final OutputStream out;
+		private final LootIndex index;
+		private boolean dirty;
+
+		private OpenLog(final OutputStream out, final LootIndex index)
+		{
+			this.out = out;
+			this.index = index;
+		}
 	}
-}
\ No newline at end of file
+}
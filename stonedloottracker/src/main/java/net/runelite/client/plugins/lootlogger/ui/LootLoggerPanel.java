@@ -322,7 +322,8 @@ public class LootLoggerPanel extends PluginPanel
 		final ScheduledExecutorService ex = Executors.newSingleThreadScheduledExecutor();
 		if (lootLog != null)
 		{
-			ex.schedule(lootPanel::playback, 0, TimeUnit.SECONDS);
+			final LootPanel panel = lootPanel;
+			ex.schedule(() -> panel.playback(plugin), 0, TimeUnit.SECONDS);
 		}
 	}
 }
\ No newline at end of file
@@ -29,8 +29,8 @@ import com.google.common.collect.Multimap;
 import java.awt.Color;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Set;
@@ -44,11 +44,13 @@ import lombok.extern.slf4j.Slf4j;
 import net.runelite.client.game.ItemManager;
 import net.runelite.client.plugins.lootlogger.ItemSortTypes;
 import net.runelite.client.plugins.lootlogger.LootLoggerConfig;
+import net.runelite.client.plugins.lootlogger.LootLoggerPlugin;
 import net.runelite.client.plugins.lootlogger.UniqueItemPlacement;
 import net.runelite.client.plugins.lootlogger.data.LootLog;
 import net.runelite.client.plugins.lootlogger.data.UniqueItem;
 import net.runelite.client.plugins.lootlogger.localstorage.LTItemEntry;
 import net.runelite.client.plugins.lootlogger.localstorage.LTRecord;
+import net.runelite.client.plugins.lootlogger.localstorage.LootRecordPage;
 import net.runelite.client.ui.ColorScheme;
 import net.runelite.client.ui.FontManager;
 import net.runelite.client.ui.components.shadowlabel.JShadowedLabel;
@@ -56,6 +58,8 @@ import net.runelite.client.ui.components.shadowlabel.JShadowedLabel;
 @Slf4j
 class LootPanel extends JPanel
 {
+	private static final int PLAYBACK_PAGE_SIZE = 100;
+
 	private final LootLog lootLog;
 	private final LootLoggerConfig config;
 	private final ItemManager itemManager;
@@ -92,7 +96,7 @@ class LootPanel extends JPanel
 		final Set<Integer> uniqueIds = new HashSet<>();
 
 		// Attach Kill Count Panel(s)
-		final int amount = lootLog.getRecords().size();
+		final int amount = lootLog.getRecordCount();
 		String currentText;
 		String loggedText;
 
@@ -132,15 +136,11 @@ class LootPanel extends JPanel
 		this.add(titleLabel("Statistics"), c);
 		c.gridy++;
 
-		if (amount > 0)
+		if (amount > 0 && lootLog.getLastKillCount() != -1)
 		{
-			final LTRecord entry = lootLog.getRecords().get(amount - 1);
-			if (entry.getKillCount() != -1)
-			{
-				final TextPanel p = new TextPanel(currentText, entry.getKillCount());
-				this.add(p, c);
-				c.gridy++;
-			}
+			final TextPanel p = new TextPanel(currentText, lootLog.getLastKillCount());
+			this.add(p, c);
+			c.gridy++;
 		}
 
 		final TextPanel p2 = new TextPanel(loggedText, amount);
@@ -246,7 +246,7 @@ class LootPanel extends JPanel
 		this.repaint();
 	}
 
-	void playback()
+	void playback(final LootLoggerPlugin plugin)
 	{
 		if (playbackPlaying)
 		{
@@ -256,14 +256,24 @@ class LootPanel extends JPanel
 
 		playbackPlaying = true;
 
-		if (lootLog.getRecords().size() > 0)
+		// Records are read a page at a time and only touched on the swing thread, so the playback log is never copied
+		final LootLog playbackLog = new LootLog(Collections.emptyList(), lootLog.getName());
+		long offset = 0;
+		boolean last = lootLog.getRecordCount() == 0;
+		playback:
+		while (!last)
 		{
-			final Collection<LTRecord> recs = new ArrayList<>();
-			for (final LTRecord r : lootLog.getRecords())
-			{
-				recs.add(r);
+			final LootRecordPage page = plugin.getDataPageByName(lootLog.getType(), lootLog.getName(), offset, PLAYBACK_PAGE_SIZE);
+			offset = page.getNextOffset();
+			last = page.isLast();
 
-				SwingUtilities.invokeLater(() -> refreshPlayback(new LootLog(recs, lootLog.getName())));
+			for (final LTRecord r : page.getRecords())
+			{
+				SwingUtilities.invokeLater(() ->
+				{
+					playbackLog.addRecord(r);
+					refreshPlayback(playbackLog);
+				});
 				try
 				{
 					if (cancelPlayback)
@@ -271,7 +281,7 @@ class LootPanel extends JPanel
 						playbackPlaying = false;
 						cancelPlayback = false;
 						SwingUtilities.invokeLater(() -> refreshPlayback(lootLog));
-						break;
+						break playback;
 					}
 
 					// TODO: Allow this rate to be configurable?
@@ -2,36 +2,51 @@ package com.xpgrapher;
 
 import net.runelite.api.Skill;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.EnumMap;
 import java.util.Map;
 
 public class XpDataManager {
 
-    private Map<Skill, ArrayList> skillXpMap = new HashMap<Skill, ArrayList>();
+    private static final int SESSION_FILE_VERSION = 1;
+
+    private Map<Skill, XpSeries> skillXpMap = new EnumMap<Skill, XpSeries>(Skill.class);
 
     private XpGrapherPlugin grapherPlugin;
 
+    private long startTime;
+    private long lastUpdateTime;
+
     public XpDataManager(XpGrapherPlugin grapherPlugin) {
 
         this.grapherPlugin = grapherPlugin;
+        this.startTime = System.currentTimeMillis();
+        this.lastUpdateTime = startTime;
 
         for (int i = 0; i < grapherPlugin.skillList.length; i++) {
-            ArrayList<Integer> newXpList = new ArrayList<Integer>();
-            skillXpMap.put(grapherPlugin.skillList[i], newXpList);
+            skillXpMap.put(grapherPlugin.skillList[i], new XpSeries());
         }
 
     }
 
     public void update() {
+        lastUpdateTime = System.currentTimeMillis();
+
         for (int i = 0; i < grapherPlugin.skillList.length; i++) {
             Skill skillToUpdate = grapherPlugin.skillList[i];
-            ArrayList<Integer> xpListToUpdate = skillXpMap.get(skillToUpdate);
+            XpSeries seriesToUpdate = skillXpMap.get(skillToUpdate);
             int xpValueToAdd = grapherPlugin.getClient().getSkillExperience(skillToUpdate);
 
-            if (xpListToUpdate.size() > 0) {
+            if (seriesToUpdate.size() > 0) {
 
-                int lastXpValue = xpListToUpdate.get(xpListToUpdate.size() - 1);
+                int lastXpValue = seriesToUpdate.getLatest();
                 if (lastXpValue < xpValueToAdd)
                     if (skillToUpdate.getName() != "Overall") {
                         grapherPlugin.xpGraphPointManager.isSkillShownMap.put(skillToUpdate, true);
@@ -41,21 +56,75 @@ public class XpDataManager {
 
             }
 
-            xpListToUpdate.add(xpValueToAdd);
+            seriesToUpdate.add(xpValueToAdd);
             //if (xpValueToAdd > lastXpValue)
             //    grapherPlugin.xpGraphPointManager.isSkillShownMap.put(skillToUpdate, true);
         }
     }
 
     public int getXpData(Skill skillToGet, int tickNum) {
-        ArrayList<Integer> xpListToGet = skillXpMap.get(skillToGet);
-        int xpValueAtTickNum = xpListToGet.get(tickNum);
-        return xpValueAtTickNum;
+        return skillXpMap.get(skillToGet).get(tickNum);
+    }
+
+    public int getStartingXp(Skill skillToGet) {
+        return skillXpMap.get(skillToGet).getFirst();
     }
 
     public int getMostRecentXp(Skill skillToGet) {
-        ArrayList<Integer> xpListToGet = skillXpMap.get(skillToGet);
-        return xpListToGet.get(xpListToGet.size()-1);
+        return skillXpMap.get(skillToGet).getLatest();
+    }
+
+    public int getTickCount() {
+        return skillXpMap.get(grapherPlugin.skillList[0]).size();
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getLastUpdateTime() {
+        return lastUpdateTime;
+    }
+
+    public void save(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(SESSION_FILE_VERSION);
+            out.writeLong(startTime);
+            out.writeLong(lastUpdateTime);
+            out.writeInt(skillXpMap.size());
+
+            for (Map.Entry<Skill, XpSeries> entry : skillXpMap.entrySet()) {
+                out.writeUTF(entry.getKey().name());
+                entry.getValue().write(out);
+            }
+        }
+    }
+
+    /**
+     * Reads a session written by {@link #save}, so it can be graphed again.
+     */
+    public static XpDataManager load(XpGrapherPlugin grapherPlugin, File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != SESSION_FILE_VERSION)
+                throw new IOException("Unsupported session file version");
+
+            XpDataManager dataManager = new XpDataManager(grapherPlugin);
+            dataManager.startTime = in.readLong();
+            dataManager.lastUpdateTime = in.readLong();
+
+            int skillCount = in.readInt();
+            for (int i = 0; i < skillCount; i++) {
+                String skillName = in.readUTF();
+                XpSeries series = XpSeries.read(in);
+
+                for (Skill skill : grapherPlugin.skillList) {
+                    if (skill.name().equals(skillName))
+                        dataManager.skillXpMap.put(skill, series);
+                }
+            }
+
+            return dataManager;
+        }
     }
 
 }
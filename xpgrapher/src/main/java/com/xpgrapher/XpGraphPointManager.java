@@ -2,15 +2,13 @@ package com.xpgrapher;
 
 import net.runelite.api.Skill;
 
-import java.lang.reflect.Array;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 
 public class XpGraphPointManager {
 
     private XpGrapherPlugin grapherPlugin;
-    private Map<Skill, ArrayList> skillGraphPointsMap = new HashMap<Skill, ArrayList>();
+    private Map<Skill, int[]> skillGraphPointsMap = new HashMap<Skill, int[]>();
     public Map<Skill, Boolean> isSkillShownMap = new HashMap<Skill, Boolean>();
 
     public int maxVertAxisValue = 0;
@@ -33,8 +31,7 @@ public class XpGraphPointManager {
         this.grapherPlugin = grapherPlugin;
 
         for (int i = 0; i < grapherPlugin.skillList.length; i++) {
-            ArrayList<Integer> newGraphPointList = new ArrayList<Integer>();
-            skillGraphPointsMap.put(grapherPlugin.skillList[i], newGraphPointList);
+            skillGraphPointsMap.put(grapherPlugin.skillList[i], new int[0]);
             isSkillShownMap.put(grapherPlugin.skillList[i], false);
         }
 
@@ -45,18 +42,21 @@ public class XpGraphPointManager {
     }
 
     public int getGraphPointData(Skill skillToGraph, int x) {
-        ArrayList<Integer> skillGraphData = skillGraphPointsMap.get(skillToGraph);
+        int[] skillGraphData = skillGraphPointsMap.get(skillToGraph);
         //System.out.println(skillToGraph.getName());
-        if (skillGraphData.size() == 0)
+        if (x >= skillGraphData.length)
             return grapherPlugin.graphHeight;
         else {
-            int y = skillGraphData.get(x);
+            int y = skillGraphData[x];
             return y;
         }
 
     }
 
-    public ArrayList<Integer> getGraphPointDataList(Skill theSkill) {
+    /**
+     * Returns the y of every x of the graph, as of the last update. Only shown skills are kept up to date.
+     */
+    public int[] getGraphPoints(Skill theSkill) {
         return skillGraphPointsMap.get(theSkill);
     }
 
@@ -69,9 +69,8 @@ public class XpGraphPointManager {
             Skill skillToCheck = grapherPlugin.skillList[i];
 
             if (grapherPlugin.isSkillShown(skillToCheck)) {
-                int skillMinXp = grapherPlugin.xpDataManager.getXpData(skillToCheck, 0);
-                //System.out.println(grapherPlugin.tickCount);
-                int skillMaxXp = grapherPlugin.xpDataManager.getXpData(skillToCheck, grapherPlugin.tickCount);
+                int skillMinXp = grapherPlugin.xpDataManager.getStartingXp(skillToCheck);
+                int skillMaxXp = grapherPlugin.xpDataManager.getMostRecentXp(skillToCheck);
                 int skillXpGained = skillMaxXp - skillMinXp;
                 if (maxXpGained == -1 || skillXpGained > maxXpGained)
                     maxXpGained = skillXpGained;
@@ -91,47 +90,43 @@ public class XpGraphPointManager {
         }
         maxVertAxisValue = xpGraphMaxValues[maxXpIndex];
 
+        int tickCount = grapherPlugin.xpDataManager.getTickCount();
+
         for (int i = 0; i < grapherPlugin.skillList.length; i++) {
 
             Skill skillToUpdate = grapherPlugin.skillList[i];
 
-            ArrayList<Integer> newGraphPointList = new ArrayList<Integer>();
+            // Hidden skills aren't drawn, so their points are only worked out once they're shown
+            if (!grapherPlugin.isSkillShown(skillToUpdate))
+                continue;
+
+            int[] newGraphPoints = new int[grapherPlugin.graphWidth];
+            int dataXpMinValue = grapherPlugin.xpDataManager.getStartingXp(skillToUpdate);
 
             for (int x = 0; x < grapherPlugin.graphWidth; x++) {
 
                 double ratioAcrossGraph = (double)x/((double)grapherPlugin.graphWidth);
 
-                int dataIndex = (int)(Math.floor(ratioAcrossGraph*(grapherPlugin.tickCount+1)));
-
-                //int ceilDataIndex = (int)(Math.ceil(ratioAcrossGraph*(grapherPlugin.tickCount)));
-                //int floorDataIndex = (int)(Math.floor(ratioAcrossGraph*(grapherPlugin.tickCount)));
-                //System.out.println(ceilDataIndex + ", " + floorDataIndex);
+                int dataIndex = (int)(Math.floor(ratioAcrossGraph*tickCount));
 
                 int dataXpValue = grapherPlugin.xpDataManager.getXpData(skillToUpdate, dataIndex);
                 if (x == 0) {
-                    dataXpValue = grapherPlugin.xpDataManager.getXpData(skillToUpdate, 0);
+                    dataXpValue = dataXpMinValue;
                 }
                 if (x == grapherPlugin.graphWidth - 1) {
                     dataXpValue = grapherPlugin.xpDataManager.getMostRecentXp(skillToUpdate);
                 }
 
-                int dataXpMinValue = grapherPlugin.xpDataManager.getXpData(skillToUpdate, 0);
                 int dataXpGained = dataXpValue -  dataXpMinValue;
 
                 double ratioVertical = dataXpGained/(double) maxVertAxisValue;
                 int y = grapherPlugin.graphHeight - (int)((double)grapherPlugin.graphHeight*ratioVertical);
 
-                //if (x == grapherPlugin.graphWidth-1) {
-                //
-                //    dataXpValue = grapherPlugin.getClient().getSkillExperience(skillToUpdate);
-                //
-                //}
-
-                newGraphPointList.add(y);
+                newGraphPoints[x] = y;
 
             }
 
-            skillGraphPointsMap.put(skillToUpdate, newGraphPointList);
+            skillGraphPointsMap.put(skillToUpdate, newGraphPoints);
         }
 
     }
@@ -108,6 +108,22 @@ public interface XpGrapherConfig extends Config
 	)
 	default int graphBackgroundTransparency() { return 70; }
 
+	@ConfigItem(
+			position = 9,
+			keyName = "saveSessions",
+			name = "Save Sessions",
+			description = "Saves the graph data to .runelite/xpgrapher when the graph is reset or the plugin is turned off."
+	)
+	default boolean saveSessions() { return false; }
+
+	@ConfigItem(
+			position = 10,
+			keyName = "replaySession",
+			name = "Replay Session",
+			description = "Name of a saved session file to show instead of the live graph. Clear it to start a new graph."
+	)
+	default String replaySession() { return ""; }
+
 
 
 	@ConfigItem(
@@ -219,11 +219,12 @@ public class XpGrapherOverlay extends OverlayPanel {
 
                 if (grapherPlugin.isSkillShown(skillToGraph)) {
 
+                    int[] graphPoints = grapherPlugin.xpGraphPointManager.getGraphPoints(skillToGraph);
                     int oldX = -1;
                     int oldY = -1;
                     for (int x = 0; x < grapherPlugin.graphWidth; x++) {
 
-                        int y = grapherPlugin.xpGraphPointManager.getGraphPointData(skillToGraph, x);
+                        int y = x < graphPoints.length ? graphPoints[x] : grapherPlugin.graphHeight;
                         if (y >= 0) {
                             graphics.drawLine(marginGraphLeft+x, marginGraphTop+y, marginGraphLeft+x, marginGraphTop+y);
                             graphics.drawLine(marginGraphLeft+x, marginGraphTop+y+1, marginGraphLeft+x, marginGraphTop+y+1);
@@ -345,14 +346,10 @@ public class XpGrapherOverlay extends OverlayPanel {
 
             //xp rate data
             if (grapherPlugin.config.displayXpRate() && grapherPlugin.currentlyGraphedSkills.size() > 0) {
-                int endingSkillXp;
-                if (grapherPlugin.tickCount > 0)
-                    endingSkillXp = grapherPlugin.xpDataManager.getXpData(grapherPlugin.mostRecentSkillGained, grapherPlugin.tickCount-1);
-                else
-                    endingSkillXp = grapherPlugin.xpDataManager.getXpData(grapherPlugin.mostRecentSkillGained, 0);
-                int startingSkillXp = grapherPlugin.xpDataManager.getXpData(grapherPlugin.mostRecentSkillGained, 0);
+                int endingSkillXp = grapherPlugin.xpDataManager.getMostRecentXp(grapherPlugin.mostRecentSkillGained);
+                int startingSkillXp = grapherPlugin.xpDataManager.getStartingXp(grapherPlugin.mostRecentSkillGained);
                 int xpGained = endingSkillXp - startingSkillXp;
-                long msPassed = System.currentTimeMillis() - grapherPlugin.startTime;
+                long msPassed = grapherPlugin.currentTime - grapherPlugin.startTime;
                 long secPassed = msPassed/1000;
                 double xpPerSecond = (double)xpGained/secPassed;
                 double xpPerHour = xpPerSecond*60*60;
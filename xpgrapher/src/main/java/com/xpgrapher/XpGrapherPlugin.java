@@ -17,10 +17,17 @@ import net.runelite.client.plugins.PluginType;
 import net.runelite.client.ui.overlay.OverlayManager;
 
 import java.awt.*;
+import java.io.File;
+import java.io.IOException;
 import java.sql.Time;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import org.pf4j.Extension;
 
+import static net.runelite.client.RuneLite.RUNELITE_DIR;
+
 @Extension
 @PluginDescriptor(
 	name = "XP Grapher",
@@ -28,8 +35,13 @@ import org.pf4j.Extension;
 	enabledByDefault = false,
 	type = PluginType.MISCELLANEOUS
 )
+@Slf4j
 public class XpGrapherPlugin extends Plugin {
 
+	private static final File SESSION_DIR = new File(RUNELITE_DIR, "xpgrapher");
+	private static final String SESSION_FILE_EXTENSION = ".dat";
+	private static final DateTimeFormatter SESSION_FILE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
+
 	@Inject
 	private Client client;
 
@@ -59,6 +71,9 @@ public class XpGrapherPlugin extends Plugin {
 
 	public boolean startMessageDisplaying = true;
 
+	private String replaySessionName = "";
+	private boolean replaying = false;
+
 	@Provides
 	XpGrapherConfig getConfig(ConfigManager configManager)
 	{
@@ -92,6 +107,9 @@ public class XpGrapherPlugin extends Plugin {
 	public void shutDown()
 	{
 		overlayManager.remove(overlay);
+		saveSession();
+		replaySessionName = "";
+		replaying = false;
 	}
 
 	private boolean isSkillCurrentlyGraphed(Skill theSkill) {
@@ -127,9 +145,29 @@ public class XpGrapherPlugin extends Plugin {
 	public void onGameTick(GameTick tick)
 	{
 
-		currentTime = System.currentTimeMillis();
 		graphWidth = config.graphWidth();
 		graphHeight = config.graphHeight();
+
+		String newReplaySessionName = config.replaySession().trim();
+		if (!newReplaySessionName.equals(replaySessionName)) {
+			replaySessionName = newReplaySessionName;
+			if (newReplaySessionName.isEmpty()) {
+				if (replaying) {
+					resetAll();
+					replaying = false;
+				}
+			} else {
+				replay(newReplaySessionName);
+			}
+		}
+
+		// A replayed session is only redrawn, in case the graph size changed
+		if (replaying) {
+			xpGraphPointManager.update();
+			return;
+		}
+
+		currentTime = System.currentTimeMillis();
 		xpDataManager.update();
 		xpGraphPointManager.update();
 
@@ -156,6 +194,7 @@ public class XpGrapherPlugin extends Plugin {
 	}
 
 	private void resetAll() {
+		saveSession();
 		xpDataManager = new XpDataManager(this);
 		xpGraphPointManager = new XpGraphPointManager(this);
 		startTime = System.currentTimeMillis();
@@ -163,6 +202,53 @@ public class XpGrapherPlugin extends Plugin {
 		tickCount = 0;
 	}
 
+	private void saveSession() {
+		if (!config.saveSessions() || replaying || xpDataManager == null || currentlyGraphedSkills.isEmpty())
+			return;
+
+		String date = SESSION_FILE_DATE_FORMAT.format(Instant.ofEpochMilli(xpDataManager.getStartTime()).atZone(ZoneId.systemDefault()));
+		File sessionFile = new File(SESSION_DIR, "session_" + date + SESSION_FILE_EXTENSION);
+
+		try {
+			SESSION_DIR.mkdirs();
+			xpDataManager.save(sessionFile);
+		} catch (IOException e) {
+			log.warn("Unable to save xp graph session {}", sessionFile, e);
+		}
+	}
+
+	private void replay(String sessionName) {
+		if (!sessionName.endsWith(SESSION_FILE_EXTENSION))
+			sessionName += SESSION_FILE_EXTENSION;
+
+		File sessionFile = new File(SESSION_DIR, sessionName);
+		XpDataManager replayDataManager;
+
+		try {
+			replayDataManager = XpDataManager.load(this, sessionFile);
+		} catch (IOException e) {
+			log.warn("Unable to load xp graph session {}", sessionFile, e);
+			return;
+		}
+
+		saveSession();
+		replaying = true;
+		xpDataManager = replayDataManager;
+		xpGraphPointManager = new XpGraphPointManager(this);
+		currentlyGraphedSkills = new ArrayList<Skill>();
+		startTime = replayDataManager.getStartTime();
+		currentTime = replayDataManager.getLastUpdateTime();
+		tickCount = replayDataManager.getTickCount();
+
+		for (int i = 0; i < skillList.length; i++) {
+			Skill skill = skillList[i];
+			if (skill != Skill.OVERALL && xpDataManager.getMostRecentXp(skill) > xpDataManager.getStartingXp(skill))
+				graphSkill(skill);
+		}
+
+		xpGraphPointManager.update();
+	}
+
 	public Client getClient() {
 		return client;
 	}
@@ -0,0 +1,137 @@
+package com.xpgrapher;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The xp of one skill at every tick of a session. The most recent ticks are kept in a fixed size ring buffer, and
+ * older ones in coarser tiers where each value is the xp at the end of a bucket of 4, 16, 64... ticks. Since xp never
+ * goes down, the end of a bucket is also its highest value and the end of the bucket before it is its lowest, so one
+ * value per bucket is all the graph needs. A tier is only added once the session outgrows the ones before it.
+ */
+public class XpSeries {
+
+    public static final int CAPACITY = 1024;
+
+    // Each tier's buckets are 4 times as large as the previous tier's
+    private static final int TIER_SHIFT = 2;
+
+    private final List<int[]> tiers = new ArrayList<int[]>();
+    private int first;
+    private int count;
+
+    public XpSeries() {
+        tiers.add(new int[CAPACITY]);
+    }
+
+    private static int bucketSize(int tier) {
+        return 1 << (tier * TIER_SHIFT);
+    }
+
+    public void add(int xp) {
+        if (count == 0)
+            first = xp;
+
+        // The coarsest tier is about to overwrite the start of the session, so the next one is built from it first
+        int coarsest = tiers.size() - 1;
+        if (count == CAPACITY * bucketSize(coarsest)) {
+            int[] source = tiers.get(coarsest);
+            int[] tier = new int[CAPACITY];
+            int merged = 1 << TIER_SHIFT;
+            for (int bucket = 0; bucket < CAPACITY / merged; bucket++)
+                tier[bucket] = source[bucket * merged + merged - 1];
+            tiers.add(tier);
+        }
+
+        for (int i = 0; i < tiers.size(); i++)
+            tiers.get(i)[(count / bucketSize(i)) % CAPACITY] = xp;
+
+        count++;
+    }
+
+    /**
+     * Returns the xp at the given tick. Ticks that have left the ring buffer are looked up in the finest tier that
+     * still has them, which gives the xp at the end of their bucket.
+     */
+    public int get(int tick) {
+        if (tick <= 0 || count == 0)
+            return first;
+        if (tick >= count - 1)
+            return getLatest();
+
+        for (int i = 0; i < tiers.size(); i++) {
+            int size = bucketSize(i);
+            int bucket = tick / size;
+            if ((count - 1) / size - bucket < CAPACITY)
+                return tiers.get(i)[bucket % CAPACITY];
+        }
+
+        return first;
+    }
+
+    public int getFirst() {
+        return first;
+    }
+
+    public int getLatest() {
+        if (count == 0)
+            return first;
+        return tiers.get(0)[(count - 1) % CAPACITY];
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(count);
+        out.writeInt(first);
+        out.writeInt(tiers.size());
+
+        for (int i = 0; i < tiers.size(); i++) {
+            int[] tier = tiers.get(i);
+            int buckets = bucketCount(i);
+            int oldest = (count - 1) / bucketSize(i) - buckets + 1;
+
+            out.writeInt(buckets);
+            for (int bucket = oldest; bucket < oldest + buckets; bucket++)
+                out.writeInt(tier[bucket % CAPACITY]);
+        }
+    }
+
+    public static XpSeries read(DataInputStream in) throws IOException {
+        XpSeries series = new XpSeries();
+        series.count = in.readInt();
+        series.first = in.readInt();
+        int tierCount = in.readInt();
+
+        if (series.count < 0 || tierCount < 1 || tierCount > 16)
+            throw new IOException("Invalid xp series");
+
+        series.tiers.clear();
+        for (int i = 0; i < tierCount; i++) {
+            int[] tier = new int[CAPACITY];
+            int buckets = in.readInt();
+
+            if (buckets != series.bucketCount(i))
+                throw new IOException("Invalid xp series tier");
+
+            int oldest = (series.count - 1) / bucketSize(i) - buckets + 1;
+            for (int bucket = oldest; bucket < oldest + buckets; bucket++)
+                tier[bucket % CAPACITY] = in.readInt();
+            series.tiers.add(tier);
+        }
+
+        return series;
+    }
+
+    private int bucketCount(int tier) {
+        if (count == 0)
+            return 0;
+        return Math.min(CAPACITY, (count - 1) / bucketSize(tier) + 1);
+    }
+
+}